@@ -3,16 +3,45 @@ package com.example.pathfinder.detection;
 import android.graphics.Bitmap;
 import android.util.Pair;
 
-import org.tensorflow.lite.support.image.TensorImage;
+import com.example.pathfinder.recording.SessionInfo;
+import com.example.pathfinder.utils.YuvFrame;
+
 import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public interface DetectorModel {
 
-    TensorImage PreProcess(Bitmap ogImg);
+    // Entrada do modelo a partir de um Bitmap (rotacionado e redimensionado), qualquer tipo de tensor
+    ByteBuffer PreProcess(Bitmap ogImg);
     List<BoundingBox> PostProcess(TensorBuffer output);
 
     Pair<Bitmap, List<BoundingBox>> Detect(Bitmap img);
 
+    // Caminho direto YUV -> tensor, sem passar por Bitmap
+    ByteBuffer PreProcess(YuvFrame frame);
+    List<BoundingBox> Detect(YuvFrame frame);
+
+    // Etapas separadas com buffers do chamador, para rodar cada uma em sua própria thread
+    ByteBuffer newInputBuffer();
+    ByteBuffer newOutputBuffer();
+    void PreProcess(YuvFrame frame, ByteBuffer input);
+    void Inference(ByteBuffer input, ByteBuffer output);
+    List<BoundingBox> PostProcess(ByteBuffer output);
+
+    // Só uma região do frame vai para o modelo; as caixas voltam em coordenadas do frame inteiro
+    void PreProcess(YuvFrame frame, ByteBuffer input, RegionOfInterest roi);
+    List<BoundingBox> PostProcess(ByteBuffer output, RegionOfInterest roi);
+
+    // Um motor por interpretador; mais de um só em CPU, para rodar frames em paralelo
+    InferenceEngine[] getInferenceEngines();
+
+    // Entrada [1, altura, largura, 3]; redimensionar invalida os buffers criados antes
+    int[] getInputShape();
+    void resizeInput(int width, int height);
+
+    // Labels, formato dos tensores e thresholds, gravados no início de uma sessão para o replay
+    void describeOutput(SessionInfo info);
+
 }
@@ -3,56 +3,124 @@ package com.example.pathfinder.detection;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Matrix;
+import android.os.Build;
 import android.util.Log;
 import android.util.Pair;
 
 import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 import org.tensorflow.lite.gpu.CompatibilityList;
 import org.tensorflow.lite.Delegate;
 import org.tensorflow.lite.DelegateFactory;
 import org.tensorflow.lite.gpu.GpuDelegate;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
 import org.tensorflow.lite.support.common.FileUtil;
-import org.tensorflow.lite.support.common.ops.CastOp;
-import org.tensorflow.lite.support.common.ops.NormalizeOp;
-import org.tensorflow.lite.support.image.ImageProcessor;
-import org.tensorflow.lite.support.image.TensorImage;
 import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
 
+import com.example.pathfinder.recording.SessionInfo;
+import com.example.pathfinder.utils.YuvFrame;
+import com.example.pathfinder.utils.YuvToTensorConverter;
+
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 public class YoloBase implements DetectorModel{
     private Interpreter interpreter = null;
+    // Interpretadores extras (só CPU) que compartilham o mesmo arquivo mapeado do modelo
+    private final List<Interpreter> extraInterpreters = new ArrayList<>();
     private List<String> modelLabels;
+    private YoloPostProcessor postProcessor;
 
     private float CONFIDENCE_THRESHOLD = 0.3f;
     private float IOU_THRESHOLD = 0.4f;
 
+    private static final String DELEGATE_CACHE_FILE = "delegate_tuning.properties";
+    private static final int TUNING_WARMUP_RUNS = 2;
+    private static final int TUNING_MEASURED_RUNS = 5;
+
+    // Buffers e metadados alocados uma vez por interpretador e reaproveitados a cada frame
+    private int[] inputShape = null;
+    private int[] outputShape = null;
+    private YuvToTensorConverter yuvConverter = null;
+    // Caminho Bitmap: pixels do bitmap redimensionado e o tensor de entrada dele
+    private int[] bitmapPixels = null;
+    private ByteBuffer bitmapInput = null;
+
+    // Tipo e quantização dos tensores, lidos do modelo (FLOAT32, UINT8 ou INT8)
+    private DataType inputType = DataType.FLOAT32;
+    private DataType outputType = DataType.FLOAT32;
+    private float inputScale = 1f;
+    private int inputZeroPoint = 0;
+    private float outputScale = 1f;
+    private int outputZeroPoint = 0;
+
+    private ByteBuffer outputBytes = null;
+    private long lastInferenceTimeNs = 0;
+
     public YoloBase(Context context, String modelPath, String labelsPath) throws IOException {
+        this(context, modelPath, labelsPath, 1, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param cpuInterpreters number of interpreters to run in parallel when the GPU delegate is not
+     *                        available; ignored on GPU devices
+     * @param threadsPerInterpreter CPU threads given to each interpreter
+     */
+    public YoloBase(Context context, String modelPath, String labelsPath,
+                    int cpuInterpreters, int threadsPerInterpreter) throws IOException {
+        this(context, modelPath, labelsPath, defaultConfig(threadsPerInterpreter), cpuInterpreters);
+    }
+
+    /**
+     * @param config where to run the model, e.g. the result of {@link #tuneDelegate}
+     * @param cpuInterpreters number of interpreters to run in parallel; only used for CPU configs
+     */
+    public YoloBase(Context context, String modelPath, String labelsPath,
+                    DelegateConfig config, int cpuInterpreters) throws IOException {
+        this(context, modelPath, loadLabels(context, labelsPath), config, cpuInterpreters);
+    }
+
+    /**
+     * @param labels class names, e.g. from {@link #loadLabels} on another thread while the
+     *               delegate is being chosen
+     */
+    public YoloBase(Context context, String modelPath, List<String> labels,
+                    DelegateConfig config, int cpuInterpreters) throws IOException {
         MappedByteBuffer modelFile = FileUtil.loadMappedFile(context, modelPath);
-        Interpreter.Options options = new Interpreter.Options();
+        Interpreter.Options options = createOptions(config, createDelegate(config));
 
-        CompatibilityList compatList = new CompatibilityList();
-        if(compatList.isDelegateSupportedOnThisDevice()){
-            // if the device has a supported GPU, add the GPU delegate
-            var delegateOptions = compatList.getBestOptionsForThisDevice();
-            options.addDelegate(new GpuDelegate(delegateOptions));
-            Log.i("YoloBase", "GPU delegate is supported and added.");
+        if (config.backend == DelegateConfig.Backend.CPU) {
+            Log.i("YoloBase", "Using CPU with " + Math.max(1, cpuInterpreters)
+                    + " interpreter(s) of " + config.numThreads + " thread(s).");
+            for (int i = 1; i < cpuInterpreters; i++) {
+                extraInterpreters.add(new Interpreter(modelFile, options));
+            }
         } else {
-            // if the GPU is not supported, use CPU
-            options.setNumThreads(Runtime.getRuntime().availableProcessors());
-            Log.i("YoloBase", "GPU delegate is not supported. Using CPU.");
+            Log.i("YoloBase", "Using " + config.backend + " delegate.");
         }
 
         this.interpreter = new Interpreter(modelFile, options);
 
+        this.modelLabels = new ArrayList<>(labels);
+        this.postProcessor = new YoloPostProcessor(modelLabels, CONFIDENCE_THRESHOLD, IOU_THRESHOLD);
+
+        allocateBuffers();
+    }
+
+    /**
+     * Reads the class names from an asset, one per line.
+     */
+    public static List<String> loadLabels(Context context, String labelsPath) throws IOException {
         List<String> labelList = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getAssets().open(labelsPath)))) {
             String line;
@@ -60,13 +128,60 @@ public class YoloBase implements DetectorModel{
                 labelList.add(line);
             }
         }
-        this.modelLabels = labelList;
+        return labelList;
     }
 
+    /**
+     * Resizes the model input and re-allocates every buffer that depends on its shape.
+     */
     @Override
-    public TensorImage PreProcess(Bitmap ogImg) {
-        var inputImageWidth = interpreter.getInputTensor(0).shape()[2];
-        var inputImageHeight = interpreter.getInputTensor(0).shape()[1];
+    public void resizeInput(int width, int height) {
+        interpreter.resizeInput(0, new int[]{1, height, width, 3});
+        interpreter.allocateTensors();
+        for (Interpreter extra : extraInterpreters) {
+            extra.resizeInput(0, new int[]{1, height, width, 3});
+            extra.allocateTensors();
+        }
+        allocateBuffers();
+    }
+
+    @Override
+    public int[] getInputShape() {
+        return inputShape;
+    }
+
+    public int[] getOutputShape() {
+        return outputShape;
+    }
+
+    public DataType getInputType() {
+        return inputType;
+    }
+
+    public DataType getOutputType() {
+        return outputType;
+    }
+
+    /**
+     * NMS used by PostProcess; can be switched to class-aware mode or given per-class thresholds.
+     */
+    public NonMaxSuppression getNms() {
+        return postProcessor.getNms();
+    }
+
+    public double getLastInferenceTimeMs() {
+        return lastInferenceTimeNs / 1_000_000.0;
+    }
+
+    /**
+     * Rotates and resizes the bitmap, then normalizes and quantizes it with the same converter
+     * as the YUV path, so FLOAT32, UINT8 and INT8 models all take Bitmap input.
+     */
+    @Override
+    public ByteBuffer PreProcess(Bitmap ogImg) {
+        ensureBuffers();
+        var inputImageWidth = inputShape[2];
+        var inputImageHeight = inputShape[1];
         Matrix matrix = new Matrix();
         matrix.postRotate(90);
         Bitmap rotated = Bitmap.createBitmap(ogImg, 0, 0,
@@ -75,133 +190,317 @@ public class YoloBase implements DetectorModel{
 
         Bitmap resizedBitmap = Bitmap.createScaledBitmap(rotated, inputImageWidth, inputImageHeight, false);
 
-        ImageProcessor imageProcessor = new ImageProcessor.Builder()
-                .add(new NormalizeOp(0f, 255f))
-                .add(new CastOp(DataType.FLOAT32))
-                .build();
-
-        TensorImage tensorImage = new TensorImage(DataType.FLOAT32);
-        tensorImage.load(resizedBitmap);
-        return imageProcessor.process(tensorImage);
+        resizedBitmap.getPixels(bitmapPixels, 0, inputImageWidth, 0, 0, inputImageWidth, inputImageHeight);
+        yuvConverter.convertArgb(bitmapPixels, bitmapInput);
+        return bitmapInput;
     }
 
     @Override
     public List<BoundingBox> PostProcess(TensorBuffer outputBuffer) {
+        ByteBuffer output = outputBuffer.getBuffer();
+        output.rewind();
+        if (outputBuffer.getDataType() == DataType.FLOAT32) {
+            return PostProcess(output.asFloatBuffer(), outputBuffer.getShape());
+        }
+        return PostProcess(output);
+    }
 
-        var array = outputBuffer.getFloatArray();
-        int numChannels = outputBuffer.getShape()[1];
-        int numElements = outputBuffer.getShape()[2];
+    /**
+     * Decodes an output tensor of shape [1, 4 + numClasses, numAnchors] in place and runs NMS.
+     * BoundingBox objects are only created for the boxes that survive.
+     */
+    public List<BoundingBox> PostProcess(FloatBuffer output, int[] shape) {
+        int numChannels = shape[1]; //Numero de canais da saida [1, 84, 8400]
+        int numAnchors = shape[2];
 
-        List<BoundingBox> boundingBoxes = new ArrayList<BoundingBox>();
+        return postProcessor.process(output, numChannels, numAnchors);
+    }
 
-        for (int j = 0; j < 8400; j++) {
-            var maxConf = CONFIDENCE_THRESHOLD; // Menor confiança admitida
-            var maxIdx = -1; //Classe com maior confiança inicializada como 'nenhuma'
-            int i = 4; //Inicializa i para percorrer as 80 classes
+    @Override
+    public Pair<Bitmap, List<BoundingBox>> Detect(Bitmap img) {
+        runInference(PreProcess(img));
+        return new Pair<>(img, PostProcess(outputBytes));
+    }
 
-            var arrayIdx = numElements * i + j; // Indice do array. 8400 * i -> 'linha correta' + j -> 'coluna correta'
+    @Override
+    public ByteBuffer PreProcess(YuvFrame frame) {
+        ensureBuffers();
+        yuvConverter.clearCrop();
+        return yuvConverter.convert(frame);
+    }
 
-            while (i < numChannels) { //Numero de canais da saida [1, 84, 8400]
-                if (array[arrayIdx] > maxConf) {
-                    maxConf = array[arrayIdx];
-                    maxIdx = i - 4; // Corrige o offset das colunas das caixas para selecionar o rotulo correto
-                }
-                i++;
-                arrayIdx += numElements; // Muda para proxima linha/proxima classe de probs
-            }
+    @Override
+    public List<BoundingBox> Detect(YuvFrame frame) {
+        ByteBuffer input = PreProcess(frame);
+        runInference(input);
+        return PostProcess(outputBytes);
+    }
 
+    @Override
+    public ByteBuffer newInputBuffer() {
+        ensureBuffers();
+        return yuvConverter.allocateOutputBuffer();
+    }
 
-            if (maxConf > CONFIDENCE_THRESHOLD) {
-                var clsName = this.modelLabels.get(maxIdx);
-                var cx = array[j]; // 0
-                var cy = array[j + numElements]; // 1
-                var w = array[j + numElements * 2];
-                var h = array[j + numElements * 3];
-                var x1 = cx - (w / 2F);
-                var y1 = cy - (h / 2F);
-                var x2 = cx + (w / 2F);
-                var y2 = cy + (h / 2F);
+    @Override
+    public ByteBuffer newOutputBuffer() {
+        ensureBuffers();
+        int elements = 1;
+        for (int dim : outputShape) elements *= dim;
+        return ByteBuffer.allocateDirect(elements * outputType.byteSize()).order(ByteOrder.nativeOrder());
+    }
 
-                //Descarta boxes que vazam das dimensoes da imagem
-                if (x1 < 0F || x1 > 1F) continue;
-                if (y1 < 0F || y1 > 1F) continue;
-                if (x2 < 0F || x2 > 1F) continue;
-                if (y2 < 0F || y2 > 1F) continue;
+    @Override
+    public void PreProcess(YuvFrame frame, ByteBuffer input) {
+        PreProcess(frame, input, RegionOfInterest.FULL_FRAME);
+    }
 
+    @Override
+    public void PreProcess(YuvFrame frame, ByteBuffer input, RegionOfInterest roi) {
+        ensureBuffers();
+        yuvConverter.setCrop(roi.left, roi.top, roi.right, roi.bottom);
+        yuvConverter.convert(frame, input);
+    }
 
-                boundingBoxes.add(new BoundingBox(x1, y1, x2, y2, cx, cy, h, w, maxConf, maxIdx, clsName));
-            }
+    @Override
+    public void Inference(ByteBuffer input, ByteBuffer output) {
+        input.rewind();
+        output.rewind(); // o interpretador escreve a partir da posição atual
+        long startTime = System.nanoTime();
+        interpreter.run(input, output);
+        lastInferenceTimeNs = System.nanoTime() - startTime;
+    }
+
+    @Override
+    public List<BoundingBox> PostProcess(ByteBuffer output, RegionOfInterest roi) {
+        List<BoundingBox> boxes = PostProcess(output);
+        for (BoundingBox box : boxes) {
+            roi.mapToFrame(box);
         }
-        return applyNMS(boundingBoxes);
+        return boxes;
     }
 
     @Override
-    public Pair<Bitmap, List<BoundingBox>> Detect(Bitmap img) {
-        TensorImage tensorImage = PreProcess(img);
-        TensorBuffer outputBuffer = TensorBuffer.createFixedSize(interpreter.getOutputTensor(0).shape(), DataType.FLOAT32);
-        long startTime = System.nanoTime();
+    public InferenceEngine[] getInferenceEngines() {
+        InferenceEngine[] engines = new InferenceEngine[1 + extraInterpreters.size()];
+        engines[0] = this::Inference;
+        for (int i = 0; i < extraInterpreters.size(); i++) {
+            Interpreter extra = extraInterpreters.get(i);
+            engines[i + 1] = (input, output) -> {
+                input.rewind();
+                output.rewind();
+                extra.run(input, output);
+            };
+        }
+        return engines;
+    }
 
-        interpreter.run(tensorImage.getBuffer(), outputBuffer.getBuffer());
-        long endTime = System.nanoTime();
-        Log.d("Performance", "Tempo de execução YOLO: " + (endTime - startTime) / 1_000_000.0 + " ms");
+    @Override
+    public void describeOutput(SessionInfo info) {
+        info.labels = new ArrayList<>(modelLabels);
+        info.tensorType = sessionTensorType(outputType);
+        info.tensorScale = outputScale;
+        info.tensorZeroPoint = outputZeroPoint;
+        info.tensorChannels = outputShape[1];
+        info.tensorAnchors = outputShape[2];
+        info.inputType = sessionTensorType(inputType);
+        info.inputWidth = inputShape[2];
+        info.inputHeight = inputShape[1];
+        info.rotationDegrees = yuvConverter.getRotationDegrees();
+        info.confidenceThreshold = CONFIDENCE_THRESHOLD;
+        info.iouThreshold = IOU_THRESHOLD;
+    }
 
+    private static int sessionTensorType(DataType type) {
+        return type == DataType.UINT8 ? SessionInfo.TENSOR_UINT8
+                : type == DataType.INT8 ? SessionInfo.TENSOR_INT8
+                : SessionInfo.TENSOR_FLOAT32;
+    }
 
-        return new Pair<>(img, PostProcess(outputBuffer));
+    @Override
+    public List<BoundingBox> PostProcess(ByteBuffer output) {
+        output.rewind(); // o interpretador deixa a posição no fim do buffer
+        if (outputType == DataType.FLOAT32) {
+            return PostProcess(output.asFloatBuffer(), outputShape);
+        }
+        // Saída quantizada: decodifica os bytes direto, sem expandir para float
+        return postProcessor.processQuantized(output, outputType == DataType.INT8, outputScale, outputZeroPoint,
+                outputShape[1], outputShape[2]);
     }
 
-    //Private methods:
-    private List<BoundingBox> applyNMS(List<BoundingBox> boxes) {
-        // Step 1: Sort boxes by confidence score in descending order.
-        boxes.sort(new Comparator<BoundingBox>() {
+    /**
+     * Benchmarks CPU thread counts, NNAPI and GPU (when supported) on this device and returns the
+     * fastest. The decision is cached per model file and device build, so only the first launch
+     * pays for the benchmark. Falls back to the previous GPU-else-CPU rule if nothing runs.
+     */
+    public static DelegateConfig tuneDelegate(Context context, String modelPath) throws IOException {
+        MappedByteBuffer modelFile = FileUtil.loadMappedFile(context, modelPath);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        List<DelegateConfig> candidates = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            candidates.add(DelegateConfig.cpu(threads));
+        }
+        candidates.add(DelegateConfig.cpu(cores));
+        if (Build.VERSION.SDK_INT >= 27) { // NNAPI 1.1, o primeiro com suporte razoável
+            candidates.add(DelegateConfig.nnapi());
+        }
+        CompatibilityList compatList = new CompatibilityList();
+        if (compatList.isDelegateSupportedOnThisDevice()) {
+            candidates.add(DelegateConfig.gpu());
+        }
+        compatList.close();
+
+        // Buffers de entrada/saída com o tamanho dos tensores do modelo
+        Interpreter probe = new Interpreter(modelFile);
+        ByteBuffer input = ByteBuffer.allocateDirect(probe.getInputTensor(0).numBytes()).order(ByteOrder.nativeOrder());
+        ByteBuffer output = ByteBuffer.allocateDirect(probe.getOutputTensor(0).numBytes()).order(ByteOrder.nativeOrder());
+        probe.close();
+
+        String key = modelPath + "|" + modelFile.capacity() + "|" + Build.FINGERPRINT;
+        DelegateTuner tuner = new DelegateTuner(new File(context.getFilesDir(), DELEGATE_CACHE_FILE),
+                TUNING_WARMUP_RUNS, TUNING_MEASURED_RUNS);
+        DelegateTuner.Result result = tuner.select(key, candidates, new DelegateTuner.EngineFactory() {
             @Override
-            public int compare(BoundingBox o1, BoundingBox o2) {
-                return Float.compare(o2.cnf, o1.cnf);
+            public InferenceEngine open(DelegateConfig config) {
+                return new TuningEngine(modelFile, config);
             }
-        });
-
-        List<BoundingBox> selectedBoxes = new ArrayList<>();
-
-        // Step 2: Loop while there are boxes to process.
-        while (!boxes.isEmpty()) {
-            // Step 3: Select the box with the highest confidence.
-            BoundingBox first = boxes.get(0);
-            selectedBoxes.add(first);
-            boxes.remove(0);
-
-            // Step 4: Iterate through the remaining boxes and remove ones that overlap significantly.
-            Iterator<BoundingBox> iterator = boxes.iterator();
-            while (iterator.hasNext()) {
-                BoundingBox nextBox = iterator.next();
-                // Calculate the Intersection over Union (IoU).
-                float iou = calculateIoU(first, nextBox);
-                // If IoU is greater than the threshold, remove the box.
-                if (iou >= IOU_THRESHOLD) {
-                    iterator.remove();
-                }
+
+            @Override
+            public void close(InferenceEngine engine) {
+                ((TuningEngine) engine).close();
             }
+        }, input, output);
+
+        if (result == null) {
+            Log.w("YoloBase", "Delegate tuning failed for every candidate, using default");
+            return defaultConfig(cores);
         }
+        if (result.fromCache) {
+            Log.i("YoloBase", "Delegate from cache: " + result.config);
+        } else {
+            double[] times = tuner.getLastTimesMs();
+            for (int i = 0; i < candidates.size(); i++) {
+                Log.i("YoloBase", String.format("Delegate %s: %.1f ms", candidates.get(i), times[i]));
+            }
+            Log.i("YoloBase", "Delegate selected: " + result.config);
+        }
+        return result.config;
+    }
 
-        return selectedBoxes;
+    //Private methods:
+    private static DelegateConfig defaultConfig(int cpuThreads) {
+        CompatibilityList compatList = new CompatibilityList();
+        boolean gpuSupported = compatList.isDelegateSupportedOnThisDevice();
+        compatList.close();
+        return gpuSupported ? DelegateConfig.gpu() : DelegateConfig.cpu(cpuThreads);
+    }
+
+    // Null para CPU
+    private static Delegate createDelegate(DelegateConfig config) {
+        switch (config.backend) {
+            case GPU:
+                CompatibilityList compatList = new CompatibilityList();
+                var delegateOptions = compatList.getBestOptionsForThisDevice();
+                compatList.close();
+                return new GpuDelegate(delegateOptions);
+            case NNAPI:
+                return new NnApiDelegate();
+            default:
+                return null;
+        }
     }
 
-    private float calculateIoU(BoundingBox box1, BoundingBox box2) {
-        float xA = Math.max(box1.x1, box2.x1);
-        float yA = Math.max(box1.y1, box2.y1);
-        float xB = Math.min(box1.x2, box2.x2);
-        float yB = Math.min(box1.y2, box2.y2);
+    private static Interpreter.Options createOptions(DelegateConfig config, Delegate delegate) {
+        Interpreter.Options options = new Interpreter.Options();
+        if (delegate != null) {
+            options.addDelegate(delegate);
+        } else {
+            options.setNumThreads(config.numThreads);
+        }
+        return options;
+    }
+
+    // Interpretador temporário usado só durante o benchmark de delegates
+    private static final class TuningEngine implements InferenceEngine {
+        private final Interpreter interpreter;
+        private final Delegate delegate;
+
+        TuningEngine(MappedByteBuffer modelFile, DelegateConfig config) {
+            delegate = createDelegate(config);
+            interpreter = new Interpreter(modelFile, createOptions(config, delegate));
+        }
 
-        // Calculate the area of the intersection rectangle.
-        float interArea = Math.max(0, xB - xA) * Math.max(0, yB - yA);
+        @Override
+        public void run(ByteBuffer input, ByteBuffer output) {
+            input.rewind();
+            output.rewind();
+            interpreter.run(input, output);
+        }
 
-        // Calculate the area of both bounding boxes.
-        float box1Area = (box1.x2 - box1.x1) * (box1.y2 - box1.y1);
-        float box2Area = (box2.x2 - box2.x1) * (box2.y2 - box2.y1);
+        void close() {
+            interpreter.close();
+            if (delegate != null) {
+                try {
+                    delegate.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
 
-        // Calculate the area of the union.
-        float unionArea = box1Area + box2Area - interArea;
+    private void runInference(ByteBuffer input) {
+        Inference(input, outputBytes);
+    }
 
-        // Compute the IoU. Return 0 if unionArea is 0 to avoid division by zero.
-        return unionArea > 0 ? interArea / unionArea : 0;
+    // Realoca apenas se o formato dos tensores mudou (ex.: resizeInput chamado por fora)
+    private void ensureBuffers() {
+        if (!Arrays.equals(inputShape, interpreter.getInputTensor(0).shape())
+                || !Arrays.equals(outputShape, interpreter.getOutputTensor(0).shape())) {
+            allocateBuffers();
+        }
+    }
+
+    private void allocateBuffers() {
+        Tensor inputTensor = interpreter.getInputTensor(0);
+        Tensor outputTensor = interpreter.getOutputTensor(0);
+        inputShape = inputTensor.shape().clone();
+        outputShape = outputTensor.shape().clone();
+        var inputImageWidth = inputShape[2];
+        var inputImageHeight = inputShape[1];
+
+        inputType = checkSupported(inputTensor.dataType(), "input");
+        outputType = checkSupported(outputTensor.dataType(), "output");
+        Tensor.QuantizationParams inputParams = inputTensor.quantizationParams();
+        Tensor.QuantizationParams outputParams = outputTensor.quantizationParams();
+        // Tensor inteiro sem parâmetros (escala 0): valores crus de pixel 0..255
+        inputScale = inputParams.getScale() != 0f ? inputParams.getScale() : 1f / 255f;
+        inputZeroPoint = inputParams.getScale() != 0f ? inputParams.getZeroPoint() : 0;
+        outputScale = outputParams.getScale() != 0f ? outputParams.getScale() : 1f;
+        outputZeroPoint = outputParams.getScale() != 0f ? outputParams.getZeroPoint() : 0;
+
+        outputBytes = newOutputBuffer();
+
+        // Same rotation and nearest-neighbour resize as the Bitmap path, normalized to 0..1
+        YuvToTensorConverter.OutputType converterType = inputType == DataType.UINT8
+                ? YuvToTensorConverter.OutputType.UINT8
+                : inputType == DataType.INT8 ? YuvToTensorConverter.OutputType.INT8
+                : YuvToTensorConverter.OutputType.FLOAT32;
+        yuvConverter = new YuvToTensorConverter(inputImageWidth, inputImageHeight, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f,
+                converterType, inputScale, inputZeroPoint);
+        bitmapPixels = new int[inputImageWidth * inputImageHeight];
+        bitmapInput = yuvConverter.allocateOutputBuffer();
+
+        Log.i("YoloBase", "Buffers allocated for input " + Arrays.toString(inputShape) + " " + inputType
+                + " and output " + Arrays.toString(outputShape) + " " + outputType);
+    }
+
+    private static DataType checkSupported(DataType type, String tensor) {
+        if (type != DataType.FLOAT32 && type != DataType.UINT8 && type != DataType.INT8) {
+            throw new IllegalStateException("Unsupported " + tensor + " tensor type: " + type);
+        }
+        return type;
     }
 
 }
@@ -2,12 +2,29 @@ package com.example.pathfinder.detection;
 
 import android.content.Context;
 import java.io.IOException;
+import java.util.List;
 
 public class YoloNano extends YoloBase{
-    static final String MODEL_PATH = "yolo11n_float32.tflite";
+    public static final String MODEL_PATH = "yolo11n_float32.tflite";
     static final String LABELS_PATH = "labels.txt";
     public YoloNano(Context context) throws IOException {
         super(context, MODEL_PATH, LABELS_PATH);
     }
 
+    public YoloNano(Context context, int cpuInterpreters, int threadsPerInterpreter) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, cpuInterpreters, threadsPerInterpreter);
+    }
+
+    public YoloNano(Context context, DelegateConfig config, int cpuInterpreters) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, config, cpuInterpreters);
+    }
+
+    public YoloNano(Context context, DelegateConfig config, int cpuInterpreters, List<String> labels) throws IOException {
+        super(context, MODEL_PATH, labels, config, cpuInterpreters);
+    }
+
+    public static List<String> loadLabels(Context context) throws IOException {
+        return loadLabels(context, LABELS_PATH);
+    }
+
 }
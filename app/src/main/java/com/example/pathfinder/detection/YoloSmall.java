@@ -28,11 +28,19 @@ import java.util.Iterator;
 import java.util.List;
 
 public class YoloSmall extends YoloBase {
-    static final String MODEL_PATH = "yolo11s_float32.tflite";
+    public static final String MODEL_PATH = "yolo11s_float32.tflite";
     static final String LABELS_PATH = "labels.txt";
 
     public YoloSmall(Context context) throws IOException {
         super(context, MODEL_PATH, LABELS_PATH);
     }
 
+    public YoloSmall(Context context, int cpuInterpreters, int threadsPerInterpreter) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, cpuInterpreters, threadsPerInterpreter);
+    }
+
+    public YoloSmall(Context context, DelegateConfig config, int cpuInterpreters) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, config, cpuInterpreters);
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.example.pathfinder.detection;
+
+import android.content.Context;
+import java.io.IOException;
+
+// Mesma rede do YoloSmall quantizada em INT8: menos memória e inferência mais rápida em CPU
+public class YoloSmallInt8 extends YoloBase{
+    public static final String MODEL_PATH = "yolo11s_int8.tflite";
+    static final String LABELS_PATH = "labels.txt";
+    public YoloSmallInt8(Context context) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH);
+    }
+
+    public YoloSmallInt8(Context context, int cpuInterpreters, int threadsPerInterpreter) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, cpuInterpreters, threadsPerInterpreter);
+    }
+
+    public YoloSmallInt8(Context context, DelegateConfig config, int cpuInterpreters) throws IOException {
+        super(context, MODEL_PATH, LABELS_PATH, config, cpuInterpreters);
+    }
+
+}
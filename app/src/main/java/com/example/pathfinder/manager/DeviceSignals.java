@@ -0,0 +1,140 @@
+package com.example.pathfinder.manager;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+/**
+ * {@link GovernorSignals} from the device: thermal status listener (API 29+), thermal headroom
+ * (API 30+), the sticky battery broadcast and onTrimMemory. Everything is cached as it arrives,
+ * so polling is cheap; only the headroom is fetched on demand, at most every
+ * {@link #HEADROOM_POLL_NS}, since the platform rate-limits it.
+ */
+public class DeviceSignals implements GovernorSignals, ComponentCallbacks2 {
+    private static final String TAG = "DeviceSignals";
+    private static final long HEADROOM_POLL_NS = 2_000_000_000L;
+    private static final int HEADROOM_FORECAST_S = 10;
+
+    private final Context context;
+    private final PowerManager powerManager;
+    private final PowerManager.OnThermalStatusChangedListener thermalListener;
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updateBattery(intent);
+        }
+    };
+
+    private volatile int thermalStatus = THERMAL_UNKNOWN;
+    private volatile float batteryLevel = Float.NaN;
+    private volatile boolean charging = false;
+    private volatile int trimLevel = 0;
+    private volatile long trimTimeNs = 0;
+
+    // Só a thread que consulta os sinais
+    private float headroom = Float.NaN;
+    private long lastHeadroomPollNs = 0;
+
+    public DeviceSignals(Context context) {
+        this.context = context.getApplicationContext();
+        powerManager = (PowerManager) this.context.getSystemService(Context.POWER_SERVICE);
+
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            thermalListener = status -> thermalStatus = status;
+            powerManager.addThermalStatusListener(this.context.getMainExecutor(), thermalListener);
+        } else {
+            thermalListener = null;
+        }
+        // Broadcast fixo: o retorno já traz o estado atual
+        updateBattery(this.context.registerReceiver(batteryReceiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED)));
+        this.context.registerComponentCallbacks(this);
+    }
+
+    public void close() {
+        if (thermalListener != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+        }
+        try {
+            context.unregisterReceiver(batteryReceiver);
+        } catch (IllegalArgumentException ignored) {
+            // não estava registrado
+        }
+        context.unregisterComponentCallbacks(this);
+    }
+
+    @Override
+    public int getThermalStatus() {
+        return thermalStatus;
+    }
+
+    @Override
+    public float getThermalHeadroom() {
+        if (powerManager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return Float.NaN;
+        long now = System.nanoTime();
+        if (lastHeadroomPollNs == 0 || now - lastHeadroomPollNs >= HEADROOM_POLL_NS) {
+            lastHeadroomPollNs = now;
+            float value = powerManager.getThermalHeadroom(HEADROOM_FORECAST_S);
+            // NaN quando chamado cedo demais ou sem dado; fica com o último valor
+            if (!Float.isNaN(value)) headroom = value;
+        }
+        return headroom;
+    }
+
+    @Override
+    public float getBatteryLevel() {
+        return batteryLevel;
+    }
+
+    @Override
+    public boolean isCharging() {
+        return charging;
+    }
+
+    @Override
+    public boolean isPowerSaveMode() {
+        return powerManager != null && powerManager.isPowerSaveMode();
+    }
+
+    @Override
+    public int getTrimMemoryLevel() {
+        return trimLevel;
+    }
+
+    @Override
+    public long getTrimMemoryTimeNs() {
+        return trimTimeNs;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        Log.i(TAG, "onTrimMemory " + level);
+        trimTimeNs = System.nanoTime();
+        trimLevel = level;
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private void updateBattery(Intent intent) {
+        if (intent == null) return;
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        batteryLevel = level >= 0 && scale > 0 ? (float) level / scale : Float.NaN;
+        charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+    }
+}
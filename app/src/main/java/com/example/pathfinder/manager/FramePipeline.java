@@ -0,0 +1,563 @@
+package com.example.pathfinder.manager;
+
+import android.util.Log;
+
+import com.example.pathfinder.detection.DetectorModel;
+import com.example.pathfinder.detection.InferenceEngine;
+import com.example.pathfinder.detection.InterpreterPool;
+import com.example.pathfinder.detection.RegionOfInterest;
+import com.example.pathfinder.metrics.MetricsRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs detection off the render thread:
+ * <pre>
+ * GL thread (capture) -> [queue] -> conversion -> [queue] -> inference -> [queue] -> post-processing -> result
+ * </pre>
+ * Each stage has its own worker, so frame N+1 is converted while frame N is in the interpreter.
+ * The queues keep only the newest frames: when a stage falls behind, the oldest waiting frame is
+ * dropped and counted. Frames and tensor buffers come from fixed pools, so the steady state does
+ * not allocate them.
+ * <p>
+ * When the detector has more than one interpreter (CPU-only devices), the inference stage hands
+ * frames to an {@link InterpreterPool} instead of running them itself; the pool delivers them to
+ * post-processing in sequence order.
+ * <p>
+ * In corridor mode most frames only send the central corridor of the image to the model, at up to
+ * the camera's native resolution, and every {@code fullFrameInterval}-th frame sends the whole
+ * frame. Boxes always come out in full-frame coordinates.
+ * <p>
+ * Stage latencies (pre-processing, inference, post-processing) and dropped frames go to a
+ * {@link MetricsRegistry}.
+ * <p>
+ * Under thermal or memory pressure the pipeline can be scaled down at runtime: fewer parallel
+ * interpreters ({@link #setInterpreterLimit}), fewer pooled frames ({@link #setFramePoolFraction})
+ * and a smaller model input ({@link #resizeInput}).
+ */
+public class FramePipeline {
+    private static final String TAG = "FramePipeline";
+
+    public static final int QUEUE_CONVERT = 0;
+    public static final int QUEUE_INFERENCE = 1;
+    public static final int QUEUE_POSTPROCESS = 2;
+    public static final int STAGE_COUNT = 3;
+
+    private static final int QUEUE_CAPACITY = 1;
+    // Cada etapa segura um frame, cada fila QUEUE_CAPACITY, mais captura, resultado pronto e consumidor
+    private static final int FRAME_POOL_SIZE = STAGE_COUNT * (QUEUE_CAPACITY + 1) + 3;
+    // Tensores só existem entre conversão e inferência (entrada) e entre inferência e pós-processamento (saída)
+    private static final int TENSOR_POOL_SIZE = QUEUE_CAPACITY + 2;
+    // Com menos que isto as etapas ficam sem frame para trabalhar em paralelo
+    private static final int MIN_FRAME_POOL_SIZE = STAGE_COUNT + 1;
+    private static final long RESIZE_TIMEOUT_MS = 2000;
+
+    private final DetectorModel detector;
+    private final Executor executor;
+    private final MetricsRegistry metrics;
+    // Null when the detector has a single interpreter
+    private final InterpreterPool<PipelineFrame> interpreterPool;
+
+    private final FrameQueue<PipelineFrame>[] queues;
+    private final ArrayBlockingQueue<PipelineFrame> framePool;
+    private final ArrayBlockingQueue<ByteBuffer> inputPool;
+    private final ArrayBlockingQueue<ByteBuffer> outputPool;
+    private final AtomicReference<PipelineFrame> latestResult = new AtomicReference<>();
+    private final int framePoolSize;
+    private final int tensorPoolSize;
+    // Frames existentes (no pool ou em uso) e quantos devem existir; release descarta o excesso
+    private final AtomicInteger framesAllocated = new AtomicInteger();
+    private volatile int frameTarget;
+    // Laços de etapa ainda rodando, para saber quando o pipeline parou de fato
+    private final AtomicInteger activeStages = new AtomicInteger();
+
+    private final int nativeInputWidth;
+    private final int nativeInputHeight;
+
+    public static final RegionOfInterest DEFAULT_CORRIDOR = RegionOfInterest.centered(0.5f, 0.6f);
+    public static final int DEFAULT_FULL_FRAME_INTERVAL = 3;
+
+    // Null quando o modo corredor está desligado
+    private volatile RegionOfInterest corridor = null;
+    private volatile int fullFrameInterval = DEFAULT_FULL_FRAME_INTERVAL;
+
+    // Gravação de sessão: cada resultado leva uma cópia do tensor de saída
+    private volatile boolean recordOutputs = false;
+
+    private final AtomicLong captureDrops = new AtomicLong();
+    private final AtomicLong staleResults = new AtomicLong();
+    private final AtomicLong stageErrors = new AtomicLong();
+    private long nextSequence = 0;
+
+    private volatile boolean running = false;
+
+    public FramePipeline(DetectorModel detector, Executor executor) {
+        this(detector, executor, new MetricsRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    public FramePipeline(DetectorModel detector, Executor executor, MetricsRegistry metrics) {
+        this.detector = detector;
+        this.executor = executor;
+        this.metrics = metrics;
+
+        InferenceEngine[] engines = detector.getInferenceEngines();
+        interpreterPool = engines.length > 1 ? new InterpreterPool<>(engines, this::onInferenceDone) : null;
+        // O pool segura até capacity() frames na inferência, em vez de um
+        int extraInFlight = interpreterPool != null ? interpreterPool.capacity() - 1 : 0;
+        framePoolSize = FRAME_POOL_SIZE + extraInFlight;
+        tensorPoolSize = TENSOR_POOL_SIZE + extraInFlight;
+        frameTarget = framePoolSize;
+        framesAllocated.set(framePoolSize);
+        framePool = new ArrayBlockingQueue<>(framePoolSize);
+        inputPool = new ArrayBlockingQueue<>(tensorPoolSize);
+        outputPool = new ArrayBlockingQueue<>(tensorPoolSize);
+
+        queues = new FrameQueue[STAGE_COUNT];
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            queues[i] = new FrameQueue<>(QUEUE_CAPACITY);
+        }
+        for (int i = 0; i < framePoolSize; i++) {
+            framePool.add(new PipelineFrame());
+        }
+        for (int i = 0; i < tensorPoolSize; i++) {
+            inputPool.add(detector.newInputBuffer());
+            outputPool.add(detector.newOutputBuffer());
+        }
+        int[] shape = detector.getInputShape();
+        nativeInputWidth = shape[2];
+        nativeInputHeight = shape[1];
+    }
+
+    /**
+     * Runs every interpreter once on a blank input from the tensor pools, so the first camera
+     * frame does not pay for delegate setup and first-run allocations. Call before {@link #start}.
+     * @return time taken, in nanoseconds
+     */
+    public synchronized long warmUp() {
+        long start = System.nanoTime();
+        ByteBuffer input = inputPool.poll();
+        ByteBuffer output = outputPool.poll();
+        try {
+            for (InferenceEngine engine : detector.getInferenceEngines()) {
+                engine.run(input, output);
+            }
+        } finally {
+            inputPool.offer(input);
+            outputPool.offer(output);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        launch(() -> runStage(QUEUE_CONVERT, this::convert));
+        if (interpreterPool != null) {
+            launch(this::runPooledInference);
+        } else {
+            launch(() -> runStage(QUEUE_INFERENCE, this::infer));
+        }
+        launch(() -> runStage(QUEUE_POSTPROCESS, this::postProcess));
+        Log.i(TAG, "Pipeline started" + (interpreterPool != null
+                ? " with " + interpreterPool.size() + " interpreters" : ""));
+    }
+
+    public synchronized void stop() {
+        running = false;
+    }
+
+    private void launch(Runnable loop) {
+        activeStages.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                loop.run();
+            } finally {
+                activeStages.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Stops the pipeline for good and releases the interpreter pool threads.
+     */
+    public synchronized void close() {
+        stop();
+        if (interpreterPool != null) {
+            interpreterPool.close();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Enables corridor mode: frames are cropped to {@code corridor}, except one in every
+     * {@code fullFrameInterval} which covers the whole frame. Null disables it.
+     */
+    public void setCorridorMode(RegionOfInterest corridor, int fullFrameInterval) {
+        this.fullFrameInterval = Math.max(1, fullFrameInterval);
+        this.corridor = corridor;
+    }
+
+    public boolean isCorridorMode() {
+        return corridor != null;
+    }
+
+    /**
+     * When enabled, results carry a copy of the raw output tensor in
+     * {@link PipelineFrame#recordedOutput}, taken before post-processing.
+     */
+    public void setRecordOutputs(boolean enabled) {
+        recordOutputs = enabled;
+    }
+
+    /**
+     * GL thread. Returns a free frame to capture into, or null if every frame is in flight.
+     */
+    public PipelineFrame obtainFrame() {
+        PipelineFrame frame = framePool.poll();
+        if (frame == null) {
+            captureDrops.incrementAndGet();
+            metrics.markDroppedFrame();
+            return null;
+        }
+        frame.reset();
+        frame.sequence = nextSequence++;
+        frame.captureTimeNs = System.nanoTime();
+        RegionOfInterest corridor = this.corridor;
+        if (corridor != null && frame.sequence % fullFrameInterval != 0) {
+            frame.roi = corridor;
+        }
+        return frame;
+    }
+
+    /**
+     * GL thread. Hands a captured frame over to the conversion stage.
+     */
+    public void submit(PipelineFrame frame) {
+        handOff(QUEUE_CONVERT, frame);
+    }
+
+    /**
+     * Returns the newest finished frame, or null if nothing new is ready. The caller must
+     * {@link #release} it when done.
+     */
+    public PipelineFrame pollResult() {
+        return latestResult.getAndSet(null);
+    }
+
+    public void release(PipelineFrame frame) {
+        if (frame == null) return;
+        releaseInput(frame);
+        releaseOutput(frame);
+        frame.boxes = null;
+        if (!retireFrame()) {
+            framePool.offer(frame);
+        }
+    }
+
+    // --- Redução sob pressão ---
+
+    /**
+     * Limits how many interpreters of the pool run in parallel; ignored with a single interpreter.
+     */
+    public void setInterpreterLimit(int interpreters) {
+        if (interpreterPool != null) {
+            interpreterPool.setActiveEngines(interpreters > 0 ? interpreters : interpreterPool.size());
+        }
+    }
+
+    /**
+     * Keeps only {@code fraction} of the frame pool. Idle frames are dropped at once and frames in
+     * flight when they come back; growing again allocates new ones.
+     */
+    public void setFramePoolFraction(float fraction) {
+        int target = Math.max(MIN_FRAME_POOL_SIZE, Math.min(framePoolSize, Math.round(framePoolSize * fraction)));
+        frameTarget = target;
+        while (framesAllocated.get() > target) {
+            PipelineFrame idle = framePool.poll();
+            if (idle == null) break;
+            if (!retireFrame()) {
+                framePool.offer(idle);
+                break;
+            }
+        }
+        while (framesAllocated.get() < frameTarget) {
+            framesAllocated.incrementAndGet();
+            framePool.offer(new PipelineFrame());
+        }
+    }
+
+    /**
+     * Frames currently allocated, in the pool or in flight.
+     */
+    public int getFramePoolSize() {
+        return framesAllocated.get();
+    }
+
+    public int getNativeInputWidth() {
+        return nativeInputWidth;
+    }
+
+    public int getNativeInputHeight() {
+        return nativeInputHeight;
+    }
+
+    /**
+     * Changes the model input size. The stages are stopped and drained first, since every pooled
+     * tensor has to be re-allocated, and restarted afterwards; this blocks for a few frames. Not
+     * done while outputs are recorded, as the session header describes a single tensor shape.
+     * @return false if the size was left unchanged
+     */
+    public synchronized boolean resizeInput(int width, int height) {
+        int[] shape = detector.getInputShape().clone();
+        if (shape[2] == width && shape[1] == height) return true;
+        if (recordOutputs) return false;
+
+        boolean wasRunning = running;
+        running = false;
+        try {
+            if (!awaitStagesIdle()) {
+                Log.w(TAG, "Interpreters still busy, keeping input at " + shape[2] + "x" + shape[1]);
+                return false;
+            }
+            for (FrameQueue<PipelineFrame> queue : queues) {
+                PipelineFrame pending;
+                while ((pending = queue.poll()) != null) {
+                    release(pending);
+                }
+            }
+            try {
+                detector.resizeInput(width, height);
+            } catch (RuntimeException e) {
+                // Modelo com formato fixo, ou delegate que não aceita: volta ao tamanho anterior
+                Log.e(TAG, "Could not resize input to " + width + "x" + height + ": " + e.getMessage());
+                detector.resizeInput(shape[2], shape[1]);
+                return false;
+            }
+            // Todos os tensores voltaram aos pools ao esvaziar as filas
+            inputPool.clear();
+            outputPool.clear();
+            for (int i = 0; i < tensorPoolSize; i++) {
+                inputPool.add(detector.newInputBuffer());
+                outputPool.add(detector.newOutputBuffer());
+            }
+            Log.i(TAG, "Model input resized to " + width + "x" + height);
+            return true;
+        } finally {
+            if (wasRunning) start();
+        }
+    }
+
+    // Espera os laços das etapas saírem e o pool de interpretadores entregar o que tinha
+    private boolean awaitStagesIdle() {
+        long deadline = System.nanoTime() + RESIZE_TIMEOUT_MS * 1_000_000L;
+        boolean interrupted = false;
+        // Os laços sempre saem (take espera no máximo 50 ms); só o pool pode demorar de verdade
+        while (activeStages.get() > 0
+                || (interpreterPool != null && !interpreterPool.isIdle() && System.nanoTime() < deadline)) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return interpreterPool == null || interpreterPool.isIdle();
+    }
+
+    // Descarta um frame em vez de devolvê-lo ao pool enquanto houver mais que frameTarget
+    private boolean retireFrame() {
+        int allocated;
+        do {
+            allocated = framesAllocated.get();
+            if (allocated <= frameTarget) return false;
+        } while (!framesAllocated.compareAndSet(allocated, allocated - 1));
+        return true;
+    }
+
+    // --- Etapas ---
+
+    private boolean convert(PipelineFrame frame) {
+        frame.input = inputPool.poll();
+        if (frame.input == null) return false;
+        long start = System.nanoTime();
+        detector.PreProcess(frame.yuv, frame.input, frame.roi);
+        frame.convertDoneNs = metrics.recordSince(MetricsRegistry.Stage.PREPROCESS, start);
+        return true;
+    }
+
+    private boolean infer(PipelineFrame frame) {
+        frame.output = outputPool.poll();
+        if (frame.output == null) return false;
+        frame.inferenceStartNs = System.nanoTime();
+        detector.Inference(frame.input, frame.output);
+        releaseInput(frame);
+        frame.inferenceDoneNs = metrics.recordSince(MetricsRegistry.Stage.INFERENCE, frame.inferenceStartNs);
+        return true;
+    }
+
+    // Com pool: esta thread só despacha; o pool chama onInferenceDone em ordem de sequência
+    private void runPooledInference() {
+        FrameQueue<PipelineFrame> in = queues[QUEUE_INFERENCE];
+        while (running) {
+            PipelineFrame frame = in.take();
+            if (frame == null) continue;
+
+            frame.output = outputPool.poll();
+            boolean submitted = false;
+            if (frame.output != null) {
+                // Inclui a espera por um interpretador livre
+                frame.inferenceStartNs = System.nanoTime();
+                try {
+                    submitted = interpreterPool.submit(frame, frame.input, frame.output);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!submitted) {
+                release(frame);
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+        }
+        PipelineFrame pending;
+        while ((pending = in.poll()) != null) {
+            release(pending);
+        }
+    }
+
+    private void onInferenceDone(PipelineFrame frame, ByteBuffer input, ByteBuffer output, boolean success) {
+        if (!success) {
+            Log.e(TAG, "Pooled inference failed for frame " + frame.sequence);
+            stageErrors.incrementAndGet();
+            release(frame);
+            return;
+        }
+        releaseInput(frame);
+        frame.inferenceDoneNs = metrics.recordSince(MetricsRegistry.Stage.INFERENCE, frame.inferenceStartNs);
+        handOff(QUEUE_POSTPROCESS, frame);
+    }
+
+    private boolean postProcess(PipelineFrame frame) {
+        long start = System.nanoTime();
+        if (recordOutputs) {
+            frame.copyOutput();
+        }
+        frame.boxes = detector.PostProcess(frame.output, frame.roi);
+        releaseOutput(frame);
+        frame.postProcessDoneNs = metrics.recordSince(MetricsRegistry.Stage.POSTPROCESS, start);
+        return true;
+    }
+
+    private interface Stage {
+        boolean process(PipelineFrame frame);
+    }
+
+    private void runStage(int queueIndex, Stage stage) {
+        FrameQueue<PipelineFrame> in = queues[queueIndex];
+        while (running) {
+            PipelineFrame frame = in.take();
+            if (frame == null) continue;
+
+            boolean done;
+            try {
+                done = stage.process(frame);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Stage " + queueIndex + " failed: " + e.getMessage());
+                stageErrors.incrementAndGet();
+                done = false;
+            }
+
+            if (!done) {
+                release(frame);
+            } else if (queueIndex + 1 < STAGE_COUNT) {
+                handOff(queueIndex + 1, frame);
+            } else {
+                publish(frame);
+            }
+        }
+        // Devolve o que ficou na fila ao parar
+        PipelineFrame pending;
+        while ((pending = in.poll()) != null) {
+            release(pending);
+        }
+    }
+
+    private void handOff(int queueIndex, PipelineFrame frame) {
+        PipelineFrame dropped = queues[queueIndex].offer(frame);
+        if (dropped != null) {
+            metrics.markDroppedFrame();
+            release(dropped);
+        }
+    }
+
+    private void publish(PipelineFrame frame) {
+        PipelineFrame previous = latestResult.getAndSet(frame);
+        if (previous != null) {
+            // The consumer did not pick up the previous result in time
+            staleResults.incrementAndGet();
+            release(previous);
+        }
+    }
+
+    private void releaseInput(PipelineFrame frame) {
+        if (frame.input != null) {
+            inputPool.offer(frame.input);
+            frame.input = null;
+        }
+    }
+
+    private void releaseOutput(PipelineFrame frame) {
+        if (frame.output != null) {
+            outputPool.offer(frame.output);
+            frame.output = null;
+        }
+    }
+
+    // --- Métricas ---
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Frames dropped anywhere in the pipeline: no free frame at capture or evicted from a queue.
+     */
+    public long getDroppedFrames() {
+        long total = captureDrops.get();
+        for (FrameQueue<PipelineFrame> queue : queues) {
+            total += queue.getDroppedCount();
+        }
+        return total;
+    }
+
+    public long getDroppedFrames(int queueIndex) {
+        return queues[queueIndex].getDroppedCount();
+    }
+
+    public int getQueueDepth(int queueIndex) {
+        return queues[queueIndex].size();
+    }
+
+    public long getStaleResults() {
+        return staleResults.get();
+    }
+
+    public long getStageErrors() {
+        return stageErrors.get();
+    }
+
+    /**
+     * Number of interpreters running inference in parallel (1 without a pool).
+     */
+    public int getInferenceParallelism() {
+        return interpreterPool != null ? interpreterPool.size() : 1;
+    }
+}
@@ -2,34 +2,56 @@ package com.example.pathfinder.manager;
 
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.media.Image;
-import android.os.Handler;
-import android.os.Looper;
-import android.se.omapi.Session;
 import android.util.Log;
 import android.util.Pair;
 
-import androidx.camera.core.impl.Config;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.pathfinder.detection.BoundingBox;
 import com.example.pathfinder.detection.DetectorModel;
+import com.example.pathfinder.metrics.MetricsRegistry;
+import com.example.pathfinder.metrics.StartupMilestones;
+import com.example.pathfinder.navigation.OccupancyGrid;
+import com.example.pathfinder.navigation.PathPlanner;
+import com.example.pathfinder.navigation.PathSuggestion;
+import com.example.pathfinder.recording.SessionInfo;
 import com.example.pathfinder.risk.RiskAnalyzer;
 import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskEvaluator;
 import com.example.pathfinder.slam.ARCoreDistanceCalculation;
+import com.example.pathfinder.slam.BoxProjection;
+import com.example.pathfinder.slam.DepthSampler;
+import com.example.pathfinder.slam.HitTestCache;
+import com.example.pathfinder.slam.InferenceGate;
+import com.example.pathfinder.slam.WallIndex;
+import com.example.pathfinder.tracking.ObjectTracker;
 import com.example.pathfinder.tts.TTS;
 import com.example.pathfinder.tts.TTSMessage;
+import com.example.pathfinder.tts.ToneAlerter;
 import com.example.pathfinder.ui.OverlayView;
 import com.example.pathfinder.utils.ImageUtils;
+import com.google.ar.core.Camera;
+import com.google.ar.core.Config;
 import com.google.ar.core.Frame;
+import com.google.ar.core.Pose;
+import com.google.ar.core.Session;
 import com.google.ar.core.TrackingFailureReason;
+import com.google.ar.core.TrackingState;
+import com.google.ar.core.exceptions.NotYetAvailableException;
 import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.ux.ArFragment;
 
 import com.example.pathfinder.risk.RiskLevel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Manager {
     private final DetectorModel detector;
@@ -39,30 +61,147 @@ public class Manager {
 
     private final ArFragment arFragment;
 
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
-
-    private boolean isProcessing = false;
-
     private boolean shouldProcess = false;
     private final MutableLiveData<Boolean> shouldAlert = new MutableLiveData<>(true);
     private final MutableLiveData<Boolean> showMetricsOnScreen = new MutableLiveData<>(false);
-    private final MutableLiveData<Float> FPS = new MutableLiveData<>(0f);
-    private final MutableLiveData<Float> latency = new MutableLiveData<>(0f);
+    private final MutableLiveData<MetricsRegistry.Snapshot> metricsSnapshot = new MutableLiveData<>();
 
     float EPSILON = 0.05f; // distância mínima para considerar válida
 
     private int arErrorMessageCooldown = 0;
 
-    // Metrics
-    private int framesProcessed = 0;
-    private long lastFpsTimestamp = 0;
-
-    public Manager(Context context, DetectorModel detector, OverlayView overlayView, ArFragment arFragment, int screenWidth, int screenHeight) {
+    // Captura -> conversão -> inferência -> pós-processamento, fora da thread de renderização
+    private final FramePipeline pipeline;
+
+    // YOLO roda a cada DETECTION_INTERVAL frames da câmera; nos demais as caixas vêm do rastreador
+    private static final int DETECTION_INTERVAL = 2;
+    private final ObjectTracker tracker = new ObjectTracker();
+    private final DetectionSchedule detectionSchedule = new DetectionSchedule(DETECTION_INTERVAL);
+    // Intervalo mínimo entre detecções imposto pelo governador; 0 = sem limite
+    private volatile long minDetectionIntervalNs = 0;
+    private boolean hasDetections = false;
+
+    // Cena parada (mesma pose): reaproveita detecções e distâncias do último frame processado
+    private static final float MOVING_OBJECT_SPEED = 0.05f; // fração da imagem por segundo
+    private final InferenceGate gate = new InferenceGate();
+    private List<Pair<BoundingBox, Float>> lastObjects = new ArrayList<>();
+    private float lastWallDistance = Float.MIN_VALUE;
+
+    // Depth API: uma imagem de profundidade por frame em vez de um hit test por caixa
+    private static final float DEPTH_MAX_M = 5f;
+    private static final float DEPTH_BIN_M = 0.1f;
+    private static final int MODEL_ROTATION_DEGREES = 90; // mesma rotação usada no pré-processamento
+    private final DepthSampler depthSampler = new DepthSampler(DEPTH_MAX_M, DEPTH_BIN_M);
+    private volatile boolean depthEnabled = false;
+
+    // Hit tests reaproveitados entre frames para caixas que ficam na mesma célula da tela
+    private final HitTestCache hitTestCache = new HitTestCache();
+    // Centros das caixas convertidos para pixels da view numa só chamada por frame
+    private final BoxProjection boxProjection = new BoxProjection();
+
+    // Paredes conhecidas, atualizadas só com os planos que mudaram em cada frame
+    private final WallIndex wallIndex = new WallIndex();
+
+    // Grade de ocupação local (6.4 m x 6.4 m) e direção livre sugerida
+    private static final int GRID_SIZE_CELLS = 64;
+    private static final float GRID_CELL_M = 0.1f;
+    private static final float GRID_HALF_LIFE_S = 3f;
+    private static final float WALL_EVIDENCE = 1f;
+    private static final float OBJECT_EVIDENCE = 0.6f;
+    private static final float FREE_EVIDENCE = 0.2f;
+    private static final float CAMERA_HFOV_DEG = 60f; // aproximado, imagem em retrato
+    private static final long PLANNER_BUDGET_NS = 2_000_000L;
+    private final OccupancyGrid occupancyGrid = new OccupancyGrid(GRID_SIZE_CELLS, GRID_CELL_M, GRID_HALF_LIFE_S);
+    private final PathPlanner pathPlanner = new PathPlanner();
+    private final PathSuggestion pathSuggestion = new PathSuggestion();
+    private final float[] wallSegments = new float[4 * 64];
+    private long lastGridTimestampNs = 0;
+    private volatile float suggestedHeading = Float.NaN;
+
+    // Metrics: histogramas por etapa, publicados para a UI uma vez por segundo
+    private static final long METRICS_PUBLISH_INTERVAL_NS = 1_000_000_000L;
+    private final MetricsRegistry metrics;
+    private long lastMetricsPublishNs = 0;
+
+    // Governador de desempenho: reduz o pipeline com o celular quente, bateria fraca ou pouca memória
+    private static final long GOVERNOR_INTERVAL_MS = 1000;
+    private final DeviceSignals deviceSignals;
+    private final PerformanceGovernor governor;
+    private final ScheduledExecutorService governorExecutor;
+
+    // Gravação da sessão para replay no desktop; null quando desligada. Só na thread de renderização
+    private static final float NEAR_OBJECT_DISTANCE = 3f;
+    private SessionRecorder recorder;
+
+    // Canal de tons espaciais, independente do motor de TTS
+    private final ToneAlerter toneAlerter = new ToneAlerter();
+    private boolean toneAlertsEnabled = true;
+
+    // Avisos de tracking do ARCore; junto com as mensagens do RiskEvaluator, são sintetizados na partida
+    private static final String ALERT_INSUFFICIENT_FEATURES = "Não foi possível mapear esta área";
+    private static final String ALERT_EXCESSIVE_MOTION = "Movimento excessivo. Por favor, mova o celular mais lentamente";
+    private static final String ALERT_INSUFFICIENT_LIGHT = "Luz insuficiente. Por favor, ligue a luz do celular";
+
+    /**
+     * @param tts     created ahead of the detector, so the engine starts while the model loads
+     * @param metrics shared with the startup code, which marks the cold-start milestones
+     */
+    public Manager(Context context, DetectorModel detector, TTS tts, OverlayView overlayView, ArFragment arFragment,
+                   int screenWidth, int screenHeight, Executor pipelineExecutor, MetricsRegistry metrics) {
         this.detector = detector;
+        this.metrics = metrics;
+        this.pipeline = new FramePipeline(detector, pipelineExecutor, metrics);
         this.overlayView = overlayView;
         this.arFragment = arFragment;
         this.riskAnalyzer = new RiskAnalyzer(screenWidth, screenHeight);
-        this.tts = new TTS(context);
+        this.tts = tts;
+
+        this.deviceSignals = new DeviceSignals(context);
+        this.governor = new PerformanceGovernor(deviceSignals);
+        this.governorExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "PerformanceGovernor"));
+        governorExecutor.scheduleWithFixedDelay(this::updatePerformanceTier,
+                GOVERNOR_INTERVAL_MS, GOVERNOR_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fixed phrases spoken by the alerts, to pre-synthesize with {@link TTS#preparePhrases}.
+     */
+    public static List<String> alertPhrases() {
+        List<String> phrases = RiskEvaluator.knownMessages();
+        phrases.add(ALERT_INSUFFICIENT_FEATURES);
+        phrases.add(ALERT_EXCESSIVE_MOTION);
+        phrases.add(ALERT_INSUFFICIENT_LIGHT);
+        return phrases;
+    }
+
+    /**
+     * Session configuration for the ArFragment. The session may be created before the Manager
+     * (the model loads in the background), so the caller keeps the result and hands it over
+     * with {@link #setDepthEnabled}.
+     * @return whether the Depth API was enabled
+     */
+    public static boolean configureSession(Session session, Config config) {
+        boolean depth = session.isDepthModeSupported(Config.DepthMode.AUTOMATIC);
+        if (depth) {
+            config.setDepthMode(Config.DepthMode.AUTOMATIC);
+        }
+        Log.i("ARCore", "Depth API " + (depth ? "enabled" : "not supported, using hit tests"));
+        return depth;
+    }
+
+    public void setDepthEnabled(boolean enabled) {
+        depthEnabled = enabled;
+    }
+
+    /**
+     * Runs one synthetic inference on every interpreter, so the first camera frame does not pay
+     * for the interpreter's first run. Blocks; call from a background thread before
+     * {@link #startArCore}.
+     */
+    public void warmUp() {
+        long ns = pipeline.warmUp();
+        metrics.getStartup().mark(StartupMilestones.Milestone.WARM_UP_DONE);
+        Log.i("Startup", "Warm-up inference took " + ns / 1_000_000 + " ms");
     }
 
     private static TTSMessage.Priority convertRiskToTtsPriority(RiskLevel riskLevel) {
@@ -86,124 +225,348 @@ public class Manager {
     }
 
     public void startArCore() {
+        pipeline.start();
         arFragment.getArSceneView().getScene().addOnUpdateListener(this::handleFrameUpdate);
     }
 
     private void handleFrameUpdate(FrameTime frameTime) {
-        if (!shouldProcess || isProcessing) return;
+        Frame frame = arFragment.getArSceneView().getArFrame();
+        if (frame == null) return;
 
-        isProcessing = true;
-        long e2e_latency_start = System.nanoTime();
+        SessionRecorder recording = recorder;
+        if (recording != null) {
+            recording.beginFrame(frame, arFragment.getArSceneView().getSession());
+        }
+        try {
+            // Todo frame, mesmo parado: planos que não mudaram não são reportados de novo
+            ARCoreDistanceCalculation.updateWallIndex(frame, wallIndex);
+
+            if (!shouldProcess) {
+                if (hasDetections) {
+                    tracker.clear();
+                    hasDetections = false;
+                    if (recording != null) recording.recordReset();
+                }
+                pipeline.release(pipeline.pollResult());
+                gate.reset();
+                return;
+            }
 
-        Frame frame = arFragment.getArSceneView().getArFrame();
-        if (frame == null) {
-            isProcessing = false;
-            return;
+            Camera camera = frame.getCamera();
+            if (camera.getTrackingState() != TrackingState.TRACKING) {
+                gate.reset(); // sem tracking a pose não é confiável
+                hitTestCache.clear();
+            }
+            if (frame.hasDisplayGeometryChanged()) {
+                hitTestCache.clear(); // as células do cache são pixels da view
+            }
+            Pose pose = camera.getPose();
+            InferenceGate.Decision decision = gate.evaluate(frame.getTimestamp(),
+                    pose.tx(), pose.ty(), pose.tz(), pose.qx(), pose.qy(), pose.qz(), pose.qw(),
+                    tracker.hasMovingTracks(MOVING_OBJECT_SPEED));
+            if (decision == InferenceGate.Decision.DUPLICATE_FRAME) {
+                return; // nenhuma imagem nova da câmera
+            }
+            boolean refresh = decision == InferenceGate.Decision.PROCESS;
+
+            if (detectionSchedule.onFrame(frame.getTimestamp(), refresh, minDetectionIntervalNs)) {
+                captureFrame(frame);
+            }
+
+            // Hit tests precisam do Frame atual, então o consumo do resultado fica na thread de renderização
+            long resultCaptureTimeNs = 0;
+            PipelineFrame result = pipeline.pollResult();
+            boolean freshResult = result != null;
+            if (freshResult) {
+                try {
+                    metrics.getStartup().mark(StartupMilestones.Milestone.FIRST_INFERENCE, result.inferenceDoneNs);
+                    if (recording != null) recording.recordDetection(result);
+                    tracker.update(result.boxes, result.yuv.timestampNs);
+                    resultCaptureTimeNs = result.captureTimeNs;
+                    hasDetections = true;
+                } finally {
+                    pipeline.release(result);
+                }
+            }
+
+            // Caixas das trilhas extrapoladas para o instante deste frame; num frame reaproveitado
+            // só quando chegou detecção nova, senão ela esperaria o próximo refresh
+            if (hasDetections) {
+                processDetections(refresh || freshResult ? tracker.predict(frame.getTimestamp()) : null,
+                        resultCaptureTimeNs, frame);
+            }
+        } catch (Exception e) {
+            Log.e("ARCore", "Erro ao capturar frame: " + e.getMessage());
+        }
+        finally {
+            if (arErrorMessageCooldown > 0)
+                arErrorMessageCooldown--;
+            if (recording != null) {
+                endRecordedFrame(recording);
+            }
         }
+    }
 
+    private void endRecordedFrame(SessionRecorder recording) {
         try {
-            Image image = frame.acquireCameraImage();
+            recording.endFrame();
+        } catch (IOException | RuntimeException e) {
+            // Disco cheio ou arquivo inválido: para a gravação, mas não o processamento
+            Log.e("Recording", "Erro ao gravar frame: " + e.getMessage());
+            stopRecording();
+        }
+    }
 
-            long startTime = System.nanoTime();
-            Bitmap bitmap = ImageUtils.convertImageToBitmap(image); //convert frame to bitmap
+    // Thread do governador: uma avaliação por segundo; redimensionar a entrada pode bloquear alguns frames
+    private void updatePerformanceTier() {
+        try {
+            if (!governor.evaluate(System.nanoTime())) return;
+            PerformanceTier tier = governor.getTier();
+            Log.i("Governor", "Performance tier " + tier + " (" + governor.getReason() + ")");
+            minDetectionIntervalNs = tier.minDetectionIntervalNs();
+            pipeline.setInterpreterLimit(tier.maxInterpreters);
+            pipeline.setFramePoolFraction(tier.poolFraction);
+            pipeline.resizeInput(tier.scaledInputSize(pipeline.getNativeInputWidth()),
+                    tier.scaledInputSize(pipeline.getNativeInputHeight()));
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria as próximas execuções agendadas
+            Log.e("Governor", "Erro ao aplicar nível de desempenho: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Current performance tier, chosen from thermal, battery and memory signals.
+     */
+    public PerformanceTier getPerformanceTier() {
+        return governor.getTier();
+    }
+
+    // GL thread: only copies the camera planes, everything else happens on the pipeline workers
+    private void captureFrame(Frame frame) {
+        PipelineFrame slot = pipeline.obtainFrame();
+        if (slot == null) return; // todos os frames em uso, descarta este
+
+        Image image;
+        long start = System.nanoTime();
+        try {
+            image = frame.acquireCameraImage();
+        } catch (NotYetAvailableException e) {
+            pipeline.release(slot);
+            return;
+        }
+        start = metrics.recordSince(MetricsRegistry.Stage.ACQUIRE, start);
+
+        try {
+            ImageUtils.copyToYuvFrame(image, slot.yuv);
+            metrics.recordSince(MetricsRegistry.Stage.CONVERT, start);
+        } catch (RuntimeException e) {
+            pipeline.release(slot);
+            throw e;
+        } finally {
             image.close();
+        }
+        pipeline.submit(slot);
+    }
 
-            long afterConversion = System.nanoTime();
-            Log.d("Performance", "Tempo de conversão: " + (afterConversion - startTime) / 1_000_000.0 + " ms");
-
-            startTime = System.nanoTime();
-            Pair<Bitmap, List<BoundingBox>> detectionResult = process(bitmap); //call model
-            long endTime = System.nanoTime();
-            Log.d("Performance", "Tempo de processamento YOLO: " + (endTime - startTime) / 1_000_000.0 + " ms");
-
-
-            // Check ARCore state
-            TrackingFailureReason arCoreState = ARCoreDistanceCalculation.getARCoreState(frame);
-            if (arCoreState != null) {
-                Log.e("ARCore", "ARCore state: " + arCoreState.toString());
-                if (arErrorMessageCooldown == 0) {
-                    String alert = "";
-                    if (arCoreState == TrackingFailureReason.INSUFFICIENT_FEATURES) {
-                        alert = "Não foi possível mapear esta área";
-                    }
-                    else if (arCoreState == TrackingFailureReason.EXCESSIVE_MOTION) {
-                        alert = "Movimento excessivo. Por favor, mova o celular mais lentamente";
-                    }
-                    else if (arCoreState == TrackingFailureReason.INSUFFICIENT_LIGHT) {
-                        alert = "Luz insuficiente. Por favor, ligue a luz do celular";
-                    }
-
-                    TTSMessage message = new TTSMessage(alert, TTSMessage.Priority.CRITICAL);
-                    tts.speak(message);
-                    arErrorMessageCooldown = 100; // o certo seria por segundos, mas aqui é MVP
+    /**
+     * @param boxes         current boxes, or null to reuse the objects and distances of the last
+     *                      refreshed frame
+     * @param captureTimeNs capture time of the detection behind {@code boxes}, or 0 when they were
+     *                      only predicted by the tracker
+     */
+    private void processDetections(List<BoundingBox> boxes, long captureTimeNs, Frame frame) {
+        // Check ARCore state
+        TrackingFailureReason arCoreState = ARCoreDistanceCalculation.getARCoreState(frame);
+        if (arCoreState != null) {
+            Log.e("ARCore", "ARCore state: " + arCoreState.toString());
+            if (arErrorMessageCooldown == 0) {
+                String alert = "";
+                if (arCoreState == TrackingFailureReason.INSUFFICIENT_FEATURES) {
+                    alert = ALERT_INSUFFICIENT_FEATURES;
+                }
+                else if (arCoreState == TrackingFailureReason.EXCESSIVE_MOTION) {
+                    alert = ALERT_EXCESSIVE_MOTION;
                 }
+                else if (arCoreState == TrackingFailureReason.INSUFFICIENT_LIGHT) {
+                    alert = ALERT_INSUFFICIENT_LIGHT;
+                }
+
+                TTSMessage message = new TTSMessage(alert, TTSMessage.Priority.CRITICAL);
+                speak(message);
+                arErrorMessageCooldown = 100; // o certo seria por segundos, mas aqui é MVP
             }
-            // Draw bounding boxes on the bitmap
-            List<Pair<BoundingBox, Float>> objects = ARCoreDistanceCalculation.getObjectDistances(detectionResult, frame);
-            mainHandler.post(() -> {
-                overlayView.setResults(objects);
-            });
+        }
+        // Draw bounding boxes on the bitmap
+        if (boxes != null) {
+            long distanceStart = System.nanoTime();
+            boolean hasDepth = depthEnabled && ARCoreDistanceCalculation.updateDepth(frame, depthSampler);
+            List<Pair<BoundingBox, Float>> objects = ARCoreDistanceCalculation.getObjectDistances(boxes, frame,
+                    hasDepth ? depthSampler : null, MODEL_ROTATION_DEGREES, hitTestCache, boxProjection);
+            metrics.recordSince(MetricsRegistry.Stage.DISTANCE, distanceStart);
+            // O overlay desenha na própria thread; não precisa passar pela thread de UI
+            overlayView.setResults(objects);
+            lastObjects = objects;
+            lastWallDistance = ARCoreDistanceCalculation.distanceToNearestWall(frame, wallIndex);
+            if (recorder != null) recorder.recordObjects(objects, lastWallDistance);
+            updateNavigation(frame, objects);
+        }
+        List<Pair<BoundingBox, Float>> objects = lastObjects;
 
-            List<Pair<BoundingBox, Float>> nearObjects = ARCoreDistanceCalculation.getObjectsWithLessThanDistance(objects, 3f); //near objects, less than threshold
+        List<Pair<BoundingBox, Float>> nearObjects = ARCoreDistanceCalculation.getObjectsWithLessThanDistance(objects, NEAR_OBJECT_DISTANCE); //near objects, less than threshold
 
+        float distanceToNearestWall = lastWallDistance;
+        // Logs por frame só quando habilitados (adb shell setprop log.tag.ARCoreDistance DEBUG):
+        // a formatação aloca a cada frame
+        if (Log.isLoggable("ARCoreDistance", Log.DEBUG)) {
             for (Pair<BoundingBox, Float> obj : nearObjects) {
                 Log.d("ARCoreDistance", "Objeto: " + obj.first.clsName + ", Distância: " + String.format("%.2f", obj.second) + " metros");
             }
-
-            float distanceToNearestWall = ARCoreDistanceCalculation.distanceToNearestWall(frame);
             if (distanceToNearestWall > EPSILON && distanceToNearestWall < 3f) {
                 Log.d("ARCoreDistance", "Parede, Distancia: " + distanceToNearestWall + " metros");
             }
+        }
 
-            RiskAssessment riskAssessment = riskAnalyzer.analyzeRisk(nearObjects, distanceToNearestWall);
+        long riskStart = System.nanoTime();
+        long clockMs = System.currentTimeMillis();
+        RiskAssessment riskAssessment = riskAnalyzer.analyzeRisk(nearObjects, distanceToNearestWall, clockMs);
+        metrics.recordSince(MetricsRegistry.Stage.RISK, riskStart);
+        if (recorder != null) recorder.recordAssessment(riskAssessment, clockMs);
+        if (Log.isLoggable("RiskAnalysis", Log.DEBUG)) {
             Log.d("RiskAnalysis", riskAssessment.toString());
+        }
 
-            if (riskAssessment.shouldAlert()) {
-                Log.i("RiskAnalysis", "ALERTA: " + riskAssessment.getFullMessage());
-                if (Boolean.TRUE.equals(shouldAlert.getValue())) {
-                    TTSMessage message = new TTSMessage(riskAssessment.getMessage(),
-                                                        convertRiskToTtsPriority(riskAssessment.getRiskLevel()));
-                    tts.speak(message);
-                }
+        // Tons espaciais acompanham toda avaliação, sem cooldown; a fala continua só nos alertas
+        toneAlerter.update(riskAssessment);
+
+        if (riskAssessment.shouldAlert()) {
+            Log.i("RiskAnalysis", "ALERTA: " + riskAssessment.getFullMessage());
+            if (Boolean.TRUE.equals(shouldAlert.getValue())) {
+                TTSMessage message = new TTSMessage(riskAssessment.getMessage(),
+                                                    convertRiskToTtsPriority(riskAssessment.getRiskLevel()));
+                speak(message);
             }
+        }
 
-            // --- Metrics Calculation ---
-            // E2E latency
-            long e2e_latency_end = System.nanoTime();
-            double latency = (e2e_latency_end - e2e_latency_start) / 1_000_000.0;
-            this.latency.postValue((float) latency);
-            Log.d("Performance", "E2E Latency: " + String.format("%.2f", latency) + " ms");
-
-            // FPS Calculation
-            framesProcessed++;
-            long now = System.nanoTime();
-            if (lastFpsTimestamp == 0) { // First frame
-                lastFpsTimestamp = now;
+        // --- Metrics ---
+        // E2E latency, from camera capture to alert decision (only for frames with a fresh detection)
+        long now = System.nanoTime();
+        if (captureTimeNs != 0) {
+            metrics.record(MetricsRegistry.Stage.END_TO_END, now - captureTimeNs, now);
+            if (metrics.getStartup().mark(StartupMilestones.Milestone.FIRST_ALERT_READY, now)) {
+                Log.i("Startup", metrics.getStartup().toString());
             }
-            long elapsedNanos = now - lastFpsTimestamp;
-
-            if (elapsedNanos > 1_000_000_000) { // More than 1 second
-                double fps = framesProcessed / (elapsedNanos / 1_000_000_000.0);
-                this.FPS.postValue((float) fps);
-                Log.d("Performance", "FPS: " + String.format("%.2f", fps));
-                framesProcessed = 0;
-                lastFpsTimestamp = now;
+        }
+        metrics.markFrame(now);
+
+        if (now - lastMetricsPublishNs >= METRICS_PUBLISH_INTERVAL_NS) {
+            lastMetricsPublishNs = now;
+            metricsSnapshot.postValue(metrics.snapshot(now));
+            Log.d("Performance", "Hit test cache: " + String.format("%.0f", hitTestCache.getHitRate() * 100)
+                    + "% hits, " + hitTestCache.getSavedHitTests() + " hit tests saved");
+        }
+    }
+
+    // Mede só o despacho: a síntese acontece na thread do TextToSpeech
+    private void speak(TTSMessage message) {
+        long start = System.nanoTime();
+        tts.speak(message);
+        metrics.recordSince(MetricsRegistry.Stage.TTS, start);
+    }
+
+    /**
+     * Feeds the occupancy grid with the known walls and this frame's objects, then asks the
+     * planner for the clearest heading within the frame budget.
+     */
+    private void updateNavigation(Frame frame, List<Pair<BoundingBox, Float>> objects) {
+        Pose pose = frame.getCamera().getPose();
+        float x = pose.tx(), z = pose.tz();
+        // Direção de visão (-Z da câmera) no plano do chão
+        float qx = pose.qx(), qy = pose.qy(), qz = pose.qz(), qw = pose.qw();
+        float forwardX = -2f * (qx * qz + qw * qy);
+        float forwardZ = -(1f - 2f * (qx * qx + qy * qy));
+
+        long timestampNs = frame.getTimestamp();
+        if (lastGridTimestampNs != 0) {
+            occupancyGrid.decay((timestampNs - lastGridTimestampNs) / 1e9f);
+        }
+        lastGridTimestampNs = timestampNs;
+        occupancyGrid.recenter(x, z);
+
+        float halfWindow = GRID_SIZE_CELLS * GRID_CELL_M / 2f;
+        int walls = wallIndex.collectSegments(x, z, halfWindow, wallSegments);
+        for (int i = 0; i < walls; i++) {
+            occupancyGrid.addSegment(wallSegments[4 * i], wallSegments[4 * i + 1],
+                    wallSegments[4 * i + 2], wallSegments[4 * i + 3], WALL_EVIDENCE);
+        }
+
+        float forwardLength = (float) Math.sqrt(forwardX * forwardX + forwardZ * forwardZ);
+        if (forwardLength > 1e-3f) {
+            float fx = forwardX / forwardLength, fz = forwardZ / forwardLength;
+            for (Pair<BoundingBox, Float> obj : objects) {
+                float distance = obj.second;
+                if (distance <= EPSILON || distance == Float.MIN_VALUE || distance > halfWindow) continue;
+                // Direção do objeto pela posição horizontal da caixa na imagem
+                double bearing = Math.toRadians((obj.first.cx - 0.5f) * CAMERA_HFOV_DEG);
+                float dirX = (float) (fx * Math.cos(bearing) - fz * Math.sin(bearing));
+                float dirZ = (float) (fz * Math.cos(bearing) + fx * Math.sin(bearing));
+                float ox = x + distance * dirX, oz = z + distance * dirZ;
+                occupancyGrid.clearRay(x, z, ox, oz, FREE_EVIDENCE);
+                occupancyGrid.addObstacle(ox, oz, OBJECT_EVIDENCE);
             }
-            // --- End FPS Calculation ---
+        }
 
-            isProcessing = false;
-        } catch (Exception e) {
-            Log.e("ARCore", "Erro ao capturar frame: " + e.getMessage());
-            isProcessing = false;
+        if (pathPlanner.plan(occupancyGrid, x, z, forwardX, forwardZ, PLANNER_BUDGET_NS, pathSuggestion)) {
+            suggestedHeading = pathSuggestion.headingDeg;
+        } else {
+            suggestedHeading = Float.NaN;
         }
-        finally {
-            if (arErrorMessageCooldown > 0)
-                arErrorMessageCooldown--;
+        if (Log.isLoggable("Navigation", Log.DEBUG)) {
+            Log.d("Navigation", pathSuggestion.toString());
         }
     }
 
-    public Pair<Bitmap, List<BoundingBox>> process(Bitmap image) {
-        return detector.Detect(image);
+    public long getDroppedFrames() {
+        return pipeline.getDroppedFrames();
+    }
+
+    /**
+     * Frames whose detections and distances were reused because the camera barely moved.
+     */
+    public long getReusedFrames() {
+        return gate.getReusedCount();
+    }
+
+    /**
+     * Fraction of hit tests answered from the cache.
+     */
+    public float getHitTestCacheHitRate() {
+        return hitTestCache.getHitRate();
+    }
+
+    /**
+     * Frame.hitTest JNI calls avoided by the cache.
+     */
+    public long getSavedHitTests() {
+        return hitTestCache.getSavedHitTests();
+    }
+
+    /**
+     * Clearest heading to walk, in degrees relative to where the camera faces (positive = right),
+     * or NaN if no free path was found.
+     */
+    public float getSuggestedHeading() {
+        return suggestedHeading;
+    }
+
+    /**
+     * @param queue one of FramePipeline.QUEUE_CONVERT, QUEUE_INFERENCE or QUEUE_POSTPROCESS
+     */
+    public int getQueueDepth(int queue) {
+        return pipeline.getQueueDepth(queue);
+    }
+
+    public long getDroppedFrames(int queue) {
+        return pipeline.getDroppedFrames(queue);
     }
 
     public LiveData<Boolean> getTtsInitialized() {
@@ -218,20 +581,102 @@ public class Manager {
         return showMetricsOnScreen;
     }
 
-    public LiveData<Float> getFPS() {
-        return FPS;
+    /**
+     * Per-stage latency percentiles, FPS and dropped frames, refreshed about once per second.
+     */
+    public LiveData<MetricsRegistry.Snapshot> getMetricsSnapshot() {
+        return metricsSnapshot;
     }
 
-    public LiveData<Float> getLatency() {
-        return latency;
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Appends the current metrics snapshot to {@code file}.
+     */
+    public void dumpMetrics(File file) throws IOException {
+        metrics.dump(file);
+    }
+
+    /**
+     * Starts recording every rendered frame to {@code file} (pose, changed planes, detector
+     * results with their raw output tensor, distances and risk assessments), replacing any
+     * recording in progress. Call from the UI thread, where the scene updates run.
+     * @param imageDownsample 1 to keep the camera images at full resolution, 2 for half, ...,
+     *                        0 to leave them out
+     */
+    public void startRecording(File file, int imageDownsample) throws IOException {
+        stopRecording();
+        SessionInfo info = new SessionInfo();
+        detector.describeOutput(info);
+        info.screenWidth = riskAnalyzer.getScreenWidth();
+        info.screenHeight = riskAnalyzer.getScreenHeight();
+        info.nearObjectDistance = NEAR_OBJECT_DISTANCE;
+        info.imageDownsample = imageDownsample;
+        recorder = new SessionRecorder(file, info);
+        pipeline.setRecordOutputs(info.recordTensor);
+        // O replay começa do zero: sem trilhas, distâncias ou alerta anteriores à gravação
+        tracker.clear();
+        hasDetections = false;
+        lastObjects = new ArrayList<>();
+        lastWallDistance = Float.MIN_VALUE;
+        riskAnalyzer.resetCooldown();
+        Log.i("Recording", "Gravando sessão em " + file.getAbsolutePath());
+    }
+
+    /**
+     * Finishes the recording in progress, if any.
+     * @return number of frames recorded
+     */
+    public long stopRecording() {
+        SessionRecorder recording = recorder;
+        if (recording == null) return 0;
+        recorder = null;
+        pipeline.setRecordOutputs(false);
+        long frames = recording.getFrameCount();
+        try {
+            recording.close();
+            Log.i("Recording", frames + " frames gravados em " + recording.getFile().getAbsolutePath());
+        } catch (IOException e) {
+            Log.e("Recording", "Erro ao fechar gravação: " + e.getMessage());
+        }
+        return frames;
+    }
+
+    public boolean isRecording() {
+        return recorder != null;
     }
 
     public void toggleProcessing() {
         shouldProcess = !shouldProcess;
         // Clear overlay when not processing frames
         if (!shouldProcess) {
-            mainHandler.post(() -> overlayView.setResults(null));
+            overlayView.setResults(null);
         }
+        updateToneChannel();
+    }
+
+    /**
+     * Spatial beeps that follow the most critical obstacle on every frame, alongside speech.
+     * They only sound while processing and alerts are on.
+     */
+    public void setToneAlertsEnabled(boolean enabled) {
+        toneAlertsEnabled = enabled;
+        updateToneChannel();
+    }
+
+    private void updateToneChannel() {
+        toneAlerter.setEnabled(toneAlertsEnabled && shouldProcess && Boolean.TRUE.equals(shouldAlert.getValue()));
+    }
+
+    /**
+     * Corridor mode: detection mostly looks at the centre of the frame at higher resolution,
+     * with a full-frame pass every few frames.
+     */
+    public void setCorridorMode(boolean enabled) {
+        pipeline.setCorridorMode(enabled ? FramePipeline.DEFAULT_CORRIDOR : null,
+                FramePipeline.DEFAULT_FULL_FRAME_INTERVAL);
     }
 
     public void toggleTTS() {
@@ -240,6 +685,7 @@ public class Manager {
         if (!Boolean.TRUE.equals(shouldAlert.getValue())) {
             tts.stop();
         }
+        updateToneChannel();
     }
 
     public void toggleMetricsOnScreen() {
@@ -253,6 +699,11 @@ public class Manager {
     }
 
     public void shutdown() {
+        stopRecording();
+        governorExecutor.shutdownNow();
+        deviceSignals.close();
+        pipeline.close();
+        toneAlerter.release();
         tts.shutdown();
     }
 }
@@ -0,0 +1,59 @@
+package com.example.pathfinder.manager;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.RegionOfInterest;
+import com.example.pathfinder.utils.YuvFrame;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * One camera frame travelling through {@link FramePipeline}. Instances are pooled and reused;
+ * the tensor buffers are only attached while a stage needs them.
+ */
+public class PipelineFrame {
+    public long sequence;
+    public long captureTimeNs;
+    public final YuvFrame yuv = new YuvFrame();
+    // Região enviada ao modelo neste frame (corredor ou frame inteiro)
+    public RegionOfInterest roi = RegionOfInterest.FULL_FRAME;
+
+    // Resultado da detecção, preenchido pela etapa de pós-processamento
+    public List<BoundingBox> boxes;
+
+    // Início da inferência e fim de cada etapa (System.nanoTime)
+    public long convertDoneNs;
+    public long inferenceStartNs;
+    public long inferenceDoneNs;
+    public long postProcessDoneNs;
+
+    // Cópia do tensor de saída para a gravação da sessão; só preenchida com a gravação ligada
+    public ByteBuffer recordedOutput;
+    public boolean hasRecordedOutput;
+
+    ByteBuffer input;
+    ByteBuffer output;
+
+    // Antes do pós-processamento, que pode reescrever o tensor ao decodificar
+    void copyOutput() {
+        if (recordedOutput == null || recordedOutput.capacity() < output.capacity()) {
+            recordedOutput = ByteBuffer.allocate(output.capacity()).order(output.order());
+        }
+        ByteBuffer src = output.duplicate();
+        src.clear();
+        recordedOutput.clear();
+        recordedOutput.put(src);
+        recordedOutput.flip();
+        hasRecordedOutput = true;
+    }
+
+    void reset() {
+        boxes = null;
+        hasRecordedOutput = false;
+        roi = RegionOfInterest.FULL_FRAME;
+        convertDoneNs = 0;
+        inferenceStartNs = 0;
+        inferenceDoneNs = 0;
+        postProcessDoneNs = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pathfinder.manager;
+
+import android.util.Pair;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.recording.SessionFrame;
+import com.example.pathfinder.recording.SessionInfo;
+import com.example.pathfinder.recording.SessionWriter;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.slam.ARCoreDistanceCalculation;
+import com.google.ar.core.Frame;
+import com.google.ar.core.Plane;
+import com.google.ar.core.Pose;
+import com.google.ar.core.Session;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records what {@link Manager} sees and decides on each rendered frame, for replay on a desktop
+ * JVM with {@code SessionReplay}. Between {@link #beginFrame} and {@link #endFrame} the Manager
+ * reports each step as it happens; the frame is then appended to the memory-mapped file.
+ * <p>
+ * Use it from the render thread only.
+ */
+class SessionRecorder implements Closeable {
+    private final SessionWriter writer;
+    private final SessionFrame record = new SessionFrame();
+    private final int imageDownsample;
+    private final File file;
+    // O primeiro frame leva todos os planos: os que já existiam não seriam reportados de novo
+    private boolean firstFrame = true;
+
+    SessionRecorder(File file, SessionInfo info) throws IOException {
+        this.file = file;
+        this.writer = new SessionWriter(file, info);
+        this.imageDownsample = info.imageDownsample;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getFrameCount() {
+        return writer.getFrameCount();
+    }
+
+    /**
+     * Starts the record of {@code frame}: camera pose and the vertical planes it changed, with the
+     * same filter as {@link ARCoreDistanceCalculation#updateWallIndex}.
+     * @param session used on the first frame, to record the planes known before the recording
+     */
+    void beginFrame(Frame frame, Session session) {
+        record.clear(frame.getTimestamp(), System.currentTimeMillis());
+        Pose pose = frame.getCamera().getPose();
+        record.setPose(pose.tx(), pose.ty(), pose.tz(), pose.qx(), pose.qy(), pose.qz(), pose.qw());
+        Collection<Plane> planes = firstFrame && session != null
+                ? session.getAllTrackables(Plane.class)
+                : frame.getUpdatedTrackables(Plane.class);
+        firstFrame = false;
+        for (Plane plane : planes) {
+            long id = writer.planeId(plane);
+            if (!ARCoreDistanceCalculation.isWall(plane)) {
+                record.removePlane(id);
+                continue;
+            }
+            Pose center = plane.getCenterPose();
+            record.addPlane(id, center.tx(), center.ty(), center.tz(),
+                    center.qx(), center.qy(), center.qz(), center.qw(), plane.getPolygon());
+        }
+    }
+
+    // Processamento desligado: o Manager limpou o rastreador
+    void recordReset() {
+        record.flags |= SessionFrame.FLAG_RESET;
+    }
+
+    /**
+     * Pipeline result consumed on this frame, before the tracker sees it.
+     */
+    void recordDetection(PipelineFrame result) {
+        if (result.hasRecordedOutput) {
+            record.setTensor(result.recordedOutput);
+        }
+        if (imageDownsample > 0) {
+            record.setImage(result.yuv, imageDownsample);
+        }
+        record.setDetection(result.yuv.timestampNs, result.roi, result.boxes);
+    }
+
+    /**
+     * Objects whose distances were measured on this frame, and the nearest wall.
+     */
+    void recordObjects(List<Pair<BoundingBox, Float>> objects, float wallDistance) {
+        for (Pair<BoundingBox, Float> obj : objects) {
+            record.addObject(obj.first, obj.second);
+        }
+        record.setWallDistance(wallDistance);
+    }
+
+    /**
+     * @param clockMs clock the risk analyzer used for the alert cooldown
+     */
+    void recordAssessment(RiskAssessment assessment, long clockMs) {
+        record.clockMs = clockMs;
+        record.setAssessment(assessment);
+    }
+
+    void endFrame() throws IOException {
+        writer.append(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,21 +1,26 @@
 package com.example.pathfinder.slam;
 
 import android.graphics.Bitmap;
+import android.media.Image;
 import android.util.Pair;
 
 import com.example.pathfinder.detection.BoundingBox;
 import com.google.ar.core.Camera;
+import com.google.ar.core.CameraIntrinsics;
+import com.google.ar.core.Coordinates2d;
 import com.google.ar.core.Frame;
 import com.google.ar.core.Plane;
 import com.google.ar.core.Pose;
 import com.google.ar.core.TrackingFailureReason;
 import com.google.ar.core.TrackingState;
+import com.google.ar.core.exceptions.NotYetAvailableException;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class ARCoreDistanceCalculation {
-
+    // Rotação aplicada às imagens no PreProcess dos detectores
+    private static final int PREPROCESS_ROTATION_DEGREES = 90;
 
     public static TrackingFailureReason getARCoreState(Frame frame) {
         if (frame != null) {
@@ -31,16 +36,103 @@ public class ARCoreDistanceCalculation {
         return TrackingFailureReason.CAMERA_UNAVAILABLE;
     }
     public static List<Pair<BoundingBox, Float>> getObjectDistances(Pair<Bitmap, List<BoundingBox>> detectionResult, Frame frame) {
-        List<BoundingBox> boundingBoxes = detectionResult.second;
-        List<Pair<BoundingBox, Float>> distances = new ArrayList<>();
+        return getObjectDistances(detectionResult.second, frame);
+    }
+
+    public static List<Pair<BoundingBox, Float>> getObjectDistances(List<BoundingBox> boundingBoxes, Frame frame) {
+        return getObjectDistances(boundingBoxes, frame, null, PREPROCESS_ROTATION_DEGREES, null);
+    }
+
+    /**
+     * Loads this frame's depth image into the sampler, with the camera intrinsics it needs to
+     * turn depth into range.
+     * @return false if the Depth API has no image for this frame
+     */
+    public static boolean updateDepth(Frame frame, DepthSampler sampler) {
+        Image depthImage;
+        try {
+            depthImage = frame.acquireDepthImage16Bits();
+        } catch (NotYetAvailableException | IllegalStateException e) {
+            // Sem depth neste frame (ainda inicializando) ou Depth API desligada na sessão
+            sampler.clear();
+            return false;
+        }
+        try {
+            Image.Plane plane = depthImage.getPlanes()[0];
+            sampler.update(plane.getBuffer(), depthImage.getWidth(), depthImage.getHeight(), plane.getRowStride());
+        } finally {
+            depthImage.close();
+        }
+        // A imagem de depth tem o mesmo enquadramento da imagem da CPU, só em outra resolução
+        CameraIntrinsics intrinsics = frame.getCamera().getImageIntrinsics();
+        float[] focal = intrinsics.getFocalLength();
+        float[] principal = intrinsics.getPrincipalPoint();
+        int[] size = intrinsics.getImageDimensions();
+        if (size[0] > 0 && size[1] > 0) {
+            sampler.setIntrinsics(focal[0] / size[0], focal[1] / size[1],
+                    principal[0] / size[0], principal[1] / size[1]);
+        }
+        return true;
+    }
 
-        for (BoundingBox box : boundingBoxes) {
-            int centerX = (int) box.cx;
-            int centerY = (int) box.cy;
+    /**
+     * Distances from the depth image, one histogram pass per box. Boxes without enough
+     * depth fall back to a hit test. Both give the range from the camera to the box centre.
+     * @param rotationDegrees rotation between the camera image and the box coordinates
+     */
+    public static List<Pair<BoundingBox, Float>> getObjectDistances(List<BoundingBox> boundingBoxes, Frame frame,
+                                                                     DepthSampler sampler, int rotationDegrees) {
+        return getObjectDistances(boundingBoxes, frame, sampler, rotationDegrees, null);
+    }
+
+    /**
+     * Same as above, with hit tests answered from {@code hitCache} when possible.
+     * @param sampler  may be null, or empty, when there is no depth image
+     * @param hitCache may be null to always run the hit test
+     */
+    public static List<Pair<BoundingBox, Float>> getObjectDistances(List<BoundingBox> boundingBoxes, Frame frame,
+                                                                     DepthSampler sampler, int rotationDegrees,
+                                                                     HitTestCache hitCache) {
+        return getObjectDistances(boundingBoxes, frame, sampler, rotationDegrees, hitCache, new BoxProjection());
+    }
 
-            float calculatedDistance = calculateDistanceWithHitTest(frame, centerX, centerY);
+    /**
+     * Same as above, reusing {@code projection} across frames. Boxes without depth are hit tested
+     * at their centre, converted to view pixels for all of them with one
+     * {@link Frame#transformCoordinates2d} call.
+     */
+    public static List<Pair<BoundingBox, Float>> getObjectDistances(List<BoundingBox> boundingBoxes, Frame frame,
+                                                                     DepthSampler sampler, int rotationDegrees,
+                                                                     HitTestCache hitCache, BoxProjection projection) {
+        boolean hasDepth = sampler != null && sampler.hasDepth();
+        List<Pair<BoundingBox, Float>> distances = new ArrayList<>(boundingBoxes.size());
+
+        projection.begin(rotationDegrees);
+        for (int i = 0; i < boundingBoxes.size(); i++) {
+            BoundingBox box = boundingBoxes.get(i);
+            float calculatedDistance = hasDepth ? sampler.sample(box, rotationDegrees) : Float.NaN;
+            if (Float.isNaN(calculatedDistance)) {
+                projection.add(i, box);
+            }
             distances.add(new Pair<>(box, calculatedDistance));
         }
+        if (projection.size() == 0) {
+            return distances;
+        }
+
+        // Uma única chamada JNI converte todos os centros para pixels da view
+        frame.transformCoordinates2d(Coordinates2d.IMAGE_NORMALIZED, projection.imagePoints(),
+                Coordinates2d.VIEW, projection.viewPoints());
+        Pose cameraPose = frame.getCamera().getPose();
+        for (int i = 0; i < projection.size(); i++) {
+            float x = projection.viewX(i);
+            float y = projection.viewY(i);
+            float calculatedDistance = hitCache == null
+                    ? calculateDistanceWithHitTest(frame, cameraPose, x, y)
+                    : calculateDistanceWithHitTest(frame, cameraPose, x, y, hitCache);
+            int index = projection.boxIndex(i);
+            distances.set(index, new Pair<>(boundingBoxes.get(index), calculatedDistance));
+        }
 
         return distances;
     }
@@ -65,14 +157,18 @@ public class ARCoreDistanceCalculation {
     }
 
     public static float calculateDistanceWithHitTest(Frame frame, int screenX, int screenY) {
+        return calculateDistanceWithHitTest(frame, frame.getCamera().getPose(), screenX, screenY);
+    }
+
+    /**
+     * Distance from {@code cameraPose} to the first thing hit at the view pixel.
+     * @return metres, or Float.MIN_VALUE if nothing was hit
+     */
+    public static float calculateDistanceWithHitTest(Frame frame, Pose cameraPose, float screenX, float screenY) {
         List<com.google.ar.core.HitResult> hitResults = frame.hitTest(screenX, screenY);
 
         if (!hitResults.isEmpty()) {
-            com.google.ar.core.HitResult hit = hitResults.get(0);
-
-            Pose hitPose = hit.getHitPose();
-
-            Pose cameraPose = frame.getCamera().getPose();
+            Pose hitPose = hitResults.get(0).getHitPose();
 
             float dx = hitPose.tx() - cameraPose.tx();
             float dy = hitPose.ty() - cameraPose.ty();
@@ -86,24 +182,72 @@ public class ARCoreDistanceCalculation {
         }
     }
 
-    public static float distanceToNearestWall(Frame frame) {
-        float minDistance = Float.MAX_VALUE;
-
-        for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
-            if (plane.getTrackingState() != TrackingState.TRACKING) continue;
-            if (plane.getType() != Plane.Type.VERTICAL) continue;
-
-            Pose planePose = plane.getCenterPose();
-            Pose cameraPose = frame.getCamera().getPose();
+    /**
+     * Hit test through {@code cache}: a fresh entry for the screen cell is measured against
+     * {@code cameraPose} without calling into ARCore; otherwise the real hit test runs and its
+     * world point is stored.
+     */
+    public static float calculateDistanceWithHitTest(Frame frame, Pose cameraPose, float screenX, float screenY,
+                                                     HitTestCache cache) {
+        long timestampNs = frame.getTimestamp();
+        float tx = cameraPose.tx(), ty = cameraPose.ty(), tz = cameraPose.tz();
+        float qx = cameraPose.qx(), qy = cameraPose.qy(), qz = cameraPose.qz(), qw = cameraPose.qw();
+
+        float cached = cache.lookup(screenX, screenY, timestampNs, tx, ty, tz, qx, qy, qz, qw);
+        if (!Float.isNaN(cached)) {
+            return cached;
+        }
 
-            float dx = planePose.tx() - cameraPose.tx();
-            float dy = planePose.ty() - cameraPose.ty();
-            float dz = planePose.tz() - cameraPose.tz();
+        List<com.google.ar.core.HitResult> hitResults = frame.hitTest(screenX, screenY);
+        if (hitResults.isEmpty()) {
+            cache.put(screenX, screenY, timestampNs, tx, ty, tz, qx, qy, qz, qw, false, 0f, 0f, 0f);
+            //Distancia grande, sem risco de colisao
+            return Float.MIN_VALUE;
+        }
+        Pose hitPose = hitResults.get(0).getHitPose();
+        cache.put(screenX, screenY, timestampNs, tx, ty, tz, qx, qy, qz, qw,
+                true, hitPose.tx(), hitPose.ty(), hitPose.tz());
+
+        float dx = hitPose.tx() - tx;
+        float dy = hitPose.ty() - ty;
+        float dz = hitPose.tz() - tz;
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
 
-            float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
-            if (distance < minDistance) minDistance = distance;
+    /**
+     * Brings the wall index up to date with the planes ARCore changed in this frame. Must run on
+     * every frame, since unchanged planes are not reported again.
+     */
+    public static void updateWallIndex(Frame frame, WallIndex index) {
+        for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
+            if (!isWall(plane)) {
+                index.remove(plane);
+                continue;
+            }
+            Pose pose = plane.getCenterPose();
+            index.update(plane, pose.tx(), pose.ty(), pose.tz(), pose.qx(), pose.qy(), pose.qz(), pose.qw(),
+                    plane.getPolygon());
         }
+    }
+
+    /**
+     * Whether a plane belongs in the wall index: vertical, still tracked and not merged into
+     * another plane.
+     */
+    public static boolean isWall(Plane plane) {
+        // PAUSED continua no índice: a parede não sumiu, só não está sendo rastreada agora
+        return plane.getType() == Plane.Type.VERTICAL
+                && plane.getTrackingState() != TrackingState.STOPPED
+                && plane.getSubsumedBy() == null;
+    }
 
-        return minDistance < Float.MAX_VALUE ? minDistance : Float.MIN_VALUE; //Precisa tomar cuidado, resultados Float.MAX_VALUE e Float.MIN_VALUE quer dizer
-    }                                                                         // que não foi detectado parede
+    /**
+     * Distance from the camera to the nearest wall polygon around the viewing direction.
+     * @return metres, or Float.MIN_VALUE if no wall was found
+     */
+    public static float distanceToNearestWall(Frame frame, WallIndex index) {
+        Pose cameraPose = frame.getCamera().getPose();
+        return index.nearestWall(cameraPose.tx(), cameraPose.ty(), cameraPose.tz(),
+                cameraPose.qx(), cameraPose.qy(), cameraPose.qz(), cameraPose.qw());
+    }
 }
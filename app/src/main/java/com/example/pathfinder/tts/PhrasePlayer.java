@@ -0,0 +1,187 @@
+package com.example.pathfinder.tts;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * Plays pre-rendered phrases on a low-latency streaming {@link AudioTrack} owned by a dedicated
+ * audio thread. A new phrase, or {@link #stop()}, cuts the current one within one chunk.
+ */
+class PhrasePlayer {
+    private static final String TAG = "PhrasePlayer";
+    private static final int CHUNK_MS = 10;
+
+    private final Object lock = new Object();
+    private PcmClip pending;   // protegido por lock
+    private PcmClip warmUp;    // protegido por lock
+    private boolean halt;      // protegido por lock
+    // Incrementado a cada play/stop: a thread de áudio abandona o clip quando muda
+    private volatile int generation;
+    private volatile boolean playing;
+    private volatile boolean available;
+    private volatile boolean running = true;
+    private final Thread thread;
+
+    // Só a thread de áudio
+    private AudioTrack track;
+    private int trackSampleRate;
+    private int trackChannels;
+
+    PhrasePlayer() {
+        thread = new Thread(this::loop, TAG);
+        thread.start();
+    }
+
+    static boolean canPlay(PcmClip clip) {
+        return clip != null && (clip.channels == 1 || clip.channels == 2);
+    }
+
+    /**
+     * Creates the audio track for clips like {@code clip} ahead of the first alert.
+     */
+    void prepare(PcmClip clip) {
+        synchronized (lock) {
+            warmUp = clip;
+            lock.notify();
+        }
+    }
+
+    void play(PcmClip clip) {
+        synchronized (lock) {
+            pending = clip;
+            halt = false;
+            playing = true;
+            generation++;
+            lock.notify();
+        }
+    }
+
+    void stop() {
+        synchronized (lock) {
+            pending = null;
+            halt = true;
+            generation++;
+            lock.notify();
+        }
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Whether the last attempt to create the audio track worked. Until a clip was prepared, and
+     * after a failure, callers should fall back to live synthesis.
+     */
+    boolean isAvailable() {
+        return available;
+    }
+
+    void release() {
+        running = false;
+        stop();
+    }
+
+    private void loop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        try {
+            while (true) {
+                PcmClip clip, prepareFor;
+                boolean haltNow;
+                int clipGeneration;
+                synchronized (lock) {
+                    while (running && pending == null && warmUp == null && !halt) {
+                        lock.wait();
+                    }
+                    if (!running) break;
+                    clip = pending;
+                    prepareFor = warmUp;
+                    haltNow = halt;
+                    clipGeneration = generation;
+                    pending = null;
+                    warmUp = null;
+                    halt = false;
+                }
+                if (prepareFor != null) ensureTrack(prepareFor);
+                if (clip != null) {
+                    playClip(clip, clipGeneration);
+                } else if (haltNow && track != null) {
+                    track.pause();
+                    track.flush();
+                }
+                if (clipGeneration == generation) playing = false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            playing = false;
+            if (track != null) track.release();
+        }
+    }
+
+    private void playClip(PcmClip clip, int clipGeneration) {
+        if (!ensureTrack(clip)) return;
+        // Descarta o que ainda estava no buffer da frase anterior
+        track.pause();
+        track.flush();
+        int chunk = Math.max(1, clip.sampleRate * CHUNK_MS / 1000) * clip.channels;
+        short[] samples = clip.samples;
+        boolean started = false;
+        for (int offset = 0; offset < samples.length; ) {
+            if (generation != clipGeneration) return; // interrompido por outra frase ou stop()
+            int written = track.write(samples, offset, Math.min(chunk, samples.length - offset));
+            if (written < 0) {
+                Log.e(TAG, "AudioTrack write failed: " + written);
+                return;
+            }
+            offset += written;
+            if (!started) {
+                // O primeiro bloco já está no buffer: começa sem underrun
+                track.play();
+                started = true;
+            }
+        }
+        // Em modo stream, stop() toca o que sobrou no buffer antes de parar
+        track.stop();
+    }
+
+    private boolean ensureTrack(PcmClip clip) {
+        if (track != null && trackSampleRate == clip.sampleRate && trackChannels == clip.channels) return true;
+        if (track != null) {
+            track.release();
+            track = null;
+        }
+        int channelMask = clip.channels == 2 ? AudioFormat.CHANNEL_OUT_STEREO : AudioFormat.CHANNEL_OUT_MONO;
+        int minBuffer = AudioTrack.getMinBufferSize(clip.sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT);
+        try {
+            AudioTrack.Builder builder = new AudioTrack.Builder()
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_ASSISTANCE_ACCESSIBILITY)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                            .build())
+                    .setAudioFormat(new AudioFormat.Builder()
+                            .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                            .setSampleRate(clip.sampleRate)
+                            .setChannelMask(channelMask)
+                            .build())
+                    .setBufferSizeInBytes(Math.max(minBuffer, 2 * clip.channels * clip.sampleRate * CHUNK_MS / 1000))
+                    .setTransferMode(AudioTrack.MODE_STREAM);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+            }
+            track = builder.build();
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            Log.e(TAG, "Could not create AudioTrack for " + clip.sampleRate + " Hz", e);
+            available = false;
+            return false;
+        }
+        available = true;
+        trackSampleRate = clip.sampleRate;
+        trackChannels = clip.channels;
+        return true;
+    }
+}
@@ -2,12 +2,25 @@ package com.example.pathfinder.tts;
 
 import android.content.Context;
 import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
     public static final String TAG = "TTS";
@@ -19,14 +32,48 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
     public static final int TEXT_EMPTY = 2;
     public static final int LOWER_PRIORITY = 3;
 
+    private static final String PHRASE_DIR = "tts-phrases";
+    private static final long SYNTHESIS_TIMEOUT_S = 10;
+
     // Store the last spoken TTSMessage object. Initialize with a default SAFE message.
     private TTSMessage lastSpokenMessage = new TTSMessage("", TTSMessage.Priority.LOW);
 
     private final TextToSpeech tts;
     private final MutableLiveData<Boolean> isInitialized = new MutableLiveData<>(false);
 
+    // Frases fixas pré-sintetizadas, tocadas sem passar pelo motor de TTS
+    private final File phraseDir;
+    private final PhrasePlayer phrasePlayer = new PhrasePlayer();
+    private final ExecutorService synthesisExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, CountDownLatch> pendingSynthesis = new ConcurrentHashMap<>();
+    private final Set<String> failedSynthesis = ConcurrentHashMap.newKeySet();
+    private final List<String> knownPhrases = new ArrayList<>();
+    private volatile PhraseCache phraseCache;
+    private boolean engineReady = false;
+
     public TTS(Context context) {
+        phraseDir = new File(context.getCacheDir(), PHRASE_DIR);
         tts = new TextToSpeech(context, this);
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override
+            public void onStart(String utteranceId) {
+            }
+
+            @Override
+            public void onDone(String utteranceId) {
+                finishSynthesis(utteranceId, true);
+            }
+
+            @Override
+            public void onError(String utteranceId) {
+                finishSynthesis(utteranceId, false);
+            }
+
+            @Override
+            public void onStop(String utteranceId, boolean interrupted) {
+                finishSynthesis(utteranceId, false);
+            }
+        });
     }
 
     @Override
@@ -41,6 +88,10 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
             } else {
                 Log.i(TAG, "Initialization successful");
                 isInitialized.postValue(true);
+                synchronized (knownPhrases) {
+                    engineReady = true;
+                    if (!knownPhrases.isEmpty()) startPhraseSynthesis(new ArrayList<>(knownPhrases));
+                }
             }
         } else {
             Log.e(TAG, "Initialization failed");
@@ -62,7 +113,7 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
         if (Boolean.FALSE.equals(isInitialized.getValue())) return NOT_INITIALIZED;
 
         // --- PRIORITY LOGIC ---
-        if (tts.isSpeaking()) {
+        if (tts.isSpeaking() || phrasePlayer.isPlaying()) {
             // A message can only interrupt if its priority is strictly higher.
             // We use ordinal() because enums are ordered from LOW (0) to CRITICAL (3).
             if (message.getPriority().ordinal() <= lastSpokenMessage.getPriority().ordinal()) {
@@ -75,6 +126,16 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
         // Store the new message that is about to be spoken.
         this.lastSpokenMessage = message;
 
+        // Frase conhecida: toca o áudio já sintetizado, sem a latência de partida do motor
+        PhraseCache cache = phraseCache;
+        PcmClip clip = cache != null ? cache.get(message.getText()) : null;
+        if (PhrasePlayer.canPlay(clip) && phrasePlayer.isAvailable()) {
+            if (tts.isSpeaking()) tts.stop();
+            phrasePlayer.play(clip);
+            return SUCCESS;
+        }
+        phrasePlayer.stop();
+
         // Use QUEUE_FLUSH to stop any current speech and start the new one.
         int result = tts.speak(message.getText(), TextToSpeech.QUEUE_FLUSH, null, null);
         if (result == TextToSpeech.ERROR) {
@@ -90,6 +151,7 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
 
     public void stop() {
         tts.stop();
+        phrasePlayer.stop();
         // Reset the priority when manually stopped, so the next message can play.
         lastSpokenMessage = new TTSMessage("", TTSMessage.Priority.LOW);
     }
@@ -99,9 +161,100 @@ public class TTS implements TTSInterface, TextToSpeech.OnInitListener {
     }
 
     public void shutdown() {
+        synthesisExecutor.shutdownNow();
+        phrasePlayer.release();
         if (tts != null) {
             tts.stop();
             tts.shutdown();
         }
     }
+
+    /**
+     * Phrases that will be spoken verbatim, e.g. the fixed alerts. Once the engine is ready they
+     * are synthesized in the background (or loaded from the disk cache, if this engine and voice
+     * already rendered them), and from then on played directly from memory.
+     */
+    public void preparePhrases(Collection<String> phrases) {
+        synchronized (knownPhrases) {
+            for (String phrase : phrases) {
+                if (phrase != null && !phrase.isEmpty() && !knownPhrases.contains(phrase)) knownPhrases.add(phrase);
+            }
+            if (engineReady) startPhraseSynthesis(new ArrayList<>(knownPhrases));
+        }
+    }
+
+    /**
+     * @return number of phrases that play from the cache
+     */
+    public int getCachedPhraseCount() {
+        PhraseCache cache = phraseCache;
+        return cache != null ? cache.size() : 0;
+    }
+
+    private void startPhraseSynthesis(List<String> phrases) {
+        Voice voice = tts.getVoice();
+        PhraseCache cache = new PhraseCache(phraseDir, tts.getDefaultEngine(), voice != null ? voice.getName() : null);
+        synthesisExecutor.execute(() -> renderPhrases(cache, phrases));
+    }
+
+    // Thread de síntese: carrega o que já está no disco e sintetiza o resto, uma frase por vez
+    private void renderPhrases(PhraseCache cache, List<String> phrases) {
+        long start = System.nanoTime();
+        if (!phraseDir.isDirectory() && !phraseDir.mkdirs()) {
+            Log.e(TAG, "Could not create " + phraseDir);
+            return;
+        }
+        cache.retainOnly(phrases);
+        int synthesized = 0;
+        // Um speak com QUEUE_FLUSH cancela a síntese em andamento: as que falharem têm mais uma chance
+        for (int attempt = 0; attempt < 2; attempt++) {
+            for (String phrase : phrases) {
+                if (Thread.currentThread().isInterrupted()) return;
+                if (cache.get(phrase) != null || cache.load(phrase) != null) continue;
+                if (synthesize(phrase, cache.fileFor(phrase)) && cache.load(phrase) != null) synthesized++;
+            }
+        }
+        // Publica o cache e cria o AudioTrack antes do primeiro alerta
+        phraseCache = cache;
+        for (String phrase : phrases) {
+            PcmClip clip = cache.get(phrase);
+            if (PhrasePlayer.canPlay(clip)) {
+                phrasePlayer.prepare(clip);
+                break;
+            }
+        }
+        Log.i(TAG, cache.size() + "/" + phrases.size() + " phrases cached (" + synthesized + " synthesized) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private boolean synthesize(String phrase, File file) {
+        File partial = new File(file.getPath() + ".part");
+        String utteranceId = "phrase-" + file.getName();
+        CountDownLatch done = new CountDownLatch(1);
+        pendingSynthesis.put(utteranceId, done);
+        try {
+            if (tts.synthesizeToFile(phrase, null, partial, utteranceId) != TextToSpeech.SUCCESS) return false;
+            if (!done.await(SYNTHESIS_TIMEOUT_S, TimeUnit.SECONDS)) {
+                Log.w(TAG, "Timed out synthesizing \"" + phrase + "\"");
+                return false;
+            }
+            if (failedSynthesis.remove(utteranceId)) return false;
+            return partial.length() > 0 && partial.renameTo(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pendingSynthesis.remove(utteranceId);
+            failedSynthesis.remove(utteranceId);
+            partial.delete();
+        }
+    }
+
+    // Fim da síntese para arquivo; chamado na thread do motor de TTS
+    private void finishSynthesis(String utteranceId, boolean success) {
+        CountDownLatch done = utteranceId != null ? pendingSynthesis.get(utteranceId) : null;
+        if (done == null) return;
+        if (!success) failedSynthesis.add(utteranceId);
+        done.countDown();
+    }
 }
@@ -0,0 +1,130 @@
+package com.example.pathfinder.tts;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.pathfinder.risk.RiskAssessment;
+
+/**
+ * Spatial tone channel, independent of the TextToSpeech engine. A dedicated audio thread keeps a
+ * low-latency {@link AudioTrack} fed with small blocks from a {@link ToneGenerator}, so each
+ * frame's {@link #update} is heard within a block or two. The track keeps running (silent) while
+ * enabled, since restarting it would cost far more than a block.
+ */
+public class ToneAlerter {
+    private static final String TAG = "ToneAlerter";
+    private static final int BLOCK_FRAMES = 128;
+    private static final int FALLBACK_SAMPLE_RATE = 48000;
+
+    private final ToneGenerator generator;
+    private final Object lock = new Object();
+    private boolean enabled;          // protegido por lock
+    private volatile boolean running = true;
+
+    public ToneAlerter() {
+        int rate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        generator = new ToneGenerator(rate > 0 ? rate : FALLBACK_SAMPLE_RATE);
+        new Thread(this::loop, TAG).start();
+    }
+
+    /**
+     * Follows the assessment of the current frame. Cheap enough to call on every frame.
+     */
+    public void update(RiskAssessment assessment) {
+        generator.update(assessment);
+    }
+
+    public void silence() {
+        generator.silence();
+    }
+
+    /**
+     * Starts or stops the audio track. While disabled the channel is silent and uses no audio resources.
+     */
+    public void setEnabled(boolean enabled) {
+        synchronized (lock) {
+            this.enabled = enabled;
+            lock.notify();
+        }
+        if (!enabled) generator.silence();
+    }
+
+    public void release() {
+        running = false;
+        setEnabled(false);
+    }
+
+    private void loop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        short[] block = new short[BLOCK_FRAMES * 2];
+        AudioTrack track = null;
+        try {
+            while (running) {
+                synchronized (lock) {
+                    while (running && !enabled) {
+                        if (track != null) {
+                            track.pause();
+                            track.flush();
+                        }
+                        lock.wait();
+                    }
+                }
+                if (!running) break;
+                if (track == null) {
+                    track = createTrack();
+                    if (track == null) {
+                        synchronized (lock) {
+                            enabled = false;
+                        }
+                        continue;
+                    }
+                }
+                if (track.getPlayState() != AudioTrack.PLAYSTATE_PLAYING) track.play();
+                generator.render(block, 0, BLOCK_FRAMES);
+                // Bloqueia até caber no buffer: é isso que dá o ritmo da thread
+                int written = track.write(block, 0, block.length);
+                if (written < 0) {
+                    Log.e(TAG, "AudioTrack write failed: " + written);
+                    track.release();
+                    track = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (track != null) track.release();
+        }
+    }
+
+    private AudioTrack createTrack() {
+        int rate = generator.getSampleRate();
+        int minBuffer = AudioTrack.getMinBufferSize(rate, AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_16BIT);
+        try {
+            AudioTrack.Builder builder = new AudioTrack.Builder()
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                            .build())
+                    .setAudioFormat(new AudioFormat.Builder()
+                            .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                            .setSampleRate(rate)
+                            .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                            .build())
+                    // O menor buffer aceito: a latência é o que está na fila
+                    .setBufferSizeInBytes(Math.max(minBuffer, 2 * BLOCK_FRAMES * 4))
+                    .setTransferMode(AudioTrack.MODE_STREAM);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+            }
+            return builder.build();
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            Log.e(TAG, "Could not create tone AudioTrack at " + rate + " Hz", e);
+            return null;
+        }
+    }
+}
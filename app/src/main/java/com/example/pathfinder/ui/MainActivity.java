@@ -3,6 +3,8 @@ package com.example.pathfinder.ui;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.widget.ImageButton;
@@ -19,17 +21,36 @@ import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 
 import com.example.pathfinder.R;
+import com.example.pathfinder.detection.DelegateConfig;
+import com.example.pathfinder.detection.YoloBase;
 import com.example.pathfinder.detection.YoloNano;
+import com.example.pathfinder.manager.FramePipeline;
 import com.example.pathfinder.manager.Manager;
+import com.example.pathfinder.metrics.MetricsRegistry;
+import com.example.pathfinder.metrics.StartupMilestones;
+import com.example.pathfinder.tts.TTS;
 import com.google.ar.sceneform.ux.ArFragment;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
+    private static final int CPU_INTERPRETER_POOL_SIZE = 2;
+    private static final String METRICS_DUMP_FILE = "metrics.txt";
+    // Gravações de sessão: imagem da câmera com metade da resolução
+    private static final String SESSION_FILE_PATTERN = "session-%tY%<tm%<td-%<tH%<tM%<tS.rec";
+    private static final int SESSION_IMAGE_DOWNSAMPLE = 2;
+    // Modelo e labels em paralelo; o warm-up reaproveita uma das threads
+    private static final int STARTUP_THREADS = 2;
     private OverlayView overlayView;
     private ExecutorService cameraExecutor;
     private TextView ttsStatus;
@@ -42,6 +63,15 @@ public class MainActivity extends AppCompatActivity {
 
     private ArFragment arFragment;
 
+    // Partida assíncrona: modelo, labels, TTS e sessão do ARCore ao mesmo tempo, fora da thread principal
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private ExecutorService startupExecutor;
+    private TTS tts;
+    private boolean depthSupported = false;   // thread principal
+    private boolean cameraPermitted = false;  // thread principal
+    private boolean warmedUp = false;         // thread principal
+    private boolean arStarted = false;        // thread principal
+
 
     // Register the permissions callback, which handles the user's response to the
     // system permissions dialog. Save the return value, an instance of
@@ -51,7 +81,8 @@ public class MainActivity extends AppCompatActivity {
                 if (isGranted) {
                     Toast.makeText(this, "Permissao da camera concedida", Toast.LENGTH_SHORT).show();
                     permissionDeniedText.setVisibility(View.GONE);
-                    manager.startArCore();
+                    cameraPermitted = true;
+                    startArCoreWhenReady();
                 } else {
                     Toast.makeText(this, "Permissao da camera recusada", Toast.LENGTH_SHORT).show();
                     permissionDeniedText.setVisibility(View.VISIBLE);
@@ -80,30 +111,90 @@ public class MainActivity extends AppCompatActivity {
         latencyBox = findViewById(R.id.metricsLatencyBox);
 
 
-        YoloNano detector = null;
-        try {
-            detector = new YoloNano(this);
-        } catch (IOException e) {
-            Log.e(e.getMessage(), "Failed to load model");
-        }
-
-        // Obter dimensões da tela para análise de risco
-        int screenWidth = getResources().getDisplayMetrics().widthPixels;
-        int screenHeight = getResources().getDisplayMetrics().heightPixels;
-
-        managerExecutor = Executors.newSingleThreadExecutor();
-        manager = new Manager(this, detector, overlayView, arFragment, screenWidth, screenHeight);
+        // Marcos da partida contados desde o início do processo
+        long sinceProcessStartMs = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        metrics.getStartup().setOrigin(System.nanoTime() - sinceProcessStartMs * 1_000_000L);
 
-        setupButtons();
+        // O ArFragment cria a sessão no seu onResume, que agora não espera o modelo carregar
+        arFragment.setOnSessionConfigurationListener((session, config) -> {
+            depthSupported = Manager.configureSession(session, config);
+            metrics.getStartup().mark(StartupMilestones.Milestone.AR_SESSION_READY);
+            if (manager != null) manager.setDepthEnabled(depthSupported);
+        });
 
-        manager.getTtsInitialized().observe(this, isInitialized -> {
+        // O TextToSpeech liga ao motor em segundo plano; as frases fixas já começam a ser sintetizadas
+        tts = new TTS(this);
+        tts.preparePhrases(Manager.alertPhrases());
+        tts.isInitialized().observe(this, isInitialized -> {
             if (isInitialized) {
                 ttsStatus.setVisibility(View.GONE);
+                metrics.getStartup().mark(StartupMilestones.Milestone.TTS_READY);
             } else {
                 ttsStatus.setVisibility(View.VISIBLE);
             }
         });
 
+        // Uma thread por etapa do pipeline (conversão, inferência, pós-processamento)
+        managerExecutor = Executors.newFixedThreadPool(FramePipeline.STAGE_COUNT);
+        startupExecutor = Executors.newFixedThreadPool(STARTUP_THREADS);
+        Executor mainExecutor = ContextCompat.getMainExecutor(this);
+
+        CompletableFuture<List<String>> labels = CompletableFuture.supplyAsync(() -> {
+            try {
+                List<String> list = YoloNano.loadLabels(this);
+                metrics.getStartup().mark(StartupMilestones.Milestone.LABELS_LOADED);
+                return list;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, startupExecutor);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                // Mede CPU/NNAPI/GPU na primeira execução; nas seguintes a escolha vem do cache
+                return YoloBase.tuneDelegate(this, YoloNano.MODEL_PATH);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, startupExecutor).thenCombine(labels, (config, labelList) -> {
+            // Em CPU, usa os núcleos que sobram para interpretadores extras em paralelo
+            int cores = Runtime.getRuntime().availableProcessors();
+            int interpreters = config.backend == DelegateConfig.Backend.CPU
+                    ? Math.min(CPU_INTERPRETER_POOL_SIZE, Math.max(1, cores / config.numThreads)) : 1;
+            try {
+                YoloNano detector = new YoloNano(this, config, interpreters, labelList);
+                metrics.getStartup().mark(StartupMilestones.Milestone.MODEL_LOADED);
+                return detector;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).thenAcceptAsync(this::onDetectorLoaded, mainExecutor).exceptionally(e -> {
+            Log.e(TAG, "Failed to load model", e);
+            runOnUiThread(() -> Toast.makeText(this, "Falha ao carregar o modelo", Toast.LENGTH_LONG).show());
+            return null;
+        });
+
+        // A permissão é pedida enquanto o modelo carrega
+        if (allPermissionsGranted()) {
+            cameraPermitted = true;
+        } else {
+            permissionDeniedText.setVisibility(View.VISIBLE);
+            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    // Thread principal, com o modelo pronto: monta o Manager e aquece os interpretadores em segundo plano
+    private void onDetectorLoaded(YoloNano detector) {
+        if (isDestroyed()) return;
+        // Obter dimensões da tela para análise de risco
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int screenHeight = getResources().getDisplayMetrics().heightPixels;
+
+        manager = new Manager(this, detector, tts, overlayView, arFragment, screenWidth, screenHeight,
+                managerExecutor, metrics);
+        manager.setDepthEnabled(depthSupported);
+
+        setupButtons();
+
         manager.getShowMetricsOnScreen().observe(this, showMetrics -> {
             if (showMetrics) {
                 fpsBox.setVisibility(View.VISIBLE);
@@ -114,19 +205,75 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
-        manager.getFPS().observe(this, fps -> {
-            fpsBox.setText(String.format("FPS: %.2f", fps));
+        manager.getMetricsSnapshot().observe(this, snapshot -> {
+            fpsBox.setText(String.format(Locale.US, "FPS: %.2f  descartados: %.1f/s",
+                    snapshot.fps, snapshot.droppedPerSecond));
+            latencyBox.setText(formatLatencies(snapshot));
         });
 
-        manager.getLatency().observe(this, latency -> {
-            latencyBox.setText(String.format("Latência: %.2fms", latency));
-        });
+        // O primeiro frame da câmera não paga a primeira execução do interpretador
+        Manager warming = manager;
+        CompletableFuture.runAsync(warming::warmUp, startupExecutor).whenCompleteAsync((ignored, e) -> {
+            if (e != null) Log.e(TAG, "Warm-up failed", e);
+            warmedUp = true;
+            startArCoreWhenReady();
+        }, ContextCompat.getMainExecutor(this));
+    }
 
-        if (allPermissionsGranted()) {
-            manager.startArCore();
-        } else {
-            permissionDeniedText.setVisibility(View.VISIBLE);
-            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
+    // Processamento só com a câmera liberada e os interpretadores aquecidos
+    private void startArCoreWhenReady() {
+        if (arStarted || !cameraPermitted || !warmedUp || isDestroyed()) return;
+        arStarted = true;
+        manager.startArCore();
+    }
+
+    // Uma linha por etapa: p50 / p90 / p99 / máximo na janela, em ms
+    private static String formatLatencies(MetricsRegistry.Snapshot snapshot) {
+        StringBuilder sb = new StringBuilder("Latência (ms)  p50 / p90 / p99 / max");
+        for (MetricsRegistry.StageStats stats : snapshot.stages) {
+            if (stats.count == 0) continue;
+            sb.append(String.format(Locale.US, "%n%s: %.1f / %.1f / %.1f / %.1f",
+                    stats.stage.label, stats.p50, stats.p90, stats.p99, stats.max));
+        }
+        double firstInference = snapshot.startupMs(StartupMilestones.Milestone.FIRST_INFERENCE);
+        double firstAlert = snapshot.startupMs(StartupMilestones.Milestone.FIRST_ALERT_READY);
+        if (!Double.isNaN(firstInference)) {
+            sb.append(String.format(Locale.US, "%nPartida: 1ª inferência %.0f ms, 1º alerta %s",
+                    firstInference, Double.isNaN(firstAlert) ? "-" : String.format(Locale.US, "%.0f ms", firstAlert)));
+        }
+        return sb.toString();
+    }
+
+    // Acrescenta o snapshot atual das métricas a um arquivo do app
+    private void dumpMetrics() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) dir = getFilesDir();
+        File file = new File(dir, METRICS_DUMP_FILE);
+        try {
+            manager.dumpMetrics(file);
+            Toast.makeText(this, "Métricas salvas em " + file.getAbsolutePath(), Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump metrics: " + e.getMessage());
+            Toast.makeText(this, "Falha ao salvar métricas", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    // Liga/desliga a gravação da sessão, para reproduzir um alerta no desktop
+    private void toggleRecording() {
+        if (manager.isRecording()) {
+            long frames = manager.stopRecording();
+            Toast.makeText(this, "Gravação encerrada: " + frames + " frames", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File dir = getExternalFilesDir(null);
+        if (dir == null) dir = getFilesDir();
+        File file = new File(dir, String.format(Locale.US, SESSION_FILE_PATTERN, System.currentTimeMillis()));
+        try {
+            manager.startRecording(file, SESSION_IMAGE_DOWNSAMPLE);
+            Toast.makeText(this, "Gravando sessão em " + file.getAbsolutePath(), Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to start recording: " + e.getMessage());
+            Toast.makeText(this, "Falha ao iniciar gravação", Toast.LENGTH_SHORT).show();
         }
     }
 
@@ -151,6 +298,11 @@ public class MainActivity extends AppCompatActivity {
             manager.toggleProcessing();
         });
 
+        onOffButton.setOnLongClickListener(v -> {
+            toggleRecording();
+            return true;
+        });
+
         soundButton.setOnClickListener(v -> {
             manager.toggleTTS();
         });
@@ -162,6 +314,11 @@ public class MainActivity extends AppCompatActivity {
         metricsButton.setOnClickListener(v -> {
             manager.toggleMetricsOnScreen();
         });
+
+        metricsButton.setOnLongClickListener(v -> {
+            dumpMetrics();
+            return true;
+        });
     }
 
     private boolean allPermissionsGranted() {
@@ -179,9 +336,6 @@ public class MainActivity extends AppCompatActivity {
                 throw new RuntimeException(e);
             }
         }
-        if (manager != null) {
-            manager.shutdown();
-        }
     }
 
     @Override
@@ -194,6 +348,17 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onDestroy() {
+        if (startupExecutor != null) {
+            startupExecutor.shutdownNow();
+        }
+        if (manager != null) {
+            manager.shutdown();
+        } else if (tts != null) {
+            tts.shutdown(); // o modelo não chegou a carregar
+        }
+        if (managerExecutor != null) {
+            managerExecutor.shutdownNow();
+        }
         if (arFragment != null) {
             arFragment.getArSceneView().destroy();
         }
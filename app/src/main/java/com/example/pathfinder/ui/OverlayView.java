@@ -4,19 +4,40 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
 import android.util.AttributeSet;
 import android.util.Pair;
-import android.view.View;
+import android.view.TextureView;
 
 import com.example.pathfinder.detection.BoundingBox;
 
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Draws the detected boxes over the camera view on a dedicated thread, off the UI thread that
+ * Sceneform uses to render the ARCore scene. {@link #setResults} may be called from any thread:
+ * it builds an {@link OverlaySnapshot}, drops it if nothing visible changed, and otherwise hands
+ * it to the render thread through a {@link TripleBuffer}.
+ */
+public class OverlayView extends TextureView implements TextureView.SurfaceTextureListener {
+    private static final String TAG = "OverlayView";
+    private static final int LABEL_CACHE_SIZE = 512;
 
-public class OverlayView extends View {
-    private List<Pair<BoundingBox, Float>> detectedObjects;
     private final Paint boxPaint;
     private final Paint textPaint;
 
+    // Lado do produtor: protegido por synchronized em setResults
+    private final LabelCache labelCache = new LabelCache(LABEL_CACHE_SIZE);
+    private final OverlaySnapshot pending = new OverlaySnapshot();
+    private final OverlaySnapshot lastPublished = new OverlaySnapshot();
+    private final TripleBuffer<OverlaySnapshot> snapshots = new TripleBuffer<>(OverlaySnapshot::new);
+
+    private volatile Thread renderThread;
+    private volatile long framesDrawn;
+    private volatile long updatesSkipped;
+
     public OverlayView(Context context, AttributeSet attrs) {
         super(context, attrs);
 
@@ -28,36 +49,114 @@ public class OverlayView extends View {
         textPaint = new Paint();
         textPaint.setColor(Color.RED);
         textPaint.setTextSize(50f);
+
+        setOpaque(false);
+        setSurfaceTextureListener(this);
     }
 
-    public void setResults(List<Pair<BoundingBox, Float>> detectedObjects) {
-        this.detectedObjects = detectedObjects;
-        invalidate(); // Redraw the view
+    /**
+     * @param detectedObjects boxes in normalized view coordinates with their distances; null clears the overlay
+     */
+    public synchronized void setResults(List<Pair<BoundingBox, Float>> detectedObjects) {
+        pending.clear();
+        if (detectedObjects != null) {
+            for (int i = 0, n = detectedObjects.size(); i < n; i++) {
+                Pair<BoundingBox, Float> obj = detectedObjects.get(i);
+                BoundingBox box = obj.first;
+                String label = labelCache.label(box.cls, box.clsName, obj.second, box.cnf);
+                pending.add(box.x1, box.y1, box.x2, box.y2, label);
+            }
+        }
+        if (pending.contentEquals(lastPublished)) {
+            updatesSkipped++;
+            return;
+        }
+        lastPublished.copyFrom(pending);
+        snapshots.back().copyFrom(pending);
+        snapshots.publish();
+        Thread thread = renderThread;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    public long getFramesDrawn() {
+        return framesDrawn;
+    }
+
+    public long getUpdatesSkipped() {
+        return updatesSkipped;
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        int width = getWidth();
-        int height = getHeight();
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        Thread thread = new Thread(this::renderLoop, TAG);
+        renderThread = thread;
+        // O último snapshot publicado antes da superfície existir também precisa ser desenhado
+        forceRedraw();
+        thread.start();
+    }
 
-        if (detectedObjects != null) {
-            for (Pair<BoundingBox, Float> obj : detectedObjects) {
-                var box = obj.first;
-                var dist = obj.second;
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        forceRedraw();
+        Thread thread = renderThread;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        Thread thread = renderThread;
+        renderThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                // lockCanvas não pode correr depois que a superfície for liberada
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
 
-                var left =  box.x1 * width;
-                var top = box.y1 * height;
-                var right = box.x2 * width;
-                var bottom = box.y2 * height;
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
 
-                // Draw the rectangle
-                canvas.drawRect(left, top, right, bottom, boxPaint);
+    private synchronized void forceRedraw() {
+        snapshots.back().copyFrom(lastPublished);
+        snapshots.publish();
+    }
 
-                // Draw the label, distance and confidence score
-                String label = String.format("%s: %.2fm (%.2f)", box.clsName, dist, box.cnf);
-                canvas.drawText(label, left, top - 10, textPaint);
+    private void renderLoop() {
+        Thread self = Thread.currentThread();
+        while (renderThread == self) {
+            if (!snapshots.acquire()) {
+                LockSupport.park(this);
+                continue;
+            }
+            Canvas canvas = lockCanvas();
+            if (canvas == null) continue;
+            try {
+                draw(canvas, snapshots.front());
+            } finally {
+                unlockCanvasAndPost(canvas);
             }
+            framesDrawn++;
+        }
+    }
+
+    private void draw(Canvas canvas, OverlaySnapshot snapshot) {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        int width = getWidth();
+        int height = getHeight();
+        for (int i = 0; i < snapshot.count; i++) {
+            float left = snapshot.x1(i) * width;
+            float top = snapshot.y1(i) * height;
+            float right = snapshot.x2(i) * width;
+            float bottom = snapshot.y2(i) * height;
+
+            canvas.drawRect(left, top, right, bottom, boxPaint);
+            canvas.drawText(snapshot.labels[i], left, top - 10, textPaint);
         }
     }
 }
@@ -39,4 +39,17 @@ public class ImageUtils {
 
         return bitmap;
     }
+
+    /**
+     * Copies the planes of a YUV_420_888 image into a reusable {@link YuvFrame}.
+     * The image is not closed, so the caller can release it right after this call.
+     */
+    public static void copyToYuvFrame(Image image, YuvFrame frame) {
+        Image.Plane[] planes = image.getPlanes();
+        frame.set(image.getWidth(), image.getHeight(),
+                planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride());
+        frame.timestampNs = image.getTimestamp();
+    }
 }
@@ -0,0 +1,105 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.detection.InferenceEngine;
+import com.example.pathfinder.detection.InterpreterPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frames per second through {@link InterpreterPool} with CPU-bound stand-in engines, for
+ * comparing pool sizes. Only meaningful on a machine with at least as many idle cores as engines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InterpreterPoolBenchmark {
+    private static final int FRAMES = 32;
+
+    @Param({"1", "2", "4"})
+    public int poolSize;
+
+    @Param({"2000000"})
+    public int workPerFrame;
+
+    private InterpreterPool<Integer> pool;
+    private ByteBuffer[] inputs;
+    private ByteBuffer[] outputs;
+    private final Object lock = new Object();
+    private int delivered;
+
+    // Um interpretador de mentira: uma quantidade fixa de contas por frame
+    private static final class BusyEngine implements InferenceEngine {
+        private final int workPerFrame;
+        volatile long sink;
+
+        BusyEngine(int workPerFrame) {
+            this.workPerFrame = workPerFrame;
+        }
+
+        @Override
+        public void run(ByteBuffer input, ByteBuffer output) {
+            long acc = input.getInt(0);
+            for (int i = 0; i < workPerFrame; i++) {
+                acc = acc * 6364136223846793005L + 1442695040888963407L;
+            }
+            sink = acc;
+            output.putInt(0, input.getInt(0));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        InferenceEngine[] engines = new InferenceEngine[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            engines[i] = new BusyEngine(workPerFrame);
+        }
+        pool = new InterpreterPool<>(engines, (tag, input, output, success) -> {
+            synchronized (lock) {
+                delivered++;
+                lock.notifyAll();
+            }
+        });
+        // Um par de buffers por frame do lote: nenhum é reaproveitado enquanto está no pool
+        inputs = new ByteBuffer[FRAMES];
+        outputs = new ByteBuffer[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            inputs[i] = ByteBuffer.allocate(4).putInt(0, i);
+            outputs[i] = ByteBuffer.allocate(4);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int frames() throws InterruptedException {
+        int target;
+        synchronized (lock) {
+            target = delivered + FRAMES;
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            pool.submit(i, inputs[i], outputs[i]);
+        }
+        synchronized (lock) {
+            while (delivered < target) {
+                lock.wait();
+            }
+        }
+        return target;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.detection.DetectionCandidates;
+import com.example.pathfinder.detection.NonMaxSuppression;
+import com.example.pathfinder.detection.YoloPostProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NMS alone over a growing number of decoder candidates, with the production configuration
+ * (spatial grid from {@link YoloPostProcessor}), with and without the top-k limit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NmsBenchmark {
+
+    @Param({"10", "100", "500", "1000", "4000"})
+    public int candidates;
+
+    @Param({"false", "true"})
+    public boolean classAware;
+
+    @Param({"0", "1000"})
+    public int topK;
+
+    private DetectionCandidates boxes;
+    private NonMaxSuppression nms;
+    private int[] keep;
+
+    @Setup
+    public void setup() {
+        boxes = SyntheticScenes.candidates(candidates);
+        nms = new YoloPostProcessor(Collections.emptyList(), 0.3f, 0.4f).getNms();
+        nms.setClassAware(classAware);
+        nms.setTopK(topK);
+        keep = new int[boxes.capacity()];
+    }
+
+    @Benchmark
+    public int nms() {
+        return nms.run(boxes, keep);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.YoloPostProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YoloBase.PostProcess on a float [1, 84, 8400] output: decode plus NMS, with the thresholds the
+ * app uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostProcessBenchmark {
+    private static final float CONFIDENCE_THRESHOLD = 0.3f;
+    private static final float IOU_THRESHOLD = 0.4f;
+
+    // Objetos na cena; cada um gera vários anchors acima do threshold
+    @Param({"0", "10", "50", "200"})
+    public int objects;
+
+    private FloatBuffer output;
+    private YoloPostProcessor postProcessor;
+
+    @Setup
+    public void setup() throws IOException {
+        output = SyntheticScenes.outputTensor(objects);
+        postProcessor = new YoloPostProcessor(SyntheticScenes.labels(), CONFIDENCE_THRESHOLD, IOU_THRESHOLD);
+    }
+
+    @Benchmark
+    public List<BoundingBox> postProcess() {
+        return postProcessor.process(output, SyntheticScenes.NUM_CHANNELS, SyntheticScenes.NUM_ANCHORS);
+    }
+}
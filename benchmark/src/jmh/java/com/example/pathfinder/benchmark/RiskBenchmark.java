@@ -0,0 +1,49 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RiskAnalyzer.analyzeRisk without the Android adapter: scoring every near object and filling
+ * the reused assessment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RiskBenchmark {
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2400;
+
+    @Param({"0", "1", "5", "20", "100"})
+    public int objects;
+
+    private RiskEvaluator evaluator;
+    private List<BoundingBox> boxes;
+    private float[] distances;
+    private final RiskAssessment assessment = new RiskAssessment();
+
+    @Setup
+    public void setup() {
+        evaluator = new RiskEvaluator(SCREEN_WIDTH, SCREEN_HEIGHT);
+        distances = new float[Math.max(1, objects)];
+        boxes = SyntheticScenes.boxes(objects, distances);
+    }
+
+    @Benchmark
+    public RiskAssessment analyzeRisk() {
+        return evaluator.evaluate(boxes, distances, objects, Float.MIN_VALUE, 0, assessment);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.DetectionCandidates;
+import com.example.pathfinder.utils.YuvFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Inputs for the benchmarks, built from a fixed seed so runs are comparable.
+ * <p>
+ * Model outputs can also come from a recording: with {@code -Dpathfinder.tensor=<file>} (set by
+ * {@code ./gradlew :benchmark:jmh -Ptensor=<file>}) the tensor is read from a raw little-endian
+ * float32 dump of the [1, 84, 8400] output.
+ */
+final class SyntheticScenes {
+    static final int NUM_CLASSES = 80;
+    static final int NUM_CHANNELS = 4 + NUM_CLASSES;
+    static final int NUM_ANCHORS = 8400;
+    static final long SEED = 42;
+
+    // Cada objeto real aparece em vários anchors vizinhos, como na saída do YOLO
+    private static final int ANCHORS_PER_OBJECT = 8;
+
+    private SyntheticScenes() {
+    }
+
+    static List<String> labels() {
+        List<String> labels = new ArrayList<>(NUM_CLASSES);
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            labels.add(i == 0 ? "person" : "class" + i);
+        }
+        return labels;
+    }
+
+    /**
+     * Output tensor with low background scores and {@code objects} objects above the threshold.
+     */
+    static FloatBuffer outputTensor(int objects) throws IOException {
+        String recorded = System.getProperty("pathfinder.tensor");
+        if (recorded != null && !recorded.isEmpty()) {
+            return readTensor(recorded);
+        }
+
+        Random random = new Random(SEED);
+        FloatBuffer tensor = ByteBuffer.allocateDirect(NUM_CHANNELS * NUM_ANCHORS * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        for (int j = 0; j < NUM_ANCHORS; j++) {
+            float w = 0.02f + 0.1f * random.nextFloat();
+            float h = 0.02f + 0.1f * random.nextFloat();
+            tensor.put(j, 0.1f + 0.8f * random.nextFloat());
+            tensor.put(j + NUM_ANCHORS, 0.1f + 0.8f * random.nextFloat());
+            tensor.put(j + 2 * NUM_ANCHORS, w);
+            tensor.put(j + 3 * NUM_ANCHORS, h);
+        }
+        for (int c = 4; c < NUM_CHANNELS; c++) {
+            for (int j = 0; j < NUM_ANCHORS; j++) {
+                tensor.put(c * NUM_ANCHORS + j, 0.05f * random.nextFloat());
+            }
+        }
+        for (int o = 0; o < objects; o++) {
+            float cx = 0.2f + 0.6f * random.nextFloat();
+            float cy = 0.2f + 0.6f * random.nextFloat();
+            float w = 0.05f + 0.25f * random.nextFloat();
+            float h = 0.05f + 0.25f * random.nextFloat();
+            int cls = random.nextInt(NUM_CLASSES);
+            int first = random.nextInt(NUM_ANCHORS - ANCHORS_PER_OBJECT);
+            for (int k = 0; k < ANCHORS_PER_OBJECT; k++) {
+                int j = first + k;
+                tensor.put(j, cx + 0.01f * (float) random.nextGaussian());
+                tensor.put(j + NUM_ANCHORS, cy + 0.01f * (float) random.nextGaussian());
+                tensor.put(j + 2 * NUM_ANCHORS, w);
+                tensor.put(j + 3 * NUM_ANCHORS, h);
+                tensor.put((4 + cls) * NUM_ANCHORS + j, 0.35f + 0.6f * random.nextFloat());
+            }
+        }
+        return tensor;
+    }
+
+    private static FloatBuffer readTensor(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long expected = (long) NUM_CHANNELS * NUM_ANCHORS * 4;
+            if (channel.size() != expected) {
+                throw new IOException("Expected " + expected + " bytes of float32 in " + path
+                        + ", found " + channel.size());
+            }
+            ByteBuffer bytes = ByteBuffer.allocateDirect((int) expected).order(ByteOrder.LITTLE_ENDIAN);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // lê até o fim
+            }
+            bytes.flip();
+            return bytes.asFloatBuffer();
+        }
+    }
+
+    /**
+     * NMS input: clusters of overlapping boxes, as the decoder leaves them.
+     */
+    static DetectionCandidates candidates(int count) {
+        Random random = new Random(SEED + count);
+        DetectionCandidates candidates = new DetectionCandidates(count);
+        while (candidates.count < count) {
+            float cx = 0.1f + 0.8f * random.nextFloat();
+            float cy = 0.1f + 0.8f * random.nextFloat();
+            float w = 0.03f + 0.15f * random.nextFloat();
+            float h = 0.03f + 0.15f * random.nextFloat();
+            int cls = random.nextInt(NUM_CLASSES);
+            for (int k = 0; k < ANCHORS_PER_OBJECT && candidates.count < count; k++) {
+                candidates.add(cx + 0.01f * (float) random.nextGaussian(),
+                        cy + 0.01f * (float) random.nextGaussian(),
+                        w * (0.9f + 0.2f * random.nextFloat()), h * (0.9f + 0.2f * random.nextFloat()),
+                        0.3f + 0.7f * random.nextFloat(), cls);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Boxes in normalized image coordinates, as ARCoreDistanceCalculation hands them to the risk
+     * analysis, and their distances in metres.
+     */
+    static List<BoundingBox> boxes(int count, float[] distances) {
+        Random random = new Random(SEED + count);
+        List<String> labels = labels();
+        List<BoundingBox> boxes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float cx = random.nextFloat(), cy = random.nextFloat();
+            float w = 0.05f + 0.3f * random.nextFloat(), h = 0.05f + 0.3f * random.nextFloat();
+            int cls = random.nextInt(NUM_CLASSES);
+            boxes.add(new BoundingBox(cx - w / 2, cy - h / 2, cx + w / 2, cy + h / 2, cx, cy, w, h,
+                    0.3f + 0.7f * random.nextFloat(), cls, labels.get(cls)));
+            distances[i] = 0.3f + 2.7f * random.nextFloat();
+        }
+        return boxes;
+    }
+
+    /**
+     * Camera frame in the YUV_420_888 layout ARCore gives on most devices (interleaved chroma,
+     * pixel stride 2, padded rows).
+     */
+    static YuvFrame cameraFrame(int width, int height) {
+        Random random = new Random(SEED);
+        int yRowStride = width + 64;
+        int uvRowStride = yRowStride;
+        byte[] y = new byte[yRowStride * height];
+        byte[] uv = new byte[uvRowStride * (height / 2)];
+        random.nextBytes(y);
+        random.nextBytes(uv);
+        ByteBuffer yPlane = ByteBuffer.wrap(y);
+        ByteBuffer uPlane = ByteBuffer.wrap(uv);
+        ByteBuffer vPlane = ByteBuffer.wrap(uv, 1, uv.length - 1).slice();
+        YuvFrame frame = new YuvFrame();
+        frame.set(width, height, yPlane, yRowStride, 1, uPlane, vPlane, uvRowStride, 2);
+        return frame;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pathfinder.benchmark;
+
+import com.example.pathfinder.utils.YuvFrame;
+import com.example.pathfinder.utils.YuvToTensorConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camera YUV frame to the 640x640 model input, rotated 90 degrees as in YoloBase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YuvConversionBenchmark {
+    private static final int MODEL_SIZE = 640;
+
+    @Param({"640x480", "1280x720"})
+    public String cameraSize;
+
+    @Param({"FLOAT32", "UINT8"})
+    public YuvToTensorConverter.OutputType outputType;
+
+    @Param({"NEAREST", "BILINEAR"})
+    public YuvToTensorConverter.Interpolation interpolation;
+
+    private YuvFrame frame;
+    private YuvToTensorConverter converter;
+    private ByteBuffer input;
+
+    @Setup
+    public void setup() {
+        String[] size = cameraSize.split("x");
+        frame = SyntheticScenes.cameraFrame(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        converter = new YuvToTensorConverter(MODEL_SIZE, MODEL_SIZE, 90, interpolation, 0f, 255f,
+                outputType, 1f / 255f, 0);
+        input = converter.allocateOutputBuffer();
+    }
+
+    @Benchmark
+    public ByteBuffer convert() {
+        converter.convert(frame, input);
+        return input;
+    }
+}
@@ -4,6 +4,7 @@ public class BoundingBox {
     public float x1, y1, x2, y2, cx, cy, w, h, cnf;
     public int cls;
     public String clsName;
+    public int trackId = -1; // preenchido pelo ObjectTracker; -1 sem trilha
 
     public BoundingBox(float x1, float y1, float x2, float y2, float cx, float cy, float w, float h, float cnf, int cls, String clsName) {
         this.x1 = x1;
@@ -0,0 +1,72 @@
+package com.example.pathfinder.detection;
+
+import java.util.Objects;
+
+/**
+ * Where the interpreter runs: CPU (XNNPACK) with a given number of threads, NNAPI or GPU.
+ * Serialized as "CPU:4", "NNAPI" or "GPU" for the tuning cache.
+ */
+public final class DelegateConfig {
+
+    public enum Backend {
+        CPU,
+        NNAPI,
+        GPU
+    }
+
+    public final Backend backend;
+    public final int numThreads; // só usado em CPU
+
+    private DelegateConfig(Backend backend, int numThreads) {
+        this.backend = backend;
+        this.numThreads = numThreads;
+    }
+
+    public static DelegateConfig cpu(int numThreads) {
+        return new DelegateConfig(Backend.CPU, Math.max(1, numThreads));
+    }
+
+    public static DelegateConfig nnapi() {
+        return new DelegateConfig(Backend.NNAPI, 0);
+    }
+
+    public static DelegateConfig gpu() {
+        return new DelegateConfig(Backend.GPU, 0);
+    }
+
+    /**
+     * @return the config written by {@link #toString()}, or null if the text is not valid
+     */
+    public static DelegateConfig parse(String text) {
+        if (text == null) return null;
+        if (text.equals("NNAPI")) return nnapi();
+        if (text.equals("GPU")) return gpu();
+        if (text.startsWith("CPU:")) {
+            try {
+                int threads = Integer.parseInt(text.substring(4));
+                return threads > 0 ? cpu(threads) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return backend == Backend.CPU ? "CPU:" + numThreads : backend.name();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DelegateConfig)) return false;
+        DelegateConfig other = (DelegateConfig) o;
+        return backend == other.backend && numThreads == other.numThreads;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(backend, numThreads);
+    }
+}
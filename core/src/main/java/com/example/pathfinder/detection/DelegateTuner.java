@@ -0,0 +1,200 @@
+package com.example.pathfinder.detection;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Picks the fastest {@link DelegateConfig} for a model by timing a few inferences with each
+ * candidate, and remembers the choice in a small properties file so later launches skip the
+ * benchmark. Cache keys should identify both the model file and the device.
+ * <p>
+ * Creating the engines is left to an {@link EngineFactory}, so the tuner itself does not depend
+ * on TFLite and can be exercised with CPU-only fakes.
+ */
+public class DelegateTuner {
+
+    public interface EngineFactory {
+        /**
+         * Creates an engine for the config. Throwing skips the candidate (e.g. delegate not
+         * available on this device).
+         */
+        InferenceEngine open(DelegateConfig config) throws Exception;
+
+        void close(InferenceEngine engine);
+    }
+
+    public static final class Result {
+        public final DelegateConfig config;
+        public final double medianMs;
+        public final boolean fromCache;
+
+        Result(DelegateConfig config, double medianMs, boolean fromCache) {
+            this.config = config;
+            this.medianMs = medianMs;
+            this.fromCache = fromCache;
+        }
+    }
+
+    private final File cacheFile;
+    private final int warmupRuns;
+    private final int measuredRuns;
+
+    // Tempo mediano de cada candidato no último benchmark (NaN se falhou)
+    private final List<DelegateConfig> lastCandidates = new ArrayList<>();
+    private double[] lastTimesMs = new double[0];
+
+    /**
+     * @param cacheFile    where decisions are stored; null disables the cache
+     * @param warmupRuns   untimed runs per candidate (delegate compilation, caches, JIT)
+     * @param measuredRuns timed runs per candidate; the median is compared
+     */
+    public DelegateTuner(File cacheFile, int warmupRuns, int measuredRuns) {
+        if (measuredRuns < 1) {
+            throw new IllegalArgumentException("measuredRuns must be at least 1");
+        }
+        this.cacheFile = cacheFile;
+        this.warmupRuns = Math.max(0, warmupRuns);
+        this.measuredRuns = measuredRuns;
+    }
+
+    /**
+     * Returns the cached decision for {@code key} if it is still one of the candidates,
+     * otherwise benchmarks every candidate and stores the fastest.
+     * @return null if no candidate could run
+     */
+    public synchronized Result select(String key, List<DelegateConfig> candidates, EngineFactory factory,
+                                      ByteBuffer input, ByteBuffer output) {
+        Result cached = loadCached(key);
+        if (cached != null && candidates.contains(cached.config)) {
+            return cached;
+        }
+        Result best = benchmark(candidates, factory, input, output);
+        if (best != null) {
+            store(key, best);
+        }
+        return best;
+    }
+
+    /**
+     * Times every candidate without touching the cache.
+     * @return the candidate with the lowest median time, or null if none could run
+     */
+    public synchronized Result benchmark(List<DelegateConfig> candidates, EngineFactory factory,
+                                         ByteBuffer input, ByteBuffer output) {
+        lastCandidates.clear();
+        lastCandidates.addAll(candidates);
+        lastTimesMs = new double[candidates.size()];
+
+        Result best = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            DelegateConfig config = candidates.get(i);
+            double medianMs = measure(config, factory, input, output);
+            lastTimesMs[i] = medianMs;
+            if (!Double.isNaN(medianMs) && (best == null || medianMs < best.medianMs)) {
+                best = new Result(config, medianMs, false);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Median time of each candidate in the last {@link #benchmark} call, NaN for the ones that
+     * failed; same order as the candidate list.
+     */
+    public synchronized double[] getLastTimesMs() {
+        return lastTimesMs.clone();
+    }
+
+    public synchronized List<DelegateConfig> getLastCandidates() {
+        return new ArrayList<>(lastCandidates);
+    }
+
+    private double measure(DelegateConfig config, EngineFactory factory, ByteBuffer input, ByteBuffer output) {
+        InferenceEngine engine;
+        try {
+            engine = factory.open(config);
+        } catch (Exception | LinkageError e) {
+            return Double.NaN;
+        }
+        try {
+            for (int i = 0; i < warmupRuns; i++) {
+                engine.run(input, output);
+            }
+            double[] times = new double[measuredRuns];
+            for (int i = 0; i < measuredRuns; i++) {
+                long start = System.nanoTime();
+                engine.run(input, output);
+                times[i] = (System.nanoTime() - start) / 1_000_000.0;
+            }
+            Arrays.sort(times);
+            return times[measuredRuns / 2];
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        } finally {
+            factory.close(engine);
+        }
+    }
+
+    // --- Cache ---
+
+    private Result loadCached(String key) {
+        Properties properties = readCache();
+        String value = properties.getProperty(key);
+        if (value == null) return null;
+
+        // Formato: "<config> <mediana em ms>"
+        String[] parts = value.split(" ");
+        DelegateConfig config = DelegateConfig.parse(parts[0]);
+        if (config == null) return null;
+        double medianMs = Double.NaN;
+        if (parts.length > 1) {
+            try {
+                medianMs = Double.parseDouble(parts[1]);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return new Result(config, medianMs, true);
+    }
+
+    private void store(String key, Result result) {
+        if (cacheFile == null) return;
+        Properties properties = readCache();
+        properties.setProperty(key, result.config + " " + result.medianMs);
+
+        // Escreve em arquivo temporário e renomeia, para nunca deixar o cache pela metade
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) return;
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            properties.store(out, "Delegate tuning results");
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(cacheFile)) {
+            cacheFile.delete();
+            tmp.renameTo(cacheFile);
+        }
+    }
+
+    private Properties readCache() {
+        Properties properties = new Properties();
+        if (cacheFile == null || !cacheFile.isFile()) return properties;
+        try (InputStream in = new FileInputStream(cacheFile)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            // Cache corrompido: trata como vazio, será regravado
+            properties.clear();
+        }
+        return properties;
+    }
+}
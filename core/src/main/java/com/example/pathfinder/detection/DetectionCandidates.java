@@ -0,0 +1,104 @@
+package com.example.pathfinder.detection;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for the candidate boxes of one frame, before NMS.
+ * Coordinates are normalized (0..1). The arrays are reused between frames and only grow.
+ */
+public class DetectionCandidates {
+    public float[] x1, y1, x2, y2, cx, cy, w, h;
+    public float[] score;
+    public int[] cls;
+    public int count;
+
+    private long[] sortKeys;
+
+    public DetectionCandidates(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int capacity() {
+        return score.length;
+    }
+
+    public void add(float cx, float cy, float w, float h, float score, int cls) {
+        if (count == capacity()) {
+            grow(capacity() * 2);
+        }
+        int i = count++;
+        this.cx[i] = cx;
+        this.cy[i] = cy;
+        this.w[i] = w;
+        this.h[i] = h;
+        this.x1[i] = cx - (w / 2F);
+        this.y1[i] = cy - (h / 2F);
+        this.x2[i] = cx + (w / 2F);
+        this.y2[i] = cy + (h / 2F);
+        this.score[i] = score;
+        this.cls[i] = cls;
+    }
+
+    /**
+     * Writes the candidate indices into {@code order}, highest score first. Candidates with equal
+     * scores keep their insertion order, like the stable List.sort used by the list based NMS.
+     * @return the number of indices written ({@link #count}).
+     */
+    public int sortByScoreDescending(int[] order) {
+        if (sortKeys == null || sortKeys.length < count) {
+            sortKeys = new long[capacity()];
+        }
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = sortKey(score[i], i);
+        }
+        Arrays.sort(sortKeys, 0, count);
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) sortKeys[i];
+        }
+        return count;
+    }
+
+    /**
+     * Key whose ascending order is: highest score first, then lowest index first.
+     */
+    static long sortKey(float score, int index) {
+        // Scores are non-negative, so their IEEE bits order like the values themselves.
+        // Inverting them makes an ascending sort return the highest score first.
+        long invertedScore = Integer.MAX_VALUE - Float.floatToIntBits(Math.max(0f, score));
+        return (invertedScore << 32) | index;
+    }
+
+    public BoundingBox toBoundingBox(int i, String clsName) {
+        return new BoundingBox(x1[i], y1[i], x2[i], y2[i], cx[i], cy[i], w[i], h[i], score[i], cls[i], clsName);
+    }
+
+    private void allocate(int capacity) {
+        x1 = new float[capacity];
+        y1 = new float[capacity];
+        x2 = new float[capacity];
+        y2 = new float[capacity];
+        cx = new float[capacity];
+        cy = new float[capacity];
+        w = new float[capacity];
+        h = new float[capacity];
+        score = new float[capacity];
+        cls = new int[capacity];
+    }
+
+    private void grow(int capacity) {
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        y2 = Arrays.copyOf(y2, capacity);
+        cx = Arrays.copyOf(cx, capacity);
+        cy = Arrays.copyOf(cy, capacity);
+        w = Arrays.copyOf(w, capacity);
+        h = Arrays.copyOf(h, capacity);
+        score = Arrays.copyOf(score, capacity);
+        cls = Arrays.copyOf(cls, capacity);
+    }
+}
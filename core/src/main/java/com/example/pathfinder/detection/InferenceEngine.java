@@ -0,0 +1,11 @@
+package com.example.pathfinder.detection;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Runs the model once: reads the input tensor and writes the output tensor.
+ * Implementations are not expected to be thread safe.
+ */
+public interface InferenceEngine {
+    void run(ByteBuffer input, ByteBuffer output);
+}
@@ -0,0 +1,209 @@
+package com.example.pathfinder.detection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several {@link InferenceEngine}s (usually one TFLite interpreter each, sharing the same
+ * model buffer) in parallel. Each submitted frame goes to whichever engine is idle, and results are
+ * delivered to the listener in submission order, so callers see frames in sequence even when a
+ * later frame finishes first.
+ * <p>
+ * Meant for CPU-only devices, where several interpreters with a few threads each give more frames
+ * per second than one interpreter using every core, at the cost of some latency per frame.
+ * {@link #submit} must always be called from the same thread.
+ */
+public class InterpreterPool<T> implements AutoCloseable {
+
+    public interface ResultListener<T> {
+        /**
+         * Called in submission order, from a pool thread, one call at a time.
+         */
+        void onResult(T tag, ByteBuffer input, ByteBuffer output, boolean success);
+    }
+
+    // Um resultado pode ficar esperando o anterior sem travar o próximo frame
+    private static final int REORDER_SLACK = 1;
+
+    private final InferenceEngine[] engines;
+    private final ResultListener<T> listener;
+    private final ExecutorService workers;
+
+    private final Semaphore idleEngines;
+    private final Semaphore freeSlots;
+    private final ArrayBlockingQueue<Job<T>> pending;
+    private final ArrayBlockingQueue<Job<T>> freeJobs;
+
+    // Jobs in submission order, guarded by "this"
+    private final Job<T>[] inFlight;
+    private int inFlightHead = 0;
+    private int inFlightCount = 0;
+
+    // Motores que podem rodar ao mesmo tempo; as licenças dos demais ficam reservadas pela thread de submit
+    private volatile int activeLimit;
+    private int reservedEngines = 0; // só a thread de submit
+
+    private volatile boolean running = true;
+
+    private static final class Job<T> {
+        T tag;
+        ByteBuffer input;
+        ByteBuffer output;
+        boolean done;
+        boolean success;
+    }
+
+    public InterpreterPool(InferenceEngine[] engines, ResultListener<T> listener) {
+        if (engines.length == 0) {
+            throw new IllegalArgumentException("The pool needs at least one engine");
+        }
+        this.engines = engines.clone();
+        this.listener = listener;
+
+        int slots = engines.length + REORDER_SLACK;
+        idleEngines = new Semaphore(engines.length);
+        activeLimit = engines.length;
+        freeSlots = new Semaphore(slots);
+        pending = new ArrayBlockingQueue<>(slots);
+        freeJobs = new ArrayBlockingQueue<>(slots);
+        @SuppressWarnings("unchecked") // não dá para criar array de tipo genérico
+        Job<T>[] jobs = (Job<T>[]) new Job<?>[slots];
+        inFlight = jobs;
+        for (int i = 0; i < slots; i++) {
+            freeJobs.add(new Job<>());
+        }
+
+        workers = Executors.newFixedThreadPool(engines.length);
+        for (InferenceEngine engine : this.engines) {
+            workers.execute(() -> runWorker(engine));
+        }
+    }
+
+    public int size() {
+        return engines.length;
+    }
+
+    /**
+     * Limits how many engines run at the same time, e.g. to cool the phone down. Takes effect at
+     * the next {@link #submit}, which waits for busy engines to finish before parking them.
+     * @param engines clamped to 1..{@link #size()}
+     */
+    public void setActiveEngines(int engines) {
+        activeLimit = Math.max(1, Math.min(this.engines.length, engines));
+    }
+
+    public int getActiveEngines() {
+        return activeLimit;
+    }
+
+    /**
+     * True when no frame is running or waiting to be delivered.
+     */
+    public synchronized boolean isIdle() {
+        return inFlightCount == 0;
+    }
+
+    /**
+     * Maximum number of frames held by the pool at once (running or waiting to be delivered).
+     */
+    public int capacity() {
+        return inFlight.length;
+    }
+
+    /**
+     * Waits for an idle engine and starts inference on it.
+     * @return false if the pool was closed while waiting
+     */
+    public boolean submit(T tag, ByteBuffer input, ByteBuffer output) throws InterruptedException {
+        if (!acquire(freeSlots)) return false;
+        if (!applyActiveLimit() || !acquire(idleEngines)) {
+            freeSlots.release();
+            return false;
+        }
+
+        Job<T> job = freeJobs.poll();
+        job.tag = tag;
+        job.input = input;
+        job.output = output;
+        job.done = false;
+        synchronized (this) {
+            inFlight[(inFlightHead + inFlightCount) % inFlight.length] = job;
+            inFlightCount++;
+        }
+        pending.offer(job);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        workers.shutdownNow();
+    }
+
+    // Reserva (ou devolve) licenças de motor até sobrarem activeLimit para os frames
+    private boolean applyActiveLimit() throws InterruptedException {
+        int reserve = engines.length - activeLimit;
+        while (reservedEngines > reserve) {
+            idleEngines.release();
+            reservedEngines--;
+        }
+        while (reservedEngines < reserve) {
+            if (!acquire(idleEngines)) return false;
+            reservedEngines++;
+        }
+        return true;
+    }
+
+    private boolean acquire(Semaphore semaphore) throws InterruptedException {
+        while (running) {
+            if (semaphore.tryAcquire(50, TimeUnit.MILLISECONDS)) return true;
+        }
+        return false;
+    }
+
+    private void runWorker(InferenceEngine engine) {
+        while (running) {
+            Job<T> job;
+            try {
+                job = pending.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == null) continue;
+
+            boolean success;
+            try {
+                engine.run(job.input, job.output);
+                success = true;
+            } catch (RuntimeException e) {
+                success = false;
+            }
+            idleEngines.release();
+            complete(job, success);
+        }
+    }
+
+    // Marks the job as done and delivers every finished job at the head, in submission order
+    private synchronized void complete(Job<T> job, boolean success) {
+        job.success = success;
+        job.done = true;
+
+        while (inFlightCount > 0 && inFlight[inFlightHead].done) {
+            Job<T> head = inFlight[inFlightHead];
+            inFlight[inFlightHead] = null;
+            inFlightHead = (inFlightHead + 1) % inFlight.length;
+            inFlightCount--;
+
+            listener.onResult(head.tag, head.input, head.output, head.success);
+            head.tag = null;
+            head.input = null;
+            head.output = null;
+            freeJobs.offer(head);
+            freeSlots.release();
+        }
+    }
+}
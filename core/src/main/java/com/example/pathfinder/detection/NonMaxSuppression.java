@@ -0,0 +1,305 @@
+package com.example.pathfinder.detection;
+
+import java.util.Arrays;
+
+/**
+ * Greedy non-maximum suppression over {@link DetectionCandidates}, working only on index arrays.
+ * <ul>
+ *     <li>Optional top-K pre-selection with a bounded heap, so only the K best candidates are sorted.</li>
+ *     <li>Suppressed candidates are tracked in a bitmask instead of being removed from a list.</li>
+ *     <li>Class-agnostic (default, same as the previous list based NMS) or class-aware suppression.</li>
+ *     <li>Optional per-class confidence and IoU thresholds, indexed by class id.</li>
+ *     <li>Optional uniform grid so that each kept box is only compared with boxes in the cells it covers.</li>
+ * </ul>
+ * All buffers are reused between calls. Instances are not thread safe.
+ */
+public class NonMaxSuppression {
+    public static final int DEFAULT_GRID_SIZE = 16;
+
+    private float iouThreshold;
+    private boolean classAware = false;
+    private int topK = 0;
+    private float[] classConfidenceThresholds = null;
+    private float[] classIouThresholds = null;
+    private int gridSize = 0;
+    private int gridMinCandidates = 0;
+
+    // Working buffers, grown on demand
+    private long[] keys = new long[0];
+    private int[] order = new int[0];
+    private long[] suppressed = new long[0];
+    private int[] cellStart = new int[0];
+    private int[] cellItems = new int[0];
+    private int[] cellRange = new int[0];
+
+    public NonMaxSuppression(float iouThreshold) {
+        this.iouThreshold = iouThreshold;
+    }
+
+    public void setIouThreshold(float iouThreshold) {
+        this.iouThreshold = iouThreshold;
+    }
+
+    /**
+     * When true, boxes only suppress boxes of the same class.
+     */
+    public void setClassAware(boolean classAware) {
+        this.classAware = classAware;
+    }
+
+    /**
+     * Only the {@code topK} highest scoring candidates take part in the suppression. 0 disables the limit.
+     */
+    public void setTopK(int topK) {
+        this.topK = Math.max(0, topK);
+    }
+
+    /**
+     * Minimum score per class id; candidates below their class threshold are dropped. Null disables it.
+     */
+    public void setClassConfidenceThresholds(float[] thresholds) {
+        this.classConfidenceThresholds = thresholds;
+    }
+
+    /**
+     * IoU threshold per class id, taken from the class of the kept box. Null uses the global threshold.
+     */
+    public void setClassIouThresholds(float[] thresholds) {
+        this.classIouThresholds = thresholds;
+    }
+
+    /**
+     * Enables the spatial grid ({@code gridSize} x {@code gridSize} cells over the normalized image)
+     * once there are at least {@code minCandidates} candidates. A grid size of 0 disables it.
+     */
+    public void setSpatialGrid(int gridSize, int minCandidates) {
+        this.gridSize = Math.max(0, gridSize);
+        this.gridMinCandidates = Math.max(0, minCandidates);
+    }
+
+    /**
+     * Runs NMS and writes the indices of the kept candidates into {@code keep}, best score first.
+     * @param keep must hold at least {@code boxes.count} entries
+     * @return the number of kept candidates
+     */
+    public int run(DetectionCandidates boxes, int[] keep) {
+        int n = select(boxes);
+        if (n == 0) return 0;
+
+        int words = (n + 63) >>> 6;
+        if (suppressed.length < words) {
+            suppressed = new long[words];
+        }
+        Arrays.fill(suppressed, 0, words, 0L);
+
+        if (useGrid(n)) {
+            return suppressWithGrid(boxes, n, keep);
+        }
+
+        int kept = 0;
+        for (int a = 0; a < n; a++) {
+            if (isSuppressed(a)) continue;
+            int first = order[a];
+            keep[kept++] = first;
+            float threshold = iouThresholdFor(boxes.cls[first]);
+
+            for (int b = a + 1; b < n; b++) {
+                if (isSuppressed(b)) continue;
+                suppressIfOverlapping(boxes, first, b, threshold);
+            }
+        }
+        return kept;
+    }
+
+    // Fills order[0..n) with the eligible candidates, best first; returns n
+    private int select(DetectionCandidates boxes) {
+        int count = boxes.count;
+        if (keys.length < count) {
+            keys = new long[boxes.capacity()];
+            order = new int[boxes.capacity()];
+        }
+
+        int limit = topK > 0 ? Math.min(topK, count) : count;
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int cls = boxes.cls[i];
+            if (classConfidenceThresholds != null && cls < classConfidenceThresholds.length
+                    && boxes.score[i] < classConfidenceThresholds[cls]) {
+                continue;
+            }
+            long key = DetectionCandidates.sortKey(boxes.score[i], i);
+            if (size < limit) {
+                keys[size++] = key;
+                if (limit < count) siftUp(size - 1);
+            } else if (key < keys[0]) {
+                // Bounded max-heap on the key: the root is the worst of the best K so far
+                keys[0] = key;
+                siftDown(size);
+            }
+        }
+
+        Arrays.sort(keys, 0, size);
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+        return size;
+    }
+
+    private int suppressWithGrid(DetectionCandidates boxes, int n, int[] keep) {
+        buildGrid(boxes, n);
+
+        int kept = 0;
+        for (int a = 0; a < n; a++) {
+            if (isSuppressed(a)) continue;
+            int first = order[a];
+            keep[kept++] = first;
+            float threshold = iouThresholdFor(boxes.cls[first]);
+
+            int base = a * 4;
+            for (int gy = cellRange[base + 1]; gy <= cellRange[base + 3]; gy++) {
+                for (int gx = cellRange[base]; gx <= cellRange[base + 2]; gx++) {
+                    int cell = gy * gridSize + gx;
+                    for (int c = cellStart[cell]; c < cellStart[cell + 1]; c++) {
+                        int b = cellItems[c];
+                        // Lower ranks were already decided; a box in several cells may show up again
+                        if (b <= a || isSuppressed(b)) continue;
+                        suppressIfOverlapping(boxes, first, b, threshold);
+                    }
+                }
+            }
+        }
+        return kept;
+    }
+
+    // Counting sort of the selected ranks into the cells each box covers
+    private void buildGrid(DetectionCandidates boxes, int n) {
+        int cells = gridSize * gridSize;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        }
+        if (cellRange.length < n * 4) {
+            cellRange = new int[order.length * 4];
+        }
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        int entries = 0;
+        for (int r = 0; r < n; r++) {
+            int i = order[r];
+            int base = r * 4;
+            cellRange[base] = cellOf(boxes.x1[i]);
+            cellRange[base + 1] = cellOf(boxes.y1[i]);
+            cellRange[base + 2] = cellOf(boxes.x2[i]);
+            cellRange[base + 3] = cellOf(boxes.y2[i]);
+            for (int gy = cellRange[base + 1]; gy <= cellRange[base + 3]; gy++) {
+                for (int gx = cellRange[base]; gx <= cellRange[base + 2]; gx++) {
+                    cellStart[gy * gridSize + gx + 1]++;
+                    entries++;
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (cellItems.length < entries) {
+            cellItems = new int[entries * 2];
+        }
+
+        // Second pass: cellStart[c] is used as the write cursor and restored afterwards
+        for (int r = 0; r < n; r++) {
+            int base = r * 4;
+            for (int gy = cellRange[base + 1]; gy <= cellRange[base + 3]; gy++) {
+                for (int gx = cellRange[base]; gx <= cellRange[base + 2]; gx++) {
+                    cellItems[cellStart[gy * gridSize + gx]++] = r;
+                }
+            }
+        }
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    private boolean useGrid(int n) {
+        // With a threshold of 0 even disjoint boxes suppress each other, which the grid cannot see
+        return gridSize > 0 && n >= gridMinCandidates && minIouThreshold() > 0f;
+    }
+
+    private float minIouThreshold() {
+        float min = iouThreshold;
+        if (classIouThresholds != null) {
+            for (float threshold : classIouThresholds) {
+                min = Math.min(min, threshold);
+            }
+        }
+        return min;
+    }
+
+    private int cellOf(float coordinate) {
+        int cell = (int) (coordinate * gridSize);
+        return cell < 0 ? 0 : (cell >= gridSize ? gridSize - 1 : cell);
+    }
+
+    private void suppressIfOverlapping(DetectionCandidates boxes, int first, int rank, float threshold) {
+        int other = order[rank];
+        if (classAware && boxes.cls[first] != boxes.cls[other]) return;
+        if (calculateIoU(boxes, first, other) >= threshold) {
+            suppressed[rank >>> 6] |= 1L << rank;
+        }
+    }
+
+    private boolean isSuppressed(int rank) {
+        return (suppressed[rank >>> 6] & (1L << rank)) != 0;
+    }
+
+    private float iouThresholdFor(int cls) {
+        if (classIouThresholds != null && cls >= 0 && cls < classIouThresholds.length) {
+            return classIouThresholds[cls];
+        }
+        return iouThreshold;
+    }
+
+    private void siftUp(int index) {
+        long key = keys[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] >= key) break;
+            keys[index] = keys[parent];
+            index = parent;
+        }
+        keys[index] = key;
+    }
+
+    private void siftDown(int size) {
+        int index = 0;
+        long key = keys[0];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+            if (keys[child] <= key) break;
+            keys[index] = keys[child];
+            index = child;
+        }
+        keys[index] = key;
+    }
+
+    static float calculateIoU(DetectionCandidates boxes, int i, int j) {
+        float xA = Math.max(boxes.x1[i], boxes.x1[j]);
+        float yA = Math.max(boxes.y1[i], boxes.y1[j]);
+        float xB = Math.min(boxes.x2[i], boxes.x2[j]);
+        float yB = Math.min(boxes.y2[i], boxes.y2[j]);
+
+        // Calculate the area of the intersection rectangle.
+        float interArea = Math.max(0, xB - xA) * Math.max(0, yB - yA);
+
+        // Calculate the area of both bounding boxes.
+        float box1Area = (boxes.x2[i] - boxes.x1[i]) * (boxes.y2[i] - boxes.y1[i]);
+        float box2Area = (boxes.x2[j] - boxes.x1[j]) * (boxes.y2[j] - boxes.y1[j]);
+
+        // Calculate the area of the union.
+        float unionArea = box1Area + box2Area - interArea;
+
+        // Compute the IoU. Return 0 if unionArea is 0 to avoid division by zero.
+        return unionArea > 0 ? interArea / unionArea : 0;
+    }
+}
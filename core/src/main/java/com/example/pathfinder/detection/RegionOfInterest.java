@@ -0,0 +1,65 @@
+package com.example.pathfinder.detection;
+
+/**
+ * Part of the camera frame sent to the detector, in normalized coordinates of the rotated frame
+ * (the same space as {@link BoundingBox}). Boxes detected inside the region are mapped back to
+ * full-frame coordinates with {@link #mapToFrame}.
+ */
+public final class RegionOfInterest {
+    public static final RegionOfInterest FULL_FRAME = new RegionOfInterest(0f, 0f, 1f, 1f);
+
+    public final float left, top, right, bottom;
+
+    public RegionOfInterest(float left, float top, float right, float bottom) {
+        if (!(left >= 0f && top >= 0f && right <= 1f && bottom <= 1f && left < right && top < bottom)) {
+            throw new IllegalArgumentException("Invalid region: " + left + ", " + top + ", " + right + ", " + bottom);
+        }
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Region of the given size around the centre of the frame, e.g. the walking corridor ahead.
+     */
+    public static RegionOfInterest centered(float width, float height) {
+        float left = (1f - width) / 2f;
+        float top = (1f - height) / 2f;
+        return new RegionOfInterest(left, top, left + width, top + height);
+    }
+
+    public boolean isFullFrame() {
+        return left == 0f && top == 0f && right == 1f && bottom == 1f;
+    }
+
+    public float width() {
+        return right - left;
+    }
+
+    public float height() {
+        return bottom - top;
+    }
+
+    /**
+     * Converts a box from region coordinates to full-frame coordinates, in place.
+     */
+    public void mapToFrame(BoundingBox box) {
+        if (isFullFrame()) return;
+        float sx = width();
+        float sy = height();
+        box.x1 = left + box.x1 * sx;
+        box.x2 = left + box.x2 * sx;
+        box.cx = left + box.cx * sx;
+        box.w = box.w * sx;
+        box.y1 = top + box.y1 * sy;
+        box.y2 = top + box.y2 * sy;
+        box.cy = top + box.cy * sy;
+        box.h = box.h * sy;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + left + ", " + top + ", " + right + ", " + bottom + "]";
+    }
+}
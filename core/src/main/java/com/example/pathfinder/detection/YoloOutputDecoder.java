@@ -0,0 +1,142 @@
+package com.example.pathfinder.detection;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Decodes the raw YOLO output ([1, 4 + numClasses, numAnchors], channel major) into
+ * {@link DetectionCandidates} without copying the tensor.
+ * <p>
+ * The tensor is read row by row (one channel for every anchor), which walks memory
+ * sequentially instead of jumping {@code numAnchors} floats for every class of an anchor.
+ * Quantized (UINT8/INT8) outputs are compared as raw integers and only the surviving anchors
+ * are converted back to float.
+ */
+public class YoloOutputDecoder {
+    private float[] bestScore = new float[0];
+    private int[] bestClass = new int[0];
+    private int[] bestQuantized = new int[0];
+
+    /**
+     * @param output              output tensor, read with absolute gets from index 0
+     * @param numChannels         4 box channels (cx, cy, w, h) followed by one channel per class
+     * @param numAnchors          number of predictions (8400 for a 640x640 input)
+     * @param confidenceThreshold minimum class score, exclusive
+     * @param candidates          cleared and filled with the boxes above the threshold
+     */
+    public void decode(FloatBuffer output, int numChannels, int numAnchors,
+                       float confidenceThreshold, DetectionCandidates candidates) {
+        ensureCapacity(numAnchors);
+        candidates.clear();
+
+        final float[] bestScore = this.bestScore;
+        final int[] bestClass = this.bestClass;
+        for (int j = 0; j < numAnchors; j++) {
+            bestScore[j] = confidenceThreshold; // Menor confiança admitida
+            bestClass[j] = -1;
+        }
+
+        // Uma linha (classe) por vez: leitura sequencial da memória
+        for (int c = 4; c < numChannels; c++) {
+            int rowStart = c * numAnchors;
+            int cls = c - 4;
+            for (int j = 0; j < numAnchors; j++) {
+                float value = output.get(rowStart + j);
+                if (value > bestScore[j]) {
+                    bestScore[j] = value;
+                    bestClass[j] = cls;
+                }
+            }
+        }
+
+        for (int j = 0; j < numAnchors; j++) {
+            if (bestClass[j] < 0) continue;
+
+            float cx = output.get(j);
+            float cy = output.get(j + numAnchors);
+            float w = output.get(j + numAnchors * 2);
+            float h = output.get(j + numAnchors * 3);
+
+            //Descarta boxes que vazam das dimensoes da imagem
+            float x1 = cx - (w / 2F);
+            float y1 = cy - (h / 2F);
+            float x2 = cx + (w / 2F);
+            float y2 = cy + (h / 2F);
+            if (x1 < 0F || x1 > 1F) continue;
+            if (y1 < 0F || y1 > 1F) continue;
+            if (x2 < 0F || x2 > 1F) continue;
+            if (y2 < 0F || y2 > 1F) continue;
+
+            candidates.add(cx, cy, w, h, bestScore[j], bestClass[j]);
+        }
+    }
+
+    /**
+     * Same as {@link #decode(FloatBuffer, int, int, float, DetectionCandidates)} for a quantized
+     * output: the real value of a byte {@code q} is {@code (q - zeroPoint) * scale}.
+     *
+     * @param signed true for INT8, false for UINT8
+     */
+    public void decodeQuantized(ByteBuffer output, boolean signed, float scale, int zeroPoint,
+                                int numChannels, int numAnchors,
+                                float confidenceThreshold, DetectionCandidates candidates) {
+        ensureCapacity(numAnchors);
+        candidates.clear();
+
+        // value > threshold  <=>  q > threshold / scale + zeroPoint (scale > 0)
+        final int mask = signed ? -1 : 0xFF;
+        int minQ = signed ? -128 : 0;
+        int maxQ = signed ? 127 : 255;
+        int thresholdQ = (int) Math.floor(confidenceThreshold / scale + zeroPoint);
+        if (thresholdQ < minQ - 1) thresholdQ = minQ - 1;
+        if (thresholdQ > maxQ) thresholdQ = maxQ;
+
+        final int[] bestQuantized = this.bestQuantized;
+        final int[] bestClass = this.bestClass;
+        for (int j = 0; j < numAnchors; j++) {
+            bestQuantized[j] = thresholdQ;
+            bestClass[j] = -1;
+        }
+
+        for (int c = 4; c < numChannels; c++) {
+            int rowStart = c * numAnchors;
+            int cls = c - 4;
+            for (int j = 0; j < numAnchors; j++) {
+                int q = output.get(rowStart + j) & mask;
+                if (q > bestQuantized[j]) {
+                    bestQuantized[j] = q;
+                    bestClass[j] = cls;
+                }
+            }
+        }
+
+        for (int j = 0; j < numAnchors; j++) {
+            if (bestClass[j] < 0) continue;
+
+            float cx = ((output.get(j) & mask) - zeroPoint) * scale;
+            float cy = ((output.get(j + numAnchors) & mask) - zeroPoint) * scale;
+            float w = ((output.get(j + numAnchors * 2) & mask) - zeroPoint) * scale;
+            float h = ((output.get(j + numAnchors * 3) & mask) - zeroPoint) * scale;
+
+            float x1 = cx - (w / 2F);
+            float y1 = cy - (h / 2F);
+            float x2 = cx + (w / 2F);
+            float y2 = cy + (h / 2F);
+            if (x1 < 0F || x1 > 1F) continue;
+            if (y1 < 0F || y1 > 1F) continue;
+            if (x2 < 0F || x2 > 1F) continue;
+            if (y2 < 0F || y2 > 1F) continue;
+
+            float score = (bestQuantized[j] - zeroPoint) * scale;
+            candidates.add(cx, cy, w, h, score, bestClass[j]);
+        }
+    }
+
+    private void ensureCapacity(int numAnchors) {
+        if (bestScore.length < numAnchors) {
+            bestScore = new float[numAnchors];
+            bestClass = new int[numAnchors];
+            bestQuantized = new int[numAnchors];
+        }
+    }
+}
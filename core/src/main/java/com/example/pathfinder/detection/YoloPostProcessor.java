@@ -0,0 +1,89 @@
+package com.example.pathfinder.detection;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a raw YOLO output tensor into the final boxes: {@link YoloOutputDecoder} into primitive
+ * arrays, then {@link NonMaxSuppression}. BoundingBox objects are only created for the boxes that
+ * survive. Holds no interpreter, so it runs on a plain JVM too. Not thread-safe.
+ */
+public class YoloPostProcessor {
+    // Sugestão para getNms().setTopK em cenas muito poluídas; desligado por padrão porque muda o
+    // resultado quando há mais candidatos que isso
+    public static final int MAX_NMS_CANDIDATES = 1000;
+    // A grade só evita comparar caixas que não se tocam: mesmo resultado do NMS completo
+    public static final int NMS_GRID_MIN_CANDIDATES = 128;
+
+    private final List<String> labels;
+    private float confidenceThreshold;
+
+    // Decodificação em arrays primitivos; BoundingBox só para as caixas que sobrevivem ao NMS
+    private final YoloOutputDecoder decoder = new YoloOutputDecoder();
+    private final DetectionCandidates candidates = new DetectionCandidates(256);
+    private final NonMaxSuppression nms;
+    private int[] keep = new int[0];
+
+    /**
+     * @param labels class names, indexed by class id
+     */
+    public YoloPostProcessor(List<String> labels, float confidenceThreshold, float iouThreshold) {
+        this.labels = labels;
+        this.confidenceThreshold = confidenceThreshold;
+        this.nms = new NonMaxSuppression(iouThreshold);
+        nms.setSpatialGrid(NonMaxSuppression.DEFAULT_GRID_SIZE, NMS_GRID_MIN_CANDIDATES);
+    }
+
+    public void setConfidenceThreshold(float confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    /**
+     * NMS applied after decoding; can be switched to class-aware mode, given per-class thresholds
+     * or limited to the best {@link #MAX_NMS_CANDIDATES}. The defaults give the same boxes as a
+     * full class-agnostic NMS.
+     */
+    public NonMaxSuppression getNms() {
+        return nms;
+    }
+
+    /**
+     * Candidates of the last call, before NMS.
+     */
+    public DetectionCandidates getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Decodes a float output of shape [1, numChannels, numAnchors] in place and runs NMS.
+     */
+    public List<BoundingBox> process(FloatBuffer output, int numChannels, int numAnchors) {
+        decoder.decode(output, numChannels, numAnchors, confidenceThreshold, candidates);
+        return runNms();
+    }
+
+    /**
+     * Same as {@link #process} for a quantized (UINT8/INT8) output, without expanding it to float.
+     */
+    public List<BoundingBox> processQuantized(ByteBuffer output, boolean signed, float scale, int zeroPoint,
+                                              int numChannels, int numAnchors) {
+        decoder.decodeQuantized(output, signed, scale, zeroPoint,
+                numChannels, numAnchors, confidenceThreshold, candidates);
+        return runNms();
+    }
+
+    private List<BoundingBox> runNms() {
+        if (keep.length < candidates.count) {
+            keep = new int[candidates.capacity()];
+        }
+        int kept = nms.run(candidates, keep);
+        List<BoundingBox> boundingBoxes = new ArrayList<>(kept);
+        for (int k = 0; k < kept; k++) {
+            int i = keep[k];
+            boundingBoxes.add(candidates.toBoundingBox(i, labels.get(candidates.cls[i])));
+        }
+        return boundingBoxes;
+    }
+}
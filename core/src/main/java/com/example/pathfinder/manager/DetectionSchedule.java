@@ -0,0 +1,48 @@
+package com.example.pathfinder.manager;
+
+/**
+ * Decides which camera frames are sent to the detector.
+ * <p>
+ * Detection runs on refreshed frames (see {@code InferenceGate}) once at least
+ * {@code frameInterval} new camera frames have passed since the last capture, and never closer
+ * than the minimum interval set by the performance governor. The interval counts camera frames,
+ * not refreshed frames: in a static scene the gate only refreshes every few hundred milliseconds,
+ * and skipping every other refresh would leave the tracker without detections for longer than
+ * its tracks live. Not thread safe: call it from the render thread.
+ */
+public class DetectionSchedule {
+    private final int frameInterval;
+
+    private int framesSinceCapture;
+    private boolean hasCapture = false;
+    private long lastCaptureNs;
+
+    /**
+     * @param frameInterval run detection at most once every this many camera frames; 1 = every frame
+     */
+    public DetectionSchedule(int frameInterval) {
+        if (frameInterval < 1) {
+            throw new IllegalArgumentException("Frame interval must be at least 1");
+        }
+        this.frameInterval = frameInterval;
+        this.framesSinceCapture = frameInterval;
+    }
+
+    /**
+     * Called once per new camera frame (not for duplicate frames).
+     * @param refresh       true if the gate asked for a full refresh of this frame
+     * @param minIntervalNs shortest time between two captures; 0 = no limit
+     * @return true if this frame should be captured for detection
+     */
+    public boolean onFrame(long timestampNs, boolean refresh, long minIntervalNs) {
+        // Conta todo frame novo, inclusive os reaproveitados pelo gate
+        if (framesSinceCapture < frameInterval) framesSinceCapture++;
+        if (!refresh || framesSinceCapture < frameInterval) return false;
+        if (hasCapture && timestampNs - lastCaptureNs < minIntervalNs) return false;
+
+        framesSinceCapture = 0;
+        hasCapture = true;
+        lastCaptureNs = timestampNs;
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.pathfinder.manager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer ring buffer with a latest-frame-wins policy:
+ * when the queue is full, {@link #offer} evicts the oldest entry and hands it back to the
+ * producer so it can be recycled. No allocation happens after construction.
+ * <p>
+ * Eviction means the producer may also advance the head, so both sides claim the head with a
+ * CAS; everything else is plain single-writer state.
+ */
+public class FrameQueue<T> {
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicReferenceArray<T> slots;
+    private final int capacity;
+    private final AtomicLong head = new AtomicLong(); // next index to consume
+    private final AtomicLong tail = new AtomicLong(); // next index to produce, written by the producer only
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread waitingConsumer;
+
+    public FrameQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Producer side. Never blocks.
+     * @return the entry evicted to make room, or null if nothing was dropped
+     */
+    public T offer(T item) {
+        long t = tail.get();
+        T evicted = null;
+        while (true) {
+            long h = head.get();
+            if (t - h < capacity) break;
+
+            // Full: take the oldest entry away from the consumer
+            T oldest = slots.get((int) (h % capacity));
+            if (head.compareAndSet(h, h + 1)) {
+                evicted = oldest;
+                dropped.incrementAndGet();
+                break;
+            }
+        }
+        slots.set((int) (t % capacity), item);
+        tail.set(t + 1);
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return evicted;
+    }
+
+    /**
+     * Consumer side. Returns the oldest entry or null if the queue is empty.
+     */
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get()) return null;
+
+            T item = slots.get((int) (h % capacity));
+            // Only use the entry if the producer did not evict it in the meantime
+            if (head.compareAndSet(h, h + 1)) {
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Consumer side. Waits up to about 50 ms for an entry, so callers can check a stop flag.
+     * @return the oldest entry, or null if none arrived
+     */
+    public T take() {
+        T item = poll();
+        if (item != null) return item;
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            item = poll(); // re-check after publishing ourselves, an offer may have missed us
+            if (item == null) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+                item = poll();
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        return item;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.pathfinder.manager;
+
+/**
+ * What the {@link PerformanceGovernor} looks at. On the device this wraps PowerManager, the
+ * battery broadcast and onTrimMemory; tests script it. Values are polled, so implementations
+ * should return cached state and be cheap to call.
+ */
+public interface GovernorSignals {
+    int THERMAL_UNKNOWN = -1;
+
+    /**
+     * @return PowerManager.THERMAL_STATUS_* (0 none .. 6 shutdown), or {@link #THERMAL_UNKNOWN}
+     */
+    int getThermalStatus();
+
+    /**
+     * @return forecast from PowerManager.getThermalHeadroom, where 1 is the throttling point, or
+     *         NaN when not available
+     */
+    float getThermalHeadroom();
+
+    /**
+     * @return battery charge 0..1, or NaN when unknown
+     */
+    float getBatteryLevel();
+
+    boolean isCharging();
+
+    boolean isPowerSaveMode();
+
+    /**
+     * @return level of the last ComponentCallbacks2.onTrimMemory call, or 0 if there was none
+     */
+    int getTrimMemoryLevel();
+
+    /**
+     * @return when the last onTrimMemory arrived, on the System.nanoTime clock
+     */
+    long getTrimMemoryTimeNs();
+}
@@ -0,0 +1,182 @@
+package com.example.pathfinder.manager;
+
+/**
+ * Picks the {@link PerformanceTier} the pipeline should run at from thermal, battery and memory
+ * signals. Pressure moves it down (towards more conservative tiers) at once, as far as the worst
+ * signal asks; relief moves it back one tier at a time, and only after the signals have stayed
+ * clear of the current tier, with a margin, for {@link #DEFAULT_RECOVERY_HOLD_MS}. That keeps a
+ * phone hovering around a threshold from flapping between tiers.
+ * <p>
+ * Not thread-safe: call {@link #evaluate} from one thread, about once a second.
+ */
+public class PerformanceGovernor {
+    public static final long DEFAULT_RECOVERY_HOLD_MS = 30_000;
+    // onTrimMemory chega uma vez; a pressão vale por este tempo
+    public static final long MEMORY_PRESSURE_HOLD_MS = 60_000;
+
+    // PowerManager.THERMAL_STATUS_*
+    static final int THERMAL_LIGHT = 1;
+    static final int THERMAL_MODERATE = 2;
+    static final int THERMAL_SEVERE = 3;
+
+    // ComponentCallbacks2.TRIM_MEMORY_*
+    static final int TRIM_RUNNING_MODERATE = 5;
+    static final int TRIM_RUNNING_LOW = 10;
+    static final int TRIM_RUNNING_CRITICAL = 15;
+    static final int TRIM_UI_HIDDEN = 20;
+    static final int TRIM_BACKGROUND = 40;
+
+    // Headroom: 1 é onde o sistema começa a estrangular a CPU
+    static final float HEADROOM_WARM = 0.75f;
+    static final float HEADROOM_HOT = 0.9f;
+    static final float HEADROOM_CRITICAL = 1f;
+    static final float HEADROOM_HYSTERESIS = 0.05f;
+
+    static final float BATTERY_LOW = 0.2f;
+    static final float BATTERY_CRITICAL = 0.1f;
+    static final float BATTERY_HYSTERESIS = 0.05f;
+
+    private final GovernorSignals signals;
+    private final PerformanceTier[] tiers;
+    private final long recoveryHoldNs;
+
+    private int current = 0;
+    private long clearSinceNs = -1; // desde quando os sinais permitem subir um nível; -1 = não permitem
+    private String reason = "nominal";
+    private int transitions = 0;
+
+    public PerformanceGovernor(GovernorSignals signals) {
+        this(signals, PerformanceTier.defaults(), DEFAULT_RECOVERY_HOLD_MS);
+    }
+
+    /**
+     * @param tiers          from full performance to the most conservative; at least one
+     * @param recoveryHoldMs how long the signals must stay clear before stepping back up one tier
+     */
+    public PerformanceGovernor(GovernorSignals signals, PerformanceTier[] tiers, long recoveryHoldMs) {
+        if (tiers.length == 0) {
+            throw new IllegalArgumentException("At least one tier is needed");
+        }
+        this.signals = signals;
+        this.tiers = tiers.clone();
+        this.recoveryHoldNs = recoveryHoldMs * 1_000_000L;
+    }
+
+    /**
+     * Polls the signals and moves to another tier if needed.
+     * @param nowNs System.nanoTime clock, the same as {@link GovernorSignals#getTrimMemoryTimeNs}
+     * @return true if the tier changed
+     */
+    public boolean evaluate(long nowNs) {
+        int required = requiredTier(0f, nowNs);
+        if (required > current) {
+            current = required;
+            clearSinceNs = -1;
+            transitions++;
+            return true;
+        }
+        // Para voltar, os sinais precisam estar abaixo do nível atual mesmo com a margem
+        if (current > 0 && requiredTier(1f, nowNs) < current) {
+            if (clearSinceNs < 0) {
+                clearSinceNs = nowNs;
+            } else if (nowNs - clearSinceNs >= recoveryHoldNs) {
+                current--;
+                clearSinceNs = nowNs; // o próximo passo espera outro intervalo inteiro
+                reason = "recovering";
+                transitions++;
+                return true;
+            }
+        } else {
+            clearSinceNs = -1;
+        }
+        return false;
+    }
+
+    public PerformanceTier getTier() {
+        return tiers[current];
+    }
+
+    public int getTierIndex() {
+        return current;
+    }
+
+    /**
+     * Which signal caused the last step down, or "recovering" after a step up. For logs.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public int getTransitions() {
+        return transitions;
+    }
+
+    // Nível exigido pelo pior sinal. margin = 1 aplica a histerese: os limites ficam mais baixos
+    int requiredTier(float margin, long nowNs) {
+        int worst = 0;
+        String worstReason = "nominal";
+
+        int thermal = thermalTier(signals.getThermalStatus());
+        if (thermal > worst) {
+            worst = thermal;
+            worstReason = "thermal status " + signals.getThermalStatus();
+        }
+        int headroom = headroomTier(signals.getThermalHeadroom(), margin * HEADROOM_HYSTERESIS);
+        if (headroom > worst) {
+            worst = headroom;
+            worstReason = "thermal headroom " + signals.getThermalHeadroom();
+        }
+        int battery = batteryTier(signals.getBatteryLevel(), signals.isCharging(),
+                signals.isPowerSaveMode(), margin * BATTERY_HYSTERESIS);
+        if (battery > worst) {
+            worst = battery;
+            worstReason = "battery " + signals.getBatteryLevel()
+                    + (signals.isPowerSaveMode() ? " (power save)" : "");
+        }
+        long trimAgeNs = nowNs - signals.getTrimMemoryTimeNs();
+        if (trimAgeNs < MEMORY_PRESSURE_HOLD_MS * 1_000_000L) {
+            int memory = memoryTier(signals.getTrimMemoryLevel());
+            if (memory > worst) {
+                worst = memory;
+                worstReason = "trim memory " + signals.getTrimMemoryLevel();
+            }
+        }
+
+        worst = Math.min(worst, tiers.length - 1);
+        if (margin == 0f && worst > current) reason = worstReason;
+        return worst;
+    }
+
+    static int thermalTier(int status) {
+        if (status >= THERMAL_SEVERE) return 3;
+        if (status >= THERMAL_MODERATE) return 2;
+        if (status >= THERMAL_LIGHT) return 1;
+        return 0; // NONE ou THERMAL_UNKNOWN
+    }
+
+    static int headroomTier(float headroom, float margin) {
+        if (Float.isNaN(headroom)) return 0;
+        if (headroom >= HEADROOM_CRITICAL - margin) return 3;
+        if (headroom >= HEADROOM_HOT - margin) return 2;
+        if (headroom >= HEADROOM_WARM - margin) return 1;
+        return 0;
+    }
+
+    static int batteryTier(float level, boolean charging, boolean powerSave, float margin) {
+        int tier = powerSave ? 1 : 0;
+        if (charging || Float.isNaN(level)) return tier;
+        if (level < BATTERY_CRITICAL + margin) return 2;
+        if (level < BATTERY_LOW + margin) return Math.max(tier, 1);
+        return tier;
+    }
+
+    static int memoryTier(int trimLevel) {
+        // UI_HIDDEN só diz que a tela saiu de vista; BACKGROUND ou mais é pressão de verdade
+        if (trimLevel >= TRIM_BACKGROUND) return 3;
+        if (trimLevel >= TRIM_UI_HIDDEN) return 0;
+        if (trimLevel >= TRIM_RUNNING_CRITICAL) return 3;
+        if (trimLevel >= TRIM_RUNNING_LOW) return 2;
+        if (trimLevel >= TRIM_RUNNING_MODERATE) return 1;
+        return 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pathfinder.manager;
+
+/**
+ * One step of the {@link PerformanceGovernor}: how much work the pipeline may do. Tiers are
+ * ordered from full performance (index 0) to the most conservative.
+ */
+public final class PerformanceTier {
+    public final String name;
+    public final float maxDetectionFps; // 0 = sem limite
+    public final int maxInterpreters;   // interpretadores em paralelo; 0 = todos
+    public final float inputScale;      // lado da entrada do modelo em relação ao original
+    public final float poolFraction;    // parte dos frames do pipeline mantida em memória
+
+    public PerformanceTier(String name, float maxDetectionFps, int maxInterpreters,
+                           float inputScale, float poolFraction) {
+        if (inputScale <= 0f || inputScale > 1f || poolFraction <= 0f || poolFraction > 1f) {
+            throw new IllegalArgumentException("inputScale and poolFraction must be in (0, 1]");
+        }
+        this.name = name;
+        this.maxDetectionFps = maxDetectionFps;
+        this.maxInterpreters = maxInterpreters;
+        this.inputScale = inputScale;
+        this.poolFraction = poolFraction;
+    }
+
+    /**
+     * nominal, warm, hot and critical.
+     */
+    public static PerformanceTier[] defaults() {
+        return new PerformanceTier[]{
+                new PerformanceTier("nominal", 0f, 0, 1f, 1f),
+                new PerformanceTier("warm", 15f, 2, 1f, 1f),
+                new PerformanceTier("hot", 8f, 1, 0.75f, 0.75f),
+                new PerformanceTier("critical", 4f, 1, 0.5f, 0.5f),
+        };
+    }
+
+    /**
+     * @return shortest time between two detections, 0 without a cap
+     */
+    public long minDetectionIntervalNs() {
+        return maxDetectionFps > 0f ? (long) (1_000_000_000L / maxDetectionFps) : 0L;
+    }
+
+    /**
+     * Input side for a model exported at {@code nativeSize}, kept a multiple of the YOLO stride (32).
+     */
+    public int scaledInputSize(int nativeSize) {
+        if (inputScale >= 1f) return nativeSize;
+        return Math.max(32, Math.round(nativeSize * inputScale / 32f) * 32);
+    }
+
+    @Override
+    public String toString() {
+        return name + "{fps=" + (maxDetectionFps > 0f ? maxDetectionFps : "max")
+                + ", interpreters=" + (maxInterpreters > 0 ? maxInterpreters : "all")
+                + ", input=" + inputScale + ", pool=" + poolFraction + "}";
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.pathfinder.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latência com janela deslizante, sem lock e com memória fixa.
+ * <p>
+ * Values are recorded in microseconds into log-linear bins (16 per power of two, so about 6%
+ * relative precision, from 1 us to about a minute). The window is a ring of {@code slots}
+ * sub-windows of {@code slotNs} each; recording into a sub-window whose time has passed resets it
+ * first. Readers sum the sub-windows that are still inside the window.
+ * <p>
+ * Any thread may record. A value recorded by one thread while another resets the same sub-window
+ * may be lost; that only happens at sub-window boundaries and does not matter for percentiles.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 25; // 2^26 us ~ 67 s
+    static final int BIN_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final int slots;
+    private final long slotNs;
+    private final AtomicIntegerArray counts;   // [slot * BIN_COUNT + bin]
+    private final AtomicLongArray epochs;      // período de cada sub-janela (tempo / slotNs)
+    private final AtomicLongArray maxUs;
+
+    /**
+     * @param slots  number of sub-windows
+     * @param slotNs duration of a sub-window; the window covers {@code slots * slotNs}
+     */
+    public LatencyHistogram(int slots, long slotNs) {
+        if (slots < 1 || slotNs <= 0) throw new IllegalArgumentException("invalid window");
+        this.slots = slots;
+        this.slotNs = slotNs;
+        this.counts = new AtomicIntegerArray(slots * BIN_COUNT);
+        this.epochs = new AtomicLongArray(slots);
+        this.maxUs = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void record(long durationNs) {
+        record(durationNs, System.nanoTime());
+    }
+
+    /**
+     * @param nowNs current time on the {@link System#nanoTime} clock
+     */
+    public void record(long durationNs, long nowNs) {
+        long us = Math.max(0, durationNs / 1000);
+        int slot = currentSlot(nowNs);
+        counts.incrementAndGet(slot * BIN_COUNT + binIndex(us));
+        long max;
+        while (us > (max = maxUs.get(slot)) && !maxUs.compareAndSet(slot, max, us)) {
+            // outro thread atualizou o máximo; tenta de novo
+        }
+    }
+
+    /**
+     * Percentiles over the window ending at {@code nowNs}.
+     * @param percentiles values in [0, 100]
+     * @param out         milliseconds for each percentile, 0 if there is no data
+     * @return number of values in the window
+     */
+    public long percentiles(long nowNs, double[] percentiles, double[] out) {
+        long epoch = Math.floorDiv(nowNs, slotNs);
+        long total = 0;
+        long[] merged = new long[BIN_COUNT];
+        for (int s = 0; s < slots; s++) {
+            if (!inWindow(epochs.get(s), epoch)) continue;
+            int base = s * BIN_COUNT;
+            for (int b = 0; b < BIN_COUNT; b++) {
+                int c = counts.get(base + b);
+                merged[b] += c;
+                total += c;
+            }
+        }
+        for (int p = 0; p < percentiles.length; p++) {
+            if (total == 0) {
+                out[p] = 0;
+                continue;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            int bin = 0;
+            for (; bin < BIN_COUNT; bin++) {
+                seen += merged[bin];
+                if (seen >= rank) break;
+            }
+            out[p] = binMidpointUs(Math.min(bin, BIN_COUNT - 1)) / 1000.0;
+        }
+        return total;
+    }
+
+    /**
+     * Largest value recorded in the window, in milliseconds (exact, not binned).
+     */
+    public double maxMs(long nowNs) {
+        long epoch = Math.floorDiv(nowNs, slotNs);
+        long max = 0;
+        for (int s = 0; s < slots; s++) {
+            if (inWindow(epochs.get(s), epoch)) max = Math.max(max, maxUs.get(s));
+        }
+        return max / 1000.0;
+    }
+
+    private boolean inWindow(long slotEpoch, long epoch) {
+        return slotEpoch <= epoch && slotEpoch > epoch - slots;
+    }
+
+    private int currentSlot(long nowNs) {
+        long epoch = Math.floorDiv(nowNs, slotNs);
+        int slot = (int) Math.floorMod(epoch, (long) slots);
+        long seen = epochs.get(slot);
+        if (seen < epoch && epochs.compareAndSet(slot, seen, epoch)) {
+            // Sub-janela antiga: quem ganhou o CAS zera os contadores
+            int base = slot * BIN_COUNT;
+            for (int b = 0; b < BIN_COUNT; b++) {
+                counts.set(base + b, 0);
+            }
+            maxUs.set(slot, 0);
+        }
+        return slot;
+    }
+
+    static int binIndex(long us) {
+        if (us < SUB_BUCKETS) return (int) us;
+        int exponent = 63 - Long.numberOfLeadingZeros(us);
+        if (exponent > MAX_EXPONENT) return BIN_COUNT - 1;
+        int mantissa = (int) (us >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static double binMidpointUs(int bin) {
+        if (bin < SUB_BUCKETS) return bin;
+        int exponent = bin / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int mantissa = bin % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + mantissa) << (exponent - SUB_BUCKET_BITS);
+        return lower + width / 2.0;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.pathfinder.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Registro central de métricas do pipeline: um {@link LatencyHistogram} por estágio, FPS e frames
+ * descartados, todos numa janela deslizante de {@link #WINDOW_SLOTS} segundos, mais os marcos da
+ * partida a frio em {@link #getStartup()}.
+ * <p>
+ * Recording is lock-free and allocation-free, so any thread (camera, inference, TTS) can call it
+ * per frame. {@link #snapshot} is meant for the UI and for dumps, about once per second.
+ */
+public class MetricsRegistry {
+
+    public enum Stage {
+        ACQUIRE("acquire"),
+        CONVERT("convert"),
+        PREPROCESS("preprocess"),
+        INFERENCE("inference"),
+        POSTPROCESS("postprocess/nms"),
+        DISTANCE("distance"),
+        RISK("risk"),
+        TTS("tts dispatch"),
+        END_TO_END("end-to-end");
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final int WINDOW_SLOTS = 10;
+    public static final long SLOT_NS = 1_000_000_000L;
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final LatencyHistogram[] histograms;
+    private final RateCounter frames = new RateCounter(WINDOW_SLOTS, SLOT_NS);
+    private final RateCounter droppedFrames = new RateCounter(WINDOW_SLOTS, SLOT_NS);
+    private final StartupMilestones startup = new StartupMilestones();
+
+    public MetricsRegistry() {
+        Stage[] stages = Stage.values();
+        histograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i] = new LatencyHistogram(WINDOW_SLOTS, SLOT_NS);
+        }
+    }
+
+    public void record(Stage stage, long durationNs) {
+        histograms[stage.ordinal()].record(durationNs);
+    }
+
+    public void record(Stage stage, long durationNs, long nowNs) {
+        histograms[stage.ordinal()].record(durationNs, nowNs);
+    }
+
+    /**
+     * Records the time from {@code startNs} until now and returns now, so consecutive stages
+     * can be chained: {@code t = registry.recordSince(Stage.X, t);}
+     */
+    public long recordSince(Stage stage, long startNs) {
+        long now = System.nanoTime();
+        histograms[stage.ordinal()].record(now - startNs, now);
+        return now;
+    }
+
+    public void markFrame() {
+        frames.increment();
+    }
+
+    public void markDroppedFrame() {
+        droppedFrames.increment();
+    }
+
+    public void markFrame(long nowNs) {
+        frames.add(1, nowNs);
+    }
+
+    public void markDroppedFrame(long nowNs) {
+        droppedFrames.add(1, nowNs);
+    }
+
+    public StartupMilestones getStartup() {
+        return startup;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot(System.nanoTime());
+    }
+
+    public Snapshot snapshot(long nowNs) {
+        Stage[] stages = Stage.values();
+        StageStats[] stats = new StageStats[stages.length];
+        double[] values = new double[PERCENTILES.length];
+        for (int i = 0; i < stages.length; i++) {
+            long count = histograms[i].percentiles(nowNs, PERCENTILES, values);
+            stats[i] = new StageStats(stages[i], count, values[0], values[1], values[2],
+                    histograms[i].maxMs(nowNs));
+        }
+        return new Snapshot(stats, frames.ratePerSecond(nowNs), droppedFrames.ratePerSecond(nowNs),
+                frames.getTotal(), droppedFrames.getTotal(), startup.elapsedMs());
+    }
+
+    /**
+     * Writes a snapshot as text, appending so that successive dumps form a log.
+     */
+    public void dump(File file) throws IOException {
+        Snapshot snapshot = snapshot();
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write(snapshot.format(System.currentTimeMillis()));
+        }
+    }
+
+    // Estatística de um estágio na janela; tempos em ms
+    public static class StageStats {
+        public final Stage stage;
+        public final long count;
+        public final double p50;
+        public final double p90;
+        public final double p99;
+        public final double max;
+
+        StageStats(Stage stage, long count, double p50, double p90, double p99, double max) {
+            this.stage = stage;
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-16s n=%-5d p50=%.1f p90=%.1f p99=%.1f max=%.1f ms",
+                    stage.label, count, p50, p90, p99, max);
+        }
+    }
+
+    public static class Snapshot {
+        public final StageStats[] stages;
+        public final double fps;
+        public final double droppedPerSecond;
+        public final long totalFrames;
+        public final long totalDropped;
+        // Por StartupMilestones.Milestone, em ms desde o início do processo; NaN se não aconteceu
+        public final double[] startupMs;
+
+        Snapshot(StageStats[] stages, double fps, double droppedPerSecond,
+                 long totalFrames, long totalDropped, double[] startupMs) {
+            this.stages = stages;
+            this.fps = fps;
+            this.droppedPerSecond = droppedPerSecond;
+            this.totalFrames = totalFrames;
+            this.totalDropped = totalDropped;
+            this.startupMs = startupMs;
+        }
+
+        public StageStats get(Stage stage) {
+            return stages[stage.ordinal()];
+        }
+
+        public double startupMs(StartupMilestones.Milestone milestone) {
+            return startupMs[milestone.ordinal()];
+        }
+
+        public String format(long wallClockMs) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US,
+                    "# %d fps=%.2f dropped/s=%.2f frames=%d dropped=%d window=%ds%n",
+                    wallClockMs, fps, droppedPerSecond, totalFrames, totalDropped, WINDOW_SLOTS));
+            sb.append(StartupMilestones.format(startupMs)).append('\n');
+            for (StageStats stats : stages) {
+                sb.append(stats).append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return format(System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.pathfinder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de eventos por segundo (FPS, frames descartados) com a mesma janela deslizante de
+ * {@link LatencyHistogram}, mais o total desde o início. Lock-free, memória fixa.
+ */
+public class RateCounter {
+
+    private final int slots;
+    private final long slotNs;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray epochs;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong firstEpoch = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * @param slots  number of sub-windows, at least 2 (one of them is always the partial one)
+     * @param slotNs duration of a sub-window
+     */
+    public RateCounter(int slots, long slotNs) {
+        if (slots < 2 || slotNs <= 0) throw new IllegalArgumentException("invalid window");
+        this.slots = slots;
+        this.slotNs = slotNs;
+        this.counts = new AtomicLongArray(slots);
+        this.epochs = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void increment() {
+        add(1, System.nanoTime());
+    }
+
+    public void add(long events, long nowNs) {
+        long epoch = Math.floorDiv(nowNs, slotNs);
+        int slot = (int) Math.floorMod(epoch, (long) slots);
+        if (firstEpoch.get() == Long.MAX_VALUE) firstEpoch.compareAndSet(Long.MAX_VALUE, epoch);
+        long seen = epochs.get(slot);
+        if (seen < epoch && epochs.compareAndSet(slot, seen, epoch)) {
+            counts.set(slot, 0);
+        }
+        counts.addAndGet(slot, events);
+        total.addAndGet(events);
+    }
+
+    /**
+     * Events per second over the completed sub-windows of the window ending at {@code nowNs}.
+     * The current sub-window is still filling, so it is left out; right after startup only the
+     * sub-windows since the first event count.
+     */
+    public double ratePerSecond(long nowNs) {
+        long first = firstEpoch.get();
+        if (first == Long.MAX_VALUE) return 0;
+        long epoch = Math.floorDiv(nowNs, slotNs);
+        long completed = Math.min(slots - 1, epoch - first);
+        if (completed <= 0) return 0;
+        long events = 0;
+        for (int s = 0; s < slots; s++) {
+            long slotEpoch = epochs.get(s);
+            if (slotEpoch < epoch && slotEpoch >= epoch - completed) {
+                events += counts.get(s);
+            }
+        }
+        return events * 1e9 / ((double) completed * slotNs);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pathfinder.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Marcos da partida a frio, medidos desde o início do processo (ou de {@link #setOrigin}).
+ * <p>
+ * Each milestone keeps only the first time it is reached, so the frame loop can mark
+ * {@link Milestone#FIRST_INFERENCE} on every frame without a branch of its own. Safe to call from
+ * any thread; marking does not allocate.
+ */
+public class StartupMilestones {
+
+    public enum Milestone {
+        LABELS_LOADED("labels"),
+        MODEL_LOADED("model"),
+        TTS_READY("tts"),
+        AR_SESSION_READY("ar session"),
+        WARM_UP_DONE("warm-up"),
+        FIRST_INFERENCE("first inference"),
+        FIRST_ALERT_READY("first alert-ready frame");
+
+        public final String label;
+
+        Milestone(String label) {
+            this.label = label;
+        }
+    }
+
+    private final AtomicLongArray reachedNs = new AtomicLongArray(Milestone.values().length);
+    private volatile long originNs;
+
+    public StartupMilestones() {
+        originNs = System.nanoTime();
+    }
+
+    /**
+     * @param originNs System.nanoTime of the process start; before construction when the launcher
+     *                 knows it (Process.getStartElapsedRealtime on Android)
+     */
+    public void setOrigin(long originNs) {
+        this.originNs = originNs;
+    }
+
+    public boolean mark(Milestone milestone) {
+        return mark(milestone, System.nanoTime());
+    }
+
+    /**
+     * @return true if this was the first time {@code milestone} was reached
+     */
+    public boolean mark(Milestone milestone, long nowNs) {
+        // 0 é "ainda não"; nanoTime pode valer 0, mas não na prática
+        return reachedNs.compareAndSet(milestone.ordinal(), 0, nowNs);
+    }
+
+    public boolean isReached(Milestone milestone) {
+        return reachedNs.get(milestone.ordinal()) != 0;
+    }
+
+    /**
+     * @return milliseconds from the origin, or NaN if not reached yet
+     */
+    public double elapsedMs(Milestone milestone) {
+        long at = reachedNs.get(milestone.ordinal());
+        return at != 0 ? (at - originNs) / 1e6 : Double.NaN;
+    }
+
+    /**
+     * Milliseconds from the origin for every milestone, indexed by ordinal; NaN if not reached.
+     */
+    public double[] elapsedMs() {
+        Milestone[] milestones = Milestone.values();
+        double[] out = new double[milestones.length];
+        for (int i = 0; i < milestones.length; i++) {
+            out[i] = elapsedMs(milestones[i]);
+        }
+        return out;
+    }
+
+    static String format(double[] elapsedMs) {
+        StringBuilder sb = new StringBuilder("startup");
+        Milestone[] milestones = Milestone.values();
+        for (int i = 0; i < milestones.length; i++) {
+            sb.append(' ').append(milestones[i].label.replace(' ', '_')).append('=');
+            sb.append(Double.isNaN(elapsedMs[i]) ? "-" : String.format(Locale.US, "%.0fms", elapsedMs[i]));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format(elapsedMs());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.pathfinder.navigation;
+
+/**
+ * Grade de ocupação 2D local, centrada no usuário, no plano do chão (x, z do mundo ARCore).
+ * <p>
+ * Fixed memory: a square window of {@code size x size} cells stored as a ring buffer indexed by
+ * world cell modulo the size, so following the user only clears the rows and columns that scroll
+ * into the window. Each cell holds an occupancy evidence in [0, 1] that decays exponentially
+ * over time; the decay is a single global scale factor, so it costs O(1) per frame instead of a
+ * pass over the grid.
+ * <p>
+ * Not thread-safe.
+ */
+public class OccupancyGrid {
+
+    private static final float RENORMALIZE_BELOW = 1e-3f;
+
+    private final int size;
+    private final float cellSize;
+    private final float decayPerSecond; // ln(2) / meia-vida
+
+    // raw[i] * scale = ocupação da célula
+    private final float[] raw;
+    private float scale = 1f;
+
+    // Célula do mundo no canto mínimo da janela
+    private int originX;
+    private int originZ;
+
+    /**
+     * @param sizeCells       cells per side of the window
+     * @param cellSizeM       side of a cell in metres
+     * @param halfLifeSeconds time for unrefreshed evidence to halve
+     */
+    public OccupancyGrid(int sizeCells, float cellSizeM, float halfLifeSeconds) {
+        if (sizeCells < 2 || cellSizeM <= 0f || halfLifeSeconds <= 0f) {
+            throw new IllegalArgumentException("invalid grid parameters");
+        }
+        this.size = sizeCells;
+        this.cellSize = cellSizeM;
+        this.decayPerSecond = (float) (Math.log(2) / halfLifeSeconds);
+        this.raw = new float[sizeCells * sizeCells];
+        this.originX = -sizeCells / 2;
+        this.originZ = -sizeCells / 2;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Moves the window so that ({@code x}, {@code z}) is in its centre cell. Cells leaving the
+     * window are cleared so they come back empty.
+     */
+    public void recenter(float x, float z) {
+        int newOriginX = cell(x) - size / 2;
+        int newOriginZ = cell(z) - size / 2;
+        int shiftX = newOriginX - originX;
+        int shiftZ = newOriginZ - originZ;
+        if (shiftX == 0 && shiftZ == 0) return;
+
+        if (Math.abs(shiftX) >= size || Math.abs(shiftZ) >= size) {
+            java.util.Arrays.fill(raw, 0f);
+        } else {
+            // Colunas (x) e linhas (z) que entram na janela reutilizam as posições das que saíram
+            int fromX = shiftX > 0 ? originX + size : newOriginX;
+            for (int i = 0; i < Math.abs(shiftX); i++) {
+                clearColumn(fromX + i);
+            }
+            int fromZ = shiftZ > 0 ? originZ + size : newOriginZ;
+            for (int i = 0; i < Math.abs(shiftZ); i++) {
+                clearRow(fromZ + i);
+            }
+        }
+        originX = newOriginX;
+        originZ = newOriginZ;
+    }
+
+    /**
+     * Ages all evidence by {@code seconds}.
+     */
+    public void decay(float seconds) {
+        if (seconds <= 0f) return;
+        scale *= (float) Math.exp(-decayPerSecond * seconds);
+        if (scale < RENORMALIZE_BELOW) {
+            for (int i = 0; i < raw.length; i++) {
+                raw[i] *= scale;
+            }
+            scale = 1f;
+        }
+    }
+
+    /**
+     * Adds occupancy evidence at a point; points outside the window are ignored.
+     */
+    public void addObstacle(float x, float z, float amount) {
+        addCell(cell(x), cell(z), amount);
+    }
+
+    /**
+     * Adds occupancy evidence along a segment, e.g. the foot of a wall.
+     */
+    public void addSegment(float x0, float z0, float x1, float z1, float amount) {
+        traceLine(x0, z0, x1, z1, amount, true);
+    }
+
+    /**
+     * Removes evidence along the line of sight from ({@code x0}, {@code z0}) up to, but not
+     * including, the cell of ({@code x1}, {@code z1}): if something was seen there, the space
+     * before it is free.
+     */
+    public void clearRay(float x0, float z0, float x1, float z1, float amount) {
+        traceLine(x0, z0, x1, z1, -amount, false);
+    }
+
+    /**
+     * Occupancy in [0, 1] at a world point; 0 outside the window.
+     */
+    public float get(float x, float z) {
+        return getCell(cell(x), cell(z));
+    }
+
+    /**
+     * Occupancy of a world cell; 0 outside the window.
+     */
+    public float getCell(int cellX, int cellZ) {
+        if (!inWindow(cellX, cellZ)) return 0f;
+        return raw[index(cellX, cellZ)] * scale;
+    }
+
+    public boolean inWindow(int cellX, int cellZ) {
+        return cellX >= originX && cellX < originX + size && cellZ >= originZ && cellZ < originZ + size;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginZ() {
+        return originZ;
+    }
+
+    public int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(raw, 0f);
+        scale = 1f;
+    }
+
+    private void addCell(int cellX, int cellZ, float amount) {
+        if (!inWindow(cellX, cellZ)) return;
+        int i = index(cellX, cellZ);
+        float value = raw[i] * scale + amount;
+        value = value < 0f ? 0f : (value > 1f ? 1f : value);
+        raw[i] = value / scale;
+    }
+
+    private void clearColumn(int cellX) {
+        int column = Math.floorMod(cellX, size);
+        for (int row = 0; row < size; row++) {
+            raw[row * size + column] = 0f;
+        }
+    }
+
+    private void clearRow(int cellZ) {
+        int row = Math.floorMod(cellZ, size);
+        java.util.Arrays.fill(raw, row * size, (row + 1) * size, 0f);
+    }
+
+    private int index(int cellX, int cellZ) {
+        return Math.floorMod(cellZ, size) * size + Math.floorMod(cellX, size);
+    }
+
+    // Passos de meia célula (não pula células na diagonal); cada célula recebe o valor uma vez
+    private void traceLine(float x0, float z0, float x1, float z1, float amount, boolean includeEnd) {
+        int endX = cell(x1), endZ = cell(z1);
+        float length = (float) Math.sqrt((x1 - x0) * (x1 - x0) + (z1 - z0) * (z1 - z0));
+        int steps = (int) Math.ceil(2f * length / cellSize);
+        int lastX = Integer.MIN_VALUE, lastZ = Integer.MIN_VALUE;
+        for (int s = 0; s <= steps; s++) {
+            float t = steps == 0 ? 0f : (float) s / steps;
+            int cx = cell(x0 + t * (x1 - x0));
+            int cz = cell(z0 + t * (z1 - z0));
+            if (cx == lastX && cz == lastZ) continue;
+            if (!includeEnd && cx == endX && cz == endZ) break;
+            addCell(cx, cz, amount);
+            lastX = cx;
+            lastZ = cz;
+        }
+    }
+}
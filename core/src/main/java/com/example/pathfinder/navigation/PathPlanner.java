@@ -0,0 +1,288 @@
+package com.example.pathfinder.navigation;
+
+import java.util.Arrays;
+
+/**
+ * Sugere a direção mais livre para andar a partir da {@link OccupancyGrid}.
+ * <p>
+ * Obstacles are inflated by the body radius, then a wavefront (Dijkstra over 8-connected cells,
+ * with occupancy adding cost) spreads from the user's cell up to the look-ahead radius. Each
+ * candidate heading within {@link #setMaxTurn} of the facing direction is scored by how much
+ * longer the best path to the point at the look-ahead distance is than the straight line, plus a
+ * penalty for turning, so a clear path straight ahead wins and a detour is only suggested when
+ * needed. Headings whose straight line is blocked before the look-ahead distance are penalized
+ * too, since the user walks straight along the suggestion.
+ * <p>
+ * The budget covers the whole call: the deadline is taken on entry, so the setup (copying the
+ * occupancy and inflating obstacles, O(size² · radius)) counts against it, and the search stops
+ * at the first check after it runs out. Only cells settled by then have exact costs, so each
+ * heading is then scored at the farthest settled cell along it instead of at the look-ahead
+ * distance. The first batch of cells is always expanded, so an open heading is still suggested
+ * when the setup alone used up the budget. All buffers are allocated once per grid size, so a
+ * frame allocates nothing. Not thread-safe.
+ */
+public class PathPlanner {
+
+    private static final float DEFAULT_LOOKAHEAD_M = 2f;
+    private static final float DEFAULT_MAX_TURN_DEG = 90f;
+    private static final float DEFAULT_HEADING_STEP_DEG = 10f;
+    private static final float DEFAULT_OCCUPIED_THRESHOLD = 0.5f;
+    private static final float DEFAULT_BODY_RADIUS_M = 0.3f;
+    private static final float OCCUPANCY_COST = 4f;   // custo extra por passo em célula ocupada (fração)
+    private static final float TURN_PENALTY = 0.3f;   // equivalente em desvio para uma volta de 90 graus
+    private static final float BLOCKED_RAY_PENALTY = 0.5f; // linha reta bloqueada logo na saída
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DZ = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private float lookahead = DEFAULT_LOOKAHEAD_M;
+    private float maxTurnDeg = DEFAULT_MAX_TURN_DEG;
+    private float headingStepDeg = DEFAULT_HEADING_STEP_DEG;
+    private float occupiedThreshold = DEFAULT_OCCUPIED_THRESHOLD;
+    private float bodyRadius = DEFAULT_BODY_RADIUS_M;
+
+    // Buffers por célula da janela (índice local lz * size + lx)
+    private int size = 0;
+    private int[] cost = new int[0];
+    private float[] occupancy = new float[0];
+    private boolean[] blocked = new boolean[0];
+    private int[] rowDistance = new int[0]; // |dx| até a célula ocupada mais próxima na mesma linha
+    // Heap binário com entradas duplicadas (sem decrease-key)
+    private int[] heapCell = new int[0];
+    private int[] heapCost = new int[0];
+    private int heapSize;
+
+    public void setLookahead(float meters) {
+        this.lookahead = meters;
+    }
+
+    public void setMaxTurn(float degrees) {
+        this.maxTurnDeg = degrees;
+    }
+
+    public void setHeadingStep(float degrees) {
+        this.headingStepDeg = degrees;
+    }
+
+    public void setOccupiedThreshold(float threshold) {
+        this.occupiedThreshold = threshold;
+    }
+
+    public void setBodyRadius(float meters) {
+        this.bodyRadius = meters;
+    }
+
+    /**
+     * @param x        user position in world metres
+     * @param z        user position in world metres
+     * @param forwardX horizontal facing direction, need not be normalized
+     * @param forwardZ horizontal facing direction, need not be normalized
+     * @param budgetNs time budget for the search
+     * @param out      filled with the suggestion
+     * @return {@code out.found}
+     */
+    public boolean plan(OccupancyGrid grid, float x, float z, float forwardX, float forwardZ,
+                        long budgetNs, PathSuggestion out) {
+        long deadline = System.nanoTime() + budgetNs;
+        out.found = false;
+        out.complete = true;
+        out.expandedCells = 0;
+
+        float forwardLength = (float) Math.sqrt(forwardX * forwardX + forwardZ * forwardZ);
+        if (forwardLength < 1e-6f) return false;
+        float fx = forwardX / forwardLength, fz = forwardZ / forwardLength;
+
+        ensureCapacity(grid.getSize());
+        int n = size;
+        float cellSize = grid.getCellSize();
+        int originX = grid.getOriginX(), originZ = grid.getOriginZ();
+        int startX = grid.cell(x) - originX, startZ = grid.cell(z) - originZ;
+        if (startX < 0 || startX >= n || startZ < 0 || startZ >= n) return false;
+
+        // Alvo precisa caber na janela
+        int lookaheadCells = Math.min(Math.round(lookahead / cellSize), n / 2 - 1);
+        if (lookaheadCells < 1) return false;
+        int searchRadiusSq = (lookaheadCells + 1) * (lookaheadCells + 1);
+
+        buildBlocked(grid, cellSize);
+        blocked[startZ * n + startX] = false; // o usuário está ali, mesmo perto de um obstáculo
+
+        // Frente de onda a partir do usuário
+        Arrays.fill(cost, UNREACHED);
+        heapSize = 0;
+        int start = startZ * n + startX;
+        cost[start] = 0;
+        push(start, 0);
+        int expanded = 0;
+        while (heapSize > 0) {
+            if (++expanded % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                out.complete = false;
+                break;
+            }
+            int c = heapCell[0];
+            int g = heapCost[0];
+            pop();
+            if (g > cost[c]) continue; // entrada obsoleta
+            int cx = c % n, cz = c / n;
+            for (int k = 0; k < 8; k++) {
+                int nx = cx + DX[k], nz = cz + DZ[k];
+                if (nx < 0 || nx >= n || nz < 0 || nz >= n) continue;
+                int dx = nx - startX, dz = nz - startZ;
+                if (dx * dx + dz * dz > searchRadiusSq) continue;
+                int neighbor = nz * n + nx;
+                if (blocked[neighbor]) continue;
+                // Diagonal não corta quina de obstáculo
+                if (k >= 4 && (blocked[cz * n + nx] || blocked[nz * n + cx])) continue;
+                int step = k < 4 ? STRAIGHT_COST : DIAGONAL_COST;
+                int ng = g + Math.round(step * (1f + OCCUPANCY_COST * occupancy[neighbor]));
+                if (ng < cost[neighbor]) {
+                    cost[neighbor] = ng;
+                    push(neighbor, ng);
+                }
+            }
+        }
+        out.expandedCells = expanded;
+        // Custos até o menor custo ainda no heap são finais; acima dele, provisórios
+        int settledCost = out.complete || heapSize == 0 ? UNREACHED : heapCost[0];
+        int minSteps = out.complete ? lookaheadCells : 1;
+
+        // Direções candidatas: 0, +step, -step, +2 step... empates ficam com a menor curva
+        float bestScore = Float.MAX_VALUE;
+        int turns = (int) Math.floor(maxTurnDeg / headingStepDeg);
+        for (int i = 0; i <= 2 * turns; i++) {
+            int k = (i + 1) / 2;
+            float angle = (i % 2 == 1 ? 1 : -1) * k * headingStepDeg;
+            double radians = Math.toRadians(angle);
+            // Direita = (-fz, fx) no plano x, z (ARCore: y para cima, câmera olhando para -z)
+            float dirX = (float) (fx * Math.cos(radians) - fz * Math.sin(radians));
+            float dirZ = (float) (fz * Math.cos(radians) + fx * Math.sin(radians));
+            // Busca completa: alvo na distância de look-ahead. Interrompida: a célula assentada mais distante
+            int steps = lookaheadCells;
+            int targetCost = UNREACHED;
+            for (; steps >= minSteps; steps--) {
+                int tx = startX + Math.round(dirX * steps);
+                int tz = startZ + Math.round(dirZ * steps);
+                int c = cost[tz * n + tx];
+                if (c != UNREACHED && c <= settledCost) {
+                    targetCost = c;
+                    break;
+                }
+            }
+            if (targetCost == UNREACHED) continue;
+
+            float detour = targetCost / (float) (STRAIGHT_COST * steps);
+            float clearance = clearance(startX, startZ, dirX, dirZ, cellSize);
+            float blockedFraction = Math.max(0f, 1f - clearance / (lookaheadCells * cellSize));
+            float score = detour + TURN_PENALTY * Math.abs(angle) / 90f + BLOCKED_RAY_PENALTY * blockedFraction;
+            if (score < bestScore) {
+                bestScore = score;
+                out.found = true;
+                out.headingDeg = angle;
+                out.detour = detour;
+                out.clearanceM = clearance;
+            }
+        }
+        return out.found;
+    }
+
+    // Obstáculos inflados pelo raio do corpo, em duas passadas separáveis: distância horizontal até a
+    // célula ocupada mais próxima de cada linha, depois o disco linha a linha. O(n² · raio), não
+    // importa quantas células estejam ocupadas
+    private void buildBlocked(OccupancyGrid grid, float cellSize) {
+        int n = size;
+        int originX = grid.getOriginX(), originZ = grid.getOriginZ();
+        int radius = (int) Math.ceil(bodyRadius / cellSize);
+        int radiusSq = radius * radius;
+        int far = radius + 1; // longe demais para bloquear
+        for (int lz = 0; lz < n; lz++) {
+            int row = lz * n;
+            int distance = far;
+            for (int lx = 0; lx < n; lx++) {
+                float value = grid.getCell(originX + lx, originZ + lz);
+                occupancy[row + lx] = value;
+                distance = value >= occupiedThreshold ? 0 : Math.min(distance + 1, far);
+                rowDistance[row + lx] = distance;
+            }
+            distance = far;
+            for (int lx = n - 1; lx >= 0; lx--) {
+                distance = rowDistance[row + lx] == 0 ? 0 : Math.min(distance + 1, far);
+                if (distance < rowDistance[row + lx]) rowDistance[row + lx] = distance;
+            }
+        }
+        for (int lz = 0; lz < n; lz++) {
+            int zFrom = Math.max(0, lz - radius), zTo = Math.min(n - 1, lz + radius);
+            for (int lx = 0; lx < n; lx++) {
+                boolean b = false;
+                for (int z = zFrom; z <= zTo && !b; z++) {
+                    int dx = rowDistance[z * n + lx];
+                    int dz = z - lz;
+                    b = dx * dx + dz * dz <= radiusSq;
+                }
+                blocked[lz * n + lx] = b;
+            }
+        }
+    }
+
+    // Distância livre em linha reta, em passos de meia célula
+    private float clearance(int startX, int startZ, float dirX, float dirZ, float cellSize) {
+        int n = size;
+        float px = startX + 0.5f, pz = startZ + 0.5f;
+        int maxSteps = n; // meia janela, em meias células
+        for (int s = 1; s <= maxSteps; s++) {
+            int cx = (int) Math.floor(px + 0.5f * s * dirX);
+            int cz = (int) Math.floor(pz + 0.5f * s * dirZ);
+            if (cx < 0 || cx >= n || cz < 0 || cz >= n) return 0.5f * (s - 1) * cellSize;
+            if (blocked[cz * n + cx]) return 0.5f * (s - 1) * cellSize;
+        }
+        return 0.5f * maxSteps * cellSize;
+    }
+
+    private void ensureCapacity(int gridSize) {
+        if (gridSize == size) return;
+        size = gridSize;
+        int cells = gridSize * gridSize;
+        cost = new int[cells];
+        occupancy = new float[cells];
+        blocked = new boolean[cells];
+        rowDistance = new int[cells];
+        // Cada célula entra no heap no máximo uma vez por vizinho que a melhora
+        heapCell = new int[cells * 8 + 1];
+        heapCost = new int[cells * 8 + 1];
+    }
+
+    private void push(int cell, int g) {
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCost[parent] <= g) break;
+            heapCell[i] = heapCell[parent];
+            heapCost[i] = heapCost[parent];
+            i = parent;
+        }
+        heapCell[i] = cell;
+        heapCost[i] = g;
+    }
+
+    private void pop() {
+        int last = --heapSize;
+        if (last == 0) return;
+        int cell = heapCell[last];
+        int g = heapCost[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= last) break;
+            if (child + 1 < last && heapCost[child + 1] < heapCost[child]) child++;
+            if (heapCost[child] >= g) break;
+            heapCell[i] = heapCell[child];
+            heapCost[i] = heapCost[child];
+            i = child;
+        }
+        heapCell[i] = cell;
+        heapCost[i] = g;
+    }
+}
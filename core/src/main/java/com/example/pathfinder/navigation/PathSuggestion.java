@@ -0,0 +1,21 @@
+package com.example.pathfinder.navigation;
+
+/**
+ * Result of {@link PathPlanner#plan}: the clearest direction to walk, relative to where the user
+ * is facing.
+ */
+public class PathSuggestion {
+    public boolean found;          // false: nenhum caminho livre alcançado dentro do orçamento
+    public float headingDeg;       // positivo = para a direita
+    public float clearanceM;       // distância livre em linha reta nessa direção
+    public float detour;           // custo do caminho / distância em linha reta (1 = reto)
+    public boolean complete;       // false se o orçamento de tempo acabou antes da busca terminar
+    public int expandedCells;
+
+    @Override
+    public String toString() {
+        if (!found) return "PathSuggestion{none, complete=" + complete + "}";
+        return String.format("PathSuggestion{heading=%.0fdeg, clearance=%.2fm, detour=%.2f, complete=%b}",
+                headingDeg, clearanceM, detour, complete);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.pathfinder.recording;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout shared by {@link SessionWriter} and {@link SessionReader}. All values are little-endian.
+ * <pre>
+ * file header (HEADER_SIZE bytes): magic, version, committed length (long), frame count (long)
+ * records: type (int), payload length (int), payload
+ * </pre>
+ * The first record is always the {@link SessionInfo}; every other one is a {@link SessionFrame}.
+ */
+final class Records {
+    static final int MAGIC = 0x43524650; // "PFRC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int COMMITTED_OFFSET = 8;
+    static final int FRAME_COUNT_OFFSET = 16;
+
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int TYPE_INFO = 1;
+    static final int TYPE_FRAME = 2;
+
+    private Records() {
+    }
+
+    static int stringSize(String value) {
+        return 4 + (value == null ? 0 : utf8Length(value));
+    }
+
+    // Null é gravado com comprimento -1
+    static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
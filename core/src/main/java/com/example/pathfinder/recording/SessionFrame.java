@@ -0,0 +1,513 @@
+package com.example.pathfinder.recording;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.RegionOfInterest;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskLevel;
+import com.example.pathfinder.utils.YuvFrame;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything the pipeline saw and decided on one rendered frame: camera pose, planes that changed,
+ * the detector result that arrived (image, raw output tensor and boxes), the distances measured for
+ * each object and the risk assessment. One instance is reused for every frame, by the recorder and
+ * by the reader; the arrays only grow.
+ * <p>
+ * The flags say which parts are present, and also carry the control flow of the live run (tracker
+ * reset, distances refreshed or reused) so the replay takes the same path.
+ */
+public class SessionFrame {
+    public static final int FLAG_RESET = 1;      // processamento desligado: rastreador limpo
+    public static final int FLAG_DETECTION = 2;  // resultado novo do detector neste frame
+    public static final int FLAG_IMAGE = 4;      // imagem da detecção (com FLAG_DETECTION)
+    public static final int FLAG_TENSOR = 8;     // tensor de saída da detecção (com FLAG_DETECTION)
+    public static final int FLAG_REFRESH = 16;   // distâncias medidas de novo (senão as do último refresh)
+    public static final int FLAG_EVALUATED = 32; // análise de risco rodou
+
+    private static final RiskLevel[] LEVELS = RiskLevel.values();
+
+    public long timestampNs;
+    // Relógio usado pelo cooldown dos alertas (System.currentTimeMillis)
+    public long clockMs;
+    public int flags;
+    // tx, ty, tz, qx, qy, qz, qw
+    public final float[] pose = new float[7];
+
+    // Planos verticais que mudaram neste frame; o polígono do plano i fica em
+    // polygonData[polygonStart[i], polygonStart[i + 1])
+    public int planeCount;
+    public long[] planeIds = new long[8];
+    public boolean[] planeRemoved = new boolean[8];
+    public float[] planePoses = new float[7 * 8];
+    public int[] polygonStart = new int[9];
+    public float[] polygonData = new float[128];
+
+    // Detecção (FLAG_DETECTION)
+    public long captureTimestampNs;
+    public float roiLeft, roiTop, roiRight = 1f, roiBottom = 1f;
+    public final BoxList detections = new BoxList();
+    // Imagem em I420 (Y, depois U e V com metade da resolução)
+    public int imageWidth, imageHeight;
+    public byte[] image = new byte[0];
+    // Bytes do tensor de saída, na ordem nativa do dispositivo (little-endian)
+    public ByteBuffer tensor = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+
+    // Objetos com as distâncias medidas (FLAG_REFRESH)
+    public final BoxList objects = new BoxList();
+    public float wallDistance = Float.MIN_VALUE;
+
+    // Avaliação de risco (FLAG_EVALUATED)
+    public RiskLevel riskLevel;
+    public String message;
+    public String direction;
+    public boolean alert;
+
+    /**
+     * Boxes in primitive arrays: centre, size, confidence, class, track and distance.
+     */
+    public static final class BoxList {
+        public static final int STRIDE = 5; // cx, cy, w, h, cnf
+        private static final int ENCODED_BOX_SIZE = (STRIDE + 3) * 4;
+
+        public int count;
+        public float[] values = new float[STRIDE * 16];
+        public int[] classes = new int[16];
+        public int[] trackIds = new int[16];
+        public float[] distances = new float[16];
+
+        public void clear() {
+            count = 0;
+        }
+
+        public void add(BoundingBox box, float distance) {
+            ensureCapacity(count + 1);
+            int o = STRIDE * count;
+            values[o] = box.cx;
+            values[o + 1] = box.cy;
+            values[o + 2] = box.w;
+            values[o + 3] = box.h;
+            values[o + 4] = box.cnf;
+            classes[count] = box.cls;
+            trackIds[count] = box.trackId;
+            distances[count] = distance;
+            count++;
+        }
+
+        /**
+         * @param labels class names, indexed by class id
+         */
+        public BoundingBox toBoundingBox(int i, List<String> labels) {
+            int o = STRIDE * i;
+            float cx = values[o], cy = values[o + 1], w = values[o + 2], h = values[o + 3];
+            int cls = classes[i];
+            String name = cls >= 0 && cls < labels.size() ? labels.get(cls) : null;
+            BoundingBox box = new BoundingBox(cx - w / 2, cy - h / 2, cx + w / 2, cy + h / 2,
+                    cx, cy, w, h, values[o + 4], cls, name);
+            box.trackId = trackIds[i];
+            return box;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (classes.length >= needed) return;
+            int capacity = Math.max(needed, 2 * classes.length);
+            values = Arrays.copyOf(values, STRIDE * capacity);
+            classes = Arrays.copyOf(classes, capacity);
+            trackIds = Arrays.copyOf(trackIds, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+        }
+
+        int encodedSize() {
+            return 4 + count * ENCODED_BOX_SIZE;
+        }
+
+        void write(ByteBuffer out) {
+            out.putInt(count);
+            for (int i = 0; i < count; i++) {
+                for (int k = 0; k < STRIDE; k++) {
+                    out.putFloat(values[STRIDE * i + k]);
+                }
+                out.putInt(classes[i]);
+                out.putInt(trackIds[i]);
+                out.putFloat(distances[i]);
+            }
+        }
+
+        void read(ByteBuffer in) {
+            int n = in.getInt();
+            count = 0;
+            ensureCapacity(n);
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < STRIDE; k++) {
+                    values[STRIDE * i + k] = in.getFloat();
+                }
+                classes[i] = in.getInt();
+                trackIds[i] = in.getInt();
+                distances[i] = in.getFloat();
+            }
+            count = n;
+        }
+    }
+
+    /**
+     * Starts a new frame, dropping everything recorded for the previous one.
+     */
+    public void clear(long timestampNs, long clockMs) {
+        this.timestampNs = timestampNs;
+        this.clockMs = clockMs;
+        flags = 0;
+        Arrays.fill(pose, 0f);
+        pose[6] = 1f;
+        planeCount = 0;
+        captureTimestampNs = 0;
+        roiLeft = 0f;
+        roiTop = 0f;
+        roiRight = 1f;
+        roiBottom = 1f;
+        detections.clear();
+        imageWidth = 0;
+        imageHeight = 0;
+        tensor.clear().limit(0);
+        objects.clear();
+        wallDistance = Float.MIN_VALUE;
+        riskLevel = null;
+        message = null;
+        direction = null;
+        alert = false;
+    }
+
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public void setPose(float tx, float ty, float tz, float qx, float qy, float qz, float qw) {
+        pose[0] = tx;
+        pose[1] = ty;
+        pose[2] = tz;
+        pose[3] = qx;
+        pose[4] = qy;
+        pose[5] = qz;
+        pose[6] = qw;
+    }
+
+    /**
+     * Records a plane added to or updated in the wall index, with the same arguments as
+     * {@code WallIndex.update}.
+     */
+    public void addPlane(long id, float tx, float ty, float tz, float qx, float qy, float qz, float qw,
+                         FloatBuffer polygon) {
+        FloatBuffer points = polygon.duplicate();
+        points.rewind();
+        int n = points.remaining();
+        int i = appendPlane(id, false, n);
+        int o = 7 * i;
+        planePoses[o] = tx;
+        planePoses[o + 1] = ty;
+        planePoses[o + 2] = tz;
+        planePoses[o + 3] = qx;
+        planePoses[o + 4] = qy;
+        planePoses[o + 5] = qz;
+        planePoses[o + 6] = qw;
+        points.get(polygonData, polygonStart[i], n);
+    }
+
+    /**
+     * Records a plane removed from the wall index.
+     */
+    public void removePlane(long id) {
+        appendPlane(id, true, 0);
+    }
+
+    private int appendPlane(long id, boolean removed, int polygonLength) {
+        int i = planeCount;
+        if (planeIds.length <= i) {
+            int capacity = 2 * planeIds.length;
+            planeIds = Arrays.copyOf(planeIds, capacity);
+            planeRemoved = Arrays.copyOf(planeRemoved, capacity);
+            planePoses = Arrays.copyOf(planePoses, 7 * capacity);
+            polygonStart = Arrays.copyOf(polygonStart, capacity + 1);
+        }
+        int end = polygonStart[i] + polygonLength;
+        if (polygonData.length < end) {
+            polygonData = Arrays.copyOf(polygonData, Math.max(end, 2 * polygonData.length));
+        }
+        planeIds[i] = id;
+        planeRemoved[i] = removed;
+        polygonStart[i + 1] = end;
+        planeCount++;
+        return i;
+    }
+
+    /**
+     * Polygon of plane {@code i} as (x, z) pairs, like {@code Plane.getPolygon()}.
+     */
+    public FloatBuffer planePolygon(int i) {
+        return FloatBuffer.wrap(polygonData, polygonStart[i], polygonStart[i + 1] - polygonStart[i]).slice();
+    }
+
+    /**
+     * Records the detector result that arrived on this frame.
+     * @param captureTimestampNs camera timestamp of the image the boxes were detected on
+     */
+    public void setDetection(long captureTimestampNs, RegionOfInterest roi, List<BoundingBox> boxes) {
+        flags |= FLAG_DETECTION;
+        this.captureTimestampNs = captureTimestampNs;
+        roiLeft = roi.left;
+        roiTop = roi.top;
+        roiRight = roi.right;
+        roiBottom = roi.bottom;
+        detections.clear();
+        for (int i = 0; i < boxes.size(); i++) {
+            detections.add(boxes.get(i), Float.MIN_VALUE);
+        }
+    }
+
+    public RegionOfInterest roi() {
+        if (roiLeft == 0f && roiTop == 0f && roiRight == 1f && roiBottom == 1f) {
+            return RegionOfInterest.FULL_FRAME;
+        }
+        return new RegionOfInterest(roiLeft, roiTop, roiRight, roiBottom);
+    }
+
+    /**
+     * Copies the camera image behind the detection, keeping one pixel in {@code downsample} in
+     * each direction.
+     */
+    public void setImage(YuvFrame frame, int downsample) {
+        int width = (frame.width / downsample) & ~1;
+        int height = (frame.height / downsample) & ~1;
+        if (width == 0 || height == 0) return;
+
+        int chromaWidth = width / 2, chromaHeight = height / 2;
+        int lumaSize = width * height, chromaSize = chromaWidth * chromaHeight;
+        if (image.length < lumaSize + 2 * chromaSize) {
+            image = new byte[lumaSize + 2 * chromaSize];
+        }
+        for (int r = 0; r < height; r++) {
+            int src = r * downsample * frame.yRowStride;
+            int dst = r * width;
+            int step = downsample * frame.yPixelStride;
+            for (int c = 0; c < width; c++, src += step) {
+                image[dst + c] = frame.y[src];
+            }
+        }
+        // A amostra (r, c) do croma de saída corresponde ao pixel (2r, 2c) * downsample da imagem
+        for (int r = 0; r < chromaHeight; r++) {
+            int src = r * downsample * frame.uvRowStride;
+            int dst = r * chromaWidth;
+            int step = downsample * frame.uvPixelStride;
+            for (int c = 0; c < chromaWidth; c++, src += step) {
+                image[lumaSize + dst + c] = frame.u[src];
+                image[lumaSize + chromaSize + dst + c] = frame.v[src];
+            }
+        }
+        imageWidth = width;
+        imageHeight = height;
+        flags |= FLAG_IMAGE;
+    }
+
+    /**
+     * Loads the recorded image into {@code dst} (planar, pixel stride 1).
+     */
+    public void toYuvFrame(YuvFrame dst) {
+        int lumaSize = imageWidth * imageHeight;
+        int chromaWidth = imageWidth / 2;
+        int chromaSize = chromaWidth * (imageHeight / 2);
+        dst.set(imageWidth, imageHeight,
+                ByteBuffer.wrap(image, 0, lumaSize), imageWidth, 1,
+                ByteBuffer.wrap(image, lumaSize, chromaSize),
+                ByteBuffer.wrap(image, lumaSize + chromaSize, chromaSize), chromaWidth, 1);
+        dst.timestampNs = captureTimestampNs;
+    }
+
+    /**
+     * Copies the raw output tensor of the detection, before post-processing touches it.
+     */
+    public void setTensor(ByteBuffer output) {
+        ByteBuffer src = output.duplicate();
+        src.rewind();
+        ensureTensorCapacity(src.remaining());
+        tensor.put(src);
+        tensor.flip();
+        flags |= FLAG_TENSOR;
+    }
+
+    private void ensureTensorCapacity(int size) {
+        if (tensor.capacity() < size) {
+            tensor = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        tensor.clear();
+    }
+
+    /**
+     * Records an object sent to the distance stage and the distance measured for it
+     * ({@code Float.MIN_VALUE} when nothing was hit).
+     */
+    public void addObject(BoundingBox box, float distance) {
+        flags |= FLAG_REFRESH;
+        objects.add(box, distance);
+    }
+
+    /**
+     * Marks the distances as refreshed on this frame, with the nearest wall found.
+     */
+    public void setWallDistance(float wallDistance) {
+        flags |= FLAG_REFRESH;
+        this.wallDistance = wallDistance;
+    }
+
+    public void setAssessment(RiskAssessment assessment) {
+        flags |= FLAG_EVALUATED;
+        riskLevel = assessment.getRiskLevel();
+        message = assessment.getMessage();
+        direction = assessment.getDirection();
+        alert = assessment.shouldAlert();
+    }
+
+    int encodedSize() {
+        int size = 8 + 8 + 4 + 7 * 4 + 4;
+        for (int i = 0; i < planeCount; i++) {
+            size += 8 + 4;
+            if (!planeRemoved[i]) {
+                size += 7 * 4 + 4 + 4 * (polygonStart[i + 1] - polygonStart[i]);
+            }
+        }
+        if (has(FLAG_DETECTION)) {
+            size += 8 + 4 * 4 + detections.encodedSize();
+            if (has(FLAG_IMAGE)) {
+                size += 8 + imageWidth * imageHeight * 3 / 2;
+            }
+            if (has(FLAG_TENSOR)) {
+                size += 4 + tensor.remaining();
+            }
+        }
+        if (has(FLAG_REFRESH)) {
+            size += objects.encodedSize() + 4;
+        }
+        if (has(FLAG_EVALUATED)) {
+            size += 4 + Records.stringSize(message) + Records.stringSize(direction) + 4;
+        }
+        return size;
+    }
+
+    void write(ByteBuffer out) {
+        out.putLong(timestampNs);
+        out.putLong(clockMs);
+        out.putInt(flags);
+        for (float value : pose) {
+            out.putFloat(value);
+        }
+        out.putInt(planeCount);
+        for (int i = 0; i < planeCount; i++) {
+            out.putLong(planeIds[i]);
+            out.putInt(planeRemoved[i] ? 1 : 0);
+            if (planeRemoved[i]) continue;
+            for (int k = 0; k < 7; k++) {
+                out.putFloat(planePoses[7 * i + k]);
+            }
+            out.putInt(polygonStart[i + 1] - polygonStart[i]);
+            for (int k = polygonStart[i]; k < polygonStart[i + 1]; k++) {
+                out.putFloat(polygonData[k]);
+            }
+        }
+        if (has(FLAG_DETECTION)) {
+            out.putLong(captureTimestampNs);
+            out.putFloat(roiLeft);
+            out.putFloat(roiTop);
+            out.putFloat(roiRight);
+            out.putFloat(roiBottom);
+            detections.write(out);
+            if (has(FLAG_IMAGE)) {
+                out.putInt(imageWidth);
+                out.putInt(imageHeight);
+                out.put(image, 0, imageWidth * imageHeight * 3 / 2);
+            }
+            if (has(FLAG_TENSOR)) {
+                out.putInt(tensor.remaining());
+                out.put(tensor.duplicate());
+            }
+        }
+        if (has(FLAG_REFRESH)) {
+            objects.write(out);
+            out.putFloat(wallDistance);
+        }
+        if (has(FLAG_EVALUATED)) {
+            out.putInt(riskLevel == null ? -1 : riskLevel.ordinal());
+            Records.putString(out, message);
+            Records.putString(out, direction);
+            out.putInt(alert ? 1 : 0);
+        }
+    }
+
+    void read(ByteBuffer in) {
+        clear(in.getLong(), in.getLong());
+        flags = in.getInt();
+        for (int k = 0; k < 7; k++) {
+            pose[k] = in.getFloat();
+        }
+        int planes = in.getInt();
+        for (int p = 0; p < planes; p++) {
+            long id = in.getLong();
+            if (in.getInt() != 0) {
+                removePlane(id);
+                continue;
+            }
+            float tx = in.getFloat(), ty = in.getFloat(), tz = in.getFloat();
+            float qx = in.getFloat(), qy = in.getFloat(), qz = in.getFloat(), qw = in.getFloat();
+            int n = in.getInt();
+            int i = appendPlane(id, false, n);
+            planePoses[7 * i] = tx;
+            planePoses[7 * i + 1] = ty;
+            planePoses[7 * i + 2] = tz;
+            planePoses[7 * i + 3] = qx;
+            planePoses[7 * i + 4] = qy;
+            planePoses[7 * i + 5] = qz;
+            planePoses[7 * i + 6] = qw;
+            for (int k = 0; k < n; k++) {
+                polygonData[polygonStart[i] + k] = in.getFloat();
+            }
+        }
+        if (has(FLAG_DETECTION)) {
+            captureTimestampNs = in.getLong();
+            roiLeft = in.getFloat();
+            roiTop = in.getFloat();
+            roiRight = in.getFloat();
+            roiBottom = in.getFloat();
+            detections.read(in);
+            if (has(FLAG_IMAGE)) {
+                imageWidth = in.getInt();
+                imageHeight = in.getInt();
+                int size = imageWidth * imageHeight * 3 / 2;
+                if (image.length < size) {
+                    image = new byte[size];
+                }
+                in.get(image, 0, size);
+            }
+            if (has(FLAG_TENSOR)) {
+                int size = in.getInt();
+                ensureTensorCapacity(size);
+                // Cópia: o decodificador escreve no tensor, e o arquivo está mapeado só para leitura
+                ByteBuffer src = in.duplicate();
+                src.limit(src.position() + size);
+                tensor.put(src);
+                tensor.flip();
+                in.position(in.position() + size);
+            }
+        }
+        if (has(FLAG_REFRESH)) {
+            objects.read(in);
+            wallDistance = in.getFloat();
+        }
+        if (has(FLAG_EVALUATED)) {
+            int level = in.getInt();
+            riskLevel = level < 0 ? null : LEVELS[level];
+            message = Records.getString(in);
+            direction = Records.getString(in);
+            alert = in.getInt() != 0;
+        }
+    }
+}
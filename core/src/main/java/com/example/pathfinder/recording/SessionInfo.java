@@ -0,0 +1,93 @@
+package com.example.pathfinder.recording;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Session-wide settings written once at the start of a recording: what the replay needs to run
+ * the recorded tensors and objects through the same post-processing and risk analysis.
+ */
+public class SessionInfo {
+    public static final int TENSOR_FLOAT32 = 0;
+    public static final int TENSOR_UINT8 = 1;
+    public static final int TENSOR_INT8 = 2;
+
+    public int screenWidth, screenHeight;
+    public List<String> labels = new ArrayList<>();
+
+    // Saída do modelo: [1, tensorChannels, tensorAnchors]
+    public int tensorType = TENSOR_FLOAT32;
+    public float tensorScale = 1f;
+    public int tensorZeroPoint = 0;
+    public int tensorChannels, tensorAnchors;
+
+    // Entrada do modelo e rotação da imagem da câmera no pré-processamento
+    public int inputType = TENSOR_FLOAT32;
+    public int inputWidth, inputHeight;
+    public int rotationDegrees;
+
+    public float confidenceThreshold, iouThreshold;
+    // Objetos mais longe que isso não entram na análise de risco
+    public float nearObjectDistance = 3f;
+
+    // 1 = imagem inteira, 2 = metade da resolução, ...; 0 = sem imagem
+    public int imageDownsample = 0;
+    // Cópia do tensor de saída em todo frame com detecção
+    public boolean recordTensor = true;
+
+    int encodedSize() {
+        int size = 17 * 4;
+        for (String label : labels) {
+            size += Records.stringSize(label);
+        }
+        return size;
+    }
+
+    void write(ByteBuffer out) {
+        out.putInt(screenWidth);
+        out.putInt(screenHeight);
+        out.putInt(labels.size());
+        for (String label : labels) {
+            Records.putString(out, label);
+        }
+        out.putInt(tensorType);
+        out.putFloat(tensorScale);
+        out.putInt(tensorZeroPoint);
+        out.putInt(tensorChannels);
+        out.putInt(tensorAnchors);
+        out.putInt(inputType);
+        out.putInt(inputWidth);
+        out.putInt(inputHeight);
+        out.putInt(rotationDegrees);
+        out.putFloat(confidenceThreshold);
+        out.putFloat(iouThreshold);
+        out.putFloat(nearObjectDistance);
+        out.putInt(imageDownsample);
+        out.putInt(recordTensor ? 1 : 0);
+    }
+
+    void read(ByteBuffer in) {
+        screenWidth = in.getInt();
+        screenHeight = in.getInt();
+        int labelCount = in.getInt();
+        labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            labels.add(Records.getString(in));
+        }
+        tensorType = in.getInt();
+        tensorScale = in.getFloat();
+        tensorZeroPoint = in.getInt();
+        tensorChannels = in.getInt();
+        tensorAnchors = in.getInt();
+        inputType = in.getInt();
+        inputWidth = in.getInt();
+        inputHeight = in.getInt();
+        rotationDegrees = in.getInt();
+        confidenceThreshold = in.getFloat();
+        iouThreshold = in.getFloat();
+        nearObjectDistance = in.getFloat();
+        imageDownsample = in.getInt();
+        recordTensor = in.getInt() != 0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pathfinder.recording;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a recording written by {@link SessionWriter}, frame by frame, from a read-only mapping.
+ * Only the committed part of the file is read, so a recording cut short by a crash is still
+ * usable. Files over 2 GB are read in {@link #WINDOW_SIZE} windows.
+ */
+public class SessionReader implements Closeable {
+    static final long WINDOW_SIZE = 256L << 20;
+
+    private final FileChannel channel;
+    private final long committed;
+    private final long frameCount;
+    private final SessionInfo info = new SessionInfo();
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public SessionReader(File path) throws IOException {
+        channel = FileChannel.open(path.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() < Records.HEADER_SIZE) {
+                throw new IOException("Not a session recording: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Records.HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != Records.MAGIC) {
+                throw new IOException("Not a session recording: " + path);
+            }
+            if (header.getInt(4) != Records.VERSION) {
+                throw new IOException("Unsupported recording version " + header.getInt(4) + " in " + path);
+            }
+            committed = Math.min(header.getLong(Records.COMMITTED_OFFSET), channel.size());
+            frameCount = header.getLong(Records.FRAME_COUNT_OFFSET);
+            position = Records.HEADER_SIZE;
+
+            ByteBuffer record = nextRecord();
+            if (record == null || record.getInt() != Records.TYPE_INFO) {
+                throw new IOException("Recording has no session info: " + path);
+            }
+            record.getInt();
+            info.read(record);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public SessionInfo getInfo() {
+        return info;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Reads the next frame into {@code frame}.
+     * @return false at the end of the recording
+     */
+    public boolean next(SessionFrame frame) throws IOException {
+        ByteBuffer record;
+        while ((record = nextRecord()) != null) {
+            int type = record.getInt();
+            record.getInt();
+            if (type == Records.TYPE_FRAME) {
+                frame.read(record);
+                return true;
+            }
+            // Tipos desconhecidos (versões futuras) são pulados
+        }
+        return false;
+    }
+
+    /**
+     * Goes back to the first frame.
+     */
+    public void rewind() throws IOException {
+        position = Records.HEADER_SIZE;
+        ByteBuffer record = nextRecord();
+        if (record == null) throw new IOException("Recording has no session info");
+    }
+
+    // Registro inteiro (cabeçalho incluído) como um buffer limitado a ele, ou null no fim
+    private ByteBuffer nextRecord() throws IOException {
+        if (position + Records.RECORD_HEADER_SIZE > committed) return null;
+        ByteBuffer recordHeader = map(position, Records.RECORD_HEADER_SIZE);
+        int length = recordHeader.getInt(recordHeader.position() + 4);
+        long end = position + Records.RECORD_HEADER_SIZE + length;
+        if (length < 0 || end > committed) {
+            throw new IOException("Corrupt record at offset " + position);
+        }
+        ByteBuffer record = map(position, Records.RECORD_HEADER_SIZE + length).slice()
+                .order(ByteOrder.LITTLE_ENDIAN);
+        record.limit(Records.RECORD_HEADER_SIZE + length);
+        position = end;
+        return record;
+    }
+
+    private ByteBuffer map(long offset, int length) throws IOException {
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            windowStart = offset;
+            long size = Math.min(Math.max(WINDOW_SIZE, length), committed - offset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        window.clear();
+        window.position((int) (offset - windowStart));
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.pathfinder.recording;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.RegionOfInterest;
+import com.example.pathfinder.detection.YoloPostProcessor;
+import com.example.pathfinder.metrics.MetricsRegistry;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskEvaluator;
+import com.example.pathfinder.slam.WallIndex;
+import com.example.pathfinder.tracking.ObjectTracker;
+import com.example.pathfinder.utils.YuvFrame;
+import com.example.pathfinder.utils.YuvToTensorConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Runs a recorded session through the Android-free part of the pipeline, on a plain JVM:
+ * <pre>
+ * planes -> wall index
+ * image -> tensor conversion (timed only; inference needs the device)
+ * output tensor -> decoding and NMS -> tracker -> recorded distances -> risk analysis
+ * </pre>
+ * Everything the device measured (poses, planes, tensors, hit test and depth distances) and the
+ * clock used by the alert cooldown come from the recording, so the same code gives the same
+ * result on every run. Each stage is compared with what the app produced live and the differences
+ * are reported with the per-stage latencies. The control flow of the live run (tracker resets,
+ * frames that reused the last distances) is taken from the recording too.
+ * <p>
+ * Run with {@code ./gradlew :core:replay -Precording=<file>}. The exit code is 1 when the replay
+ * differs from the recording, so it can gate a behaviour change in CI.
+ */
+public class SessionReplay {
+    public static final int MAX_REPORTED_DIFFERENCES = 20;
+    private static final float BOX_TOLERANCE = 1e-4f;
+    private static final float DISTANCE_TOLERANCE = 1e-3f;
+    // Todas as amostras no mesmo instante: a janela deslizante do registro cobre a sessão inteira
+    private static final long METRICS_CLOCK_NS = 0;
+
+    private final SessionInfo info;
+    private final YoloPostProcessor postProcessor;
+    private final RiskEvaluator evaluator;
+    private final ObjectTracker tracker = new ObjectTracker();
+    private final WallIndex wallIndex = new WallIndex();
+    // Null sem imagens gravadas
+    private final YuvToTensorConverter converter;
+    private final YuvFrame yuv = new YuvFrame();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Report report = new Report();
+
+    private boolean hasDetections = false;
+    private long firstTimestampNs = Long.MIN_VALUE;
+    private final List<BoundingBox> objects = new ArrayList<>();
+    private float[] objectDistances = new float[16];
+    private float wallDistance = Float.MIN_VALUE;
+    private final List<BoundingBox> nearObjects = new ArrayList<>();
+    private float[] nearDistances = new float[16];
+    private final RiskAssessment assessment = new RiskAssessment();
+
+    /**
+     * Differences between the replay and the recording, and the replay latencies.
+     */
+    public static class Report {
+        public long frames;
+        public long detections;
+        public long evaluations;
+        public long detectionDifferences;
+        public long objectDifferences;
+        public long wallDifferences;
+        public long riskDifferences;
+        public final List<String> differences = new ArrayList<>();
+        public MetricsRegistry.Snapshot latency;
+
+        public boolean hasDifferences() {
+            return detectionDifferences + objectDifferences + wallDifferences + riskDifferences > 0;
+        }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "frames=%d detections=%d evaluations=%d%n",
+                    frames, detections, evaluations));
+            sb.append(String.format(Locale.US, "differences: detections=%d objects=%d walls=%d risk=%d%n",
+                    detectionDifferences, objectDifferences, wallDifferences, riskDifferences));
+            for (String difference : differences) {
+                sb.append("  ").append(difference).append('\n');
+            }
+            if (latency != null) {
+                for (MetricsRegistry.StageStats stats : latency.stages) {
+                    if (stats.count > 0) sb.append(stats).append('\n');
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return format();
+        }
+    }
+
+    public SessionReplay(SessionInfo info) {
+        this.info = info;
+        this.postProcessor = new YoloPostProcessor(info.labels, info.confidenceThreshold, info.iouThreshold);
+        this.evaluator = new RiskEvaluator(info.screenWidth, info.screenHeight);
+        if (info.imageDownsample > 0 && info.inputWidth > 0 && info.inputHeight > 0) {
+            // Mesmo formato de saída do app; a quantização não importa, o tensor só serve para medir o tempo
+            YuvToTensorConverter.OutputType type = info.inputType == SessionInfo.TENSOR_UINT8
+                    ? YuvToTensorConverter.OutputType.UINT8
+                    : info.inputType == SessionInfo.TENSOR_INT8 ? YuvToTensorConverter.OutputType.INT8
+                    : YuvToTensorConverter.OutputType.FLOAT32;
+            converter = new YuvToTensorConverter(info.inputWidth, info.inputHeight, info.rotationDegrees,
+                    YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f, type, 1f / 255f, 0);
+        } else {
+            converter = null;
+        }
+    }
+
+    /**
+     * Post-processing used by the replay, to try other thresholds or NMS settings on a recording.
+     */
+    public YoloPostProcessor getPostProcessor() {
+        return postProcessor;
+    }
+
+    public ObjectTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Replays every remaining frame of {@code reader}.
+     */
+    public Report run(SessionReader reader) throws IOException {
+        SessionFrame frame = new SessionFrame();
+        while (reader.next(frame)) {
+            replay(frame);
+        }
+        return getReport();
+    }
+
+    public Report getReport() {
+        report.latency = metrics.snapshot(METRICS_CLOCK_NS);
+        return report;
+    }
+
+    /**
+     * Replays one frame, in recording order.
+     */
+    public void replay(SessionFrame frame) {
+        long frameStart = System.nanoTime();
+        if (firstTimestampNs == Long.MIN_VALUE) firstTimestampNs = frame.timestampNs;
+        report.frames++;
+
+        for (int i = 0; i < frame.planeCount; i++) {
+            if (frame.planeRemoved[i]) {
+                wallIndex.remove(frame.planeIds[i]);
+            } else {
+                float[] p = frame.planePoses;
+                int o = 7 * i;
+                wallIndex.update(frame.planeIds[i], p[o], p[o + 1], p[o + 2], p[o + 3], p[o + 4], p[o + 5], p[o + 6],
+                        frame.planePolygon(i));
+            }
+        }
+
+        if (frame.has(SessionFrame.FLAG_RESET)) {
+            tracker.clear();
+            hasDetections = false;
+        }
+
+        if (frame.has(SessionFrame.FLAG_DETECTION)) {
+            replayDetection(frame);
+        }
+
+        if (frame.has(SessionFrame.FLAG_EVALUATED)) {
+            replayEvaluation(frame);
+        }
+        metrics.record(MetricsRegistry.Stage.END_TO_END, System.nanoTime() - frameStart, METRICS_CLOCK_NS);
+        metrics.markFrame(METRICS_CLOCK_NS);
+    }
+
+    private void replayDetection(SessionFrame frame) {
+        report.detections++;
+        if (converter != null && frame.has(SessionFrame.FLAG_IMAGE)) {
+            frame.toYuvFrame(yuv);
+            long start = System.nanoTime();
+            converter.convert(yuv);
+            metrics.record(MetricsRegistry.Stage.PREPROCESS, System.nanoTime() - start, METRICS_CLOCK_NS);
+        }
+
+        List<BoundingBox> boxes;
+        if (frame.has(SessionFrame.FLAG_TENSOR)) {
+            long start = System.nanoTime();
+            boxes = postProcess(frame);
+            metrics.record(MetricsRegistry.Stage.POSTPROCESS, System.nanoTime() - start, METRICS_CLOCK_NS);
+            compareDetections(frame, boxes);
+        } else {
+            // Sem tensor gravado: segue com as caixas que o app obteve
+            boxes = new ArrayList<>(frame.detections.count);
+            for (int i = 0; i < frame.detections.count; i++) {
+                boxes.add(frame.detections.toBoundingBox(i, info.labels));
+            }
+        }
+        tracker.update(boxes, frame.captureTimestampNs);
+        hasDetections = true;
+    }
+
+    private List<BoundingBox> postProcess(SessionFrame frame) {
+        frame.tensor.rewind();
+        List<BoundingBox> boxes;
+        if (info.tensorType == SessionInfo.TENSOR_FLOAT32) {
+            boxes = postProcessor.process(frame.tensor.asFloatBuffer(), info.tensorChannels, info.tensorAnchors);
+        } else {
+            boxes = postProcessor.processQuantized(frame.tensor, info.tensorType == SessionInfo.TENSOR_INT8,
+                    info.tensorScale, info.tensorZeroPoint, info.tensorChannels, info.tensorAnchors);
+        }
+        RegionOfInterest roi = frame.roi();
+        for (BoundingBox box : boxes) {
+            roi.mapToFrame(box);
+        }
+        return boxes;
+    }
+
+    private void replayEvaluation(SessionFrame frame) {
+        report.evaluations++;
+        if (!hasDetections) {
+            // O app só avalia depois de alguma detecção; o replay não teve nenhuma até aqui
+            report.riskDifferences++;
+            difference(frame, "evaluated live, but the replay has no detections yet");
+            return;
+        }
+
+        if (frame.has(SessionFrame.FLAG_REFRESH)) {
+            long start = System.nanoTime();
+            List<BoundingBox> predicted = tracker.predict(frame.timestampNs);
+            objects.clear();
+            if (objectDistances.length < predicted.size()) {
+                objectDistances = new float[Math.max(predicted.size(), 2 * objectDistances.length)];
+            }
+            boolean matches = predicted.size() == frame.objects.count;
+            for (int i = 0; i < predicted.size(); i++) {
+                BoundingBox box = predicted.get(i);
+                int match = findObject(frame.objects, box);
+                matches &= match == i && sameBox(frame.objects, i, box);
+                objectDistances[i] = match >= 0 ? frame.objects.distances[match] : Float.MIN_VALUE;
+                objects.add(box);
+            }
+            if (!matches) {
+                report.objectDifferences++;
+                difference(frame, String.format(Locale.US, "%d tracked objects, recorded %d",
+                        predicted.size(), frame.objects.count));
+            }
+
+            float[] p = frame.pose;
+            wallDistance = wallIndex.nearestWall(p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+            if (!sameDistance(wallDistance, frame.wallDistance)) {
+                report.wallDifferences++;
+                difference(frame, String.format(Locale.US, "wall at %.3f m, recorded %.3f m",
+                        wallDistance, frame.wallDistance));
+            }
+            metrics.record(MetricsRegistry.Stage.DISTANCE, System.nanoTime() - start, METRICS_CLOCK_NS);
+        }
+
+        long start = System.nanoTime();
+        int near = collectNearObjects();
+        evaluator.evaluate(nearObjects, nearDistances, near, wallDistance, frame.clockMs, assessment);
+        metrics.record(MetricsRegistry.Stage.RISK, System.nanoTime() - start, METRICS_CLOCK_NS);
+
+        if (assessment.getRiskLevel() != frame.riskLevel
+                || assessment.shouldAlert() != frame.alert
+                || !Objects.equals(assessment.getMessage(), frame.message)
+                || !Objects.equals(assessment.getDirection(), frame.direction)) {
+            report.riskDifferences++;
+            difference(frame, String.format(Locale.US, "%s \"%s\" alert=%b, recorded %s \"%s\" alert=%b",
+                    assessment.getRiskLevel(), assessment.getMessage(), assessment.shouldAlert(),
+                    frame.riskLevel, frame.message, frame.alert));
+        }
+    }
+
+    // Mesmo filtro do Manager: só objetos com distância válida até nearObjectDistance
+    private int collectNearObjects() {
+        nearObjects.clear();
+        if (nearDistances.length < objects.size()) {
+            nearDistances = new float[Math.max(objects.size(), 2 * nearDistances.length)];
+        }
+        for (int i = 0; i < objects.size(); i++) {
+            float distance = objectDistances[i];
+            if (distance <= info.nearObjectDistance && distance != Float.MIN_VALUE) {
+                nearDistances[nearObjects.size()] = distance;
+                nearObjects.add(objects.get(i));
+            }
+        }
+        return nearObjects.size();
+    }
+
+    // Objeto gravado com a mesma trilha; sem trilha, o de mesma classe com centro mais próximo
+    private static int findObject(SessionFrame.BoxList recorded, BoundingBox box) {
+        int best = -1;
+        float bestDistance = Float.MAX_VALUE;
+        for (int i = 0; i < recorded.count; i++) {
+            if (box.trackId >= 0 && recorded.trackIds[i] == box.trackId) return i;
+            if (recorded.classes[i] != box.cls) continue;
+            float dx = recorded.values[SessionFrame.BoxList.STRIDE * i] - box.cx;
+            float dy = recorded.values[SessionFrame.BoxList.STRIDE * i + 1] - box.cy;
+            float d = dx * dx + dy * dy;
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private void compareDetections(SessionFrame frame, List<BoundingBox> boxes) {
+        boolean matches = boxes.size() == frame.detections.count;
+        for (int i = 0; matches && i < boxes.size(); i++) {
+            matches = sameBox(frame.detections, i, boxes.get(i));
+        }
+        if (!matches) {
+            report.detectionDifferences++;
+            difference(frame, String.format(Locale.US, "%d detections, recorded %d",
+                    boxes.size(), frame.detections.count));
+        }
+    }
+
+    private static boolean sameBox(SessionFrame.BoxList recorded, int i, BoundingBox box) {
+        if (i >= recorded.count || recorded.classes[i] != box.cls) return false;
+        float[] v = recorded.values;
+        int o = SessionFrame.BoxList.STRIDE * i;
+        return Math.abs(v[o] - box.cx) <= BOX_TOLERANCE && Math.abs(v[o + 1] - box.cy) <= BOX_TOLERANCE
+                && Math.abs(v[o + 2] - box.w) <= BOX_TOLERANCE && Math.abs(v[o + 3] - box.h) <= BOX_TOLERANCE
+                && Math.abs(v[o + 4] - box.cnf) <= BOX_TOLERANCE;
+    }
+
+    private static boolean sameDistance(float a, float b) {
+        if (a == Float.MIN_VALUE || b == Float.MIN_VALUE) return a == b;
+        return Math.abs(a - b) <= DISTANCE_TOLERANCE;
+    }
+
+    private void difference(SessionFrame frame, String description) {
+        if (report.differences.size() < MAX_REPORTED_DIFFERENCES) {
+            report.differences.add(String.format(Locale.US, "frame %d (%.3f s): %s", report.frames - 1,
+                    (frame.timestampNs - firstTimestampNs) / 1e9, description));
+        }
+    }
+
+    /**
+     * {@code SessionReplay <recording> [--confidence <t>] [--iou <t>] [--class-aware]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].isEmpty()) {
+            System.err.println("Usage: SessionReplay <recording> [--confidence <t>] [--iou <t>] [--class-aware]");
+            System.exit(2);
+        }
+        Report report;
+        try (SessionReader reader = new SessionReader(new File(args[0]))) {
+            SessionInfo info = reader.getInfo();
+            boolean classAware = false;
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--confidence":
+                        info.confidenceThreshold = Float.parseFloat(args[++i]);
+                        break;
+                    case "--iou":
+                        info.iouThreshold = Float.parseFloat(args[++i]);
+                        break;
+                    case "--class-aware":
+                        classAware = true;
+                        break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        System.exit(2);
+                }
+            }
+            SessionReplay replay = new SessionReplay(info);
+            replay.getPostProcessor().getNms().setClassAware(classAware);
+
+            System.out.printf(Locale.US, "%s: %d frames, %d labels, tensor %dx%d%n", args[0],
+                    reader.getFrameCount(), info.labels.size(), info.tensorChannels, info.tensorAnchors);
+            report = replay.run(reader);
+        }
+        System.out.print(report.format());
+        System.exit(report.hasDifferences() ? 1 : 0);
+    }
+}
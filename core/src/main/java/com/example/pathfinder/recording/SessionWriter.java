@@ -0,0 +1,140 @@
+package com.example.pathfinder.recording;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends {@link SessionFrame}s to a memory-mapped file. Records are written straight into the
+ * mapping, which grows in {@link #DEFAULT_WINDOW_SIZE} windows, so a frame costs one copy of its
+ * image and tensor and no system call. The committed length in the file header is only moved after
+ * a record is complete: if the app dies mid-session, the reader still gets every frame written
+ * before that.
+ * <p>
+ * Not thread safe: append from a single thread (the render thread in the app).
+ */
+public class SessionWriter implements Closeable {
+    public static final long DEFAULT_WINDOW_SIZE = 32L << 20;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long windowSize;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long frameCount;
+    private boolean closed;
+
+    // ARCore devolve o mesmo objeto para o mesmo plano; no arquivo ele vira um id estável
+    private final Map<Object, Long> planeIds = new HashMap<>();
+
+    public SessionWriter(File path, SessionInfo info) throws IOException {
+        this(path, info, DEFAULT_WINDOW_SIZE);
+    }
+
+    public SessionWriter(File path, SessionInfo info, long windowSize) throws IOException {
+        this.windowSize = windowSize;
+        file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            channel = file.getChannel();
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, Records.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, Records.MAGIC);
+            header.putInt(4, Records.VERSION);
+            position = Records.HEADER_SIZE;
+            commit();
+
+            int size = info.encodedSize();
+            MappedByteBuffer out = reserve(Records.RECORD_HEADER_SIZE + size);
+            out.putInt(Records.TYPE_INFO);
+            out.putInt(size);
+            info.write(out);
+            position += Records.RECORD_HEADER_SIZE + size;
+            commit();
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stable id of a plane (or any other key) within this recording.
+     */
+    public long planeId(Object key) {
+        Long id = planeIds.get(key);
+        if (id == null) {
+            id = (long) planeIds.size();
+            planeIds.put(key, id);
+        }
+        return id;
+    }
+
+    public void append(SessionFrame frame) throws IOException {
+        if (closed) throw new IOException("Recording already closed");
+        int size = frame.encodedSize();
+        MappedByteBuffer out = reserve(Records.RECORD_HEADER_SIZE + size);
+        int start = out.position();
+        out.putInt(Records.TYPE_FRAME);
+        out.putInt(size);
+        frame.write(out);
+        if (out.position() - start != Records.RECORD_HEADER_SIZE + size) {
+            throw new IllegalStateException("Frame encoded to " + (out.position() - start - Records.RECORD_HEADER_SIZE)
+                    + " bytes, expected " + size);
+        }
+        position += Records.RECORD_HEADER_SIZE + size;
+        frameCount++;
+        commit();
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Bytes written so far, header included.
+     */
+    public long getLength() {
+        return position;
+    }
+
+    // Mapeia uma nova janela quando o registro não cabe na atual
+    private MappedByteBuffer reserve(int bytes) throws IOException {
+        if (window == null || position + bytes > windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(windowSize, bytes));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        window.position((int) (position - windowStart));
+        return window;
+    }
+
+    private void commit() {
+        header.putLong(Records.COMMITTED_OFFSET, position);
+        header.putLong(Records.FRAME_COUNT_OFFSET, frameCount);
+    }
+
+    /**
+     * Flushes the mapping and trims the file to the committed length.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (window != null) window.force();
+            header.force();
+            window = null;
+            channel.truncate(position);
+        } finally {
+            file.close();
+        }
+    }
+}
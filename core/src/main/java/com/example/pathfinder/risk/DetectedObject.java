@@ -3,12 +3,20 @@ package com.example.pathfinder.risk;
 import com.example.pathfinder.detection.BoundingBox;
 
 // Representa um objeto detectado com sua distância calculada
+// Mutável: a RiskAssessment reaproveitável guarda uma instância e o RiskEvaluator a preenche a cada frame
 public class DetectedObject {
-    private final BoundingBox boundingBox;
-    private final float distance;
-    private final String className;
+    private BoundingBox boundingBox;
+    private float distance;
+    private String className;
 
     public DetectedObject(BoundingBox boundingBox, float distance) {
+        set(boundingBox, distance);
+    }
+
+    DetectedObject() {
+    }
+
+    void set(BoundingBox boundingBox, float distance) {
         this.boundingBox = boundingBox;
         this.distance = distance;
         this.className = boundingBox.clsName;
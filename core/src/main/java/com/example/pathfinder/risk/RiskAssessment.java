@@ -1,15 +1,32 @@
 package com.example.pathfinder.risk;
 
+import com.example.pathfinder.detection.BoundingBox;
+
 // Resultado da análise de risco contendo informações sobre o objeto mais crítico
+// Quem chama o RiskEvaluator pode manter uma instância e reaproveitá-la a cada frame (sem alocação);
+// nesse caso o conteúdo só vale até a próxima avaliação
 public class RiskAssessment {
-    private final DetectedObject criticalObject;
-    private final RiskLevel riskLevel;
-    private final String message;
-    private final String direction;
-    private final boolean shouldAlert;
+    private DetectedObject criticalObject;
+    private RiskLevel riskLevel;
+    private String message;
+    private String direction;
+    private boolean shouldAlert;
+
+    // Objeto crítico próprio, preenchido no lugar em vez de criado por frame
+    private final DetectedObject object = new DetectedObject();
 
     public RiskAssessment(DetectedObject criticalObject, RiskLevel riskLevel, 
                          String message, String direction, boolean shouldAlert) {
+        set(criticalObject, riskLevel, message, direction, shouldAlert);
+    }
+
+    // Avaliação reaproveitável, para RiskEvaluator.evaluate(..., out)
+    public RiskAssessment() {
+        this(null, RiskLevel.SAFE, "", "frente", false);
+    }
+
+    void set(DetectedObject criticalObject, RiskLevel riskLevel,
+             String message, String direction, boolean shouldAlert) {
         this.criticalObject = criticalObject;
         this.riskLevel = riskLevel;
         this.message = message;
@@ -17,6 +34,13 @@ public class RiskAssessment {
         this.shouldAlert = shouldAlert;
     }
 
+    // Copia o objeto para o objeto próprio, sem alocar
+    void setCriticalObject(BoundingBox box, float distance, RiskLevel riskLevel,
+                           String message, String direction, boolean shouldAlert) {
+        object.set(box, distance);
+        set(object, riskLevel, message, direction, shouldAlert);
+    }
+
     public DetectedObject getCriticalObject() {
         return criticalObject;
     }
@@ -0,0 +1,146 @@
+package com.example.pathfinder.risk;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Núcleo da análise de risco, sem dependências do Android: escolhe o objeto mais crítico,
+// aplica o cooldown dos alertas e monta a avaliação. O RiskAnalyzer do app só converte os pares
+// (caixa, distância) e faz os logs.
+public class RiskEvaluator {
+
+    // Thresholds de distância (em metros)
+    private static final float DISTANCE_CRITICAL = RiskScorer.DISTANCE_CRITICAL;
+
+    private final RiskScorer scorer;
+
+    private static final String NO_OBJECTS_MESSAGE = "Siga em frente";
+    private static final String WALL_CRITICAL_MESSAGE = "Pare! Parede à frente";
+    private static final String WALL_HIGH_MESSAGE = "Atenção, parede próxima";
+
+    private long lastAlertTime = 0;
+    private static final long ALERT_COOLDOWN_MS = 2000;
+    private static final long NARRATION_COOLDOWN_MS = 5000;
+
+    public RiskEvaluator(int screenWidth, int screenHeight) {
+        this.scorer = new RiskScorer(screenWidth, screenHeight);
+    }
+
+    // Avalia os count primeiros objetos (boxes.get(i) a distances[i] metros) numa avaliação nova
+    public RiskAssessment evaluate(List<BoundingBox> boxes, float[] distances, int count,
+                                   float nearestWallDistance) {
+        return evaluate(boxes, distances, count, nearestWallDistance, System.currentTimeMillis());
+    }
+
+    // Mesmo que acima, com o relógio do cooldown dado pelo chamador (replay determinístico de sessões)
+    public RiskAssessment evaluate(List<BoundingBox> boxes, float[] distances, int count,
+                                   float nearestWallDistance, long nowMs) {
+        return evaluate(boxes, distances, count, nearestWallDistance, nowMs, new RiskAssessment());
+    }
+
+    // Versão do caminho por frame: escreve em out, que é do chamador, e o devolve. Não aloca nada;
+    // out (e o objeto crítico dele) é sobrescrito na próxima chamada com o mesmo out
+    public RiskAssessment evaluate(List<BoundingBox> boxes, float[] distances, int count,
+                                   float nearestWallDistance, long nowMs, RiskAssessment out) {
+        // Verifica parede
+        if (isWallCritical(nearestWallDistance)) {
+            return createWallWarning(nearestWallDistance, nowMs, out);
+        }
+
+        if (count == 0) {
+            out.set(null, RiskLevel.SAFE, NO_OBJECTS_MESSAGE, "frente", false);
+            return out;
+        }
+
+        // Encontra o objeto mais crítico baseado em heurística que considera:
+        // - Distância
+        // - Posição na ROI (centro da tela tem mais peso)
+        // - Classe do objeto (pessoas têm prioridade)
+        int mostCritical = -1;
+        float highestScore = Float.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            float score = scorer.score(boxes.get(i), distances[i]);
+            if (score > highestScore) {
+                highestScore = score;
+                mostCritical = i;
+            }
+        }
+
+        // Gerar avaliação de risco
+        return generateRiskAssessment(boxes.get(mostCritical), distances[mostCritical], nowMs, out);
+    }
+
+    // Score usado para escolher o objeto mais crítico (exposto para logs)
+    public float score(BoundingBox box, float distance) {
+        return scorer.score(box, distance);
+    }
+
+    // Parede perto o bastante para ter prioridade sobre os objetos
+    public static boolean isWallCritical(float nearestWallDistance) {
+        return nearestWallDistance > Float.MIN_VALUE && nearestWallDistance < DISTANCE_CRITICAL;
+    }
+
+    // Gera a avaliação de risco final com mensagens apropriadas
+    private RiskAssessment generateRiskAssessment(BoundingBox box, float distance, long nowMs, RiskAssessment out) {
+        RiskLevel level = RiskScorer.determineRiskLevel(distance);
+        int direction = RiskScorer.determineDirection(box.cx);
+        String message = scorer.message(level, direction);
+        boolean shouldAlert = shouldTriggerAlert(level, nowMs);
+
+        out.setCriticalObject(box, distance, level, message, RiskScorer.DIRECTIONS[direction], shouldAlert);
+        return out;
+    }
+
+    // Verifica se deve disparar alerta (com rate limiting)
+    private boolean shouldTriggerAlert(RiskLevel level, long currentTime) {
+        long timeSinceLastAlert = currentTime - lastAlertTime;
+
+        boolean shouldAlert = false;
+
+        if (level == RiskLevel.CRITICAL || level == RiskLevel.HIGH) {
+            // Alertas críticos têm cooldown menor
+            if (timeSinceLastAlert >= ALERT_COOLDOWN_MS) {
+                shouldAlert = true;
+                lastAlertTime = currentTime;
+            }
+        } else if (level == RiskLevel.MEDIUM) {
+            // Narrações normais têm cooldown maior
+            if (timeSinceLastAlert >= NARRATION_COOLDOWN_MS) {
+                shouldAlert = true;
+                lastAlertTime = currentTime;
+            }
+        }
+
+        return shouldAlert;
+    }
+
+    // Cria aviso para parede próxima
+    private RiskAssessment createWallWarning(float wallDistance, long nowMs, RiskAssessment out) {
+        RiskLevel level = wallDistance < DISTANCE_CRITICAL
+            ? RiskLevel.CRITICAL
+            : RiskLevel.HIGH;
+
+        boolean shouldAlert = shouldTriggerAlert(level, nowMs);
+
+        String message = level == RiskLevel.CRITICAL
+            ? WALL_CRITICAL_MESSAGE
+            : WALL_HIGH_MESSAGE;
+        out.set(null, level, message, "frente", shouldAlert);
+        return out;
+    }
+
+    // Todas as mensagens que uma avaliação pode ter: o texto é fixo, então dá para sintetizar antes
+    public static List<String> knownMessages() {
+        List<String> messages = new ArrayList<>();
+        RiskScorer.addMessages(messages);
+        for (String message : new String[]{NO_OBJECTS_MESSAGE, WALL_CRITICAL_MESSAGE, WALL_HIGH_MESSAGE}) {
+            if (!messages.contains(message)) messages.add(message);
+        }
+        return messages;
+    }
+
+    public void resetCooldown() {
+        lastAlertTime = 0;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.pathfinder.risk;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Parte numérica da análise de risco, sem alocação por frame e sem dependências do Android.
+// As prioridades por classe ficam num array denso indexado pelo id da classe (resolvido pelo
+// nome na primeira vez que o id aparece) e as mensagens numa tabela (nível, direção).
+class RiskScorer {
+
+    // Thresholds de distância (em metros)
+    static final float DISTANCE_CRITICAL = 0.5f;
+    static final float DISTANCE_HIGH = 1.0f;
+    static final float DISTANCE_MEDIUM = 2.0f;
+    static final float DISTANCE_LOW = 3.0f;
+
+    // Direções, na ordem dos índices usados na tabela de mensagens
+    static final int LEFT = 0;
+    static final int FRONT = 1;
+    static final int RIGHT = 2;
+    static final String[] DIRECTIONS = {"esquerda", "frente", "direita"};
+
+    private static final float DEFAULT_CLASS_PRIORITY = 1.0f;
+    private static final int INITIAL_CLASS_CAPACITY = 128;
+
+    private final float centerX;
+    private final float centerY;
+    private final Map<String, Float> classPriorities;
+    private float[] priorityById;              // NaN = id ainda não resolvido
+    private final String[][] messages;         // [RiskLevel.ordinal()][direção]
+
+    RiskScorer(int screenWidth, int screenHeight) {
+        this.centerX = screenWidth / 2.0f;
+        this.centerY = screenHeight / 2.0f;
+        this.classPriorities = initializeClassPriorities();
+        this.priorityById = new float[INITIAL_CLASS_CAPACITY];
+        Arrays.fill(priorityById, Float.NaN);
+
+        RiskLevel[] levels = RiskLevel.values();
+        this.messages = new String[levels.length][DIRECTIONS.length];
+        for (RiskLevel level : levels) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                messages[level.ordinal()][d] = generateMessage(level, DIRECTIONS[d]);
+            }
+        }
+    }
+
+    // Inicializa pesos de prioridade para diferentes classes de objetos
+    private static Map<String, Float> initializeClassPriorities() {
+        Map<String, Float> priorities = new HashMap<>();
+
+        // Alta prioridade - pessoas e veículos
+        priorities.put("person", 2.0f);
+        priorities.put("car", 1.8f);
+        priorities.put("bicycle", 1.7f);
+        priorities.put("motorcycle", 1.7f);
+        priorities.put("bus", 1.8f);
+        priorities.put("truck", 1.8f);
+
+        // Média prioridade - obstáculos fixos
+        priorities.put("chair", 1.2f);
+        priorities.put("bench", 1.2f);
+        priorities.put("potted plant", 1.1f);
+        priorities.put("traffic light", 1.0f);
+        priorities.put("fire hydrant", 1.3f);
+        priorities.put("stop sign", 1.0f);
+
+        // Baixa prioridade - objetos pequenos ou menos críticos
+        priorities.put("bottle", 0.8f);
+        priorities.put("cup", 0.7f);
+        priorities.put("backpack", 0.9f);
+
+        return priorities;
+    }
+
+    // Calcula score de risco usando heurística baseada em (ordem decrescente):
+    // 1. Distância
+    // 2. Posição no ROI central
+    // 3. Prioridade da classe
+    // 4. Confiança da detecção
+    float score(BoundingBox box, float distance) {
+        // 1. Score de distância (inverso - quanto mais perto, maior o score)
+        float distanceScore = 1.0f / (distance + 0.1f);
+
+        // 2. Score de posição no ROI (centro da tela = mais crítico)
+        float dx = (box.cx - centerX) / centerX;
+        float dy = (box.cy - centerY) / centerY;
+        float distanceFromCenter = (float) Math.sqrt(dx * dx + dy * dy);
+        float positionScore = Math.max(0, 1.0f - distanceFromCenter);
+
+        // 3. Prioridade da classe
+        float classPriority = classPriority(box);
+
+        // 4. Confiança da detecção
+        float confidenceScore = box.cnf;
+
+        // Score final combinado
+        return (distanceScore * 5.0f) +
+               (positionScore * 3.0f) +
+               (classPriority * 2.0f) +
+               confidenceScore;
+    }
+
+    float classPriority(BoundingBox box) {
+        int id = box.cls;
+        if (id < 0) {
+            return lookupPriority(box.clsName);
+        }
+        if (id >= priorityById.length) {
+            int oldLength = priorityById.length;
+            priorityById = Arrays.copyOf(priorityById, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(priorityById, oldLength, priorityById.length, Float.NaN);
+        }
+        float priority = priorityById[id];
+        if (Float.isNaN(priority)) {
+            // Primeira vez que o id aparece: o nome vem do arquivo de labels do modelo
+            priority = lookupPriority(box.clsName);
+            priorityById[id] = priority;
+        }
+        return priority;
+    }
+
+    // Determina o nível de risco baseado na distância
+    static RiskLevel determineRiskLevel(float distance) {
+        if (distance < DISTANCE_CRITICAL) {
+            return RiskLevel.CRITICAL;
+        } else if (distance < DISTANCE_HIGH) {
+            return RiskLevel.HIGH;
+        } else if (distance < DISTANCE_MEDIUM) {
+            return RiskLevel.MEDIUM;
+        } else if (distance < DISTANCE_LOW) {
+            return RiskLevel.LOW;
+        }
+        return RiskLevel.SAFE;
+    }
+
+    // Determina a direção do objeto em relação ao usuário
+    static int determineDirection(float centerX) {
+        float leftThird = 0.3f;
+        float rightThird = 0.6f;
+
+        if (centerX < leftThird) {
+            return LEFT;
+        } else if (centerX > rightThird) {
+            return RIGHT;
+        } else {
+            return FRONT;
+        }
+    }
+
+    String message(RiskLevel level, int direction) {
+        return messages[level.ordinal()][direction];
+    }
+
+    // Todas as mensagens que message() pode devolver, sem repetições
+    static void addMessages(Collection<String> out) {
+        for (RiskLevel level : RiskLevel.values()) {
+            for (String direction : DIRECTIONS) {
+                String message = generateMessage(level, direction);
+                if (!out.contains(message)) out.add(message);
+            }
+        }
+    }
+
+    private float lookupPriority(String className) {
+        Float priorityValue = className != null ? classPriorities.get(className) : null;
+        return (priorityValue != null) ? priorityValue : DEFAULT_CLASS_PRIORITY;
+    }
+
+    // Gera mensagem apropriada baseada no nível de risco e direção (só na construção da tabela)
+    private static String generateMessage(RiskLevel level, String direction) {
+        switch (level) {
+            case CRITICAL:
+                return "Pare! Obstáculo muito próximo";
+            case HIGH:
+                if (direction.equals("frente")) {
+                    return "Cuidado! Obstáculo à frente";
+                } else {
+                    return "Cuidado! Obstáculo à " + direction;
+                }
+            case MEDIUM:
+                if (!direction.equals("frente")) {
+                    return "Atenção à " + direction;
+                }
+                return "Continue com cuidado";
+            case LOW:
+                return "Siga em frente com atenção";
+            default:
+                return "Siga em frente";
+        }
+    }
+}
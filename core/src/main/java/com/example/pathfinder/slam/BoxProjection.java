@@ -0,0 +1,108 @@
+package com.example.pathfinder.slam;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Box centres of one frame, taken from model-input coordinates to camera image coordinates and
+ * kept in one flat array, so that ARCore can convert all of them to view pixels with a single
+ * {@code Frame.transformCoordinates2d} call and the hit tests can read from the result.
+ * <p>
+ * Per frame: {@link #begin}, {@link #add} each box that needs a hit test, transform
+ * {@link #imagePoints()} (IMAGE_NORMALIZED) into {@link #viewPoints()} (VIEW), then read
+ * {@link #viewX}/{@link #viewY}. The arrays grow when needed and are reused, so a steady
+ * frame allocates nothing. Not thread safe.
+ */
+public class BoxProjection {
+    private float[] image = new float[32];
+    private float[] view = new float[32];
+    private int[] boxIndices = new int[16];
+    private FloatBuffer imageBuffer = FloatBuffer.wrap(image);
+    private FloatBuffer viewBuffer = FloatBuffer.wrap(view);
+    private int count;
+    private int rotationDegrees;
+
+    /**
+     * @param rotationDegrees clockwise rotation from the camera image to the model input
+     *                        (see YuvToTensorConverter)
+     */
+    public void begin(int rotationDegrees) {
+        this.rotationDegrees = rotationDegrees;
+        count = 0;
+    }
+
+    /**
+     * Queues the centre of {@code box}.
+     * @param boxIndex position of the box in the caller's list, returned by {@link #boxIndex}
+     */
+    public void add(int boxIndex, BoundingBox box) {
+        if (count == boxIndices.length) grow();
+        toImageNormalized(box.cx, box.cy, rotationDegrees, image, count * 2);
+        boxIndices[count] = boxIndex;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int boxIndex(int i) {
+        return boxIndices[i];
+    }
+
+    public float imageX(int i) { return image[i * 2]; }
+    public float imageY(int i) { return image[i * 2 + 1]; }
+    public float viewX(int i) { return view[i * 2]; }
+    public float viewY(int i) { return view[i * 2 + 1]; }
+
+    /**
+     * Queued centres as x, y pairs in normalized image coordinates, positioned for reading.
+     */
+    public FloatBuffer imagePoints() {
+        imageBuffer.clear().limit(count * 2);
+        return imageBuffer;
+    }
+
+    /**
+     * Destination for the view coordinates, with room for exactly {@link #size()} points.
+     */
+    public FloatBuffer viewPoints() {
+        viewBuffer.clear().limit(count * 2);
+        return viewBuffer;
+    }
+
+    /**
+     * Model-input point (0..1) to normalized camera image point, undoing the clockwise rotation
+     * applied in pre-processing. Same convention as {@link DepthSampler#sample(BoundingBox, int)}.
+     */
+    public static void toImageNormalized(float x, float y, int rotationDegrees, float[] out, int offset) {
+        switch (((rotationDegrees % 360) + 360) % 360) {
+            case 90:
+                out[offset] = y;
+                out[offset + 1] = 1f - x;
+                break;
+            case 180:
+                out[offset] = 1f - x;
+                out[offset + 1] = 1f - y;
+                break;
+            case 270:
+                out[offset] = 1f - y;
+                out[offset + 1] = x;
+                break;
+            default:
+                out[offset] = x;
+                out[offset + 1] = y;
+        }
+    }
+
+    private void grow() {
+        int capacity = boxIndices.length * 2;
+        boxIndices = Arrays.copyOf(boxIndices, capacity);
+        image = Arrays.copyOf(image, capacity * 2);
+        view = new float[capacity * 2];
+        imageBuffer = FloatBuffer.wrap(image);
+        viewBuffer = FloatBuffer.wrap(view);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.pathfinder.slam;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Distância robusta de cada caixa a partir da imagem de profundidade do ARCore (DEPTH16, mm).
+ * <p>
+ * Once per frame {@link #update} copies the depths into a grid of at most
+ * {@link #MAX_GRID_WIDTH} x {@link #MAX_GRID_HEIGHT} cells; larger images are decimated to fit, so
+ * memory is bounded whatever the depth resolution and the update is one pass over the pixels
+ * kept. Each {@link #sample} then builds a histogram of the box in a single pass over its cells
+ * and walks it to the percentile, O(box area + bins) with no allocation. ARCore depth images are
+ * small (160 x 120 on most devices), so even a box covering the whole image is a few thousand
+ * cells. The cost of a frame therefore grows with the total area of its boxes; the integral
+ * histogram that would make it depend only on the number of boxes costs one count per bin for
+ * every grid cell, too much memory for the gain. Zero (unknown) depth pixels are ignored.
+ * <p>
+ * {@link #sample(float, float, float, float)} returns depth along the camera axis.
+ * {@link #sample(BoundingBox, int)} converts it to the range along the ray through the box centre,
+ * the same quantity the hit test measures, once {@link #setIntrinsics} is known. Both in metres.
+ */
+public class DepthSampler {
+
+    // Grade máxima: 256 x 192 shorts = 96 KB, o dobro da imagem de depth típica em cada eixo
+    static final int MAX_GRID_WIDTH = 256;
+    static final int MAX_GRID_HEIGHT = 192;
+
+    private static final float DEFAULT_PERCENTILE = 0.2f; // perto da frente do objeto, ignora o fundo
+    private static final float DEFAULT_MIN_VALID_FRACTION = 0.1f;
+    private static final int MIN_VALID_PIXELS = 4;
+
+    private final float binSizeMm;
+    private final int numBins;
+    private final int maxDepthMm;
+
+    private float percentile = DEFAULT_PERCENTILE;
+    private float minValidFraction = DEFAULT_MIN_VALID_FRACTION;
+
+    // Intrínsecos da imagem de depth, normalizados pela largura e altura; NaN = desconhecidos
+    private float focalX = Float.NaN;
+    private float focalY = Float.NaN;
+    private float principalX = 0.5f;
+    private float principalY = 0.5f;
+
+    // Grade de profundidade (mm), width x height células depois da decimação
+    private int width = 0;
+    private int height = 0;
+    private final short[] depthMm = new short[MAX_GRID_WIDTH * MAX_GRID_HEIGHT];
+    private final int[] histogram;
+    private boolean hasDepth = false;
+
+    /**
+     * @param maxDepthM depths beyond this go to the last bin
+     * @param binSizeM  histogram resolution; values are interpolated inside a bin
+     */
+    public DepthSampler(float maxDepthM, float binSizeM) {
+        this.binSizeMm = binSizeM * 1000f;
+        this.maxDepthMm = Math.round(maxDepthM * 1000f);
+        this.numBins = (int) Math.ceil(maxDepthM / binSizeM) + 1;
+        this.histogram = new int[numBins];
+    }
+
+    /**
+     * Fraction of the valid pixels of a box that are closer than the returned depth
+     * (0.5 = median).
+     */
+    public void setPercentile(float percentile) {
+        this.percentile = Math.max(0f, Math.min(1f, percentile));
+    }
+
+    /**
+     * Boxes with fewer valid depth pixels than this fraction of their area return no depth.
+     */
+    public void setMinValidFraction(float fraction) {
+        this.minValidFraction = fraction;
+    }
+
+    /**
+     * Pinhole intrinsics of the depth image, normalized by its size (fx / width, cx / width,
+     * fy / height, cy / height). The depth image shares them with the CPU camera image. Until they
+     * are set, {@link #sample(BoundingBox, int)} returns depth along the camera axis.
+     */
+    public void setIntrinsics(float focalX, float focalY, float principalX, float principalY) {
+        this.focalX = focalX;
+        this.focalY = focalY;
+        this.principalX = principalX;
+        this.principalY = principalY;
+    }
+
+    public boolean hasDepth() {
+        return hasDepth;
+    }
+
+    public void clear() {
+        hasDepth = false;
+    }
+
+    /**
+     * Loads a DEPTH16 image (little endian, depth in millimetres). Images larger than the grid
+     * keep every k-th pixel in both axes, with the smallest k that fits.
+     * @param rowStride bytes between the start of two rows
+     */
+    public void update(ByteBuffer data, int width, int height, int rowStride) {
+        ByteBuffer depth = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int step = Math.max(1, Math.max(ceilDiv(width, MAX_GRID_WIDTH), ceilDiv(height, MAX_GRID_HEIGHT)));
+        this.width = ceilDiv(width, step);
+        this.height = ceilDiv(height, step);
+
+        final short[] grid = depthMm;
+        int i = 0;
+        for (int y = 0; y < this.height; y++) {
+            int rowStart = y * step * rowStride;
+            for (int x = 0; x < this.width; x++) {
+                grid[i++] = depth.getShort(rowStart + 2 * x * step);
+            }
+        }
+        hasDepth = true;
+    }
+
+    /**
+     * Depth at the configured percentile inside a rectangle given in normalized coordinates of
+     * the depth image.
+     * @return metres, or NaN if there is no depth or too few valid pixels
+     */
+    public float sample(float left, float top, float right, float bottom) {
+        if (!hasDepth) return Float.NaN;
+
+        int x0 = clamp((int) Math.floor(left * width), 0, width);
+        int x1 = clamp((int) Math.ceil(right * width), 0, width);
+        int y0 = clamp((int) Math.floor(top * height), 0, height);
+        int y1 = clamp((int) Math.ceil(bottom * height), 0, height);
+        if (x1 <= x0 || y1 <= y0) return Float.NaN;
+
+        // Histograma da caixa numa passada
+        final int[] counts = histogram;
+        final int bins = numBins;
+        java.util.Arrays.fill(counts, 0);
+        int valid = 0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) {
+                int mm = depthMm[row + x] & 0xFFFF;
+                // Profundidade 0 = desconhecida: não entra em nenhum bin
+                if (mm == 0) continue;
+                counts[Math.min((int) (mm / binSizeMm), bins - 1)]++;
+                valid++;
+            }
+        }
+        int area = (x1 - x0) * (y1 - y0);
+        if (valid < MIN_VALID_PIXELS || valid < minValidFraction * area) return Float.NaN;
+
+        // Menor bin cuja contagem acumulada alcança o percentil
+        int rank = Math.max(1, (int) Math.ceil(percentile * valid));
+        int bin = 0;
+        int before = 0;
+        while (before + counts[bin] < rank) {
+            before += counts[bin];
+            bin++;
+        }
+        int inBin = counts[bin];
+
+        // Interpolação linear dentro do bin
+        float fraction = inBin > 0 ? (rank - before - 0.5f) / inBin : 0.5f;
+        float mm = (bin + fraction) * binSizeMm;
+        return Math.min(mm, maxDepthMm) / 1000f;
+    }
+
+    /**
+     * Samples a box given in the coordinates of the model input, which is the camera image
+     * rotated clockwise by {@code rotationDegrees} (see YuvToTensorConverter). The depth image
+     * keeps the sensor orientation.
+     * @return range from the camera along the ray through the box centre, in metres, or NaN
+     */
+    public float sample(BoundingBox box, int rotationDegrees) {
+        float left, top, right, bottom;
+        switch (((rotationDegrees % 360) + 360) % 360) {
+            case 90:
+                left = box.y1; top = 1f - box.x2; right = box.y2; bottom = 1f - box.x1;
+                break;
+            case 180:
+                left = 1f - box.x2; top = 1f - box.y2; right = 1f - box.x1; bottom = 1f - box.y1;
+                break;
+            case 270:
+                left = 1f - box.y2; top = box.x1; right = 1f - box.y1; bottom = box.x2;
+                break;
+            default:
+                left = box.x1; top = box.y1; right = box.x2; bottom = box.y2;
+                break;
+        }
+        float depth = sample(left, top, right, bottom);
+        if (Float.isNaN(depth) || Float.isNaN(focalX)) return depth;
+
+        // Profundidade z -> distância ao longo do raio: z * |(x/z, y/z, 1)|
+        float rayX = ((left + right) / 2f - principalX) / focalX;
+        float rayY = ((top + bottom) / 2f - principalY) / focalY;
+        return depth * (float) Math.sqrt(1f + rayX * rayX + rayY * rayY);
+    }
+
+    int getGridWidth() {
+        return width;
+    }
+
+    int getGridHeight() {
+        return height;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.pathfinder.slam;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de hit tests por célula da tela, para não repetir a chamada JNI a cada frame.
+ * <p>
+ * Boxes of consecutive frames land on nearly the same pixels, so a hit result is stored under
+ * the quantized screen cell it was cast from, as a world-space point. A later lookup from the
+ * same cell returns the distance from that point to the <em>current</em> camera position. An
+ * entry expires once the camera has moved or turned past the thresholds since the real hit test,
+ * since the same cell then looks at a different part of the scene, or once it is older than
+ * {@link #setMaxAgeMs}, which bounds how stale the distance to a moving object can get. Misses
+ * ("nothing hit") are cached too. Memory is bounded by LRU eviction.
+ * <p>
+ * Not thread-safe: use it from the thread that runs the hit tests.
+ */
+public class HitTestCache {
+
+    /** Returned by {@link #lookup} when the cell has no valid entry. */
+    public static final float NOT_CACHED = Float.NaN;
+
+    private static final float DEFAULT_CELL_SIZE_PX = 24f;
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final float DEFAULT_MAX_TRANSLATION_M = 0.10f;
+    private static final float DEFAULT_MAX_ROTATION_DEG = 5f;
+    private static final long DEFAULT_MAX_AGE_MS = 1000;
+
+    private static final class Entry {
+        boolean hit;
+        float hx, hy, hz;                // ponto atingido, em coordenadas do mundo
+        long timestampNs;                // frame do hit test real
+        float tx, ty, tz, qx, qy, qz, qw; // pose da câmera nesse frame
+    }
+
+    private final float cellSize;
+    private final int maxEntries;
+    private float maxTranslation = DEFAULT_MAX_TRANSLATION_M;
+    private float maxRotationCos = cosHalfAngle(DEFAULT_MAX_ROTATION_DEG);
+    private long maxAgeNs = DEFAULT_MAX_AGE_MS * 1_000_000L;
+
+    // Ordem de acesso: o primeiro é o menos usado recentemente
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    private long lookups = 0;
+    private long hits = 0;
+    private long expired = 0;
+    private long evicted = 0;
+
+    public HitTestCache() {
+        this(DEFAULT_CELL_SIZE_PX, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param cellSizePx screen points closer than about this share an entry
+     * @param maxEntries LRU bound
+     */
+    public HitTestCache(float cellSizePx, int maxEntries) {
+        if (cellSizePx <= 0f || maxEntries < 1) {
+            throw new IllegalArgumentException("cellSizePx and maxEntries must be positive");
+        }
+        this.cellSize = cellSizePx;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(maxEntries * 2, 0.75f, true);
+    }
+
+    public void setMaxTranslation(float meters) {
+        this.maxTranslation = meters;
+    }
+
+    public void setMaxRotation(float degrees) {
+        this.maxRotationCos = cosHalfAngle(degrees);
+    }
+
+    public void setMaxAgeMs(long ageMs) {
+        this.maxAgeNs = ageMs * 1_000_000L;
+    }
+
+    /**
+     * Distance from the current camera position to the point cached for the cell of
+     * ({@code screenX}, {@code screenY}).
+     * @return metres, {@code Float.MIN_VALUE} for a cached "nothing hit" (same convention as
+     * {@code ARCoreDistanceCalculation.calculateDistanceWithHitTest}), or {@link #NOT_CACHED}
+     */
+    public float lookup(float screenX, float screenY, long timestampNs,
+                        float tx, float ty, float tz, float qx, float qy, float qz, float qw) {
+        lookups++;
+        Integer key = key(screenX, screenY);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return NOT_CACHED;
+        }
+        if (isExpired(entry, timestampNs, tx, ty, tz, qx, qy, qz, qw)) {
+            entries.remove(key);
+            expired++;
+            return NOT_CACHED;
+        }
+        hits++;
+        if (!entry.hit) {
+            return Float.MIN_VALUE;
+        }
+        float dx = entry.hx - tx;
+        float dy = entry.hy - ty;
+        float dz = entry.hz - tz;
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Stores the result of a real hit test.
+     * @param hit false if the hit test returned nothing; the hit point is then ignored
+     */
+    public void put(float screenX, float screenY, long timestampNs,
+                    float tx, float ty, float tz, float qx, float qy, float qz, float qw,
+                    boolean hit, float hx, float hy, float hz) {
+        Integer key = key(screenX, screenY);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = evictIfFull();
+            entries.put(key, entry);
+        }
+        entry.hit = hit;
+        entry.hx = hx;
+        entry.hy = hy;
+        entry.hz = hz;
+        entry.timestampNs = timestampNs;
+        entry.tx = tx;
+        entry.ty = ty;
+        entry.tz = tz;
+        entry.qx = qx;
+        entry.qy = qy;
+        entry.qz = qz;
+        entry.qw = qw;
+    }
+
+    /**
+     * Drops every entry, e.g. when tracking is lost and the world coordinates are not reliable.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getLookupCount() {
+        return lookups;
+    }
+
+    /**
+     * Lookups answered from the cache; each one is a {@code Frame.hitTest} JNI call (plus the
+     * {@code HitResult} and pose accessors) that did not happen.
+     */
+    public long getSavedHitTests() {
+        return hits;
+    }
+
+    public long getExpiredCount() {
+        return expired;
+    }
+
+    public long getEvictedCount() {
+        return evicted;
+    }
+
+    public float getHitRate() {
+        return lookups == 0 ? 0f : (float) hits / lookups;
+    }
+
+    private Entry evictIfFull() {
+        if (entries.size() < maxEntries) {
+            return new Entry();
+        }
+        // Reaproveita o objeto da entrada mais antiga
+        Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+        Entry reused = eldest.next().getValue();
+        eldest.remove();
+        evicted++;
+        return reused;
+    }
+
+    private boolean isExpired(Entry entry, long timestampNs,
+                              float tx, float ty, float tz, float qx, float qy, float qz, float qw) {
+        long age = timestampNs - entry.timestampNs;
+        if (age < 0 || age > maxAgeNs) {
+            return true;
+        }
+        float dx = tx - entry.tx;
+        float dy = ty - entry.ty;
+        float dz = tz - entry.tz;
+        if (dx * dx + dy * dy + dz * dz > maxTranslation * maxTranslation) {
+            return true;
+        }
+        // |q1 . q2| = cos(ângulo / 2), como no InferenceGate
+        float dot = Math.abs(qx * entry.qx + qy * entry.qy + qz * entry.qz + qw * entry.qw);
+        return dot < maxRotationCos;
+    }
+
+    private Integer key(float screenX, float screenY) {
+        int cellX = (int) Math.floor(screenX / cellSize);
+        int cellY = (int) Math.floor(screenY / cellSize);
+        return (cellX << 16) ^ (cellY & 0xFFFF);
+    }
+
+    private static float cosHalfAngle(float degrees) {
+        return (float) Math.cos(Math.toRadians(degrees) / 2.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pathfinder.slam;
+
+/**
+ * Decide, a cada atualização da cena, se vale a pena rodar detecção e hit tests de novo.
+ * <p>
+ * Compares the camera frame timestamp and pose (translation and rotation) with the last frame
+ * that was fully processed. A repeated timestamp means ARCore has no new camera image; a pose that
+ * barely moved means the previous detections and distances are still valid. A full refresh is
+ * still forced after {@link #setMinRefreshIntervalMs} so objects moving in a static view are not
+ * missed for long.
+ */
+public class InferenceGate {
+
+    public enum Decision {
+        DUPLICATE_FRAME, // mesmo timestamp: nada novo para processar
+        REUSE,           // cena parada: reaproveita detecções e distâncias anteriores
+        PROCESS          // processamento completo
+    }
+
+    private static final float DEFAULT_TRANSLATION_THRESHOLD_M = 0.03f;
+    private static final float DEFAULT_ROTATION_THRESHOLD_DEG = 2f;
+    private static final long DEFAULT_MIN_REFRESH_INTERVAL_MS = 500;
+
+    private float translationThreshold = DEFAULT_TRANSLATION_THRESHOLD_M;
+    private float rotationThresholdCos = cosHalfAngle(DEFAULT_ROTATION_THRESHOLD_DEG);
+    private long minRefreshIntervalNs = DEFAULT_MIN_REFRESH_INTERVAL_MS * 1_000_000L;
+
+    private boolean hasFrame = false;
+    private long lastTimestampNs;
+
+    // Pose do último frame processado por completo
+    private boolean hasReference = false;
+    private long referenceTimestampNs;
+    private float refTx, refTy, refTz, refQx, refQy, refQz, refQw;
+
+    private long processedCount = 0;
+    private long reusedCount = 0;
+    private long duplicateCount = 0;
+
+    public void setTranslationThreshold(float meters) {
+        this.translationThreshold = meters;
+    }
+
+    public void setRotationThreshold(float degrees) {
+        this.rotationThresholdCos = cosHalfAngle(degrees);
+    }
+
+    /**
+     * Longest time a static scene goes without a full refresh.
+     */
+    public void setMinRefreshIntervalMs(long intervalMs) {
+        this.minRefreshIntervalNs = intervalMs * 1_000_000L;
+    }
+
+    /**
+     * Forces the next new frame to be fully processed (e.g. tracking was lost and the pose cannot
+     * be trusted).
+     */
+    public void reset() {
+        hasReference = false;
+    }
+
+    /**
+     * @param forceRefresh true when something else says the scene changed, e.g. a tracked object
+     *                     is moving
+     */
+    public Decision evaluate(long timestampNs, float tx, float ty, float tz,
+                             float qx, float qy, float qz, float qw, boolean forceRefresh) {
+        if (hasFrame && timestampNs == lastTimestampNs) {
+            duplicateCount++;
+            return Decision.DUPLICATE_FRAME;
+        }
+        hasFrame = true;
+        lastTimestampNs = timestampNs;
+
+        if (!forceRefresh && hasReference
+                && timestampNs - referenceTimestampNs < minRefreshIntervalNs
+                && !movedFromReference(tx, ty, tz, qx, qy, qz, qw)) {
+            reusedCount++;
+            return Decision.REUSE;
+        }
+
+        hasReference = true;
+        referenceTimestampNs = timestampNs;
+        refTx = tx;
+        refTy = ty;
+        refTz = tz;
+        refQx = qx;
+        refQy = qy;
+        refQz = qz;
+        refQw = qw;
+        processedCount++;
+        return Decision.PROCESS;
+    }
+
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    public long getReusedCount() {
+        return reusedCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    private boolean movedFromReference(float tx, float ty, float tz, float qx, float qy, float qz, float qw) {
+        float dx = tx - refTx;
+        float dy = ty - refTy;
+        float dz = tz - refTz;
+        if (dx * dx + dy * dy + dz * dz > translationThreshold * translationThreshold) {
+            return true;
+        }
+        // Ângulo entre as orientações: |q1 . q2| = cos(ângulo / 2)
+        float dot = Math.abs(qx * refQx + qy * refQy + qz * refQz + qw * refQw);
+        return dot < rotationThresholdCos;
+    }
+
+    private static float cosHalfAngle(float degrees) {
+        return (float) Math.cos(Math.toRadians(degrees) / 2.0);
+    }
+}
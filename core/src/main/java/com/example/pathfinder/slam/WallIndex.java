@@ -0,0 +1,347 @@
+package com.example.pathfinder.slam;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice persistente das paredes (planos verticais) mapeadas pelo ARCore.
+ * <p>
+ * The index is updated incrementally from the planes that changed in a frame; walls that did not
+ * change stay in it. Each wall keeps its boundary polygon in world space (and in the plane's own
+ * 2D coordinates for the distance math) and is registered in the cells of a horizontal grid that
+ * its bounds cover. A query only looks at the walls registered in the cells within
+ * {@link #setMaxDistance} of the camera, so its cost depends on how many walls are nearby and not
+ * on how many the session has mapped.
+ * <p>
+ * Poses are given as translation + quaternion, like {@code com.google.ar.core.Pose}.
+ * Not thread-safe.
+ */
+public class WallIndex {
+
+    private static final float DEFAULT_CELL_SIZE_M = 1f;
+    private static final float DEFAULT_MAX_DISTANCE_M = 5f;
+    private static final float DEFAULT_CONE_HALF_ANGLE_DEG = 30f;
+    private static final float MIN_HORIZONTAL_DIRECTION = 0.1f; // câmera apontando quase na vertical
+
+    private static final class Wall {
+        // Origem e eixos do plano no mundo (normal = eixo Y do plano)
+        float ox, oy, oz;
+        float ax, ay, az; // eixo X
+        float bx, by, bz; // eixo Z
+        float nx, ny, nz;
+        // Polígono: coordenadas (x, z) no plano e vértices no mundo
+        float[] local = new float[0];
+        float[] world = new float[0];
+        int vertexCount;
+        long[] cells = new long[0];
+        int cellCount;
+        int queryStamp;
+    }
+
+    private final float cellSize;
+    private float maxDistance = DEFAULT_MAX_DISTANCE_M;
+    private float coneCos = (float) Math.cos(Math.toRadians(DEFAULT_CONE_HALF_ANGLE_DEG));
+
+    private final Map<Object, Wall> walls = new HashMap<>();
+    private final Map<Long, List<Wall>> grid = new HashMap<>();
+    private int queryStamp = 0;
+
+    public WallIndex() {
+        this(DEFAULT_CELL_SIZE_M);
+    }
+
+    public WallIndex(float cellSizeM) {
+        if (cellSizeM <= 0f) throw new IllegalArgumentException("cellSizeM must be positive");
+        this.cellSize = cellSizeM;
+    }
+
+    /**
+     * Walls farther than this are not reported.
+     */
+    public void setMaxDistance(float meters) {
+        this.maxDistance = meters;
+    }
+
+    /**
+     * Half angle, around the horizontal viewing direction, of the cone a wall must be in.
+     */
+    public void setConeHalfAngle(float degrees) {
+        this.coneCos = (float) Math.cos(Math.toRadians(degrees));
+    }
+
+    public int size() {
+        return walls.size();
+    }
+
+    /**
+     * Adds or replaces a wall.
+     * @param key     identity of the plane (ARCore trackables are stable map keys)
+     * @param polygon boundary as (x, z) pairs in the plane's local frame, like
+     *                {@code Plane.getPolygon()}
+     */
+    public void update(Object key, float tx, float ty, float tz, float qx, float qy, float qz, float qw,
+                       FloatBuffer polygon) {
+        Wall wall = walls.get(key);
+        if (wall == null) {
+            wall = new Wall();
+            walls.put(key, wall);
+        } else {
+            unregister(wall);
+        }
+
+        wall.ox = tx;
+        wall.oy = ty;
+        wall.oz = tz;
+        // Colunas da matriz de rotação do quaternion
+        wall.ax = 1f - 2f * (qy * qy + qz * qz);
+        wall.ay = 2f * (qx * qy + qw * qz);
+        wall.az = 2f * (qx * qz - qw * qy);
+        wall.nx = 2f * (qx * qy - qw * qz);
+        wall.ny = 1f - 2f * (qx * qx + qz * qz);
+        wall.nz = 2f * (qy * qz + qw * qx);
+        wall.bx = 2f * (qx * qz + qw * qy);
+        wall.by = 2f * (qy * qz - qw * qx);
+        wall.bz = 1f - 2f * (qx * qx + qy * qy);
+
+        FloatBuffer points = polygon.duplicate();
+        points.rewind();
+        int count = points.remaining() / 2;
+        if (wall.local.length < 2 * count) {
+            wall.local = new float[2 * count];
+            wall.world = new float[3 * count];
+        }
+        points.get(wall.local, 0, 2 * count);
+        wall.vertexCount = count;
+        for (int i = 0; i < count; i++) {
+            float u = wall.local[2 * i];
+            float v = wall.local[2 * i + 1];
+            wall.world[3 * i] = wall.ox + u * wall.ax + v * wall.bx;
+            wall.world[3 * i + 1] = wall.oy + u * wall.ay + v * wall.by;
+            wall.world[3 * i + 2] = wall.oz + u * wall.az + v * wall.bz;
+        }
+        register(wall);
+    }
+
+    /**
+     * Removes a wall (stopped tracking, subsumed by another plane, or no longer vertical).
+     */
+    public void remove(Object key) {
+        Wall wall = walls.remove(key);
+        if (wall != null) unregister(wall);
+    }
+
+    public void clear() {
+        walls.clear();
+        grid.clear();
+    }
+
+    /**
+     * Distance to the nearest wall around the direction the camera looks at (its -Z axis).
+     * @return metres, or {@code Float.MIN_VALUE} if there is no wall (same convention as the
+     * hit test)
+     */
+    public float nearestWall(float tx, float ty, float tz, float qx, float qy, float qz, float qw) {
+        float dirX = -2f * (qx * qz + qw * qy);
+        float dirY = -2f * (qy * qz - qw * qx);
+        float dirZ = -(1f - 2f * (qx * qx + qy * qy));
+        return nearestWall(tx, ty, tz, dirX, dirY, dirZ);
+    }
+
+    /**
+     * Distance from a point to the nearest wall whose closest point is inside the cone around the
+     * horizontal component of {@code dir}, or that the horizontal ray along {@code dir} crosses
+     * within range.
+     * @return metres, or {@code Float.MIN_VALUE} if there is no wall
+     */
+    public float nearestWall(float px, float py, float pz, float dirX, float dirY, float dirZ) {
+        // Só a direção horizontal importa: o usuário anda no plano do chão
+        float hLen = (float) Math.sqrt(dirX * dirX + dirZ * dirZ);
+        boolean hasHeading = hLen >= MIN_HORIZONTAL_DIRECTION * Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+        float hx = hasHeading ? dirX / hLen : 0f;
+        float hz = hasHeading ? dirZ / hLen : 0f;
+
+        queryStamp++;
+        float best = Float.MAX_VALUE;
+        int minX = cell(px - maxDistance), maxX = cell(px + maxDistance);
+        int minZ = cell(pz - maxDistance), maxZ = cell(pz + maxDistance);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<Wall> bucket = grid.get(cellKey(cx, cz));
+                if (bucket == null) continue;
+                for (int i = 0, n = bucket.size(); i < n; i++) {
+                    Wall wall = bucket.get(i);
+                    if (wall.queryStamp == queryStamp) continue; // já visto por outra célula
+                    wall.queryStamp = queryStamp;
+                    float distance = distance(wall, px, py, pz, hasHeading, hx, hz);
+                    if (distance < best) best = distance;
+                }
+            }
+        }
+        return best <= maxDistance ? best : Float.MIN_VALUE;
+    }
+
+    /**
+     * Footprint on the floor of the walls registered within {@code radius} of ({@code x},
+     * {@code z}): one segment (x0, z0, x1, z1) per wall, between its two extreme vertices along
+     * the wall's horizontal direction.
+     * @return number of segments written, at most {@code out.length / 4}
+     */
+    public int collectSegments(float x, float z, float radius, float[] out) {
+        queryStamp++;
+        int count = 0;
+        int minX = cell(x - radius), maxX = cell(x + radius);
+        int minZ = cell(z - radius), maxZ = cell(z + radius);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<Wall> bucket = grid.get(cellKey(cx, cz));
+                if (bucket == null) continue;
+                for (int i = 0, n = bucket.size(); i < n; i++) {
+                    Wall wall = bucket.get(i);
+                    if (wall.queryStamp == queryStamp || wall.vertexCount == 0) continue;
+                    wall.queryStamp = queryStamp;
+                    if (4 * (count + 1) > out.length) return count;
+
+                    // Direção horizontal da parede: normal x vertical
+                    float hx = -wall.nz, hz = wall.nx;
+                    int lo = 0, hi = 0;
+                    float minT = Float.MAX_VALUE, maxT = -Float.MAX_VALUE;
+                    for (int v = 0; v < wall.vertexCount; v++) {
+                        float t = wall.world[3 * v] * hx + wall.world[3 * v + 2] * hz;
+                        if (t < minT) {
+                            minT = t;
+                            lo = v;
+                        }
+                        if (t > maxT) {
+                            maxT = t;
+                            hi = v;
+                        }
+                    }
+                    out[4 * count] = wall.world[3 * lo];
+                    out[4 * count + 1] = wall.world[3 * lo + 2];
+                    out[4 * count + 2] = wall.world[3 * hi];
+                    out[4 * count + 3] = wall.world[3 * hi + 2];
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private float distance(Wall wall, float px, float py, float pz, boolean hasHeading, float hx, float hz) {
+        if (wall.vertexCount < 3) return Float.MAX_VALUE;
+
+        // Ponto projetado no plano, em coordenadas locais
+        float rx = px - wall.ox, ry = py - wall.oy, rz = pz - wall.oz;
+        float u = rx * wall.ax + ry * wall.ay + rz * wall.az;
+        float v = rx * wall.bx + ry * wall.by + rz * wall.bz;
+        float h = rx * wall.nx + ry * wall.ny + rz * wall.nz;
+
+        // Ponto mais próximo do polígono
+        float cu = u, cv = v;
+        if (!contains(wall, u, v)) {
+            float bestSq = Float.MAX_VALUE;
+            float[] p = wall.local;
+            for (int i = 0, j = wall.vertexCount - 1; i < wall.vertexCount; j = i++) {
+                float x0 = p[2 * j], y0 = p[2 * j + 1];
+                float ex = p[2 * i] - x0, ey = p[2 * i + 1] - y0;
+                float lenSq = ex * ex + ey * ey;
+                float t = lenSq > 0f ? ((u - x0) * ex + (v - y0) * ey) / lenSq : 0f;
+                t = t < 0f ? 0f : (t > 1f ? 1f : t);
+                float qu = x0 + t * ex, qv = y0 + t * ey;
+                float dSq = (u - qu) * (u - qu) + (v - qv) * (v - qv);
+                if (dSq < bestSq) {
+                    bestSq = dSq;
+                    cu = qu;
+                    cv = qv;
+                }
+            }
+        }
+        float du = cu - u, dv = cv - v;
+        float closest = (float) Math.sqrt(du * du + dv * dv + h * h);
+        if (!hasHeading) return closest;
+
+        // Ponto mais próximo dentro do cone à frente?
+        float wx = wall.ox + cu * wall.ax + cv * wall.bx - px;
+        float wz = wall.oz + cu * wall.az + cv * wall.bz - pz;
+        float wLen = (float) Math.sqrt(wx * wx + wz * wz);
+        if (wLen < 1e-4f || (wx * hx + wz * hz) >= coneCos * wLen) {
+            return closest;
+        }
+
+        // Senão, a parede ainda conta se o raio horizontal da direção de visão a atravessa
+        float denom = hx * wall.nx + hz * wall.nz;
+        if (Math.abs(denom) < 1e-6f) return Float.MAX_VALUE;
+        float t = -h / denom;
+        if (t <= 0f || t > maxDistance) return Float.MAX_VALUE;
+        float hitU = u + t * (hx * wall.ax + hz * wall.az);
+        float hitV = v + t * (hx * wall.bx + hz * wall.bz);
+        return contains(wall, hitU, hitV) ? t : Float.MAX_VALUE;
+    }
+
+    // Regra par-ímpar; vale também para polígonos não convexos
+    private static boolean contains(Wall wall, float u, float v) {
+        float[] p = wall.local;
+        boolean inside = false;
+        for (int i = 0, j = wall.vertexCount - 1; i < wall.vertexCount; j = i++) {
+            float ui = p[2 * i], vi = p[2 * i + 1];
+            float uj = p[2 * j], vj = p[2 * j + 1];
+            if ((vi > v) != (vj > v) && u < (uj - ui) * (v - vi) / (vj - vi) + ui) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private void register(Wall wall) {
+        if (wall.vertexCount == 0) {
+            wall.cellCount = 0;
+            return;
+        }
+        float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE;
+        float minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < wall.vertexCount; i++) {
+            float x = wall.world[3 * i], z = wall.world[3 * i + 2];
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+        int x0 = cell(minX), x1 = cell(maxX), z0 = cell(minZ), z1 = cell(maxZ);
+        int needed = (x1 - x0 + 1) * (z1 - z0 + 1);
+        if (wall.cells.length < needed) wall.cells = new long[needed];
+        wall.cellCount = 0;
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cz = z0; cz <= z1; cz++) {
+                long key = cellKey(cx, cz);
+                List<Wall> bucket = grid.get(key);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(2);
+                    grid.put(key, bucket);
+                }
+                bucket.add(wall);
+                wall.cells[wall.cellCount++] = key;
+            }
+        }
+    }
+
+    private void unregister(Wall wall) {
+        for (int i = 0; i < wall.cellCount; i++) {
+            List<Wall> bucket = grid.get(wall.cells[i]);
+            if (bucket == null) continue;
+            bucket.remove(wall);
+            if (bucket.isEmpty()) grid.remove(wall.cells[i]);
+        }
+        wall.cellCount = 0;
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
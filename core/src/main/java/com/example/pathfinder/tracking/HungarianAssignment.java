@@ -0,0 +1,99 @@
+package com.example.pathfinder.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment (Kuhn-Munkres with potentials, O(n^2 m)) for the small cost matrices
+ * of the tracker. Work arrays are kept between calls.
+ */
+class HungarianAssignment {
+    private static final double INF = Double.MAX_VALUE / 4;
+
+    private double[] u = new double[1], v = new double[1], minv = new double[1];
+    private int[] p = new int[1], way = new int[1];
+    private boolean[] used = new boolean[1];
+
+    /**
+     * @param cost     row-major matrix, {@code rows x cols}
+     * @param rowMatch filled with the column assigned to each row, or -1; pairs whose cost is
+     *                 {@code >= maxCost} are left unassigned
+     */
+    void solve(float[] cost, int rows, int cols, float maxCost, int[] rowMatch) {
+        Arrays.fill(rowMatch, 0, rows, -1);
+        if (rows == 0 || cols == 0) return;
+
+        // O algoritmo exige linhas <= colunas; transpõe se necessário
+        boolean transposed = rows > cols;
+        int n = transposed ? cols : rows;
+        int m = transposed ? rows : cols;
+        ensureCapacity(m + 1);
+
+        Arrays.fill(u, 0, n + 1, 0);
+        Arrays.fill(v, 0, m + 1, 0);
+        Arrays.fill(p, 0, m + 1, 0);
+        Arrays.fill(way, 0, m + 1, 0);
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, 0, m + 1, INF);
+            Arrays.fill(used, 0, m + 1, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double delta = INF;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double c = at(cost, cols, transposed, i0 - 1, j - 1) - u[i0] - v[j];
+                    if (c < minv[j]) {
+                        minv[j] = c;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        for (int j = 1; j <= m; j++) {
+            if (p[j] == 0) continue;
+            int row = transposed ? j - 1 : p[j] - 1;
+            int col = transposed ? p[j] - 1 : j - 1;
+            if (cost[row * cols + col] < maxCost) {
+                rowMatch[row] = col;
+            }
+        }
+    }
+
+    private static double at(float[] cost, int cols, boolean transposed, int i, int j) {
+        return transposed ? cost[j * cols + i] : cost[i * cols + j];
+    }
+
+    private void ensureCapacity(int size) {
+        if (p.length < size) {
+            u = new double[size];
+            v = new double[size];
+            minv = new double[size];
+            p = new int[size];
+            way = new int[size];
+            used = new boolean[size];
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.pathfinder.tracking;
+
+/**
+ * Constant-velocity Kalman filter for one box (cx, cy, w, h), in normalized image units and
+ * seconds. Each coordinate is an independent [position, velocity] filter, which is what the
+ * usual 8-state SORT/ByteTrack filter reduces to since its matrices are block diagonal.
+ */
+class KalmanBoxFilter {
+    static final int CX = 0, CY = 1, W = 2, H = 3;
+
+    // Ruído relativo à altura da caixa: medições mais confiáveis para caixas pequenas
+    private static final float MEASUREMENT_STD = 0.05f;
+    private static final float ACCELERATION_STD = 0.5f;
+    private static final float INITIAL_VELOCITY_STD = 1.0f;
+    private static final float MIN_SIZE = 1e-3f;
+
+    // Estado e covariância 2x2 simétrica (p00, p01, p11) por coordenada
+    private final float[] position = new float[4];
+    private final float[] velocity = new float[4];
+    private final float[] p00 = new float[4];
+    private final float[] p01 = new float[4];
+    private final float[] p11 = new float[4];
+
+    void init(float cx, float cy, float w, float h) {
+        position[CX] = cx;
+        position[CY] = cy;
+        position[W] = w;
+        position[H] = h;
+        float scale = Math.max(h, MIN_SIZE);
+        float posVar = sq(MEASUREMENT_STD * scale);
+        float velVar = sq(INITIAL_VELOCITY_STD * scale);
+        for (int i = 0; i < 4; i++) {
+            velocity[i] = 0f;
+            p00[i] = posVar;
+            p01[i] = 0f;
+            p11[i] = velVar;
+        }
+    }
+
+    /**
+     * Advances the state by {@code dt} seconds.
+     */
+    void predict(float dt) {
+        if (dt <= 0f) return;
+        float scale = Math.max(position[H], MIN_SIZE);
+        float q = sq(ACCELERATION_STD * scale);
+        float dt2 = dt * dt;
+        float q00 = q * dt2 * dt / 3f;
+        float q01 = q * dt2 / 2f;
+        float q11 = q * dt;
+
+        for (int i = 0; i < 4; i++) {
+            position[i] += velocity[i] * dt;
+            // P = F P F^T + Q, F = [[1, dt], [0, 1]]
+            float a = p00[i] + 2f * dt * p01[i] + dt2 * p11[i];
+            float b = p01[i] + dt * p11[i];
+            p00[i] = a + q00;
+            p01[i] = b + q01;
+            p11[i] = p11[i] + q11;
+        }
+        clampSize();
+    }
+
+    void update(float cx, float cy, float w, float h) {
+        float scale = Math.max(h, MIN_SIZE);
+        float r = sq(MEASUREMENT_STD * scale);
+        correct(CX, cx, r);
+        correct(CY, cy, r);
+        correct(W, w, r);
+        correct(H, h, r);
+        clampSize();
+    }
+
+    float get(int index) {
+        return position[index];
+    }
+
+    float getVelocity(int index) {
+        return velocity[index];
+    }
+
+    /**
+     * State extrapolated {@code dt} seconds ahead, without changing the filter.
+     */
+    float extrapolate(int index, float dt) {
+        float value = position[index] + velocity[index] * dt;
+        return (index == W || index == H) ? Math.max(value, MIN_SIZE) : value;
+    }
+
+    private void correct(int i, float measurement, float r) {
+        float s = p00[i] + r;
+        float k0 = p00[i] / s;
+        float k1 = p01[i] / s;
+        float innovation = measurement - position[i];
+        position[i] += k0 * innovation;
+        velocity[i] += k1 * innovation;
+        // P = (I - K H) P
+        float n00 = (1f - k0) * p00[i];
+        float n01 = (1f - k0) * p01[i];
+        float n11 = p11[i] - k1 * p01[i];
+        p00[i] = n00;
+        p01[i] = n01;
+        p11[i] = n11;
+    }
+
+    private void clampSize() {
+        if (position[W] < MIN_SIZE) position[W] = MIN_SIZE;
+        if (position[H] < MIN_SIZE) position[H] = MIN_SIZE;
+    }
+
+    private static float sq(float v) {
+        return v * v;
+    }
+}
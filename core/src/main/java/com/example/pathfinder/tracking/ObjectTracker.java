@@ -0,0 +1,253 @@
+package com.example.pathfinder.tracking;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps objects identified across frames so detection does not have to run on every frame.
+ * <p>
+ * ByteTrack-style association: confident detections are matched to the tracks first (Hungarian
+ * assignment on 1 - IoU against the Kalman prediction, same class only), then the remaining
+ * low-confidence detections get a chance to continue the tracks left over. Only confident
+ * detections start new tracks; a weaker one that continues no track is still reported by
+ * {@link #predict} until the next update, so nothing the detector found is dropped. Tracks not
+ * seen for {@link #setMaxAgeMs} are dropped.
+ * <p>
+ * Between detections {@link #predict} extrapolates every track to the requested timestamp with its
+ * constant-velocity model. Not thread safe: use it from a single thread.
+ */
+public class ObjectTracker {
+
+    private static final float DEFAULT_HIGH_CONFIDENCE = 0.5f;
+    private static final float DEFAULT_MIN_IOU = 0.2f;
+    private static final long DEFAULT_MAX_AGE_MS = 1000;
+    private static final long DEFAULT_MAX_PREDICTION_MS = 500;
+    private static final float FORBIDDEN = 1e6f;
+
+    private float highConfidence = DEFAULT_HIGH_CONFIDENCE;
+    private float minIou = DEFAULT_MIN_IOU;
+    private long maxAgeNs = DEFAULT_MAX_AGE_MS * 1_000_000L;
+    private long maxPredictionNs = DEFAULT_MAX_PREDICTION_MS * 1_000_000L;
+
+    private final List<Track> tracks = new ArrayList<>();
+    // Detecções fracas da última atualização que não continuaram nenhuma trilha
+    private final List<BoundingBox> untracked = new ArrayList<>();
+    private int nextId = 1;
+    private long lastUpdateNs = Long.MIN_VALUE;
+
+    // Buffers reaproveitados entre frames
+    private final HungarianAssignment assignment = new HungarianAssignment();
+    private final List<Track> candidateTracks = new ArrayList<>();
+    private final List<BoundingBox> candidateDetections = new ArrayList<>();
+    private boolean[] detectionUsed = new boolean[0];
+    private int[] detectionIndex = new int[0];
+    private float[] cost = new float[0];
+    private int[] match = new int[0];
+
+    private static final class Track {
+        final int id;
+        final int cls;
+        final String clsName;
+        final KalmanBoxFilter filter = new KalmanBoxFilter();
+        float confidence;
+        long lastSeenNs;
+        long stateNs;
+        boolean matched;
+
+        Track(int id, BoundingBox box, long timestampNs) {
+            this.id = id;
+            this.cls = box.cls;
+            this.clsName = box.clsName;
+            this.confidence = box.cnf;
+            this.lastSeenNs = timestampNs;
+            this.stateNs = timestampNs;
+            filter.init(box.cx, box.cy, box.w, box.h);
+        }
+    }
+
+    public void setHighConfidence(float highConfidence) {
+        this.highConfidence = highConfidence;
+    }
+
+    public void setMinIou(float minIou) {
+        this.minIou = minIou;
+    }
+
+    public void setMaxAgeMs(long maxAgeMs) {
+        this.maxAgeNs = maxAgeMs * 1_000_000L;
+    }
+
+    /**
+     * How far ahead of the last detection a track is extrapolated; beyond that it is held still.
+     */
+    public void setMaxPredictionMs(long maxPredictionMs) {
+        this.maxPredictionNs = maxPredictionMs * 1_000_000L;
+    }
+
+    public int getTrackCount() {
+        return tracks.size();
+    }
+
+    /**
+     * True if any track moves or grows (approaches) faster than {@code minSpeed}, in normalized
+     * image units per second.
+     */
+    public boolean hasMovingTracks(float minSpeed) {
+        for (Track track : tracks) {
+            KalmanBoxFilter f = track.filter;
+            float vx = f.getVelocity(KalmanBoxFilter.CX);
+            float vy = f.getVelocity(KalmanBoxFilter.CY);
+            float vh = f.getVelocity(KalmanBoxFilter.H);
+            if (vx * vx + vy * vy > minSpeed * minSpeed || Math.abs(vh) > minSpeed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feeds the detections of the frame captured at {@code timestampNs}. Detections that continue a
+     * track get its ID in {@link BoundingBox#trackId}; new confident detections get a new ID.
+     * Results older than the last update are ignored.
+     */
+    public void update(List<BoundingBox> detections, long timestampNs) {
+        if (timestampNs < lastUpdateNs) return;
+        lastUpdateNs = timestampNs;
+
+        for (Track track : tracks) {
+            track.filter.predict((timestampNs - track.stateNs) / 1e9f);
+            track.stateNs = timestampNs;
+            track.matched = false;
+        }
+        if (detectionUsed.length < detections.size()) {
+            detectionUsed = new boolean[detections.size()];
+            detectionIndex = new int[detections.size()];
+        }
+        for (int i = 0; i < detections.size(); i++) {
+            detectionUsed[i] = false;
+            detections.get(i).trackId = -1;
+        }
+
+        // 1ª etapa: detecções confiáveis contra todas as trilhas
+        associate(detections, true, timestampNs);
+        // 2ª etapa: detecções fracas só continuam trilhas que sobraram
+        associate(detections, false, timestampNs);
+
+        for (int i = tracks.size() - 1; i >= 0; i--) {
+            if (timestampNs - tracks.get(i).lastSeenNs > maxAgeNs) {
+                tracks.remove(i);
+            }
+        }
+
+        untracked.clear();
+        for (int i = 0; i < detections.size(); i++) {
+            BoundingBox box = detections.get(i);
+            if (detectionUsed[i]) continue;
+            if (box.cnf < highConfidence) {
+                untracked.add(box);
+                continue;
+            }
+            Track track = new Track(nextId++, box, timestampNs);
+            box.trackId = track.id;
+            tracks.add(track);
+        }
+    }
+
+    /**
+     * Boxes of every live track at {@code timestampNs}, extrapolated from the last detection, plus
+     * the weak detections of the last update that continue no track, as detected and with
+     * {@link BoundingBox#trackId} -1. New objects are returned each call, so the list can be
+     * handed to other threads.
+     */
+    public List<BoundingBox> predict(long timestampNs) {
+        List<BoundingBox> boxes = new ArrayList<>(tracks.size() + untracked.size());
+        for (Track track : tracks) {
+            if (timestampNs - track.lastSeenNs > maxAgeNs) continue;
+
+            long ahead = Math.min(timestampNs - track.stateNs, maxPredictionNs);
+            float dt = Math.max(0, ahead) / 1e9f;
+            KalmanBoxFilter f = track.filter;
+            float cx = f.extrapolate(KalmanBoxFilter.CX, dt);
+            float cy = f.extrapolate(KalmanBoxFilter.CY, dt);
+            float w = f.extrapolate(KalmanBoxFilter.W, dt);
+            float h = f.extrapolate(KalmanBoxFilter.H, dt);
+
+            BoundingBox box = new BoundingBox(cx - w / 2f, cy - h / 2f, cx + w / 2f, cy + h / 2f,
+                    cx, cy, w, h, track.confidence, track.cls, track.clsName);
+            box.trackId = track.id;
+            boxes.add(box);
+        }
+        for (BoundingBox detection : untracked) {
+            if (timestampNs - lastUpdateNs > maxAgeNs) break;
+            boxes.add(new BoundingBox(detection.x1, detection.y1, detection.x2, detection.y2,
+                    detection.cx, detection.cy, detection.w, detection.h,
+                    detection.cnf, detection.cls, detection.clsName));
+        }
+        return boxes;
+    }
+
+    public void clear() {
+        tracks.clear();
+        untracked.clear();
+        lastUpdateNs = Long.MIN_VALUE;
+    }
+
+    private void associate(List<BoundingBox> detections, boolean confident, long timestampNs) {
+        candidateTracks.clear();
+        for (Track track : tracks) {
+            if (!track.matched) candidateTracks.add(track);
+        }
+        candidateDetections.clear();
+        for (int i = 0; i < detections.size(); i++) {
+            BoundingBox box = detections.get(i);
+            if (detectionUsed[i] || (box.cnf >= highConfidence) != confident) continue;
+            detectionIndex[candidateDetections.size()] = i;
+            candidateDetections.add(box);
+        }
+
+        int rows = candidateTracks.size();
+        int cols = candidateDetections.size();
+        if (rows == 0 || cols == 0) return;
+
+        if (cost.length < rows * cols) cost = new float[rows * cols];
+        if (match.length < rows) match = new int[rows];
+
+        for (int r = 0; r < rows; r++) {
+            Track track = candidateTracks.get(r);
+            KalmanBoxFilter f = track.filter;
+            float cx = f.get(KalmanBoxFilter.CX), cy = f.get(KalmanBoxFilter.CY);
+            float w = f.get(KalmanBoxFilter.W), h = f.get(KalmanBoxFilter.H);
+            for (int c = 0; c < cols; c++) {
+                BoundingBox box = candidateDetections.get(c);
+                float iou = box.cls == track.cls ? iou(cx, cy, w, h, box) : 0f;
+                cost[r * cols + c] = iou >= minIou ? 1f - iou : FORBIDDEN;
+            }
+        }
+
+        assignment.solve(cost, rows, cols, 1f - minIou + 1e-6f, match);
+
+        for (int r = 0; r < rows; r++) {
+            if (match[r] < 0) continue;
+            Track track = candidateTracks.get(r);
+            BoundingBox box = candidateDetections.get(match[r]);
+            track.filter.update(box.cx, box.cy, box.w, box.h);
+            track.confidence = box.cnf;
+            track.lastSeenNs = timestampNs;
+            track.matched = true;
+            box.trackId = track.id;
+            detectionUsed[detectionIndex[match[r]]] = true;
+        }
+    }
+
+    static float iou(float cx, float cy, float w, float h, BoundingBox box) {
+        float x1 = Math.max(cx - w / 2f, box.x1);
+        float y1 = Math.max(cy - h / 2f, box.y1);
+        float x2 = Math.min(cx + w / 2f, box.x2);
+        float y2 = Math.min(cy + h / 2f, box.y2);
+        float intersection = Math.max(0f, x2 - x1) * Math.max(0f, y2 - y1);
+        float union = w * h + box.w * box.h - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+}
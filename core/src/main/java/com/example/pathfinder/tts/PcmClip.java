@@ -0,0 +1,24 @@
+package com.example.pathfinder.tts;
+
+/**
+ * A decoded 16-bit PCM sound, ready to be written to an audio track.
+ */
+public class PcmClip {
+    public final short[] samples; // intercalados quando há mais de um canal
+    public final int sampleRate;
+    public final int channels;
+
+    public PcmClip(short[] samples, int sampleRate, int channels) {
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    public int frames() {
+        return samples.length / channels;
+    }
+
+    public long durationMs() {
+        return frames() * 1000L / sampleRate;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.pathfinder.tts;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-rendered audio for the fixed alert phrases. Each phrase is synthesized once to a WAV file
+ * named after its engine, voice and text, so a different voice or a changed message gets a new
+ * file while the others survive restarts. Loaded clips are kept in memory and can be looked up
+ * from any thread.
+ */
+public class PhraseCache {
+    public static final String EXTENSION = ".wav";
+
+    private static final int RIFF = 0x46464952; // "RIFF" em little endian
+    private static final int WAVE = 0x45564157;
+    private static final int FMT = 0x20746d66;
+    private static final int DATA = 0x61746164;
+    private static final int FORMAT_PCM = 1;
+
+    private final File directory;
+    private final String engine;
+    private final String voice;
+    private final Map<String, PcmClip> clips = new ConcurrentHashMap<>();
+
+    /**
+     * @param engine package of the TTS engine
+     * @param voice  name of the voice it is using, or null
+     */
+    public PhraseCache(File directory, String engine, String voice) {
+        this.directory = directory;
+        this.engine = engine;
+        this.voice = voice;
+    }
+
+    /**
+     * Where the rendering of {@code text} is, or should be written.
+     */
+    public File fileFor(String text) {
+        return new File(directory, key(engine, voice, text) + EXTENSION);
+    }
+
+    /**
+     * Decodes the file of {@code text} and keeps it in memory. A file that is not 16-bit PCM WAV
+     * is deleted, so that it gets synthesized again next time.
+     * @return the clip, or null if there is no usable file
+     */
+    public PcmClip load(String text) {
+        File file = fileFor(text);
+        if (!file.isFile()) return null;
+        try {
+            PcmClip clip = readWav(file);
+            clips.put(text, clip);
+            return clip;
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * @return the loaded clip for exactly this text, or null to synthesize it live
+     */
+    public PcmClip get(String text) {
+        return text != null ? clips.get(text) : null;
+    }
+
+    public int size() {
+        return clips.size();
+    }
+
+    /**
+     * Deletes the renderings in the directory that do not belong to {@code texts} with the current
+     * engine and voice, so that old voices and messages do not pile up.
+     * @return number of files deleted
+     */
+    public int retainOnly(Collection<String> texts) {
+        Set<String> keep = new HashSet<>();
+        for (String text : texts) {
+            keep.add(fileFor(text).getName());
+        }
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+        int deleted = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(EXTENSION) && !keep.contains(file.getName()) && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    static String key(String engine, String voice, String text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // Cada parte com o seu tamanho na frente, para que partes diferentes nunca formem a mesma chave
+        String id = length(engine) + ":" + engine + length(voice) + ":" + voice + text;
+        byte[] hash = digest.digest(id.getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return name.toString();
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : -1;
+    }
+
+    public static PcmClip readWav(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            if (length > Integer.MAX_VALUE) throw new IOException("WAV too large: " + file);
+            byte[] bytes = new byte[(int) length];
+            in.readFully(bytes);
+            return readWav(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    /**
+     * Decodes a RIFF/WAVE file with 16-bit PCM samples, skipping chunks other than fmt and data.
+     */
+    public static PcmClip readWav(ByteBuffer wav) throws IOException {
+        ByteBuffer in = wav.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < 12 || in.getInt() != RIFF) throw new IOException("Not a RIFF file");
+        in.getInt(); // tamanho do RIFF: alguns motores deixam errado, então não é usado
+        if (in.getInt() != WAVE) throw new IOException("Not a WAVE file");
+
+        int channels = 0, sampleRate = 0;
+        while (in.remaining() >= 8) {
+            int id = in.getInt();
+            int size = in.getInt();
+            if (id == FMT) {
+                if (size < 16 || in.remaining() < size) throw new IOException("Truncated fmt chunk");
+                int start = in.position();
+                int format = in.getShort() & 0xFFFF;
+                channels = in.getShort() & 0xFFFF;
+                sampleRate = in.getInt();
+                in.getInt(); // bytes por segundo
+                in.getShort(); // alinhamento dos blocos
+                int bits = in.getShort() & 0xFFFF;
+                if (format != FORMAT_PCM || bits != 16 || channels < 1 || sampleRate <= 0) {
+                    throw new IOException("Unsupported WAV format " + format + ", " + bits + " bits");
+                }
+                in.position(Math.min(in.limit(), start + size + (size & 1)));
+            } else if (id == DATA) {
+                if (channels == 0) throw new IOException("data chunk before fmt");
+                // Uma síntese interrompida pode deixar o tamanho maior que o arquivo
+                int bytes = (size < 0 || size > in.remaining()) ? in.remaining() : size;
+                int frames = bytes / (2 * channels);
+                if (frames == 0) throw new IOException("Empty data chunk");
+                short[] samples = new short[frames * channels];
+                in.asShortBuffer().get(samples);
+                return new PcmClip(samples, sampleRate, channels);
+            } else {
+                if (size < 0 || size > in.remaining()) break;
+                in.position(Math.min(in.limit(), in.position() + size + (size & 1)));
+            }
+        }
+        throw new IOException("No data chunk");
+    }
+}
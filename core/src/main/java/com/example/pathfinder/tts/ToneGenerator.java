@@ -0,0 +1,214 @@
+package com.example.pathfinder.tts;
+
+import com.example.pathfinder.risk.DetectedObject;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskLevel;
+
+/**
+ * Stereo beeps that say where the nearest obstacle is: panned towards it, higher and more
+ * frequent the closer it gets, silent beyond {@link #MAX_DISTANCE_M}. The target is updated from
+ * the frame thread with {@link #update} or {@link #setTarget}; the audio thread pulls interleaved
+ * 16-bit samples with {@link #render}, which allocates nothing. A new target is heard at the next
+ * rendered block, and a beep starts right away when the channel was silent.
+ */
+public class ToneGenerator {
+    public static final float MIN_DISTANCE_M = 0.3f;
+    public static final float MAX_DISTANCE_M = 3f;
+    public static final float NEAR_FREQUENCY_HZ = 1400f;
+    public static final float FAR_FREQUENCY_HZ = 440f;
+    public static final int NEAR_INTERVAL_MS = 120;
+    public static final int FAR_INTERVAL_MS = 900;
+    public static final int BEEP_MS = 60;
+
+    private static final int RAMP_MS = 5;       // sobe e desce o envelope sem estalos
+    private static final float PAN_SMOOTHING_MS = 20f;
+    private static final float AMPLITUDE = 0.5f * Short.MAX_VALUE;
+    private static final int TABLE_BITS = 10;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final float[] SINE = new float[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private final int sampleRate;
+    private final int beepSamples;
+    private final int rampSamples;
+    private final float panAlpha;
+
+    // Alvo, escrito pela thread dos frames
+    private volatile boolean active;
+    private volatile float targetPan;
+    private volatile float targetFrequency;
+    private volatile int targetIntervalSamples;
+
+    // Estado da síntese, só na thread de áudio
+    private float phase;           // em ciclos, 0..1
+    private float phaseStep;
+    private float pan;
+    private int position;          // amostras desde o início do bipe atual
+    private int interval;          // 0 = em silêncio, o próximo bipe começa imediatamente
+    private long renderedFrames;
+
+    public ToneGenerator(int sampleRate) {
+        this.sampleRate = sampleRate;
+        this.beepSamples = sampleRate * BEEP_MS / 1000;
+        this.rampSamples = Math.max(1, sampleRate * RAMP_MS / 1000);
+        this.panAlpha = (float) (1 - Math.exp(-1000.0 / (PAN_SMOOTHING_MS * sampleRate)));
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Follows the assessment of the current frame: the critical object, or a wall straight ahead.
+     */
+    public void update(RiskAssessment assessment) {
+        if (assessment == null || assessment.getRiskLevel() == RiskLevel.SAFE) {
+            silence();
+            return;
+        }
+        DetectedObject obj = assessment.getCriticalObject();
+        if (obj != null) {
+            setTarget(panForCenter(obj.getCenterX()), obj.getDistance());
+        } else {
+            setTarget(panForDirection(assessment.getDirection()), distanceFor(assessment.getRiskLevel()));
+        }
+    }
+
+    /**
+     * @param pan      -1 (left) .. 1 (right)
+     * @param distance metres; beyond {@link #MAX_DISTANCE_M}, or Float.MIN_VALUE, silences the channel
+     */
+    public void setTarget(float pan, float distance) {
+        if (!(distance > 0f) || distance == Float.MIN_VALUE || distance > MAX_DISTANCE_M) {
+            silence();
+            return;
+        }
+        targetPan = Math.max(-1f, Math.min(1f, pan));
+        targetFrequency = frequencyFor(distance);
+        targetIntervalSamples = (int) ((long) intervalMsFor(distance) * sampleRate / 1000);
+        active = true;
+    }
+
+    public void silence() {
+        active = false;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Frames rendered since construction.
+     */
+    public long getRenderedFrames() {
+        return renderedFrames;
+    }
+
+    /**
+     * Writes {@code frames} stereo frames (left, right) to {@code out} starting at {@code offset}.
+     */
+    public void render(short[] out, int offset, int frames) {
+        boolean on = active;
+        float goalPan = targetPan;
+        float frequency = targetFrequency;
+        int goalInterval = targetIntervalSamples;
+
+        if (on) {
+            if (interval == 0) {
+                // Saindo do silêncio: começa um bipe já, sem esperar o intervalo
+                position = 0;
+                pan = goalPan;
+                phaseStep = frequency / sampleRate;
+            }
+            interval = goalInterval;
+            // Aproximou: não espera o resto do intervalo antigo
+            if (position > interval) position = interval;
+        }
+
+        for (int i = 0; i < frames; i++) {
+            if (on && position >= interval) {
+                position = 0;
+                phaseStep = frequency / sampleRate; // frequência nova só no início do bipe
+            }
+            float sample = 0f;
+            if (position < beepSamples && interval > 0) {
+                float envelope = 1f;
+                if (position < rampSamples) {
+                    envelope = (float) position / rampSamples;
+                } else if (position > beepSamples - rampSamples) {
+                    envelope = (float) (beepSamples - position) / rampSamples;
+                }
+                sample = AMPLITUDE * envelope * sine(phase);
+                phase += phaseStep;
+                if (phase >= 1f) phase -= 1f;
+            }
+            if (interval > 0) {
+                position++;
+                // Desligado: termina o bipe atual e fica em silêncio
+                if (!on && position >= beepSamples) interval = 0;
+            }
+
+            pan += (goalPan - pan) * panAlpha;
+            // Pan de potência constante: a soma das energias dos dois canais não muda
+            float angle = (pan + 1f) * 0.125f; // 0..0.25 ciclo
+            float left = sample * sine(angle + 0.25f);
+            float right = sample * sine(angle);
+            out[offset++] = (short) left;
+            out[offset++] = (short) right;
+        }
+        renderedFrames += frames;
+    }
+
+    static float frequencyFor(float distance) {
+        // Interpolação logarítmica: passos iguais de distância soam como intervalos musicais iguais
+        float t = closeness(distance);
+        return (float) (FAR_FREQUENCY_HZ * Math.pow(NEAR_FREQUENCY_HZ / FAR_FREQUENCY_HZ, t));
+    }
+
+    static int intervalMsFor(float distance) {
+        float t = closeness(distance);
+        return Math.round(FAR_INTERVAL_MS + (NEAR_INTERVAL_MS - FAR_INTERVAL_MS) * t);
+    }
+
+    // Centro da caixa, 0..1 na imagem, para -1..1
+    static float panForCenter(float centerX) {
+        return Math.max(-1f, Math.min(1f, 2f * centerX - 1f));
+    }
+
+    static float panForDirection(String direction) {
+        if ("esquerda".equals(direction)) return -0.8f;
+        if ("direita".equals(direction)) return 0.8f;
+        return 0f;
+    }
+
+    // Sem objeto (parede): uma distância dentro da faixa do nível
+    static float distanceFor(RiskLevel level) {
+        switch (level) {
+            case CRITICAL: return 0.4f;
+            case HIGH: return 0.8f;
+            case MEDIUM: return 1.5f;
+            case LOW: return 2.5f;
+            default: return Float.MIN_VALUE;
+        }
+    }
+
+    // 0 longe .. 1 perto
+    private static float closeness(float distance) {
+        float d = Math.max(MIN_DISTANCE_M, Math.min(MAX_DISTANCE_M, distance));
+        return (MAX_DISTANCE_M - d) / (MAX_DISTANCE_M - MIN_DISTANCE_M);
+    }
+
+    // Seno por tabela com interpolação linear; x em ciclos, 0..1.25
+    private static float sine(float x) {
+        float index = x * TABLE_SIZE;
+        int i = (int) index;
+        if (i >= TABLE_SIZE) i -= TABLE_SIZE;
+        float frac = index - (int) index;
+        return SINE[i] + (SINE[i + 1] - SINE[i]) * frac;
+    }
+}
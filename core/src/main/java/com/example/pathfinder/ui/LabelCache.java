@@ -0,0 +1,94 @@
+package com.example.pathfinder.ui;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Overlay labels ("person: 1.3m (0.85)") keyed by class, distance rounded to
+ * {@link #DISTANCE_STEP_M} and confidence rounded to {@link #CONFIDENCE_STEP}. A label is
+ * formatted the first time its key shows up; after that the same String instance is returned
+ * without allocating. When the table fills up it is cleared and refilled lazily.
+ * Not thread safe.
+ */
+public class LabelCache {
+    public static final float DISTANCE_STEP_M = 0.1f;
+    public static final float CONFIDENCE_STEP = 0.05f;
+    private static final int MAX_DISTANCE_BIN = 0xFFFE;
+    private static final int NO_DISTANCE_BIN = 0xFFFF;
+    private static final long EMPTY = -1L;
+
+    private final long[] keys;
+    private final String[] labels;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+    private long misses;
+
+    /**
+     * @param capacity number of labels kept before the cache is cleared; rounded up to a power of two
+     */
+    public LabelCache(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) * 2;
+        keys = new long[tableSize];
+        labels = new String[tableSize];
+        mask = tableSize - 1;
+        maxSize = tableSize / 2;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @param distance metres, or {@code Float.MIN_VALUE} when no distance was measured
+     */
+    public String label(int cls, String className, float distance, float confidence) {
+        int distanceBin = distanceBin(distance);
+        int confidenceBin = Math.round(Math.max(0f, Math.min(1f, confidence)) / CONFIDENCE_STEP);
+        long key = ((long) (cls & 0x7FFFFFFF) << 32) | ((long) distanceBin << 16) | confidenceBin;
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return labels[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        misses++;
+        if (size >= maxSize) {
+            clear();
+            slot = hash(key) & mask;
+        }
+        String label = distanceBin == NO_DISTANCE_BIN
+                ? String.format(Locale.US, "%s: ? (%.2f)", className, confidenceBin * CONFIDENCE_STEP)
+                : String.format(Locale.US, "%s: %.1fm (%.2f)", className, distanceBin * DISTANCE_STEP_M,
+                        confidenceBin * CONFIDENCE_STEP);
+        keys[slot] = key;
+        labels[slot] = label;
+        size++;
+        return label;
+    }
+
+    /**
+     * Labels formatted so far (cache misses).
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(labels, null);
+        size = 0;
+    }
+
+    private static int distanceBin(float distance) {
+        if (distance == Float.MIN_VALUE || !(distance >= 0f)) return NO_DISTANCE_BIN;
+        return Math.min(MAX_DISTANCE_BIN, Math.round(distance / DISTANCE_STEP_M));
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.pathfinder.ui;
+
+import java.util.Arrays;
+
+/**
+ * What the overlay draws on one frame: boxes in normalized view coordinates and their labels.
+ * Coordinates are rounded to {@link #GRID} so that sub-pixel jitter does not count as a change
+ * in {@link #contentEquals}. Instances are reused; the arrays grow only when more boxes show up
+ * than ever before.
+ */
+public class OverlaySnapshot {
+    public static final float GRID = 1f / 1024f;
+    private static final int STRIDE = 4;
+
+    public int count;
+    public float[] rects = new float[16 * STRIDE]; // x1, y1, x2, y2 por caixa
+    public String[] labels = new String[16];
+
+    public void clear() {
+        count = 0;
+    }
+
+    public void add(float x1, float y1, float x2, float y2, String label) {
+        if (count == labels.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+            labels = Arrays.copyOf(labels, labels.length * 2);
+        }
+        int o = count * STRIDE;
+        rects[o] = quantize(x1);
+        rects[o + 1] = quantize(y1);
+        rects[o + 2] = quantize(x2);
+        rects[o + 3] = quantize(y2);
+        labels[count] = label;
+        count++;
+    }
+
+    public float x1(int i) { return rects[i * STRIDE]; }
+    public float y1(int i) { return rects[i * STRIDE + 1]; }
+    public float x2(int i) { return rects[i * STRIDE + 2]; }
+    public float y2(int i) { return rects[i * STRIDE + 3]; }
+
+    /**
+     * Same boxes in the same order, with the same labels. Labels are compared by reference,
+     * which is enough when they come from a {@link LabelCache}.
+     */
+    public boolean contentEquals(OverlaySnapshot other) {
+        if (count != other.count) return false;
+        for (int i = 0; i < count; i++) {
+            if (labels[i] != other.labels[i]) return false;
+        }
+        for (int i = 0, n = count * STRIDE; i < n; i++) {
+            if (rects[i] != other.rects[i]) return false;
+        }
+        return true;
+    }
+
+    public void copyFrom(OverlaySnapshot other) {
+        if (labels.length < other.count) {
+            rects = new float[other.rects.length];
+            labels = new String[other.labels.length];
+        }
+        System.arraycopy(other.rects, 0, rects, 0, other.count * STRIDE);
+        System.arraycopy(other.labels, 0, labels, 0, other.count);
+        // Não segura rótulos antigos além do necessário
+        Arrays.fill(labels, other.count, Math.max(other.count, count), null);
+        count = other.count;
+    }
+
+    private static float quantize(float v) {
+        return Math.round(v / GRID) * GRID;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.pathfinder.ui;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free hand-off of the latest value from one producer thread to one consumer thread.
+ * The producer fills {@link #back()} and {@link #publish}es it; the consumer picks up the newest
+ * published value with {@link #acquire()}. Neither side waits for the other, and values the
+ * consumer did not get to in time are simply overwritten. The three instances are created once
+ * and reused.
+ */
+public final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4; // o buffer do meio ainda não foi visto pelo consumidor
+
+    private final Object[] buffers = new Object[3];
+    // Índice do buffer do meio, trocado atomicamente com o do produtor ou do consumidor
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // só o produtor
+    private int front = 2; // só o consumidor
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * Producer: the instance to fill next. Not visible to the consumer until published.
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Producer: makes the back instance the newest value and gets a new back instance.
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Consumer: swaps in the newest published value, if there is one.
+     * @return false when nothing was published since the last call; {@link #front()} is unchanged
+     */
+    public boolean acquire() {
+        if ((middle.get() & FRESH) == 0) return false;
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Consumer: the value returned by the last successful {@link #acquire()}.
+     */
+    @SuppressWarnings("unchecked")
+    public T front() {
+        return (T) buffers[front];
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.pathfinder.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Copy of the three planes of a YUV_420_888 image, kept in plain arrays so the
+ * camera {@code Image} can be closed right away. The arrays are reused between frames
+ * and only grow when a bigger image arrives.
+ */
+public class YuvFrame {
+    public int width, height;
+    public int yRowStride, yPixelStride;
+    public int uvRowStride, uvPixelStride;
+    public long timestampNs;
+
+    public byte[] y = new byte[0];
+    public byte[] u = new byte[0];
+    public byte[] v = new byte[0];
+
+    /**
+     * Copies the planes into this frame. The buffers' positions are left untouched.
+     */
+    public void set(int width, int height,
+                    ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                    ByteBuffer uPlane, ByteBuffer vPlane, int uvRowStride, int uvPixelStride) {
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.yPixelStride = yPixelStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+
+        y = copyPlane(yPlane, y);
+        u = copyPlane(uPlane, u);
+        v = copyPlane(vPlane, v);
+    }
+
+    /**
+     * Copies another frame into this one, reusing this frame's arrays.
+     */
+    public void copyFrom(YuvFrame other) {
+        width = other.width;
+        height = other.height;
+        yRowStride = other.yRowStride;
+        yPixelStride = other.yPixelStride;
+        uvRowStride = other.uvRowStride;
+        uvPixelStride = other.uvPixelStride;
+        timestampNs = other.timestampNs;
+
+        y = copyArray(other.y, y);
+        u = copyArray(other.u, u);
+        v = copyArray(other.v, v);
+    }
+
+    private static byte[] copyPlane(ByteBuffer plane, byte[] dst) {
+        int size = plane.remaining();
+        if (dst.length < size) {
+            dst = new byte[size];
+        }
+        int position = plane.position();
+        plane.get(dst, 0, size);
+        plane.position(position);
+        return dst;
+    }
+
+    private static byte[] copyArray(byte[] src, byte[] dst) {
+        if (dst.length < src.length) {
+            dst = new byte[src.length];
+        }
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+}
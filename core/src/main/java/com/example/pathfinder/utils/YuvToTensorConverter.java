@@ -0,0 +1,355 @@
+package com.example.pathfinder.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Converts a YUV_420_888 frame straight into a model input tensor ([1, H, W, 3], RGB, FLOAT32 or
+ * quantized UINT8/INT8). Rotation, resize, normalization and quantization are done in one pass
+ * over the output pixels, so no intermediate NV21/JPEG/Bitmap copies are created. The output
+ * buffer is allocated once and reused for every frame.
+ */
+public class YuvToTensorConverter {
+
+    public enum Interpolation {
+        NEAREST,
+        BILINEAR
+    }
+
+    public enum OutputType {
+        FLOAT32(4),
+        UINT8(1),
+        INT8(1);
+
+        final int bytesPerValue;
+
+        OutputType(int bytesPerValue) {
+            this.bytesPerValue = bytesPerValue;
+        }
+    }
+
+    private final int outputWidth;
+    private final int outputHeight;
+    private final int rotationDegrees;
+    private final Interpolation interpolation;
+    private final float scale;
+    private final float offset;
+    private final OutputType outputType;
+    private final int minQuantized;
+    private final int maxQuantized;
+
+    private final ByteBuffer output;
+
+    // Lookup tables per output column/row. Each output axis maps onto exactly one source axis,
+    // so a source sample index is always colOffset[dx] + rowOffset[dy].
+    private final AxisMap columns;
+    private final AxisMap rows;
+
+    // Região da imagem (já rotacionada, normalizada 0..1) que vai para o tensor
+    private float cropLeft = 0f, cropTop = 0f, cropRight = 1f, cropBottom = 1f;
+
+    // Frame geometry the tables were built for
+    private int tableWidth = -1, tableHeight = -1;
+    private int tableYRowStride, tableYPixelStride, tableUvRowStride, tableUvPixelStride;
+    private float tableCropLeft, tableCropTop, tableCropRight, tableCropBottom;
+
+    /**
+     * @param outputWidth     width of the model input
+     * @param outputHeight    height of the model input
+     * @param rotationDegrees clockwise rotation applied to the camera image (0, 90, 180 or 270)
+     * @param interpolation   sampling used when resizing
+     * @param mean            value subtracted from every channel (0..255 range)
+     * @param std             value every channel is divided by after subtracting the mean
+     */
+    public YuvToTensorConverter(int outputWidth, int outputHeight, int rotationDegrees,
+                                Interpolation interpolation, float mean, float std) {
+        this(outputWidth, outputHeight, rotationDegrees, interpolation, mean, std, OutputType.FLOAT32, 1f, 0);
+    }
+
+    /**
+     * Converter for quantized models: the normalized value {@code x} is written as
+     * {@code round(x / quantScale) + quantZeroPoint}, clamped to the range of {@code outputType}.
+     * For FLOAT32 the quantization parameters are ignored.
+     */
+    public YuvToTensorConverter(int outputWidth, int outputHeight, int rotationDegrees,
+                                Interpolation interpolation, float mean, float std,
+                                OutputType outputType, float quantScale, int quantZeroPoint) {
+        if (rotationDegrees % 90 != 0) {
+            throw new IllegalArgumentException("Rotation must be a multiple of 90: " + rotationDegrees);
+        }
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        this.rotationDegrees = ((rotationDegrees % 360) + 360) % 360;
+        this.interpolation = interpolation;
+        this.outputType = outputType;
+        if (outputType == OutputType.FLOAT32) {
+            this.scale = 1f / std;
+            this.offset = -mean / std;
+        } else {
+            // Normalização e quantização juntas: q = v * scale + offset (+0.5 para arredondar)
+            this.scale = 1f / (std * quantScale);
+            this.offset = -mean / (std * quantScale) + quantZeroPoint + 0.5f;
+        }
+        this.minQuantized = outputType == OutputType.INT8 ? -128 : 0;
+        this.maxQuantized = outputType == OutputType.INT8 ? 127 : 255;
+
+        this.output = allocateOutputBuffer();
+        this.columns = new AxisMap(outputWidth);
+        this.rows = new AxisMap(outputHeight);
+    }
+
+    /**
+     * Allocates a direct buffer with the size and byte order of the input tensor.
+     */
+    public ByteBuffer allocateOutputBuffer() {
+        return ByteBuffer.allocateDirect(outputWidth * outputHeight * 3 * outputType.bytesPerValue)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Converts the frame into the converter's own reusable buffer.
+     * @return the buffer, rewound and ready to be passed to the interpreter.
+     */
+    public ByteBuffer convert(YuvFrame frame) {
+        convert(frame, output);
+        return output;
+    }
+
+    /**
+     * Converts the frame into {@code dst}, which must hold at least one full input tensor.
+     */
+    public void convert(YuvFrame frame, ByteBuffer dst) {
+        if (dst.capacity() < outputWidth * outputHeight * 3 * outputType.bytesPerValue) {
+            throw new IllegalArgumentException("Output buffer too small: " + dst.capacity());
+        }
+        ensureTables(frame);
+
+        final byte[] yData = frame.y;
+        final byte[] uData = frame.u;
+        final byte[] vData = frame.v;
+        final boolean bilinear = interpolation == Interpolation.BILINEAR;
+        final boolean quantized = outputType != OutputType.FLOAT32;
+
+        int outIndex = 0;
+        for (int dy = 0; dy < outputHeight; dy++) {
+            final int rowY0 = rows.luma0[dy];
+            final int rowY1 = rows.luma1[dy];
+            final float rowWy = rows.lumaWeight[dy];
+            final int rowC0 = rows.chroma0[dy];
+            final int rowC1 = rows.chroma1[dy];
+            final float rowWc = rows.chromaWeight[dy];
+
+            for (int dx = 0; dx < outputWidth; dx++) {
+                float yValue, uValue, vValue;
+                if (bilinear) {
+                    yValue = sample(yData, rowY0, rowY1, rowWy,
+                            columns.luma0[dx], columns.luma1[dx], columns.lumaWeight[dx]);
+                    uValue = sample(uData, rowC0, rowC1, rowWc,
+                            columns.chroma0[dx], columns.chroma1[dx], columns.chromaWeight[dx]);
+                    vValue = sample(vData, rowC0, rowC1, rowWc,
+                            columns.chroma0[dx], columns.chroma1[dx], columns.chromaWeight[dx]);
+                } else {
+                    yValue = yData[rowY0 + columns.luma0[dx]] & 0xFF;
+                    int chromaIndex = rowC0 + columns.chroma0[dx];
+                    uValue = uData[chromaIndex] & 0xFF;
+                    vValue = vData[chromaIndex] & 0xFF;
+                }
+
+                // BT.601 full range, same as the JPEG (JFIF) round trip used before
+                float cb = uValue - 128f;
+                float cr = vValue - 128f;
+                float r = clamp(yValue + 1.402f * cr);
+                float g = clamp(yValue - 0.344136f * cb - 0.714136f * cr);
+                float b = clamp(yValue + 1.772f * cb);
+
+                outIndex = write(dst, outIndex, quantized, r, g, b);
+            }
+        }
+        dst.rewind();
+    }
+
+    /**
+     * Writes packed ARGB pixels ({@code Bitmap.getPixels} of an image already rotated and resized
+     * to the output size) into {@code dst}, with the same normalization and quantization as the
+     * YUV conversion. Rotation, resize and crop are not applied. This keeps the Bitmap input path
+     * valid for quantized models, INT8 included.
+     */
+    public void convertArgb(int[] pixels, ByteBuffer dst) {
+        int count = outputWidth * outputHeight;
+        if (pixels.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " pixels, got " + pixels.length);
+        }
+        if (dst.capacity() < count * 3 * outputType.bytesPerValue) {
+            throw new IllegalArgumentException("Output buffer too small: " + dst.capacity());
+        }
+        final boolean quantized = outputType != OutputType.FLOAT32;
+        int outIndex = 0;
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[i];
+            outIndex = write(dst, outIndex, quantized,
+                    (pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+        }
+        dst.rewind();
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    public OutputType getOutputType() {
+        return outputType;
+    }
+
+    /**
+     * Restricts the conversion to a region of the rotated image, in normalized coordinates of the
+     * rotated frame (the same space as the detected boxes). The region is stretched to the full
+     * output, so a small region is sampled at up to the camera's native resolution.
+     */
+    public void setCrop(float left, float top, float right, float bottom) {
+        if (!(left >= 0f && top >= 0f && right <= 1f && bottom <= 1f && left < right && top < bottom)) {
+            throw new IllegalArgumentException("Invalid crop: " + left + ", " + top + ", " + right + ", " + bottom);
+        }
+        cropLeft = left;
+        cropTop = top;
+        cropRight = right;
+        cropBottom = bottom;
+    }
+
+    public void clearCrop() {
+        setCrop(0f, 0f, 1f, 1f);
+    }
+
+    // Um pixel RGB (0..255) normalizado, e quantizado se for o caso; devolve o próximo índice
+    private int write(ByteBuffer dst, int outIndex, boolean quantized, float r, float g, float b) {
+        if (quantized) {
+            dst.put(outIndex, quantize(r));
+            dst.put(outIndex + 1, quantize(g));
+            dst.put(outIndex + 2, quantize(b));
+            return outIndex + 3;
+        }
+        dst.putFloat(outIndex, r * scale + offset);
+        dst.putFloat(outIndex + 4, g * scale + offset);
+        dst.putFloat(outIndex + 8, b * scale + offset);
+        return outIndex + 12;
+    }
+
+    private byte quantize(float value) {
+        int q = (int) Math.floor(value * scale + offset);
+        if (q < minQuantized) q = minQuantized;
+        if (q > maxQuantized) q = maxQuantized;
+        return (byte) q;
+    }
+
+    private static float sample(byte[] data, int row0, int row1, float rowWeight,
+                                int col0, int col1, float colWeight) {
+        float top = lerp(data[row0 + col0] & 0xFF, data[row0 + col1] & 0xFF, colWeight);
+        float bottom = lerp(data[row1 + col0] & 0xFF, data[row1 + col1] & 0xFF, colWeight);
+        return lerp(top, bottom, rowWeight);
+    }
+
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+
+    private static float clamp(float value) {
+        return value < 0f ? 0f : (value > 255f ? 255f : value);
+    }
+
+    private void ensureTables(YuvFrame frame) {
+        if (frame.width == tableWidth && frame.height == tableHeight
+                && frame.yRowStride == tableYRowStride && frame.yPixelStride == tableYPixelStride
+                && frame.uvRowStride == tableUvRowStride && frame.uvPixelStride == tableUvPixelStride
+                && cropLeft == tableCropLeft && cropTop == tableCropTop
+                && cropRight == tableCropRight && cropBottom == tableCropBottom) {
+            return;
+        }
+
+        // Output columns follow the source X axis for 0/180 and the source Y axis for 90/270
+        boolean swapAxes = rotationDegrees == 90 || rotationDegrees == 270;
+        boolean flipColumns = rotationDegrees == 90 || rotationDegrees == 180;
+        boolean flipRows = rotationDegrees == 180 || rotationDegrees == 270;
+
+        if (swapAxes) {
+            columns.build(frame.height, cropLeft, cropRight, flipColumns, frame.yRowStride, frame.uvRowStride, interpolation);
+            rows.build(frame.width, cropTop, cropBottom, flipRows, frame.yPixelStride, frame.uvPixelStride, interpolation);
+        } else {
+            columns.build(frame.width, cropLeft, cropRight, flipColumns, frame.yPixelStride, frame.uvPixelStride, interpolation);
+            rows.build(frame.height, cropTop, cropBottom, flipRows, frame.yRowStride, frame.uvRowStride, interpolation);
+        }
+
+        tableWidth = frame.width;
+        tableHeight = frame.height;
+        tableYRowStride = frame.yRowStride;
+        tableYPixelStride = frame.yPixelStride;
+        tableUvRowStride = frame.uvRowStride;
+        tableUvPixelStride = frame.uvPixelStride;
+        tableCropLeft = cropLeft;
+        tableCropTop = cropTop;
+        tableCropRight = cropRight;
+        tableCropBottom = cropBottom;
+    }
+
+    // Source taps (already multiplied by the plane strides) for every index of one output axis
+    private static final class AxisMap {
+        final int length;
+        final int[] luma0, luma1, chroma0, chroma1;
+        final float[] lumaWeight, chromaWeight;
+
+        AxisMap(int length) {
+            this.length = length;
+            luma0 = new int[length];
+            luma1 = new int[length];
+            chroma0 = new int[length];
+            chroma1 = new int[length];
+            lumaWeight = new float[length];
+            chromaWeight = new float[length];
+        }
+
+        // cropStart/cropEnd are fractions along the output axis, before the flip
+        void build(int sourceLength, float cropStart, float cropEnd, boolean flip, int lumaStride,
+                   int chromaStride, Interpolation interpolation) {
+            int chromaLength = (sourceLength + 1) / 2;
+            int first = Math.round(cropStart * sourceLength);
+            int span = Math.max(1, Math.round(cropEnd * sourceLength) - first);
+
+            for (int d = 0; d < length; d++) {
+                if (interpolation == Interpolation.NEAREST) {
+                    // Sample at the pixel centre, same as Bitmap.createScaledBitmap(..., false)
+                    int s = first + (int) (((2L * d + 1) * span) / (2L * length));
+                    if (s > sourceLength - 1) s = sourceLength - 1;
+                    if (flip) s = sourceLength - 1 - s;
+
+                    luma0[d] = luma1[d] = s * lumaStride;
+                    chroma0[d] = chroma1[d] = (s >> 1) * chromaStride;
+                    lumaWeight[d] = chromaWeight[d] = 0f;
+                } else {
+                    float f = first + (d + 0.5f) * span / length - 0.5f;
+                    f = Math.max(0f, Math.min(f, sourceLength - 1));
+                    if (flip) f = sourceLength - 1 - f;
+
+                    int s0 = (int) f;
+                    int s1 = Math.min(s0 + 1, sourceLength - 1);
+                    luma0[d] = s0 * lumaStride;
+                    luma1[d] = s1 * lumaStride;
+                    lumaWeight[d] = f - s0;
+
+                    float fc = (f + 0.5f) / 2f - 0.5f;
+                    fc = Math.max(0f, Math.min(fc, chromaLength - 1));
+                    int c0 = (int) fc;
+                    int c1 = Math.min(c0 + 1, chromaLength - 1);
+                    chroma0[d] = c0 * chromaStride;
+                    chroma1[d] = c1 * chromaStride;
+                    chromaWeight[d] = fc - c0;
+                }
+            }
+        }
+    }
+}
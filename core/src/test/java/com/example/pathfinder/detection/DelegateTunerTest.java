@@ -0,0 +1,131 @@
+package com.example.pathfinder.detection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DelegateTunerTest {
+
+    private File cacheFile;
+    private final ByteBuffer input = ByteBuffer.allocate(16);
+    private final ByteBuffer output = ByteBuffer.allocate(16);
+
+    // CPU-only fake: latency depends on the thread count, NNAPI fails like on an old device
+    private static final class FakeFactory implements DelegateTuner.EngineFactory {
+        final List<DelegateConfig> opened = new ArrayList<>();
+        int closed = 0;
+
+        @Override
+        public InferenceEngine open(DelegateConfig config) throws Exception {
+            if (config.backend == DelegateConfig.Backend.NNAPI) {
+                throw new IllegalStateException("NNAPI not available");
+            }
+            opened.add(config);
+            // 2 threads is the sweet spot, 4 threads pays for synchronization
+            long sleepMs = config.numThreads == 2 ? 2 : 15;
+            return (in, out) -> {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+
+        @Override
+        public void close(InferenceEngine engine) {
+            closed++;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        File dir = Files.createTempDirectory("tuner").toFile();
+        cacheFile = new File(dir, "delegate_tuning.properties");
+    }
+
+    private static List<DelegateConfig> cpuCandidates() {
+        return Arrays.asList(DelegateConfig.cpu(1), DelegateConfig.cpu(2), DelegateConfig.cpu(4), DelegateConfig.nnapi());
+    }
+
+    @Test
+    public void select_picksFastestAndSkipsFailingCandidates() {
+        FakeFactory factory = new FakeFactory();
+        DelegateTuner tuner = new DelegateTuner(cacheFile, 1, 3);
+
+        DelegateTuner.Result result = tuner.select("model|device", cpuCandidates(), factory, input, output);
+
+        assertEquals(DelegateConfig.cpu(2), result.config);
+        assertFalse(result.fromCache);
+        assertEquals(3, factory.opened.size());
+        assertEquals(3, factory.closed);
+        assertTrue(Double.isNaN(tuner.getLastTimesMs()[3]));
+    }
+
+    @Test
+    public void select_secondLaunchUsesCacheWithoutBenchmark() {
+        new DelegateTuner(cacheFile, 1, 3).select("model|device", cpuCandidates(), new FakeFactory(), input, output);
+
+        FakeFactory factory = new FakeFactory();
+        DelegateTuner.Result result = new DelegateTuner(cacheFile, 1, 3)
+                .select("model|device", cpuCandidates(), factory, input, output);
+
+        assertTrue(result.fromCache);
+        assertEquals(DelegateConfig.cpu(2), result.config);
+        assertTrue(factory.opened.isEmpty());
+    }
+
+    @Test
+    public void select_differentKeyOrMissingCandidate_benchmarksAgain() {
+        new DelegateTuner(cacheFile, 0, 3).select("model|device", cpuCandidates(), new FakeFactory(), input, output);
+
+        FakeFactory otherModel = new FakeFactory();
+        new DelegateTuner(cacheFile, 0, 3).select("other|device", cpuCandidates(), otherModel, input, output);
+        assertFalse(otherModel.opened.isEmpty());
+
+        // Cached CPU:2 is no longer offered (e.g. fewer cores), so it must not be reused
+        FakeFactory fewerCores = new FakeFactory();
+        DelegateTuner.Result result = new DelegateTuner(cacheFile, 0, 3).select("model|device",
+                Arrays.asList(DelegateConfig.cpu(1), DelegateConfig.cpu(4)), fewerCores, input, output);
+        assertFalse(result.fromCache);
+        assertEquals(2, fewerCores.opened.size());
+    }
+
+    @Test
+    public void select_allCandidatesFail_returnsNullAndCachesNothing() {
+        DelegateTuner tuner = new DelegateTuner(cacheFile, 0, 3);
+        DelegateTuner.Result result = tuner.select("model|device",
+                Arrays.asList(DelegateConfig.nnapi()), new FakeFactory(), input, output);
+
+        assertNull(result);
+        assertFalse(cacheFile.exists());
+    }
+
+    @Test
+    public void corruptCache_isIgnored() throws IOException {
+        Files.write(cacheFile.toPath(), "model|device=\\u12".getBytes());
+
+        DelegateTuner.Result result = new DelegateTuner(cacheFile, 0, 3)
+                .select("model|device", cpuCandidates(), new FakeFactory(), input, output);
+
+        assertEquals(DelegateConfig.cpu(2), result.config);
+    }
+
+    @Test
+    public void config_roundTripsThroughText() {
+        for (DelegateConfig config : Arrays.asList(DelegateConfig.cpu(3), DelegateConfig.nnapi(), DelegateConfig.gpu())) {
+            assertEquals(config, DelegateConfig.parse(config.toString()));
+        }
+        assertNull(DelegateConfig.parse("CPU:x"));
+        assertNull(DelegateConfig.parse("TPU"));
+    }
+}
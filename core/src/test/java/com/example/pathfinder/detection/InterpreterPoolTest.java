@@ -0,0 +1,205 @@
+package com.example.pathfinder.detection;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InterpreterPoolTest {
+
+    // CPU-bound stand-in for one interpreter: a fixed amount of arithmetic per frame
+    private static final class BusyEngine implements InferenceEngine {
+        private final int workPerFrame;
+        volatile long sink;
+
+        BusyEngine(int workPerFrame) {
+            this.workPerFrame = workPerFrame;
+        }
+
+        @Override
+        public void run(ByteBuffer input, ByteBuffer output) {
+            long acc = input.getInt(0);
+            for (int i = 0; i < workPerFrame; i++) {
+                acc = acc * 6364136223846793005L + 1442695040888963407L;
+            }
+            sink = acc;
+            // The "output" of the model is just the frame id, so results can be matched to inputs
+            output.putInt(0, input.getInt(0));
+        }
+    }
+
+    private static final class Result {
+        final int sequence;
+        final int output;
+        final boolean success;
+
+        Result(int sequence, int output, boolean success) {
+            this.sequence = sequence;
+            this.output = output;
+            this.success = success;
+        }
+    }
+
+    private static List<Result> runFrames(InferenceEngine[] engines, int frames) throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        InterpreterPool<Integer> pool = new InterpreterPool<>(engines, (tag, input, output, success) -> {
+            synchronized (results) {
+                results.add(new Result(tag, output.getInt(0), success));
+                results.notifyAll();
+            }
+        });
+        try {
+            ByteBuffer[] inputs = new ByteBuffer[pool.capacity()];
+            ByteBuffer[] outputs = new ByteBuffer[pool.capacity()];
+            for (int i = 0; i < pool.capacity(); i++) {
+                inputs[i] = ByteBuffer.allocate(4);
+                outputs[i] = ByteBuffer.allocate(4);
+            }
+            for (int seq = 0; seq < frames; seq++) {
+                // Buffers are recycled round-robin; the pool never holds more than capacity() frames
+                int slot = seq % pool.capacity();
+                synchronized (results) {
+                    while (seq - results.size() >= pool.capacity()) {
+                        results.wait();
+                    }
+                }
+                inputs[slot].putInt(0, seq);
+                assertTrue(pool.submit(seq, inputs[slot], outputs[slot]));
+            }
+            synchronized (results) {
+                long deadline = System.currentTimeMillis() + 30_000;
+                while (results.size() < frames && System.currentTimeMillis() < deadline) {
+                    results.wait(100);
+                }
+            }
+        } finally {
+            pool.close();
+        }
+        return results;
+    }
+
+    private static InferenceEngine[] busyEngines(int count, int workPerFrame) {
+        InferenceEngine[] engines = new InferenceEngine[count];
+        for (int i = 0; i < count; i++) {
+            engines[i] = new BusyEngine(workPerFrame);
+        }
+        return engines;
+    }
+
+    @Test
+    public void results_areDeliveredInSubmissionOrder() throws InterruptedException {
+        // Engines with very different speeds finish out of order
+        AtomicInteger calls = new AtomicInteger();
+        InferenceEngine uneven = (input, output) -> {
+            if (calls.incrementAndGet() % 3 == 0) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            output.putInt(0, input.getInt(0));
+        };
+        InferenceEngine[] engines = {uneven, uneven, uneven};
+
+        List<Result> results = runFrames(engines, 200);
+
+        assertEquals(200, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).sequence);
+            assertEquals(i, results.get(i).output);
+            assertTrue(results.get(i).success);
+        }
+    }
+
+    @Test
+    public void failingEngine_reportsFailureWithoutStallingOthers() throws InterruptedException {
+        InferenceEngine failsOnOdd = (input, output) -> {
+            if (input.getInt(0) % 2 == 1) throw new IllegalStateException("boom");
+            output.putInt(0, input.getInt(0));
+        };
+
+        List<Result> results = runFrames(new InferenceEngine[]{failsOnOdd, failsOnOdd}, 50);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).sequence);
+            assertEquals(i % 2 == 0, results.get(i).success);
+        }
+    }
+
+    @Test
+    public void activeEngineLimit_capsConcurrentInference() throws InterruptedException {
+        AtomicInteger runningNow = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        InferenceEngine slow = (input, output) -> {
+            int now = runningNow.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            runningNow.decrementAndGet();
+            output.putInt(0, input.getInt(0));
+        };
+        AtomicInteger delivered = new AtomicInteger();
+        InterpreterPool<Integer> pool = new InterpreterPool<>(new InferenceEngine[]{slow, slow, slow},
+                (tag, input, output, success) -> {
+                    synchronized (delivered) {
+                        delivered.incrementAndGet();
+                        delivered.notifyAll();
+                    }
+                });
+        try {
+            pool.setActiveEngines(1);
+            assertEquals(1, pool.getActiveEngines());
+            submitAndWait(pool, delivered, 40);
+            assertEquals(1, maxRunning.get());
+
+            // De volta a todos: os motores reservados voltam a receber frames
+            pool.setActiveEngines(10);
+            assertEquals(3, pool.getActiveEngines());
+            submitAndWait(pool, delivered, 40);
+            assertTrue("max running " + maxRunning.get(), maxRunning.get() > 1);
+        } finally {
+            pool.close();
+        }
+    }
+
+    private static void submitAndWait(InterpreterPool<Integer> pool, AtomicInteger delivered, int frames)
+            throws InterruptedException {
+        int target = delivered.get() + frames;
+        for (int i = 0; i < frames; i++) {
+            // Um buffer por frame: este teste não olha as saídas
+            assertTrue(pool.submit(i, ByteBuffer.allocate(4), ByteBuffer.allocate(4)));
+        }
+        synchronized (delivered) {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (delivered.get() < target && System.currentTimeMillis() < deadline) {
+                delivered.wait(100);
+            }
+        }
+        assertEquals(target, delivered.get());
+    }
+
+    @Test
+    public void cpuOnly_everyPoolSizeDeliversAllFramesInOrder() throws InterruptedException {
+        // Só correção aqui; a vazão por tamanho de pool fica no InterpreterPoolBenchmark
+        final int frames = 60;
+        for (int size : new int[]{1, 2, 4}) {
+            List<Result> results = runFrames(busyEngines(size, 100_000), frames);
+
+            assertEquals("pool of " + size, frames, results.size());
+            for (int i = 0; i < frames; i++) {
+                assertEquals("pool of " + size, i, results.get(i).sequence);
+                assertEquals("pool of " + size, i, results.get(i).output);
+                assertTrue("pool of " + size, results.get(i).success);
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.pathfinder.detection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks NonMaxSuppression against the list based NMS that YoloBase used before.
+ */
+public class NonMaxSuppressionTest {
+    private static final float IOU = 0.4f;
+
+    @Test
+    public void classAgnostic_matchesListImplementation() {
+        for (int n : new int[]{0, 1, 50, 500, 2000}) {
+            DetectionCandidates boxes = randomCandidates(new Random(n), n, 10);
+            NonMaxSuppression nms = new NonMaxSuppression(IOU);
+
+            assertArrayEquals("n=" + n, legacy(boxes, allIndices(boxes), IOU), run(nms, boxes));
+        }
+    }
+
+    @Test
+    public void spatialGrid_givesSameResult() {
+        for (int seed = 0; seed < 5; seed++) {
+            DetectionCandidates boxes = randomCandidates(new Random(seed), 3000, 5);
+            NonMaxSuppression plain = new NonMaxSuppression(IOU);
+            NonMaxSuppression grid = new NonMaxSuppression(IOU);
+            grid.setSpatialGrid(NonMaxSuppression.DEFAULT_GRID_SIZE, 0);
+
+            int[] expected = legacy(boxes, allIndices(boxes), IOU);
+            assertArrayEquals(expected, run(plain, boxes));
+            assertArrayEquals(expected, run(grid, boxes));
+        }
+    }
+
+    @Test
+    public void postProcessorDefaults_matchListImplementation() {
+        // Mais candidatos que NMS_GRID_MIN_CANDIDATES (grade ligada) e que MAX_NMS_CANDIDATES
+        for (int seed = 0; seed < 3; seed++) {
+            DetectionCandidates boxes = randomCandidates(new Random(seed), 3000, 5);
+            NonMaxSuppression nms = new YoloPostProcessor(Arrays.asList("a", "b", "c", "d", "e"), 0.3f, IOU).getNms();
+
+            assertArrayEquals("seed " + seed, legacy(boxes, allIndices(boxes), IOU), run(nms, boxes));
+        }
+    }
+
+    @Test
+    public void classAware_matchesListImplementationPerClass() {
+        DetectionCandidates boxes = randomCandidates(new Random(11), 800, 4);
+        NonMaxSuppression nms = new NonMaxSuppression(IOU);
+        nms.setClassAware(true);
+        nms.setSpatialGrid(8, 0);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int cls = 0; cls < 4; cls++) {
+            for (int i : legacy(boxes, indicesOfClass(boxes, cls), IOU)) expected.add(i);
+        }
+        assertArrayEquals(sortByScore(boxes, expected), run(nms, boxes));
+    }
+
+    @Test
+    public void topK_onlyConsidersBestCandidates() {
+        DetectionCandidates boxes = randomCandidates(new Random(5), 1000, 10);
+        NonMaxSuppression nms = new NonMaxSuppression(IOU);
+        nms.setTopK(100);
+
+        List<Integer> all = new ArrayList<>();
+        for (int i : allIndices(boxes)) all.add(i);
+        int[] best = Arrays.copyOf(sortByScore(boxes, all), 100);
+
+        assertArrayEquals(legacy(boxes, best, IOU), run(nms, boxes));
+    }
+
+    @Test
+    public void classConfidenceThresholds_dropLowScores() {
+        DetectionCandidates boxes = randomCandidates(new Random(9), 600, 3);
+        float[] thresholds = {0.5f, 0.8f, 0.0f};
+        NonMaxSuppression nms = new NonMaxSuppression(IOU);
+        nms.setClassConfidenceThresholds(thresholds);
+
+        List<Integer> eligible = new ArrayList<>();
+        for (int i = 0; i < boxes.count; i++) {
+            if (boxes.score[i] >= thresholds[boxes.cls[i]]) eligible.add(i);
+        }
+        int[] kept = run(nms, boxes);
+
+        assertArrayEquals(legacy(boxes, toArray(eligible), IOU), kept);
+        for (int i : kept) {
+            assertTrue(boxes.score[i] >= thresholds[boxes.cls[i]]);
+        }
+    }
+
+    @Test
+    public void classIouThresholds_areUsedPerClass() {
+        DetectionCandidates boxes = randomCandidates(new Random(21), 900, 2);
+        float[] thresholds = {0.2f, 0.7f};
+        NonMaxSuppression nms = new NonMaxSuppression(IOU);
+        nms.setClassAware(true);
+        nms.setClassIouThresholds(thresholds);
+        nms.setSpatialGrid(NonMaxSuppression.DEFAULT_GRID_SIZE, 0);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int cls = 0; cls < 2; cls++) {
+            for (int i : legacy(boxes, indicesOfClass(boxes, cls), thresholds[cls])) expected.add(i);
+        }
+        assertArrayEquals(sortByScore(boxes, expected), run(nms, boxes));
+    }
+
+    @Test
+    public void zeroIouThreshold_keepsOnlyBestBox() {
+        DetectionCandidates boxes = randomCandidates(new Random(1), 200, 3);
+        NonMaxSuppression nms = new NonMaxSuppression(0f);
+        nms.setSpatialGrid(NonMaxSuppression.DEFAULT_GRID_SIZE, 0);
+
+        assertArrayEquals(legacy(boxes, allIndices(boxes), 0f), run(nms, boxes));
+        assertEquals(1, run(nms, boxes).length);
+    }
+
+    // Clusters of overlapping boxes; scores are rounded so that ties happen
+    static DetectionCandidates randomCandidates(Random random, int n, int numClasses) {
+        DetectionCandidates boxes = new DetectionCandidates(16);
+        int clusters = Math.max(1, n / 20);
+        float[] centres = new float[clusters * 2];
+        for (int c = 0; c < centres.length; c++) {
+            centres[c] = 0.1f + random.nextFloat() * 0.8f;
+        }
+        for (int i = 0; i < n; i++) {
+            int cluster = random.nextInt(clusters);
+            float cx = centres[cluster * 2] + (random.nextFloat() - 0.5f) * 0.05f;
+            float cy = centres[cluster * 2 + 1] + (random.nextFloat() - 0.5f) * 0.05f;
+            float w = 0.02f + random.nextFloat() * 0.15f;
+            float h = 0.02f + random.nextFloat() * 0.15f;
+            float score = Math.round((0.3f + random.nextFloat() * 0.7f) * 100f) / 100f;
+            boxes.add(cx, cy, w, h, score, random.nextInt(numClasses));
+        }
+        return boxes;
+    }
+
+    static int[] run(NonMaxSuppression nms, DetectionCandidates boxes) {
+        int[] keep = new int[Math.max(1, boxes.count)];
+        return Arrays.copyOf(keep, nms.run(boxes, keep));
+    }
+
+    // Previous YoloBase.applyNMS, restricted to the given candidate indices; returns kept indices
+    static int[] legacy(DetectionCandidates candidates, int[] indices, float iouThreshold) {
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (int i : indices) {
+            boxes.add(candidates.toBoundingBox(i, Integer.toString(i)));
+        }
+
+        boxes.sort(new Comparator<BoundingBox>() {
+            @Override
+            public int compare(BoundingBox o1, BoundingBox o2) {
+                return Float.compare(o2.cnf, o1.cnf);
+            }
+        });
+
+        List<BoundingBox> selectedBoxes = new ArrayList<>();
+        while (!boxes.isEmpty()) {
+            BoundingBox first = boxes.get(0);
+            selectedBoxes.add(first);
+            boxes.remove(0);
+
+            Iterator<BoundingBox> iterator = boxes.iterator();
+            while (iterator.hasNext()) {
+                BoundingBox nextBox = iterator.next();
+                if (calculateIoU(first, nextBox) >= iouThreshold) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        int[] kept = new int[selectedBoxes.size()];
+        for (int k = 0; k < kept.length; k++) {
+            kept[k] = Integer.parseInt(selectedBoxes.get(k).clsName);
+        }
+        return kept;
+    }
+
+    private static float calculateIoU(BoundingBox box1, BoundingBox box2) {
+        float xA = Math.max(box1.x1, box2.x1);
+        float yA = Math.max(box1.y1, box2.y1);
+        float xB = Math.min(box1.x2, box2.x2);
+        float yB = Math.min(box1.y2, box2.y2);
+        float interArea = Math.max(0, xB - xA) * Math.max(0, yB - yA);
+        float box1Area = (box1.x2 - box1.x1) * (box1.y2 - box1.y1);
+        float box2Area = (box2.x2 - box2.x1) * (box2.y2 - box2.y1);
+        float unionArea = box1Area + box2Area - interArea;
+        return unionArea > 0 ? interArea / unionArea : 0;
+    }
+
+    private static int[] allIndices(DetectionCandidates boxes) {
+        int[] indices = new int[boxes.count];
+        for (int i = 0; i < indices.length; i++) indices[i] = i;
+        return indices;
+    }
+
+    private static int[] indicesOfClass(DetectionCandidates boxes, int cls) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < boxes.count; i++) {
+            if (boxes.cls[i] == cls) indices.add(i);
+        }
+        return toArray(indices);
+    }
+
+    // Best score first, ties by index, same order NonMaxSuppression reports kept boxes in
+    private static int[] sortByScore(DetectionCandidates boxes, List<Integer> indices) {
+        List<Integer> sorted = new ArrayList<>(indices);
+        sorted.sort((a, b) -> {
+            int byScore = Float.compare(boxes.score[b], boxes.score[a]);
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        return toArray(sorted);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+        return array;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pathfinder.detection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RegionOfInterestTest {
+
+    @Test
+    public void mapToFrame_convertsRegionCoordinatesToFullFrame() {
+        RegionOfInterest roi = RegionOfInterest.centered(0.5f, 0.6f);
+        assertEquals(0.25f, roi.left, 1e-6f);
+        assertEquals(0.2f, roi.top, 1e-6f);
+
+        // Box filling the right half of the region
+        BoundingBox box = new BoundingBox(0.5f, 0f, 1f, 1f, 0.75f, 0.5f, 0.5f, 1f, 0.9f, 0, "person");
+        roi.mapToFrame(box);
+
+        assertEquals(0.5f, box.x1, 1e-6f);
+        assertEquals(0.75f, box.x2, 1e-6f);
+        assertEquals(0.625f, box.cx, 1e-6f);
+        assertEquals(0.25f, box.w, 1e-6f);
+        assertEquals(0.2f, box.y1, 1e-6f);
+        assertEquals(0.8f, box.y2, 1e-6f);
+        assertEquals(0.5f, box.cy, 1e-6f);
+        assertEquals(0.6f, box.h, 1e-6f);
+    }
+
+    @Test
+    public void fullFrame_leavesBoxUntouched() {
+        BoundingBox box = new BoundingBox(0.1f, 0.2f, 0.3f, 0.4f, 0.2f, 0.3f, 0.2f, 0.2f, 0.9f, 0, "person");
+        RegionOfInterest.FULL_FRAME.mapToFrame(box);
+        assertEquals(0.1f, box.x1, 0f);
+        assertEquals(0.4f, box.y2, 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRegion_isRejected() {
+        new RegionOfInterest(0.6f, 0f, 0.4f, 1f);
+    }
+}
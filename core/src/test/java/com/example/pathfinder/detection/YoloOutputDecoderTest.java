@@ -0,0 +1,184 @@
+package com.example.pathfinder.detection;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class YoloOutputDecoderTest {
+
+    @Test
+    public void decode_matchesColumnWiseLoop() {
+        int numClasses = 80;
+        int numAnchors = 2100;
+        float[] tensor = randomOutput(new Random(7), numClasses, numAnchors);
+
+        DetectionCandidates candidates = new DetectionCandidates(4);
+        new YoloOutputDecoder().decode(wrap(tensor), 4 + numClasses, numAnchors, 0.3f, candidates);
+        List<float[]> expected = legacyDecode(tensor, 4 + numClasses, numAnchors, 0.3f);
+
+        assertTrue(expected.size() > 10);
+        assertEquals(expected.size(), candidates.count);
+        for (int i = 0; i < candidates.count; i++) {
+            float[] e = expected.get(i);
+            assertEquals(e[0], candidates.cx[i], 0f);
+            assertEquals(e[1], candidates.cy[i], 0f);
+            assertEquals(e[2], candidates.w[i], 0f);
+            assertEquals(e[3], candidates.h[i], 0f);
+            assertEquals(e[4], candidates.score[i], 0f);
+            assertEquals((int) e[5], candidates.cls[i]);
+        }
+    }
+
+    @Test
+    public void decode_reusesCandidatesBetweenFrames() {
+        float[] tensor = randomOutput(new Random(3), 10, 500);
+        DetectionCandidates candidates = new DetectionCandidates(1024);
+        YoloOutputDecoder decoder = new YoloOutputDecoder();
+
+        decoder.decode(wrap(tensor), 14, 500, 0.3f, candidates);
+        int firstCount = candidates.count;
+        float[] firstScores = candidates.score;
+        decoder.decode(wrap(tensor), 14, 500, 0.3f, candidates);
+
+        assertEquals(firstCount, candidates.count);
+        assertSame(firstScores, candidates.score);
+    }
+
+    @Test
+    public void decodeQuantized_matchesFloatDecodeOfDequantizedTensor() {
+        int numClasses = 80;
+        int numAnchors = 2100;
+        float scale = 1f / 255f;
+        for (boolean signed : new boolean[]{false, true}) {
+            int zeroPoint = signed ? -128 : 0;
+            float[] tensor = randomOutput(new Random(11), numClasses, numAnchors);
+
+            // Quantize, then dequantize again for the float reference
+            ByteBuffer quantized = ByteBuffer.allocateDirect(tensor.length);
+            float[] dequantized = new float[tensor.length];
+            for (int i = 0; i < tensor.length; i++) {
+                int q = Math.round(tensor[i] / scale) + zeroPoint;
+                q = Math.max(signed ? -128 : 0, Math.min(q, signed ? 127 : 255));
+                quantized.put(i, (byte) q);
+                dequantized[i] = (q - zeroPoint) * scale;
+            }
+
+            DetectionCandidates expected = new DetectionCandidates(4);
+            DetectionCandidates actual = new DetectionCandidates(4);
+            YoloOutputDecoder decoder = new YoloOutputDecoder();
+            decoder.decode(wrap(dequantized), 4 + numClasses, numAnchors, 0.3f, expected);
+            decoder.decodeQuantized(quantized, signed, scale, zeroPoint, 4 + numClasses, numAnchors, 0.3f, actual);
+
+            assertTrue(expected.count > 10);
+            assertEquals(expected.count, actual.count);
+            for (int i = 0; i < expected.count; i++) {
+                assertEquals(expected.cx[i], actual.cx[i], 1e-6f);
+                assertEquals(expected.h[i], actual.h[i], 1e-6f);
+                assertEquals(expected.score[i], actual.score[i], 1e-6f);
+                assertEquals(expected.cls[i], actual.cls[i]);
+            }
+        }
+    }
+
+    @Test
+    public void boundingBox_keepsWidthAndHeightApart() {
+        // Caixa alta e estreita (um poste): w e h chegaram a ser passados trocados para BoundingBox
+        float[] tensor = {0.5f, 0.5f, 0.1f, 0.6f, 0.05f, 0.9f};
+        YoloPostProcessor postProcessor = new YoloPostProcessor(Arrays.asList("person", "pole"), 0.3f, 0.5f);
+        List<BoundingBox> boxes = postProcessor.process(wrap(tensor), 6, 1);
+
+        assertEquals(1, boxes.size());
+        BoundingBox box = boxes.get(0);
+        assertEquals("pole", box.clsName);
+        assertEquals(0.1f, box.w, 1e-6f);
+        assertEquals(0.6f, box.h, 1e-6f);
+        assertEquals(box.w, box.x2 - box.x1, 1e-6f);
+        assertEquals(box.h, box.y2 - box.y1, 1e-6f);
+    }
+
+    @Test
+    public void sortByScoreDescending_isStable() {
+        DetectionCandidates candidates = new DetectionCandidates(8);
+        float[] scores = {0.5f, 0.9f, 0.5f, 0.7f, 0.9f};
+        for (float score : scores) {
+            candidates.add(0.5f, 0.5f, 0.1f, 0.1f, score, 0);
+        }
+        int[] order = new int[candidates.count];
+        candidates.sortByScoreDescending(order);
+
+        assertArrayEquals(new int[]{1, 4, 3, 0, 2}, order);
+    }
+
+    // Mostly low scores with a few confident anchors, boxes sometimes leaking out of the image
+    static float[] randomOutput(Random random, int numClasses, int numAnchors) {
+        int channels = 4 + numClasses;
+        float[] tensor = new float[channels * numAnchors];
+        for (int j = 0; j < numAnchors; j++) {
+            tensor[j] = random.nextFloat();
+            tensor[j + numAnchors] = random.nextFloat();
+            tensor[j + numAnchors * 2] = random.nextFloat() * 0.4f;
+            tensor[j + numAnchors * 3] = random.nextFloat() * 0.4f;
+            boolean confident = random.nextInt(20) == 0;
+            for (int c = 4; c < channels; c++) {
+                float score = random.nextFloat() * 0.2f;
+                if (confident && random.nextInt(numClasses) < 2) {
+                    score = 0.3f + random.nextFloat() * 0.7f;
+                }
+                tensor[c * numAnchors + j] = score;
+            }
+        }
+        return tensor;
+    }
+
+    static FloatBuffer wrap(float[] tensor) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(tensor.length * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(tensor);
+        buffer.rewind();
+        return buffer;
+    }
+
+    // Anchor by anchor loop of the previous YoloBase.PostProcess; returns {cx, cy, w, h, score, cls}
+    static List<float[]> legacyDecode(float[] array, int numChannels, int numElements, float threshold) {
+        List<float[]> boxes = new ArrayList<>();
+        for (int j = 0; j < numElements; j++) {
+            float maxConf = threshold;
+            int maxIdx = -1;
+            int i = 4;
+            int arrayIdx = numElements * i + j;
+            while (i < numChannels) {
+                if (array[arrayIdx] > maxConf) {
+                    maxConf = array[arrayIdx];
+                    maxIdx = i - 4;
+                }
+                i++;
+                arrayIdx += numElements;
+            }
+
+            if (maxConf > threshold) {
+                float cx = array[j];
+                float cy = array[j + numElements];
+                float w = array[j + numElements * 2];
+                float h = array[j + numElements * 3];
+                float x1 = cx - (w / 2F);
+                float y1 = cy - (h / 2F);
+                float x2 = cx + (w / 2F);
+                float y2 = cy + (h / 2F);
+                if (x1 < 0F || x1 > 1F) continue;
+                if (y1 < 0F || y1 > 1F) continue;
+                if (x2 < 0F || x2 > 1F) continue;
+                if (y2 < 0F || y2 > 1F) continue;
+                boxes.add(new float[]{cx, cy, w, h, maxConf, maxIdx});
+            }
+        }
+        return boxes;
+    }
+}
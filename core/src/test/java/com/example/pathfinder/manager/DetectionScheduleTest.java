@@ -0,0 +1,89 @@
+package com.example.pathfinder.manager;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.slam.InferenceGate;
+import com.example.pathfinder.tracking.ObjectTracker;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DetectionScheduleTest {
+    private static final long FRAME_NS = 33_333_333L;
+    private static final long INFERENCE_LATENCY_NS = 150_000_000L;
+
+    private static BoundingBox obstacle() {
+        return new BoundingBox(0.4f, 0.4f, 0.6f, 0.8f, 0.5f, 0.6f, 0.2f, 0.4f, 0.9f, 0, "person");
+    }
+
+    // Mesmo laço do Manager: gate -> agenda -> detector com latência -> rastreador.
+    // Devolve quantas capturas houve; falha se algum frame ficar sem a caixa do obstáculo.
+    private static int run(int frames, float metersPerFrame, long minIntervalNs) {
+        InferenceGate gate = new InferenceGate();
+        DetectionSchedule schedule = new DetectionSchedule(2);
+        ObjectTracker tracker = new ObjectTracker();
+        List<Long> inFlight = new ArrayList<>();
+        boolean hasDetections = false;
+        int captures = 0;
+
+        for (int i = 0; i < frames; i++) {
+            long now = i * FRAME_NS;
+            // Tremor de mão em torno da posição, mais o deslocamento pedido
+            float x = i * metersPerFrame + (i % 2 == 0 ? 0.004f : -0.004f);
+            InferenceGate.Decision decision = gate.evaluate(now, x, 0f, 0f, 0f, 0f, 0f, 1f,
+                    tracker.hasMovingTracks(0.05f));
+            boolean refresh = decision == InferenceGate.Decision.PROCESS;
+
+            if (schedule.onFrame(now, refresh, minIntervalNs)) {
+                inFlight.add(now);
+                captures++;
+            }
+            boolean freshResult = false;
+            if (!inFlight.isEmpty() && now - inFlight.get(0) >= INFERENCE_LATENCY_NS) {
+                List<BoundingBox> boxes = new ArrayList<>();
+                boxes.add(obstacle());
+                tracker.update(boxes, inFlight.remove(0));
+                hasDetections = true;
+                freshResult = true;
+            }
+
+            if (hasDetections && (refresh || freshResult)) {
+                assertEquals("frame " + i, 1, tracker.predict(now).size());
+            }
+        }
+        assertTrue(hasDetections);
+        return captures;
+    }
+
+    @Test
+    public void staticScene_keepsTheTrackAlive() {
+        // 10 s parado: o gate só pede refresh a cada ~500 ms, e cada refresh precisa virar captura
+        int captures = run(300, 0f, 0);
+        assertTrue("captures " + captures, captures >= 18);
+    }
+
+    @Test
+    public void movingCamera_detectsEveryOtherFrame() {
+        // 5 cm por frame: todo frame é refresh
+        assertEquals(30, run(60, 0.05f, 0));
+    }
+
+    @Test
+    public void governorInterval_limitsCaptures() {
+        // 4 detecções por segundo no máximo
+        assertEquals(8, run(60, 0.05f, 250_000_000L));
+    }
+
+    @Test
+    public void reusedFrames_countTowardsTheInterval() {
+        DetectionSchedule schedule = new DetectionSchedule(2);
+        assertTrue(schedule.onFrame(0, true, 0));
+        assertFalse(schedule.onFrame(FRAME_NS, true, 0));
+        assertFalse(schedule.onFrame(2 * FRAME_NS, false, 0));
+        // O frame reaproveitado contou: o próximo refresh já captura
+        assertTrue(schedule.onFrame(3 * FRAME_NS, true, 0));
+    }
+}
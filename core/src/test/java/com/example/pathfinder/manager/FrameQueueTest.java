@@ -0,0 +1,73 @@
+package com.example.pathfinder.manager;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class FrameQueueTest {
+
+    @Test
+    public void full_evictsOldestAndCountsDrop() {
+        FrameQueue<Integer> queue = new FrameQueue<>(2);
+
+        assertNull(queue.offer(1));
+        assertNull(queue.offer(2));
+        assertEquals(Integer.valueOf(1), queue.offer(3));
+
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(2, queue.size());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void capacityOne_keepsLatestFrame() {
+        FrameQueue<Integer> queue = new FrameQueue<>(1);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+
+        assertEquals(9, queue.getDroppedCount());
+        assertEquals(Integer.valueOf(9), queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void concurrentProducerAndConsumer_neverLoseOrReorderFrames() throws InterruptedException {
+        final int frames = 200_000;
+        final FrameQueue<Long> queue = new FrameQueue<>(2);
+        final AtomicLong consumed = new AtomicLong();
+        final AtomicLong evicted = new AtomicLong();
+        final long[] lastSeen = {-1};
+        final boolean[] outOfOrder = {false};
+
+        Thread consumer = new Thread(() -> {
+            while (true) {
+                Long value = queue.take();
+                if (value == null) continue;
+                if (value < 0) break;
+                if (value <= lastSeen[0]) outOfOrder[0] = true;
+                lastSeen[0] = value;
+                consumed.incrementAndGet();
+            }
+        });
+        consumer.start();
+
+        for (long i = 0; i < frames; i++) {
+            if (queue.offer(i) != null) evicted.incrementAndGet();
+        }
+        // The end marker must not be evicted, so wait for room before sending it
+        while (queue.size() > 0) {
+            Thread.yield();
+        }
+        queue.offer(-1L);
+        consumer.join(10_000);
+
+        assertFalse(outOfOrder[0]);
+        assertEquals(evicted.get(), queue.getDroppedCount());
+        assertEquals(frames, consumed.get() + evicted.get());
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.pathfinder.manager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PerformanceGovernorTest {
+    private static final long SECOND_NS = 1_000_000_000L;
+
+    // Sinais roteirizados: um valor por segundo, o último se repete
+    private static final class ScriptedSignals implements GovernorSignals {
+        int[] thermal = {THERMAL_UNKNOWN};
+        float[] headroom = {Float.NaN};
+        float battery = 0.8f;
+        boolean charging = false;
+        boolean powerSave = false;
+        int trimLevel = 0;
+        long trimTimeNs = 0;
+        int second = 0;
+
+        private static int at(int[] trace, int i) {
+            return trace[Math.min(i, trace.length - 1)];
+        }
+
+        private static float at(float[] trace, int i) {
+            return trace[Math.min(i, trace.length - 1)];
+        }
+
+        @Override
+        public int getThermalStatus() {
+            return at(thermal, second);
+        }
+
+        @Override
+        public float getThermalHeadroom() {
+            return at(headroom, second);
+        }
+
+        @Override
+        public float getBatteryLevel() {
+            return battery;
+        }
+
+        @Override
+        public boolean isCharging() {
+            return charging;
+        }
+
+        @Override
+        public boolean isPowerSaveMode() {
+            return powerSave;
+        }
+
+        @Override
+        public int getTrimMemoryLevel() {
+            return trimLevel;
+        }
+
+        @Override
+        public long getTrimMemoryTimeNs() {
+            return trimTimeNs;
+        }
+    }
+
+    // Avalia uma vez por segundo e devolve o nível em cada segundo
+    private static int[] run(PerformanceGovernor governor, ScriptedSignals signals, int fromSecond, int seconds) {
+        int[] tiers = new int[seconds];
+        for (int i = 0; i < seconds; i++) {
+            signals.second = fromSecond + i;
+            governor.evaluate(signals.second * SECOND_NS);
+            tiers[i] = governor.getTierIndex();
+        }
+        return tiers;
+    }
+
+    private static int[] repeat(int value, int times) {
+        int[] trace = new int[times];
+        Arrays.fill(trace, value);
+        return trace;
+    }
+
+    private static int[] concat(int[]... parts) {
+        int length = 0;
+        for (int[] part : parts) length += part.length;
+        int[] out = new int[length];
+        int at = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, out, at, part.length);
+            at += part.length;
+        }
+        return out;
+    }
+
+    @Test
+    public void thermalStatus_stepsDownAtOnce_andBackUpOneTierPerHold() {
+        ScriptedSignals signals = new ScriptedSignals();
+        // Caminhada longa: esquenta até SEVERE, depois esfria de uma vez
+        signals.thermal = concat(repeat(0, 10), repeat(1, 10), repeat(3, 20), repeat(0, 200));
+        PerformanceGovernor governor = new PerformanceGovernor(signals);
+        int[] tiers = run(governor, signals, 0, 240);
+
+        assertEquals(0, tiers[9]);
+        assertEquals(1, tiers[10]);
+        assertEquals(3, tiers[20]); // pula direto para o nível pedido
+        assertEquals(3, tiers[39]);
+
+        // Esfriou no segundo 40: um nível a cada 30 s, contados a partir do primeiro segundo livre
+        assertEquals(3, tiers[69]);
+        assertEquals(2, tiers[70]);
+        assertEquals(2, tiers[99]);
+        assertEquals(1, tiers[100]);
+        assertEquals(0, tiers[130]);
+        assertEquals(0, tiers[239]);
+        assertEquals(5, governor.getTransitions());
+    }
+
+    @Test
+    public void headroomHoveringAtAThreshold_doesNotFlap() {
+        ScriptedSignals signals = new ScriptedSignals();
+        signals.thermal = new int[]{0};
+        // Oscila em torno de HEADROOM_WARM por dois minutos, depois cai bem abaixo
+        float[] headroom = new float[200];
+        for (int i = 0; i < headroom.length; i++) {
+            headroom[i] = i < 120 ? (i % 2 == 0 ? 0.77f : 0.73f) : 0.6f;
+        }
+        signals.headroom = headroom;
+        PerformanceGovernor governor = new PerformanceGovernor(signals);
+        int[] tiers = run(governor, signals, 0, 200);
+
+        for (int i = 0; i < 150; i++) {
+            assertEquals("second " + i, 1, tiers[i]);
+        }
+        assertEquals(0, tiers[199]);
+        assertEquals(2, governor.getTransitions());
+    }
+
+    @Test
+    public void pressureDuringRecovery_restartsTheHold() {
+        ScriptedSignals signals = new ScriptedSignals();
+        signals.thermal = concat(repeat(2, 5), repeat(0, 20), repeat(2, 1), repeat(0, 100));
+        PerformanceGovernor governor = new PerformanceGovernor(signals);
+        int[] tiers = run(governor, signals, 0, 120);
+
+        assertEquals(2, tiers[0]);
+        // O pico no segundo 25 não muda o nível, mas a espera recomeça do zero
+        assertEquals(2, tiers[30]);
+        assertEquals(2, tiers[55]);
+        assertEquals(1, tiers[56]);
+    }
+
+    @Test
+    public void batteryAndPowerSave() {
+        ScriptedSignals signals = new ScriptedSignals();
+        PerformanceGovernor governor = new PerformanceGovernor(signals, PerformanceTier.defaults(), 0);
+        assertFalse(governor.evaluate(0));
+
+        signals.battery = 0.15f;
+        assertTrue(governor.evaluate(SECOND_NS));
+        assertEquals(1, governor.getTierIndex());
+        assertTrue(governor.getReason().startsWith("battery"));
+
+        signals.battery = 0.08f;
+        governor.evaluate(2 * SECOND_NS);
+        assertEquals(2, governor.getTierIndex());
+
+        // Carregando: a bateria baixa deixa de contar, o modo de economia não
+        signals.charging = true;
+        signals.powerSave = true;
+        for (int s = 3; s < 10; s++) governor.evaluate(s * SECOND_NS);
+        assertEquals(1, governor.getTierIndex());
+
+        // Sem carregador e logo acima do limite: a histerese segura o nível
+        signals.charging = false;
+        signals.powerSave = false;
+        signals.battery = 0.22f;
+        for (int s = 10; s < 20; s++) governor.evaluate(s * SECOND_NS);
+        assertEquals(1, governor.getTierIndex());
+        signals.battery = 0.3f;
+        for (int s = 20; s < 30; s++) governor.evaluate(s * SECOND_NS);
+        assertEquals(0, governor.getTierIndex());
+    }
+
+    @Test
+    public void trimMemory_holdsPressureForAWhile() {
+        ScriptedSignals signals = new ScriptedSignals();
+        PerformanceGovernor governor = new PerformanceGovernor(signals, PerformanceTier.defaults(), 5_000);
+        run(governor, signals, 0, 10);
+        assertEquals(0, governor.getTierIndex());
+
+        signals.trimLevel = PerformanceGovernor.TRIM_RUNNING_LOW;
+        signals.trimTimeNs = 10 * SECOND_NS;
+        signals.second = 10;
+        assertTrue(governor.evaluate(10 * SECOND_NS));
+        assertTrue(governor.getReason(), governor.getReason().startsWith("trim memory"));
+        int[] tiers = run(governor, signals, 10, 120);
+        assertEquals(2, tiers[0]);
+        long holdS = PerformanceGovernor.MEMORY_PRESSURE_HOLD_MS / 1000;
+        assertEquals(2, tiers[(int) holdS - 1]);
+        // Depois do intervalo, volta com a espera normal de recuperação
+        assertEquals(1, tiers[(int) holdS + 6]);
+        assertEquals(0, tiers[119]);
+
+        // Tela escondida não é pressão de memória
+        signals.trimLevel = PerformanceGovernor.TRIM_UI_HIDDEN;
+        signals.trimTimeNs = 130 * SECOND_NS;
+        assertFalse(governor.evaluate(130 * SECOND_NS));
+        signals.trimLevel = PerformanceGovernor.TRIM_RUNNING_CRITICAL;
+        assertTrue(governor.evaluate(131 * SECOND_NS));
+        assertEquals(3, governor.getTierIndex());
+    }
+
+    @Test
+    public void tiers_scaleInputAndCapFrameRate() {
+        PerformanceTier[] tiers = PerformanceTier.defaults();
+        assertEquals(0, tiers[0].minDetectionIntervalNs());
+        assertEquals(640, tiers[0].scaledInputSize(640));
+        assertEquals(480, tiers[2].scaledInputSize(640));
+        assertEquals(320, tiers[3].scaledInputSize(640));
+        assertEquals(160, tiers[3].scaledInputSize(320));
+        assertEquals(SECOND_NS / 4, tiers[3].minDetectionIntervalNs());
+        for (int i = 1; i < tiers.length; i++) {
+            assertTrue(tiers[i].maxDetectionFps > 0f);
+            assertTrue(tiers[i].poolFraction <= tiers[i - 1].poolFraction);
+        }
+
+        // Com menos níveis configurados, o pior sinal fica no último
+        ScriptedSignals signals = new ScriptedSignals();
+        signals.thermal = new int[]{PerformanceGovernor.THERMAL_SEVERE + 1};
+        PerformanceGovernor governor = new PerformanceGovernor(signals,
+                new PerformanceTier[]{tiers[0], tiers[1]}, 1000);
+        governor.evaluate(0);
+        assertSame(tiers[1], governor.getTier());
+    }
+}
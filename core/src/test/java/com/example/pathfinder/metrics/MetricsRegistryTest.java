@@ -0,0 +1,164 @@
+package com.example.pathfinder.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+    private static final long MS = 1_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+    // Longe de zero para não depender do ponto de início de System.nanoTime
+    private static final long T0 = 1_000 * SECOND;
+
+    @Test
+    public void binIndex_isMonotonicAndWithinRelativeError() {
+        int previous = -1;
+        for (long us = 0; us < 5_000_000; us += 1 + us / 50) {
+            int bin = LatencyHistogram.binIndex(us);
+            assertTrue(bin >= previous);
+            assertTrue(bin < LatencyHistogram.BIN_COUNT);
+            previous = bin;
+            double mid = LatencyHistogram.binMidpointUs(bin);
+            assertEquals(us, mid, Math.max(0.5, us * 0.04));
+        }
+        assertEquals(LatencyHistogram.BIN_COUNT - 1, LatencyHistogram.binIndex(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void percentiles_matchUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram(10, SECOND);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100_000L, T0); // 0.1 ms .. 100 ms
+        }
+        double[] out = new double[3];
+        assertEquals(1000, histogram.percentiles(T0, new double[]{50, 90, 99}, out));
+        assertEquals(50, out[0], 50 * 0.04);
+        assertEquals(90, out[1], 90 * 0.04);
+        assertEquals(99, out[2], 99 * 0.04);
+        assertEquals(100, histogram.maxMs(T0), 1e-9);
+    }
+
+    @Test
+    public void slidingWindow_forgetsOldValues() {
+        LatencyHistogram histogram = new LatencyHistogram(10, SECOND);
+        histogram.record(500 * MS, T0);
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5 * MS, T0 + 5 * SECOND);
+        }
+        double[] out = new double[1];
+        assertEquals(11, histogram.percentiles(T0 + 5 * SECOND, new double[]{100}, out));
+        assertEquals(500, histogram.maxMs(T0 + 5 * SECOND), 1e-9);
+
+        // 10 s depois o valor alto saiu da janela, mesmo sem novas gravações naquele slot
+        assertEquals(10, histogram.percentiles(T0 + 10 * SECOND, new double[]{100}, out));
+        assertEquals(5, out[0], 5 * 0.04);
+        assertEquals(5, histogram.maxMs(T0 + 10 * SECOND), 1e-9);
+
+        // O slot reaproveitado é zerado antes de receber valores
+        histogram.record(7 * MS, T0 + 20 * SECOND);
+        assertEquals(1, histogram.percentiles(T0 + 20 * SECOND, new double[]{50}, out));
+        assertEquals(7, histogram.maxMs(T0 + 20 * SECOND), 1e-9);
+    }
+
+    @Test
+    public void concurrentRecording_losesNothingWithinASlot() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(10, SECOND);
+        int threads = 4, perThread = 50_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long value = (t + 1) * MS;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(value, T0);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double[] out = new double[1];
+        assertEquals(threads * perThread, histogram.percentiles(T0, new double[]{50}, out));
+        assertEquals(threads, histogram.maxMs(T0), 1e-9);
+    }
+
+    @Test
+    public void rateCounter_reportsEventsPerSecond() {
+        RateCounter counter = new RateCounter(10, SECOND);
+        assertEquals(0, counter.ratePerSecond(T0), 0);
+        for (int s = 0; s < 20; s++) {
+            for (int i = 0; i < 30; i++) {
+                counter.add(1, T0 + s * SECOND + i * (SECOND / 30));
+            }
+        }
+        // Janela cheia: 9 segundos completos de 30 eventos
+        assertEquals(30, counter.ratePerSecond(T0 + 20 * SECOND), 1e-9);
+        assertEquals(600, counter.getTotal());
+        // Parou de receber eventos
+        assertEquals(0, counter.ratePerSecond(T0 + 40 * SECOND), 1e-9);
+
+        // Logo após o início, só os segundos desde o primeiro evento contam
+        RateCounter fresh = new RateCounter(10, SECOND);
+        for (int i = 0; i < 20; i++) {
+            fresh.add(1, T0 + i * (SECOND / 10));
+        }
+        assertEquals(10, fresh.ratePerSecond(T0 + 2 * SECOND), 1e-9);
+    }
+
+    @Test
+    public void snapshotAndDump_includeEveryStage() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.record(MetricsRegistry.Stage.INFERENCE, 20 * MS, T0);
+        registry.record(MetricsRegistry.Stage.INFERENCE, 40 * MS, T0);
+        registry.markFrame(T0);
+        registry.markDroppedFrame(T0);
+
+        MetricsRegistry.Snapshot snapshot = registry.snapshot(T0);
+        assertEquals(MetricsRegistry.Stage.values().length, snapshot.stages.length);
+        MetricsRegistry.StageStats inference = snapshot.get(MetricsRegistry.Stage.INFERENCE);
+        assertEquals(2, inference.count);
+        assertEquals(40, inference.max, 1e-9);
+        assertEquals(0, snapshot.get(MetricsRegistry.Stage.RISK).count);
+        assertEquals(1, snapshot.totalFrames);
+        assertEquals(1, snapshot.totalDropped);
+
+        File file = File.createTempFile("metrics", ".txt");
+        try {
+            registry.dump(file);
+            registry.dump(file);
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            assertEquals(2, text.split("# ", -1).length - 1);
+            for (MetricsRegistry.Stage stage : MetricsRegistry.Stage.values()) {
+                assertTrue(text.contains(stage.label));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void startupMilestones_keepTheFirstMark() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StartupMilestones startup = registry.getStartup();
+        startup.setOrigin(T0);
+        assertFalse(startup.isReached(StartupMilestones.Milestone.FIRST_INFERENCE));
+        assertTrue(Double.isNaN(startup.elapsedMs(StartupMilestones.Milestone.FIRST_INFERENCE)));
+
+        assertTrue(startup.mark(StartupMilestones.Milestone.MODEL_LOADED, T0 + 400 * MS));
+        assertTrue(startup.mark(StartupMilestones.Milestone.FIRST_INFERENCE, T0 + 900 * MS));
+        // Marcado de novo a cada frame: só o primeiro conta
+        assertFalse(startup.mark(StartupMilestones.Milestone.FIRST_INFERENCE, T0 + 950 * MS));
+        assertEquals(900, startup.elapsedMs(StartupMilestones.Milestone.FIRST_INFERENCE), 1e-9);
+
+        MetricsRegistry.Snapshot snapshot = registry.snapshot(T0 + SECOND);
+        assertEquals(400, snapshot.startupMs(StartupMilestones.Milestone.MODEL_LOADED), 1e-9);
+        assertTrue(Double.isNaN(snapshot.startupMs(StartupMilestones.Milestone.FIRST_ALERT_READY)));
+        String text = snapshot.format(0);
+        assertTrue(text, text.contains("first_inference=900ms"));
+        assertTrue(text, text.contains("first_alert-ready_frame=-"));
+    }
+}
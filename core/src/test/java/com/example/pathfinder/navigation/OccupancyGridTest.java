@@ -0,0 +1,60 @@
+package com.example.pathfinder.navigation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OccupancyGridTest {
+
+    @Test
+    public void evidence_isClampedAndDecaysWithHalfLife() {
+        OccupancyGrid grid = new OccupancyGrid(32, 0.1f, 2f);
+        grid.addObstacle(0.55f, 0.55f, 0.6f);
+        grid.addObstacle(0.55f, 0.55f, 0.6f);
+        assertEquals(1f, grid.get(0.55f, 0.55f), 1e-5f);
+
+        grid.decay(2f);
+        assertEquals(0.5f, grid.get(0.55f, 0.55f), 1e-4f);
+        // Muitas decadências: renormalização interna não perde o valor relativo
+        grid.addObstacle(-0.55f, 0.25f, 1f);
+        for (int i = 0; i < 100; i++) grid.decay(0.2f);
+        assertEquals(1f / 1024f, grid.get(-0.55f, 0.25f), 1e-5f);
+        assertEquals(0.5f / 1024f, grid.get(0.55f, 0.55f), 1e-5f);
+    }
+
+    @Test
+    public void recenter_clearsOnlyCellsEnteringTheWindow() {
+        OccupancyGrid grid = new OccupancyGrid(20, 0.1f, 10f);
+        grid.addObstacle(0.55f, 0.05f, 1f);   // perto, continua na janela
+        grid.addObstacle(-0.95f, 0.05f, 1f);  // borda esquerda, sai da janela
+        assertEquals(1f, grid.get(-0.95f, 0.05f), 0f);
+
+        grid.recenter(0.5f, 0f);
+        assertEquals(1f, grid.get(0.55f, 0.05f), 0f);
+        assertEquals(0f, grid.get(-0.95f, 0.05f), 0f);
+        // A posição reutilizada no buffer começa vazia para a célula nova
+        assertEquals(0f, grid.get(1.05f, 0.05f), 0f);
+
+        // Volta: a célula que saiu não reaparece com o valor antigo
+        grid.recenter(-0.3f, 0f);
+        assertEquals(0f, grid.get(-0.95f, 0.05f), 0f);
+        assertEquals(1f, grid.get(0.55f, 0.05f), 0f);
+
+        grid.recenter(100f, 100f);
+        assertEquals(0f, grid.get(0.55f, 0.05f), 0f);
+    }
+
+    @Test
+    public void segmentAndRay_markObstacleAndFreeSpace() {
+        OccupancyGrid grid = new OccupancyGrid(40, 0.1f, 10f);
+        grid.addSegment(-1f, -1.05f, 1f, -1.05f, 1f);
+        for (float x = -0.95f; x < 1f; x += 0.1f) {
+            assertEquals(1f, grid.get(x, -1.05f), 0f);
+        }
+
+        grid.addObstacle(0.05f, -0.55f, 1f);
+        grid.clearRay(0.05f, 0.05f, 0.05f, -1.05f, 0.5f);
+        assertEquals(0.5f, grid.get(0.05f, -0.55f), 1e-5f);
+        assertEquals(1f, grid.get(0.05f, -1.05f), 0f); // célula atingida não é limpa
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.pathfinder.navigation;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PathPlannerTest {
+    private static final long BUDGET_NS = 2_000_000L;
+    // Testes de comportamento não dependem do JIT: orçamento folgado
+    private static final long UNBOUNDED_NS = 1_000_000_000L;
+
+    private static OccupancyGrid emptyGrid() {
+        return new OccupancyGrid(64, 0.1f, 3f);
+    }
+
+    @Test
+    public void openSpace_goesStraight() {
+        PathSuggestion out = new PathSuggestion();
+        assertTrue(new PathPlanner().plan(emptyGrid(), 0f, 0f, 0f, -1f, UNBOUNDED_NS, out));
+        assertEquals(0f, out.headingDeg, 0f);
+        assertEquals(1f, out.detour, 1e-3f);
+        assertTrue(out.complete);
+        assertTrue(out.clearanceM >= 3f);
+    }
+
+    @Test
+    public void obstacleAhead_suggestsTheOpenSide() {
+        OccupancyGrid grid = emptyGrid();
+        // Parede à frente (-z) de x = -2 a x = 0.4: só a direita (+x) está aberta
+        grid.addSegment(-2f, -1f, 0.4f, -1f, 1f);
+
+        PathSuggestion out = new PathSuggestion();
+        assertTrue(new PathPlanner().plan(grid, 0f, 0f, 0f, -1f, UNBOUNDED_NS, out));
+        assertTrue("heading " + out.headingDeg, out.headingDeg > 0f);
+        assertTrue(out.clearanceM >= 1.5f);
+
+        // Olhando na direção oposta (+z), a mesma parede fica atrás: segue reto
+        assertTrue(new PathPlanner().plan(grid, 0f, 0f, 0f, 1f, UNBOUNDED_NS, out));
+        assertEquals(0f, out.headingDeg, 0f);
+    }
+
+    @Test
+    public void enclosed_findsNothing() {
+        OccupancyGrid grid = emptyGrid();
+        grid.addSegment(-0.8f, -0.8f, 0.8f, -0.8f, 1f);
+        grid.addSegment(0.8f, -0.8f, 0.8f, 0.8f, 1f);
+        grid.addSegment(0.8f, 0.8f, -0.8f, 0.8f, 1f);
+        grid.addSegment(-0.8f, 0.8f, -0.8f, -0.8f, 1f);
+
+        PathSuggestion out = new PathSuggestion();
+        assertFalse(new PathPlanner().plan(grid, 0f, 0f, 0f, -1f, UNBOUNDED_NS, out));
+        assertTrue(out.complete);
+    }
+
+    @Test
+    public void tinyBudget_returnsPartialResult() {
+        PathSuggestion out = new PathSuggestion();
+        // Só a primeira leva de células: a direção sai das células já assentadas
+        assertTrue(new PathPlanner().plan(emptyGrid(), 0f, 0f, 0f, -1f, 0L, out));
+        assertFalse(out.complete);
+        assertEquals(0f, out.headingDeg, 0f);
+        assertEquals(1f, out.detour, 1e-3f);
+    }
+
+    @Test
+    public void syntheticObstacleFields_planWithinFrameBudget() {
+        Random random = new Random(11);
+        PathPlanner planner = new PathPlanner();
+        PathSuggestion out = new PathSuggestion();
+        OccupancyGrid grid = emptyGrid();
+        // Tempo de CPU da thread: preempção e pausas da JVM de teste não contam contra o planner
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        for (int density : new int[]{0, 20, 60, 150}) {
+            int iterations = 800;
+            int warmup = 300;
+            long worstCpuNs = 0, totalNs = 0;
+            int found = 0, complete = 0;
+            for (int it = 0; it < iterations; it++) {
+                grid.clear();
+                for (int o = 0; o < density; o++) {
+                    float ox = random.nextFloat() * 6f - 3f, oz = random.nextFloat() * 6f - 3f;
+                    if (ox * ox + oz * oz < 0.25f) continue; // deixa o usuário livre
+                    if (random.nextBoolean()) {
+                        grid.addObstacle(ox, oz, 1f);
+                    } else {
+                        grid.addSegment(ox, oz, ox + random.nextFloat() - 0.5f, oz + random.nextFloat() - 0.5f, 1f);
+                    }
+                }
+                long start = System.nanoTime();
+                long startCpu = threads.getCurrentThreadCpuTime();
+                if (planner.plan(grid, 0f, 0f, 0f, -1f, BUDGET_NS, out)) found++;
+                long elapsedCpu = threads.getCurrentThreadCpuTime() - startCpu;
+                long elapsed = System.nanoTime() - start;
+                if (out.complete) complete++;
+                // Ignora o aquecimento do JIT
+                if (it >= warmup) {
+                    worstCpuNs = Math.max(worstCpuNs, elapsedCpu);
+                    totalNs += elapsed;
+                }
+            }
+            String stats = String.format("%d obstacles: mean %.3f ms, worst cpu %.3f ms, %d/%d found, %d complete",
+                    density, totalNs / 1e6 / (iterations - warmup), worstCpuNs / 1e6, found, iterations, complete);
+            assertTrue(stats, totalNs / (iterations - warmup) < BUDGET_NS);
+            assertTrue(stats, worstCpuNs < BUDGET_NS);
+            // Sem obstáculos sempre há caminho, mesmo quando o orçamento acaba (JIT frio, preempção)
+            if (density == 0) assertEquals(stats, iterations, found);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.pathfinder.recording;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.detection.RegionOfInterest;
+import com.example.pathfinder.detection.YoloPostProcessor;
+import com.example.pathfinder.metrics.MetricsRegistry;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskEvaluator;
+import com.example.pathfinder.risk.RiskLevel;
+import com.example.pathfinder.slam.WallIndex;
+import com.example.pathfinder.tracking.ObjectTracker;
+import com.example.pathfinder.utils.YuvFrame;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionRecordingTest {
+    private static final int CHANNELS = 4 + 2;
+    private static final int ANCHORS = 64;
+    private static final long FRAME_NS = 33_000_000L;
+    private static final float S = (float) Math.sqrt(0.5);
+    private static final FloatBuffer WALL = FloatBuffer.wrap(new float[]{-1f, -1f, 1f, -1f, 1f, 1f, -1f, 1f});
+
+    private static SessionInfo info() {
+        SessionInfo info = new SessionInfo();
+        info.screenWidth = 1080;
+        info.screenHeight = 2340;
+        info.labels = Arrays.asList("person", "chair");
+        info.tensorChannels = CHANNELS;
+        info.tensorAnchors = ANCHORS;
+        info.inputWidth = 64;
+        info.inputHeight = 64;
+        info.rotationDegrees = 90;
+        info.confidenceThreshold = 0.3f;
+        info.iouThreshold = 0.4f;
+        info.imageDownsample = 2;
+        return info;
+    }
+
+    // Saída [1, 6, 64] com uma pessoa em (cx, 0.5) vista por três anchors vizinhos
+    private static ByteBuffer tensor(float cx, float confidence) {
+        ByteBuffer bytes = ByteBuffer.allocate(CHANNELS * ANCHORS * 4).order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer t = bytes.asFloatBuffer();
+        for (int j = 0; j < ANCHORS; j++) {
+            t.put(j, 0.5f);
+            t.put(ANCHORS + j, 0.5f);
+            t.put(2 * ANCHORS + j, 0.05f);
+            t.put(3 * ANCHORS + j, 0.05f);
+        }
+        for (int k = 0; k < 3; k++) {
+            int j = 10 + k;
+            t.put(j, cx + 0.002f * k);
+            t.put(ANCHORS + j, 0.5f);
+            t.put(2 * ANCHORS + j, 0.2f);
+            t.put(3 * ANCHORS + j, 0.4f);
+            t.put(4 * ANCHORS + j, confidence - 0.05f * k);
+        }
+        return bytes;
+    }
+
+    private static YuvFrame image(int width, int height) {
+        byte[] y = new byte[width * height];
+        byte[] uv = new byte[width * height / 2];
+        for (int i = 0; i < y.length; i++) y[i] = (byte) i;
+        for (int i = 0; i < uv.length; i++) uv[i] = (byte) (3 * i);
+        YuvFrame frame = new YuvFrame();
+        // Croma intercalado (pixel stride 2), como no ARCore
+        frame.set(width, height, ByteBuffer.wrap(y), width, 1,
+                ByteBuffer.wrap(uv), ByteBuffer.wrap(uv, 1, uv.length - 1).slice(), width, 2);
+        return frame;
+    }
+
+    /**
+     * Records a session the way Manager does: planes every frame, a detection every other frame,
+     * the tracker's boxes at a fixed distance, and the risk assessment.
+     */
+    private static void recordSession(File file, int frames) throws IOException {
+        SessionInfo info = info();
+        YoloPostProcessor postProcessor = new YoloPostProcessor(info.labels, info.confidenceThreshold, info.iouThreshold);
+        ObjectTracker tracker = new ObjectTracker();
+        WallIndex wallIndex = new WallIndex();
+        RiskEvaluator evaluator = new RiskEvaluator(info.screenWidth, info.screenHeight);
+        YuvFrame camera = image(32, 24);
+        SessionFrame record = new SessionFrame();
+        List<BoundingBox> lastObjects = new ArrayList<>();
+        float[] lastDistances = new float[8];
+        float lastWall = Float.MIN_VALUE;
+
+        try (SessionWriter writer = new SessionWriter(file, info, 4096)) {
+            Object wall = new Object();
+            for (int f = 0; f < frames; f++) {
+                long timestampNs = 1_000_000_000L + f * FRAME_NS;
+                long clockMs = 1_700_000_000_000L + f * 33;
+                record.clear(timestampNs, clockMs);
+                record.setPose(0f, 0f, 0.01f * f, 0f, 0f, 0f, 1f);
+
+                // A parede se aproxima: 4 m, depois 2.5 m, e some no fim
+                if (f == 0 || f == 10) {
+                    float z = f == 0 ? -4f : -2.5f;
+                    wallIndex.update(wall, 0f, 0f, z, S, 0f, 0f, S, WALL);
+                    record.addPlane(writer.planeId(wall), 0f, 0f, z, S, 0f, 0f, S, WALL);
+                } else if (f == frames - 3) {
+                    wallIndex.remove(wall);
+                    record.removePlane(writer.planeId(wall));
+                }
+
+                if (f % 2 == 0) {
+                    ByteBuffer output = tensor(0.3f + 0.01f * f, 0.9f);
+                    record.setTensor(output);
+                    record.setImage(camera, info.imageDownsample);
+                    output.rewind();
+                    List<BoundingBox> boxes = postProcessor.process(output.asFloatBuffer(), CHANNELS, ANCHORS);
+                    record.setDetection(timestampNs, RegionOfInterest.FULL_FRAME, boxes);
+                    tracker.update(boxes, timestampNs);
+                }
+
+                // Distâncias renovadas em dois de cada três frames; nos outros o Manager reaproveita as
+                // do último refresh, como quando o InferenceGate vê a câmera parada
+                if (f % 3 != 2) {
+                    lastObjects = tracker.predict(timestampNs);
+                    for (int i = 0; i < lastObjects.size(); i++) {
+                        lastDistances[i] = Math.max(0.2f, 2.0f - 0.05f * f);
+                        record.addObject(lastObjects.get(i), lastDistances[i]);
+                    }
+                    float[] p = record.pose;
+                    lastWall = wallIndex.nearestWall(p[0], p[1], p[2], p[3], p[4], p[5], p[6]);
+                    record.setWallDistance(lastWall);
+                }
+                RiskAssessment assessment = evaluator.evaluate(lastObjects, lastDistances, lastObjects.size(),
+                        lastWall, clockMs);
+                record.setAssessment(assessment);
+                writer.append(record);
+            }
+        }
+    }
+
+    @Test
+    public void framesRoundTripThroughMappedWindows() throws IOException {
+        File file = File.createTempFile("session", ".rec");
+        try {
+            SessionInfo info = info();
+            SessionFrame frame = new SessionFrame();
+            YuvFrame camera = image(32, 24);
+            // Janela pequena: a maioria dos registros cai em um novo mapeamento
+            try (SessionWriter writer = new SessionWriter(file, info, 1024)) {
+                for (int f = 0; f < 5; f++) {
+                    frame.clear(100L * f, 7L * f);
+                    frame.setPose(f, 2f, 3f, 0f, 0f, 0f, 1f);
+                    frame.addPlane(writer.planeId("wall"), 1f, 2f, 3f, S, 0f, 0f, S, WALL);
+                    frame.removePlane(writer.planeId("old" + f));
+                    frame.setTensor(tensor(0.4f, 0.8f));
+                    frame.setImage(camera, 2);
+                    BoundingBox box = new BoundingBox(0.1f, 0.2f, 0.3f, 0.6f, 0.2f, 0.4f, 0.2f, 0.4f, 0.9f, 1, "chair");
+                    frame.setDetection(90L * f, RegionOfInterest.centered(0.5f, 0.6f), Arrays.asList(box));
+                    box.trackId = 4;
+                    frame.addObject(box, 1.5f + f);
+                    frame.setWallDistance(Float.MIN_VALUE);
+                    frame.setAssessment(new RiskAssessment(null, RiskLevel.HIGH, "Atenção, parede próxima", "frente", f == 0));
+                    writer.append(frame);
+                }
+                assertEquals(5, writer.getFrameCount());
+
+                // Arquivo ainda aberto (como depois de um crash): o leitor vê tudo que já foi confirmado
+                try (SessionReader reader = new SessionReader(file)) {
+                    assertEquals(5, reader.getFrameCount());
+                }
+            }
+
+            try (SessionReader reader = new SessionReader(file)) {
+                assertEquals(info.labels, reader.getInfo().labels);
+                assertEquals(2, reader.getInfo().imageDownsample);
+                SessionFrame read = new SessionFrame();
+                for (int f = 0; f < 5; f++) {
+                    assertTrue(reader.next(read));
+                    assertEquals(100L * f, read.timestampNs);
+                    assertEquals(7L * f, read.clockMs);
+                    assertEquals(f, read.pose[0], 0f);
+                    assertEquals(2, read.planeCount);
+                    assertEquals(0, read.planeIds[0]);
+                    assertFalse(read.planeRemoved[0]);
+                    assertEquals(S, read.planePoses[3], 0f);
+                    assertEquals(WALL, read.planePolygon(0));
+                    assertEquals(1 + f, read.planeIds[1]);
+                    assertTrue(read.planeRemoved[1]);
+
+                    assertEquals(90L * f, read.captureTimestampNs);
+                    assertEquals(0.25f, read.roi().left, 1e-6f);
+                    assertEquals(1, read.detections.count);
+                    BoundingBox box = read.detections.toBoundingBox(0, info.labels);
+                    assertEquals("chair", box.clsName);
+                    assertEquals(0.1f, box.x1, 1e-6f);
+                    assertEquals(-1, box.trackId);
+                    assertEquals(tensor(0.4f, 0.8f), read.tensor);
+
+                    assertEquals(16, read.imageWidth);
+                    assertEquals(12, read.imageHeight);
+                    assertEquals(camera.y[2 * 32 + 2], read.image[16 + 1]); // luma (1, 1) = fonte (2, 2)
+                    assertEquals(camera.v[2 * 32 + 4], read.image[16 * 12 + 8 * 6 + 8 + 1]); // croma (1, 1)
+
+                    assertEquals(4, read.objects.trackIds[0]);
+                    assertEquals(1.5f + f, read.objects.distances[0], 0f);
+                    assertEquals(Float.MIN_VALUE, read.wallDistance, 0f);
+                    assertEquals(RiskLevel.HIGH, read.riskLevel);
+                    assertEquals("Atenção, parede próxima", read.message);
+                    assertEquals(f == 0, read.alert);
+                }
+                assertFalse(reader.next(read));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void truncatedRecording_readsCommittedFrames() throws IOException {
+        File file = File.createTempFile("session", ".rec");
+        try {
+            SessionFrame frame = new SessionFrame();
+            try (SessionWriter writer = new SessionWriter(file, info())) {
+                for (int f = 0; f < 3; f++) {
+                    frame.clear(f, f);
+                    writer.append(frame);
+                }
+            }
+            // Lixo depois do último registro confirmado é ignorado
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(raw.length());
+                raw.write(new byte[]{2, 0, 0, 0, 100, 0, 0, 0, 1, 2, 3});
+            }
+            try (SessionReader reader = new SessionReader(file)) {
+                SessionFrame read = new SessionFrame();
+                int frames = 0;
+                while (reader.next(read)) frames++;
+                assertEquals(3, frames);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void replay_matchesRecording_andReportsBehaviourChanges() throws IOException {
+        File file = File.createTempFile("session", ".rec");
+        try {
+            recordSession(file, 40);
+
+            SessionReplay.Report report;
+            try (SessionReader reader = new SessionReader(file)) {
+                report = new SessionReplay(reader.getInfo()).run(reader);
+            }
+            assertEquals(report.format(), 40, report.frames);
+            assertEquals(20, report.detections);
+            assertEquals(40, report.evaluations);
+            assertFalse(report.format(), report.hasDifferences());
+            assertEquals(20, report.latency.get(MetricsRegistry.Stage.POSTPROCESS).count);
+            assertEquals(20, report.latency.get(MetricsRegistry.Stage.PREPROCESS).count);
+
+            // Threshold acima da confiança da pessoa: nenhuma detecção, e o risco muda
+            try (SessionReader reader = new SessionReader(file)) {
+                SessionInfo info = reader.getInfo();
+                info.confidenceThreshold = 0.95f;
+                report = new SessionReplay(info).run(reader);
+            }
+            assertEquals(20, report.detectionDifferences);
+            assertTrue(report.riskDifferences > 0);
+            assertEquals(SessionReplay.MAX_REPORTED_DIFFERENCES, report.differences.size());
+            assertTrue(report.differences.get(0), report.differences.get(0).startsWith("frame 0 (0.000 s): 0 detections"));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pathfinder.risk;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RiskEvaluatorTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2340;
+
+    private static BoundingBox box(float cx, String name) {
+        return new BoundingBox(cx - 0.05f, 0.45f, cx + 0.05f, 0.55f, cx, 0.5f, 0.1f, 0.1f, 0.8f, -1, name);
+    }
+
+    @Test
+    public void picksHighestScoreAndIgnoresEntriesPastCount() {
+        RiskEvaluator evaluator = new RiskEvaluator(WIDTH, HEIGHT);
+        List<BoundingBox> boxes = Arrays.asList(box(0.1f, "chair"), box(0.8f, "person"), box(0.5f, "car"));
+        float[] distances = {2.5f, 0.8f, 0.1f};
+
+        RiskAssessment assessment = evaluator.evaluate(boxes, distances, 2, Float.MIN_VALUE);
+        assertEquals("person", assessment.getCriticalObject().getClassName());
+        assertEquals(RiskLevel.HIGH, assessment.getRiskLevel());
+        assertEquals("direita", assessment.getDirection());
+        assertEquals("Cuidado! Obstáculo à direita", assessment.getMessage());
+        assertTrue(assessment.shouldAlert());
+
+        // Mesmo nível logo em seguida: cooldown ativo
+        assertFalse(evaluator.evaluate(boxes, distances, 2, Float.MIN_VALUE).shouldAlert());
+        evaluator.resetCooldown();
+        assertTrue(evaluator.evaluate(boxes, distances, 2, Float.MIN_VALUE).shouldAlert());
+    }
+
+    @Test
+    public void nearWallTakesPriority_andEmptySceneIsSafe() {
+        RiskEvaluator evaluator = new RiskEvaluator(WIDTH, HEIGHT);
+        List<BoundingBox> boxes = Collections.singletonList(box(0.5f, "person"));
+        float[] distances = {0.2f};
+
+        RiskAssessment wall = evaluator.evaluate(boxes, distances, 1, 0.3f);
+        assertNull(wall.getCriticalObject());
+        assertEquals(RiskLevel.CRITICAL, wall.getRiskLevel());
+        assertEquals("Pare! Parede à frente", wall.getMessage());
+
+        RiskAssessment empty = evaluator.evaluate(Collections.emptyList(), new float[0], 0, 1.5f);
+        assertEquals(RiskLevel.SAFE, empty.getRiskLevel());
+        assertFalse(empty.shouldAlert());
+    }
+
+    @Test
+    public void callerOwnedAssessment_isFilledInPlace() {
+        RiskEvaluator evaluator = new RiskEvaluator(WIDTH, HEIGHT);
+        List<BoundingBox> boxes = Arrays.asList(box(0.1f, "chair"), box(0.5f, "person"));
+        float[] distances = {2.5f, 0.4f};
+        RiskAssessment out = new RiskAssessment();
+
+        assertSame(out, evaluator.evaluate(boxes, distances, 2, Float.MIN_VALUE, 10_000, out));
+        DetectedObject critical = out.getCriticalObject();
+        assertEquals("person", critical.getClassName());
+        assertEquals(0.4f, critical.getDistance(), 0f);
+        assertEquals(RiskLevel.CRITICAL, out.getRiskLevel());
+        assertTrue(out.shouldAlert());
+
+        // O objeto crítico também é reaproveitado
+        distances[0] = 0.2f;
+        evaluator.evaluate(boxes, distances, 1, Float.MIN_VALUE, 10_100, out);
+        assertSame(critical, out.getCriticalObject());
+        assertEquals("chair", critical.getClassName());
+        assertFalse(out.shouldAlert());
+
+        assertSame(out, evaluator.evaluate(boxes, distances, 2, 0.3f, 10_100, out));
+        assertNull(out.getCriticalObject());
+        assertEquals("Pare! Parede à frente", out.getMessage());
+
+        evaluator.evaluate(Collections.emptyList(), new float[0], 0, Float.MIN_VALUE, 10_100, out);
+        assertEquals(RiskLevel.SAFE, out.getRiskLevel());
+        assertEquals("frente", out.getDirection());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pathfinder.risk;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RiskScorerTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2340;
+    private static final String[] NAMES = {"person", "bicycle", "car", "motorcycle", "airplane", "bus",
+            "train", "truck", "boat", "traffic light", "fire hydrant", "stop sign", "parking meter", "bench"};
+
+    // Heurística original, baseada em String e HashMap, como referência
+    private static float referenceScore(BoundingBox box, float distance) {
+        Map<String, Float> priorities = new HashMap<>();
+        priorities.put("person", 2.0f);
+        priorities.put("car", 1.8f);
+        priorities.put("bicycle", 1.7f);
+        priorities.put("motorcycle", 1.7f);
+        priorities.put("bus", 1.8f);
+        priorities.put("truck", 1.8f);
+        priorities.put("traffic light", 1.0f);
+        priorities.put("fire hydrant", 1.3f);
+        priorities.put("stop sign", 1.0f);
+        priorities.put("bench", 1.2f);
+
+        float distanceScore = 1.0f / (distance + 0.1f);
+        float centerX = WIDTH / 2.0f;
+        float centerY = HEIGHT / 2.0f;
+        float dx = (box.cx - centerX) / (WIDTH / 2.0f);
+        float dy = (box.cy - centerY) / (HEIGHT / 2.0f);
+        float positionScore = Math.max(0, 1.0f - (float) Math.sqrt(dx * dx + dy * dy));
+        Float priorityValue = priorities.get(box.clsName);
+        float classPriority = (priorityValue != null) ? priorityValue : 1.0f;
+        return (distanceScore * 5.0f) + (positionScore * 3.0f) + (classPriority * 2.0f) + box.cnf;
+    }
+
+    private static String referenceMessage(RiskLevel level, String direction) {
+        switch (level) {
+            case CRITICAL:
+                return "Pare! Obstáculo muito próximo";
+            case HIGH:
+                return direction.equals("frente") ? "Cuidado! Obstáculo à frente" : "Cuidado! Obstáculo à " + direction;
+            case MEDIUM:
+                return !direction.equals("frente") ? "Atenção à " + direction : "Continue com cuidado";
+            case LOW:
+                return "Siga em frente com atenção";
+            default:
+                return "Siga em frente";
+        }
+    }
+
+    @Test
+    public void score_matchesStringBasedHeuristicExactly() {
+        RiskScorer scorer = new RiskScorer(WIDTH, HEIGHT);
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            int cls = random.nextInt(NAMES.length);
+            float cx = random.nextFloat(), cy = random.nextFloat();
+            BoundingBox box = new BoundingBox(cx - 0.1f, cy - 0.1f, cx + 0.1f, cy + 0.1f, cx, cy, 0.2f, 0.2f,
+                    random.nextFloat(), cls, NAMES[cls]);
+            float distance = random.nextFloat() * 3f;
+            assertEquals(Float.floatToIntBits(referenceScore(box, distance)),
+                    Float.floatToIntBits(scorer.score(box, distance)));
+        }
+    }
+
+    @Test
+    public void classWithoutId_usesName() {
+        RiskScorer scorer = new RiskScorer(WIDTH, HEIGHT);
+        BoundingBox box = new BoundingBox(0f, 0f, 1f, 1f, 0.5f, 0.5f, 1f, 1f, 0.5f, -1, "person");
+        assertEquals(2.0f, scorer.classPriority(box), 0f);
+        box.cls = 500; // id além da capacidade inicial
+        box.clsName = "cup";
+        assertEquals(0.7f, scorer.classPriority(box), 0f);
+    }
+
+    @Test
+    public void messageTable_matchesGeneratedMessages() {
+        RiskScorer scorer = new RiskScorer(WIDTH, HEIGHT);
+        for (RiskLevel level : RiskLevel.values()) {
+            for (int d = 0; d < RiskScorer.DIRECTIONS.length; d++) {
+                assertEquals(referenceMessage(level, RiskScorer.DIRECTIONS[d]), scorer.message(level, d));
+            }
+        }
+    }
+
+    @Test
+    public void levelAndDirection_thresholds() {
+        assertEquals(RiskLevel.CRITICAL, RiskScorer.determineRiskLevel(0.49f));
+        assertEquals(RiskLevel.HIGH, RiskScorer.determineRiskLevel(0.5f));
+        assertEquals(RiskLevel.MEDIUM, RiskScorer.determineRiskLevel(1.0f));
+        assertEquals(RiskLevel.LOW, RiskScorer.determineRiskLevel(2.0f));
+        assertEquals(RiskLevel.SAFE, RiskScorer.determineRiskLevel(3.0f));
+
+        assertEquals("esquerda", RiskScorer.DIRECTIONS[RiskScorer.determineDirection(0.29f)]);
+        assertEquals("frente", RiskScorer.DIRECTIONS[RiskScorer.determineDirection(0.3f)]);
+        assertEquals("frente", RiskScorer.DIRECTIONS[RiskScorer.determineDirection(0.6f)]);
+        assertEquals("direita", RiskScorer.DIRECTIONS[RiskScorer.determineDirection(0.61f)]);
+    }
+}
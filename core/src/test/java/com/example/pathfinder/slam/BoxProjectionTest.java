@@ -0,0 +1,89 @@
+package com.example.pathfinder.slam;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class BoxProjectionTest {
+    private static final float EPS = 1e-6f;
+
+    private static BoundingBox box(float cx, float cy) {
+        return new BoundingBox(cx - 0.05f, cy - 0.05f, cx + 0.05f, cy + 0.05f, cx, cy, 0.1f, 0.1f, 0.9f, 0, "person");
+    }
+
+    // Rotação horária do pré-processamento, imagem da câmera -> entrada do modelo
+    private static float[] rotateClockwise(float x, float y, int degrees) {
+        for (int d = 0; d < degrees; d += 90) {
+            float nx = 1f - y;
+            y = x;
+            x = nx;
+        }
+        return new float[]{x, y};
+    }
+
+    @Test
+    public void rotation90_modelTopLeftIsImageBottomLeft() {
+        float[] out = new float[2];
+        BoxProjection.toImageNormalized(0f, 0f, 90, out, 0);
+        assertEquals(0f, out[0], EPS);
+        assertEquals(1f, out[1], EPS);
+        BoxProjection.toImageNormalized(1f, 0f, 90, out, 0);
+        assertEquals(0f, out[0], EPS);
+        assertEquals(0f, out[1], EPS);
+        BoxProjection.toImageNormalized(0.25f, 0.75f, -270, out, 0);
+        assertEquals(0.75f, out[0], EPS);
+        assertEquals(0.75f, out[1], EPS);
+    }
+
+    @Test
+    public void toImageNormalized_undoesPreProcessRotation() {
+        float[] out = new float[2];
+        for (int degrees = 0; degrees < 360; degrees += 90) {
+            for (float x = 0f; x <= 1f; x += 0.125f) {
+                for (float y = 0f; y <= 1f; y += 0.25f) {
+                    float[] model = rotateClockwise(x, y, degrees);
+                    BoxProjection.toImageNormalized(model[0], model[1], degrees, out, 0);
+                    assertEquals(x, out[0], EPS);
+                    assertEquals(y, out[1], EPS);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flatBuffers_coverQueuedBoxesOnly_andSurviveGrowth() {
+        BoxProjection projection = new BoxProjection();
+        for (int frame = 0; frame < 3; frame++) {
+            int boxes = frame == 1 ? 40 : 5;
+            projection.begin(90);
+            for (int i = 0; i < boxes; i++) {
+                if (i % 2 == 0) projection.add(i, box(i / 50f, 0.5f));
+            }
+            int queued = (boxes + 1) / 2;
+            assertEquals(queued, projection.size());
+
+            // Papel do Frame.transformCoordinates2d: imagem 640x480 em paisagem para view 1080x1440 em retrato
+            FloatBuffer in = projection.imagePoints();
+            FloatBuffer out = projection.viewPoints();
+            assertEquals(queued * 2, in.remaining());
+            assertEquals(in.remaining(), out.remaining());
+            while (in.hasRemaining()) {
+                float ix = in.get();
+                float iy = in.get();
+                out.put((1f - iy) * 1080f);
+                out.put(ix * 1440f);
+            }
+
+            for (int i = 0; i < queued; i++) {
+                assertEquals(i * 2, projection.boxIndex(i));
+                // Voltamos à orientação do modelo, agora em pixels da view
+                assertEquals(projection.boxIndex(i) / 50f * 1080f, projection.viewX(i), 1e-3f);
+                assertEquals(0.5f * 1440f, projection.viewY(i), 1e-3f);
+            }
+        }
+    }
+}
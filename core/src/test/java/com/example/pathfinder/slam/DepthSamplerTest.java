@@ -0,0 +1,165 @@
+package com.example.pathfinder.slam;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DepthSamplerTest {
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    // DEPTH16 buffer with row padding, like the ARCore image plane
+    private static ByteBuffer depthBuffer(int[] depthMm, int width, int height, int rowStride) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(rowStride * height).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                buffer.putShort(y * rowStride + 2 * x, (short) depthMm[y * width + x]);
+            }
+        }
+        return buffer;
+    }
+
+    private static BoundingBox box(float x1, float y1, float x2, float y2) {
+        return new BoundingBox(x1, y1, x2, y2, (x1 + x2) / 2, (y1 + y2) / 2, x2 - x1, y2 - y1, 0.9f, 0, "person");
+    }
+
+    @Test
+    public void objectInFrontOfWall_lowPercentileIgnoresBackground() {
+        // Wall at 4 m, an object at 1.2 m covering 60% of the box, some unknown pixels
+        int[] depth = new int[WIDTH * HEIGHT];
+        Arrays.fill(depth, 4000);
+        for (int y = 40; y < 100; y++) {
+            for (int x = 50; x < 86; x++) {
+                depth[y * WIDTH + x] = (x + y) % 7 == 0 ? 0 : 1200;
+            }
+        }
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        sampler.update(depthBuffer(depth, WIDTH, HEIGHT, WIDTH * 2 + 64), WIDTH, HEIGHT, WIDTH * 2 + 64);
+
+        float distance = sampler.sample(40f / WIDTH, 30f / HEIGHT, 100f / WIDTH, 100f / HEIGHT);
+        assertEquals(1.2f, distance, 0.1f);
+
+        // Only wall in the box
+        assertEquals(4.0f, sampler.sample(0f, 0f, 0.2f, 0.2f), 0.1f);
+    }
+
+    @Test
+    public void percentile_matchesBruteForceWithinOneBin() {
+        Random random = new Random(5);
+        int[] depth = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < depth.length; i++) {
+            depth[i] = random.nextInt(10) == 0 ? 0 : 300 + random.nextInt(4500);
+        }
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        sampler.setPercentile(0.5f);
+        sampler.update(depthBuffer(depth, WIDTH, HEIGHT, WIDTH * 2), WIDTH, HEIGHT, WIDTH * 2);
+
+        for (int i = 0; i < 50; i++) {
+            int x0 = random.nextInt(WIDTH - 10), y0 = random.nextInt(HEIGHT - 10);
+            int x1 = x0 + 5 + random.nextInt(WIDTH - x0 - 5), y1 = y0 + 5 + random.nextInt(HEIGHT - y0 - 5);
+
+            int[] values = new int[(x1 - x0) * (y1 - y0)];
+            int n = 0;
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    if (depth[y * WIDTH + x] > 0) values[n++] = depth[y * WIDTH + x];
+                }
+            }
+            Arrays.sort(values, 0, n);
+            float expected = values[(int) Math.ceil(0.5 * n) - 1] / 1000f;
+
+            float actual = sampler.sample((float) x0 / WIDTH, (float) y0 / HEIGHT, (float) x1 / WIDTH, (float) y1 / HEIGHT);
+            assertEquals(expected, actual, 0.1f);
+        }
+    }
+
+    @Test
+    public void mostlyUnknownDepth_returnsNaN() {
+        int[] depth = new int[WIDTH * HEIGHT];
+        depth[10 * WIDTH + 10] = 1500;
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        assertTrue(Float.isNaN(sampler.sample(0f, 0f, 1f, 1f))); // nothing loaded yet
+
+        sampler.update(depthBuffer(depth, WIDTH, HEIGHT, WIDTH * 2), WIDTH, HEIGHT, WIDTH * 2);
+        assertTrue(Float.isNaN(sampler.sample(0f, 0f, 0.2f, 0.2f)));
+    }
+
+    @Test
+    public void rotatedBox_mapsToSensorOrientation() {
+        // Near object in the top-left corner of the sensor image
+        int[] depth = new int[WIDTH * HEIGHT];
+        Arrays.fill(depth, 3000);
+        for (int y = 0; y < HEIGHT / 4; y++) {
+            for (int x = 0; x < WIDTH / 4; x++) {
+                depth[y * WIDTH + x] = 800;
+            }
+        }
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        sampler.update(depthBuffer(depth, WIDTH, HEIGHT, WIDTH * 2), WIDTH, HEIGHT, WIDTH * 2);
+
+        // Rotated 90 degrees clockwise, the sensor's top-left corner ends up at the top-right
+        assertEquals(0.8f, sampler.sample(box(0.75f, 0f, 1f, 0.25f), 90), 0.1f);
+        assertEquals(3.0f, sampler.sample(box(0f, 0f, 0.25f, 0.25f), 90), 0.1f);
+        // 270: bottom-left; 180: bottom-right
+        assertEquals(0.8f, sampler.sample(box(0f, 0.75f, 0.25f, 1f), 270), 0.1f);
+        assertEquals(0.8f, sampler.sample(box(0.75f, 0.75f, 1f, 1f), 180), 0.1f);
+        assertEquals(0.8f, sampler.sample(box(0f, 0f, 0.25f, 0.25f), 0), 0.1f);
+    }
+
+    @Test
+    public void boxOffCentre_returnsRangeAlongItsRay() {
+        // Parede plana a 2 m, perpendicular ao eixo da câmera; 90 graus de campo horizontal
+        int[] depth = new int[WIDTH * HEIGHT];
+        Arrays.fill(depth, 2000);
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        sampler.update(depthBuffer(depth, WIDTH, HEIGHT, WIDTH * 2), WIDTH, HEIGHT, WIDTH * 2);
+        BoundingBox centre = box(0.4f, 0.4f, 0.6f, 0.6f);
+        BoundingBox right = box(0.75f, 0.4f, 1f, 0.6f);
+
+        // Sem intrínsecos: profundidade no eixo
+        assertEquals(2.0f, sampler.sample(right, 0), 0.1f);
+
+        sampler.setIntrinsics(0.5f, 0.5f * WIDTH / HEIGHT, 0.5f, 0.5f);
+        assertEquals(2.0f, sampler.sample(centre, 0), 0.1f);
+        // Centro em u = 0.875: x/z = 0.375 / 0.5, distância = 2 * sqrt(1 + 0.75^2) = 2.5 m
+        assertEquals(2.5f, sampler.sample(right, 0), 0.1f);
+        // O retângulo cru continua sendo profundidade
+        assertEquals(2.0f, sampler.sample(0.75f, 0.4f, 1f, 0.6f), 0.1f);
+        // Girada 90 graus: o alto da entrada é a esquerda do sensor, a direita é o alto
+        assertEquals(2.5f, sampler.sample(box(0.4f, 0f, 0.6f, 0.25f), 90), 0.1f);
+        float rayY = 0.375f / (0.5f * WIDTH / HEIGHT);
+        assertEquals(2f * (float) Math.sqrt(1 + rayY * rayY), sampler.sample(right, 90), 0.1f);
+    }
+
+    @Test
+    public void largeDepthImage_isDecimatedToABoundedGrid() {
+        // Sensor ToF de alta resolução: 4x a grade máxima em cada eixo
+        int width = DepthSampler.MAX_GRID_WIDTH * 4, height = DepthSampler.MAX_GRID_HEIGHT * 4;
+        int[] depth = new int[width * height];
+        Arrays.fill(depth, 3500);
+        for (int y = height / 2; y < height; y++) {
+            for (int x = 0; x < width / 2; x++) {
+                depth[y * width + x] = 900;
+            }
+        }
+        DepthSampler sampler = new DepthSampler(5f, 0.1f);
+        sampler.update(depthBuffer(depth, width, height, width * 2), width, height, width * 2);
+
+        assertTrue(sampler.getGridWidth() <= DepthSampler.MAX_GRID_WIDTH);
+        assertTrue(sampler.getGridHeight() <= DepthSampler.MAX_GRID_HEIGHT);
+        assertEquals(0.9f, sampler.sample(0.1f, 0.6f, 0.4f, 0.9f), 0.1f);
+        assertEquals(3.5f, sampler.sample(0.6f, 0.1f, 0.9f, 0.4f), 0.1f);
+
+        // Uma imagem pequena depois da grande usa a grade inteira de novo
+        sampler.update(depthBuffer(new int[WIDTH * HEIGHT], WIDTH, HEIGHT, WIDTH * 2), WIDTH, HEIGHT, WIDTH * 2);
+        assertEquals(WIDTH, sampler.getGridWidth());
+        assertTrue(Float.isNaN(sampler.sample(0f, 0f, 1f, 1f)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.pathfinder.slam;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HitTestCacheTest {
+    private static final long FRAME_NS = 33_333_333L;
+
+    // Camera at (x, 0, 0) turned yawDeg around Y
+    private static float lookup(HitTestCache cache, float sx, float sy, long ts, float x, float yawDeg) {
+        double half = Math.toRadians(yawDeg) / 2.0;
+        return cache.lookup(sx, sy, ts, x, 0f, 0f, 0f, (float) Math.sin(half), 0f, (float) Math.cos(half));
+    }
+
+    private static void putHit(HitTestCache cache, float sx, float sy, long ts, float hz) {
+        cache.put(sx, sy, ts, 0f, 0f, 0f, 0f, 0f, 0f, 1f, true, 0f, 0f, hz);
+    }
+
+    @Test
+    public void sameCell_reusesWorldPointAgainstCurrentPose() {
+        HitTestCache cache = new HitTestCache(20f, 16);
+        assertTrue(Float.isNaN(lookup(cache, 105f, 205f, 0, 0f, 0f)));
+        putHit(cache, 105f, 205f, 0, -2f);
+
+        // Mesma célula, câmera 5 cm ao lado: distância recalculada para a pose atual
+        float distance = lookup(cache, 112f, 215f, FRAME_NS, 0.05f, 0f);
+        assertEquals(Math.sqrt(4 + 0.05 * 0.05), distance, 1e-4);
+
+        // Célula vizinha não compartilha a entrada
+        assertTrue(Float.isNaN(lookup(cache, 121f, 205f, FRAME_NS, 0f, 0f)));
+        assertEquals(1, cache.getSavedHitTests());
+        assertEquals(3, cache.getLookupCount());
+    }
+
+    @Test
+    public void cachedMiss_returnsNoHitSentinel() {
+        HitTestCache cache = new HitTestCache(20f, 16);
+        cache.put(50f, 50f, 0, 0f, 0f, 0f, 0f, 0f, 0f, 1f, false, 0f, 0f, 0f);
+        assertEquals(Float.MIN_VALUE, lookup(cache, 55f, 55f, FRAME_NS, 0f, 0f), 0f);
+    }
+
+    @Test
+    public void poseChangeOrAge_expiresEntry() {
+        HitTestCache cache = new HitTestCache(20f, 16);
+        cache.setMaxTranslation(0.1f);
+        cache.setMaxRotation(5f);
+        cache.setMaxAgeMs(1000);
+
+        putHit(cache, 10f, 10f, 0, -3f);
+        assertFalse(Float.isNaN(lookup(cache, 10f, 10f, FRAME_NS, 0.05f, 3f)));
+        assertTrue(Float.isNaN(lookup(cache, 10f, 10f, FRAME_NS, 0.2f, 0f)));
+        assertEquals(0, cache.size()); // removida ao expirar
+
+        putHit(cache, 10f, 10f, 0, -3f);
+        assertTrue(Float.isNaN(lookup(cache, 10f, 10f, FRAME_NS, 0f, 8f)));
+
+        putHit(cache, 10f, 10f, 0, -3f);
+        assertTrue(Float.isNaN(lookup(cache, 10f, 10f, 31 * FRAME_NS, 0f, 0f)));
+        assertEquals(3, cache.getExpiredCount());
+        assertEquals(1, cache.getSavedHitTests());
+    }
+
+    @Test
+    public void full_evictsLeastRecentlyUsed() {
+        HitTestCache cache = new HitTestCache(10f, 2);
+        putHit(cache, 5f, 5f, 0, -1f);
+        putHit(cache, 15f, 5f, 0, -2f);
+        lookup(cache, 5f, 5f, FRAME_NS, 0f, 0f); // primeira entrada passa a ser a mais recente
+        putHit(cache, 25f, 5f, 0, -3f);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictedCount());
+        assertEquals(1f, lookup(cache, 5f, 5f, FRAME_NS, 0f, 0f), 1e-5);
+        assertTrue(Float.isNaN(lookup(cache, 15f, 5f, FRAME_NS, 0f, 0f)));
+        assertEquals(3f, lookup(cache, 25f, 5f, FRAME_NS, 0f, 0f), 1e-5);
+        assertEquals(0.75f, cache.getHitRate(), 1e-5);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.pathfinder.slam;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InferenceGateTest {
+    private static final long FRAME_NS = 33_333_333L;
+
+    // Rotation of the identity pose around Y by the given angle
+    private static InferenceGate.Decision evaluateYaw(InferenceGate gate, long timestampNs, float x, float yawDeg) {
+        double half = Math.toRadians(yawDeg) / 2.0;
+        return gate.evaluate(timestampNs, x, 0f, 0f, 0f, (float) Math.sin(half), 0f, (float) Math.cos(half), false);
+    }
+
+    @Test
+    public void sameTimestamp_isDuplicate() {
+        InferenceGate gate = new InferenceGate();
+        assertEquals(InferenceGate.Decision.PROCESS, evaluateYaw(gate, 100, 0f, 0f));
+        assertEquals(InferenceGate.Decision.DUPLICATE_FRAME, evaluateYaw(gate, 100, 0.5f, 30f));
+        assertEquals(1, gate.getDuplicateCount());
+    }
+
+    @Test
+    public void staticCamera_reusesUntilMinRefreshInterval() {
+        InferenceGate gate = new InferenceGate();
+        gate.setMinRefreshIntervalMs(500);
+
+        int processed = 0;
+        // 2 seconds standing still at 30 FPS, with a little hand tremor
+        for (int i = 0; i < 60; i++) {
+            float jitter = (i % 2 == 0 ? 1 : -1) * 0.005f;
+            if (evaluateYaw(gate, i * FRAME_NS, jitter, jitter * 20) == InferenceGate.Decision.PROCESS) {
+                processed++;
+            }
+        }
+        // First frame plus one refresh every 500 ms
+        assertEquals(4, processed);
+        assertEquals(56, gate.getReusedCount());
+    }
+
+    @Test
+    public void translationOrRotation_forcesProcessing() {
+        InferenceGate gate = new InferenceGate();
+        gate.setTranslationThreshold(0.03f);
+        gate.setRotationThreshold(2f);
+
+        assertEquals(InferenceGate.Decision.PROCESS, evaluateYaw(gate, 0, 0f, 0f));
+        assertEquals(InferenceGate.Decision.REUSE, evaluateYaw(gate, FRAME_NS, 0.02f, 1f));
+        // Movement is measured from the last processed frame, so small steps add up
+        assertEquals(InferenceGate.Decision.PROCESS, evaluateYaw(gate, 2 * FRAME_NS, 0.04f, 1f));
+        assertEquals(InferenceGate.Decision.REUSE, evaluateYaw(gate, 3 * FRAME_NS, 0.04f, 2.5f));
+        assertEquals(InferenceGate.Decision.PROCESS, evaluateYaw(gate, 4 * FRAME_NS, 0.04f, 3.5f));
+    }
+
+    @Test
+    public void forceRefreshAndReset_processNextFrame() {
+        InferenceGate gate = new InferenceGate();
+        evaluateYaw(gate, 0, 0f, 0f);
+        assertEquals(InferenceGate.Decision.PROCESS,
+                gate.evaluate(FRAME_NS, 0f, 0f, 0f, 0f, 0f, 0f, 1f, true));
+
+        gate.reset();
+        assertEquals(InferenceGate.Decision.PROCESS, evaluateYaw(gate, 2 * FRAME_NS, 0f, 0f));
+        assertEquals(InferenceGate.Decision.REUSE, evaluateYaw(gate, 3 * FRAME_NS, 0f, 0f));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.pathfinder.slam;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class WallIndexTest {
+    private static final float S = (float) Math.sqrt(0.5);
+
+    // Quadrado centrado na origem do plano, (x, z) locais como Plane.getPolygon()
+    private static FloatBuffer square(float half) {
+        return FloatBuffer.wrap(new float[]{-half, -half, half, -half, half, half, -half, half});
+    }
+
+    // Plano vertical voltado para +Z (normal = eixo Y do plano): 90 graus em torno de X
+    private static void addWallFacingZ(WallIndex index, Object key, float x, float z, float half) {
+        index.update(key, x, 0f, z, S, 0f, 0f, S, square(half));
+    }
+
+    // Câmera girada yawDeg em torno de Y; yaw 0 olha para -Z
+    private static float query(WallIndex index, float x, float z, float yawDeg) {
+        double half = Math.toRadians(yawDeg) / 2.0;
+        return index.nearestWall(x, 0f, z, 0f, (float) Math.sin(half), 0f, (float) Math.cos(half));
+    }
+
+    @Test
+    public void wallInFront_distanceToPolygon() {
+        WallIndex index = new WallIndex();
+        addWallFacingZ(index, "a", 0f, -3f, 1f);
+
+        assertEquals(3f, query(index, 0f, 0f, 0f), 1e-4f);
+        // Parede atrás da câmera
+        assertEquals(Float.MIN_VALUE, query(index, 0f, 0f, 180f), 0f);
+        // Fora da borda do polígono: distância até a borda, ainda dentro do cone de 30 graus
+        assertEquals((float) Math.sqrt(1.5 * 1.5 + 9), query(index, 2.5f, 0f, 0f), 1e-4f);
+        // Borda a 45 graus e raio de visão passando ao lado
+        assertEquals(Float.MIN_VALUE, query(index, 4f, 0f, 0f), 0f);
+        // Longe demais
+        index.setMaxDistance(2f);
+        assertEquals(Float.MIN_VALUE, query(index, 0f, 0f, 0f), 0f);
+    }
+
+    @Test
+    public void slantedWall_crossedByViewRay_usesDistanceAlongRay() {
+        WallIndex index = new WallIndex();
+        // Normal (1, 0, 1)/sqrt(2): 45 graus em Y depois de 90 graus em X
+        float c = (float) Math.cos(Math.toRadians(22.5)), s = (float) Math.sin(Math.toRadians(22.5));
+        float qx = c * S, qy = s * S, qz = -s * S, qw = c * S;
+        index.update("slanted", 0f, 0f, -2f, qx, qy, qz, qw, square(3f));
+
+        // O ponto mais próximo (a 1.41 m) está a 45 graus; o raio à frente bate a 2 m
+        assertEquals(2f, query(index, 0f, 0f, 0f), 1e-3f);
+        index.setConeHalfAngle(50f);
+        assertEquals((float) Math.sqrt(2), query(index, 0f, 0f, 0f), 1e-3f);
+    }
+
+    @Test
+    public void incrementalUpdates_moveAndRemoveWalls() {
+        WallIndex index = new WallIndex();
+        addWallFacingZ(index, "a", 0f, -3f, 1f);
+        addWallFacingZ(index, "a", 0f, -1.5f, 1f); // plano refinado pelo ARCore
+        assertEquals(1, index.size());
+        assertEquals(1.5f, query(index, 0f, 0f, 0f), 1e-4f);
+
+        addWallFacingZ(index, "b", 0f, -4f, 1f);
+        index.remove("a");
+        assertEquals(4f, query(index, 0f, 0f, 0f), 1e-4f);
+        index.clear();
+        assertEquals(Float.MIN_VALUE, query(index, 0f, 0f, 0f), 0f);
+    }
+
+    @Test
+    public void collectSegments_returnsFloorFootprintOfNearbyWalls() {
+        WallIndex index = new WallIndex();
+        addWallFacingZ(index, "near", 0.5f, -2f, 1f);
+        addWallFacingZ(index, "far", 0f, -30f, 1f);
+
+        float[] segments = new float[8];
+        assertEquals(1, index.collectSegments(0f, 0f, 3f, segments));
+        assertEquals(-2f, segments[1], 1e-4f);
+        assertEquals(-2f, segments[3], 1e-4f);
+        assertEquals(2f, Math.abs(segments[2] - segments[0]), 1e-4f);
+        assertEquals(0.5f, (segments[0] + segments[2]) / 2f, 1e-4f);
+    }
+
+    @Test
+    public void distantWalls_doNotChangeNearbyResult() {
+        WallIndex index = new WallIndex();
+        addWallFacingZ(index, "near", 0f, -2f, 1f);
+        for (int i = 0; i < 5000; i++) {
+            addWallFacingZ(index, i, 20f + (i % 100), -20f - (i / 100), 0.4f);
+        }
+        assertEquals(2f, query(index, 0f, 0f, 0f), 1e-4f);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.pathfinder.tracking;
+
+import com.example.pathfinder.detection.BoundingBox;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ObjectTrackerTest {
+    private static final long FRAME_NS = 33_333_333L;
+
+    private static BoundingBox box(float cx, float cy, float w, float h, float cnf, int cls) {
+        return new BoundingBox(cx - w / 2, cy - h / 2, cx + w / 2, cy + h / 2, cx, cy, w, h, cnf, cls, "c" + cls);
+    }
+
+    @Test
+    public void movingObjects_keepTheirIds() {
+        ObjectTracker tracker = new ObjectTracker();
+        int idA = -1, idB = -1;
+        for (int frame = 0; frame < 30; frame++) {
+            // A walks to the right, B to the left; they never overlap
+            BoundingBox a = box(0.2f + frame * 0.01f, 0.3f, 0.1f, 0.2f, 0.9f, 0);
+            BoundingBox b = box(0.8f - frame * 0.01f, 0.7f, 0.1f, 0.2f, 0.8f, 0);
+            // Detection order changes between frames, IDs must not
+            List<BoundingBox> detections = frame % 2 == 0 ? Arrays.asList(a, b) : Arrays.asList(b, a);
+            tracker.update(detections, frame * FRAME_NS);
+            if (frame == 0) {
+                idA = a.trackId;
+                idB = b.trackId;
+                assertNotEquals(idA, idB);
+            }
+            assertEquals(idA, a.trackId);
+            assertEquals(idB, b.trackId);
+        }
+        assertEquals(2, tracker.getTrackCount());
+    }
+
+    @Test
+    public void skippedFrames_arePredictedWithConstantVelocity() {
+        ObjectTracker tracker = new ObjectTracker();
+        float speedPerFrame = 0.01f;
+        // Detection on every third frame only
+        for (int frame = 0; frame <= 30; frame += 3) {
+            tracker.update(new ArrayList<>(Arrays.asList(box(0.2f + frame * speedPerFrame, 0.5f, 0.1f, 0.2f, 0.9f, 0))),
+                    frame * FRAME_NS);
+        }
+
+        List<BoundingBox> predicted = tracker.predict(32 * FRAME_NS);
+        assertEquals(1, predicted.size());
+        // Velocity has converged: two frames ahead of the last detection
+        assertEquals(0.2f + 32 * speedPerFrame, predicted.get(0).cx, 0.01f);
+        assertEquals(0.5f, predicted.get(0).cy, 0.005f);
+        assertEquals(0.1f, predicted.get(0).w, 0.005f);
+    }
+
+    @Test
+    public void lowConfidenceDetection_continuesTrackAndIsReportedWithoutOne() {
+        ObjectTracker tracker = new ObjectTracker();
+        BoundingBox strong = box(0.5f, 0.5f, 0.2f, 0.2f, 0.9f, 0);
+        tracker.update(Arrays.asList(strong), 0);
+
+        BoundingBox weakSame = box(0.51f, 0.5f, 0.2f, 0.2f, 0.35f, 0);
+        BoundingBox weakNew = box(0.1f, 0.1f, 0.1f, 0.1f, 0.35f, 0);
+        tracker.update(Arrays.asList(weakSame, weakNew), FRAME_NS);
+
+        assertEquals(strong.trackId, weakSame.trackId);
+        assertEquals(-1, weakNew.trackId);
+        assertEquals(1, tracker.getTrackCount());
+
+        // Sem trilha, mas o obstáculo ainda chega à distância e ao risco até a próxima detecção
+        List<BoundingBox> predicted = tracker.predict(2 * FRAME_NS);
+        assertEquals(2, predicted.size());
+        BoundingBox untracked = predicted.get(1);
+        assertEquals(-1, untracked.trackId);
+        assertEquals(0.1f, untracked.cx, 1e-6f);
+        assertEquals(0.35f, untracked.cnf, 1e-6f);
+        assertNotSame(weakNew, untracked);
+
+        tracker.update(Arrays.asList(box(0.52f, 0.5f, 0.2f, 0.2f, 0.9f, 0)), 3 * FRAME_NS);
+        assertEquals(1, tracker.predict(3 * FRAME_NS).size());
+    }
+
+    @Test
+    public void differentClass_isNotAssociated() {
+        ObjectTracker tracker = new ObjectTracker();
+        BoundingBox person = box(0.5f, 0.5f, 0.2f, 0.4f, 0.9f, 0);
+        tracker.update(Arrays.asList(person), 0);
+        BoundingBox chair = box(0.5f, 0.5f, 0.2f, 0.4f, 0.9f, 56);
+        tracker.update(Arrays.asList(chair), FRAME_NS);
+
+        assertNotEquals(person.trackId, chair.trackId);
+    }
+
+    @Test
+    public void lostTrack_expiresAfterMaxAge() {
+        ObjectTracker tracker = new ObjectTracker();
+        tracker.setMaxAgeMs(200);
+        tracker.update(Arrays.asList(box(0.5f, 0.5f, 0.2f, 0.2f, 0.9f, 0)), 0);
+
+        assertEquals(1, tracker.predict(150_000_000L).size());
+        assertEquals(0, tracker.predict(250_000_000L).size());
+        tracker.update(new ArrayList<>(), 300_000_000L);
+        assertEquals(0, tracker.getTrackCount());
+    }
+
+    @Test
+    public void hungarian_prefersGlobalOptimumOverGreedy() {
+        // Greedy would take (0,0) = 0.1 and then be forced into (1,1) = 0.9
+        float[] cost = {
+                0.1f, 0.2f,
+                0.15f, 0.9f
+        };
+        int[] match = new int[2];
+        new HungarianAssignment().solve(cost, 2, 2, 1f, match);
+        assertArrayEquals(new int[]{1, 0}, match);
+
+        // More rows than columns, one pair above the limit stays unmatched
+        float[] tall = {
+                0.5f,
+                0.2f,
+                2.0f
+        };
+        int[] tallMatch = new int[3];
+        new HungarianAssignment().solve(tall, 3, 1, 1f, tallMatch);
+        assertArrayEquals(new int[]{-1, 0, -1}, tallMatch);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.pathfinder.tts;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.risk.RiskEvaluator;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PhraseCacheTest {
+
+    // WAV como o synthesizeToFile grava, com um chunk LIST antes dos dados
+    private static byte[] wav(short[] samples, int sampleRate, int channels, boolean listChunk, int dataSize) {
+        int listSize = listChunk ? 8 + 5 : 0; // tamanho ímpar: tem um byte de padding
+        ByteBuffer out = ByteBuffer.allocate(12 + 24 + listSize + 1 + 8 + samples.length * 2)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.put("RIFF".getBytes()).putInt(0).put("WAVE".getBytes());
+        out.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) channels)
+                .putInt(sampleRate).putInt(sampleRate * channels * 2).putShort((short) (channels * 2))
+                .putShort((short) 16);
+        if (listChunk) {
+            out.put("LIST".getBytes()).putInt(5).put(new byte[]{'I', 'N', 'F', 'O', 'x'}).put((byte) 0);
+        }
+        out.put("data".getBytes()).putInt(dataSize);
+        for (short s : samples) out.putShort(s);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static File tempDir() throws IOException {
+        return Files.createTempDirectory("phrases").toFile();
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void readWav_skipsOtherChunksAndDecodesSamples() throws IOException {
+        short[] samples = {0, 1000, -1000, Short.MAX_VALUE, Short.MIN_VALUE, 7};
+        PcmClip clip = PhraseCache.readWav(ByteBuffer.wrap(wav(samples, 22050, 2, true, samples.length * 2)));
+        assertEquals(22050, clip.sampleRate);
+        assertEquals(2, clip.channels);
+        assertEquals(3, clip.frames());
+        assertTrue(Arrays.equals(samples, clip.samples));
+    }
+
+    @Test
+    public void readWav_interruptedSynthesis_usesWhatIsThere() throws IOException {
+        short[] samples = new short[100];
+        Arrays.fill(samples, (short) 5);
+        // Tamanho dos dados ainda no valor provisório de quem grava em streaming
+        PcmClip clip = PhraseCache.readWav(ByteBuffer.wrap(wav(samples, 16000, 1, false, -1)));
+        assertEquals(100, clip.samples.length);
+        assertEquals(6, clip.durationMs());
+    }
+
+    @Test
+    public void readWav_rejectsUnsupportedFiles() {
+        byte[][] bad = {
+                new byte[0],
+                "RIFF\0\0\0\0AVI LIST".getBytes(),
+                wav(new short[0], 16000, 1, false, 0),
+        };
+        byte[] eightBit = wav(new short[4], 16000, 1, false, 8);
+        eightBit[34] = 8; // bits por amostra
+        byte[] compressed = wav(new short[4], 16000, 1, false, 8);
+        compressed[20] = 3; // float
+        for (byte[] file : Arrays.asList(bad[0], bad[1], bad[2], eightBit, compressed)) {
+            try {
+                PhraseCache.readWav(ByteBuffer.wrap(file));
+                fail("accepted " + file.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void files_areKeyedByEngineVoiceAndText() throws IOException {
+        File dir = tempDir();
+        try {
+            PhraseCache cache = new PhraseCache(dir, "com.google.android.tts", "pt-br-x-afs-local");
+            File file = cache.fileFor("Pare! Obstáculo muito próximo");
+            assertEquals(file, new PhraseCache(dir, "com.google.android.tts", "pt-br-x-afs-local")
+                    .fileFor("Pare! Obstáculo muito próximo"));
+            assertNotEquals(file, cache.fileFor("Pare! Parede à frente"));
+            assertNotEquals(file, new PhraseCache(dir, "com.google.android.tts", "pt-br-x-afs-network")
+                    .fileFor("Pare! Obstáculo muito próximo"));
+            assertNotEquals(file, new PhraseCache(dir, "com.samsung.SMT", "pt-br-x-afs-local")
+                    .fileFor("Pare! Obstáculo muito próximo"));
+            assertNotEquals(new PhraseCache(dir, "a", "b\u0000c").fileFor("d"),
+                    new PhraseCache(dir, "a", "b").fileFor("c\u0000d"));
+            assertTrue(file.getName().endsWith(PhraseCache.EXTENSION));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void load_keepsValidClips_deletesBrokenOnes_andRetainOnlyPrunes() throws IOException {
+        File dir = tempDir();
+        try {
+            PhraseCache cache = new PhraseCache(dir, "engine", "voice");
+            assertNull(cache.load("a"));
+            Files.write(cache.fileFor("a").toPath(), wav(new short[]{1, 2, 3}, 24000, 1, true, 6));
+            Files.write(cache.fileFor("b").toPath(), "not audio".getBytes());
+            File otherVoice = new PhraseCache(dir, "engine", "old").fileFor("a");
+            Files.write(otherVoice.toPath(), wav(new short[]{1}, 24000, 1, false, 2));
+
+            assertNotNull(cache.load("a"));
+            assertSame(cache.get("a"), cache.get("a"));
+            assertNull(cache.load("b"));
+            assertFalse(cache.fileFor("b").exists());
+            assertNull(cache.get("b"));
+            assertNull(cache.get(null));
+            assertEquals(1, cache.size());
+
+            assertEquals(1, cache.retainOnly(Arrays.asList("a", "b")));
+            assertFalse(otherVoice.exists());
+            assertTrue(cache.fileFor("a").exists());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void knownMessages_coverEveryRiskMessage() {
+        List<String> messages = RiskEvaluator.knownMessages();
+        assertEquals(messages.size(), new HashSet<>(messages).size());
+        assertTrue(messages.contains("Siga em frente"));
+        assertTrue(messages.contains("Pare! Parede à frente"));
+        assertTrue(messages.contains("Atenção, parede próxima"));
+        assertTrue(messages.contains("Cuidado! Obstáculo à esquerda"));
+        assertTrue(messages.contains("Continue com cuidado"));
+
+        // Tudo o que o avaliador devolve para objetos está na lista
+        RiskEvaluator evaluator = new RiskEvaluator(1080, 1920);
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (float cx = 0.05f; cx < 1f; cx += 0.1f) {
+            for (float distance = 0.1f; distance < 3f; distance += 0.2f) {
+                boxes.clear();
+                boxes.add(new BoundingBox(cx - 0.05f, 0.4f, cx + 0.05f, 0.6f,
+                        cx, 0.5f, 0.1f, 0.2f, 0.9f, 0, "person"));
+                String message = evaluator.evaluate(boxes, new float[]{distance}, 1, Float.MIN_VALUE, 0)
+                        .getMessage();
+                assertTrue(message, messages.contains(message));
+            }
+        }
+    }
+}
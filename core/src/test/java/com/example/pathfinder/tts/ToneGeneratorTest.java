@@ -0,0 +1,169 @@
+package com.example.pathfinder.tts;
+
+import com.example.pathfinder.detection.BoundingBox;
+import com.example.pathfinder.risk.DetectedObject;
+import com.example.pathfinder.risk.RiskAssessment;
+import com.example.pathfinder.risk.RiskLevel;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ToneGeneratorTest {
+    private static final int RATE = 48000;
+    private static final int BLOCK = 128; // ~2.7 ms, o bloco da thread de áudio
+
+    private static short[] render(ToneGenerator generator, int frames) {
+        short[] out = new short[frames * 2];
+        for (int f = 0; f < frames; f += BLOCK) {
+            generator.render(out, f * 2, Math.min(BLOCK, frames - f));
+        }
+        return out;
+    }
+
+    private static double energy(short[] stereo, int channel, int fromFrame, int toFrame) {
+        double sum = 0;
+        for (int f = fromFrame; f < toFrame; f++) {
+            double s = stereo[f * 2 + channel];
+            sum += s * s;
+        }
+        return sum;
+    }
+
+    // Quadros em que um bipe começa (som depois de pelo menos 10 ms de silêncio)
+    private static int[] onsets(short[] stereo, int maxOnsets) {
+        int[] found = new int[maxOnsets];
+        int count = 0, quiet = RATE / 100;
+        for (int f = 0; f < stereo.length / 2 && count < maxOnsets; f++) {
+            boolean sound = stereo[f * 2] != 0 || stereo[f * 2 + 1] != 0;
+            if (sound && quiet >= RATE / 100) found[count++] = f;
+            quiet = sound ? 0 : quiet + 1;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    // Frequência pela contagem de cruzamentos de zero dentro de um bipe
+    private static double frequency(short[] stereo, int onset) {
+        int from = onset + RATE * 10 / 1000, to = onset + RATE * 50 / 1000;
+        int crossings = 0;
+        for (int f = from + 1; f < to; f++) {
+            int a = stereo[(f - 1) * 2] + stereo[(f - 1) * 2 + 1];
+            int b = stereo[f * 2] + stereo[f * 2 + 1];
+            if ((a < 0) != (b < 0)) crossings++;
+        }
+        return crossings / 2.0 * RATE / (to - from);
+    }
+
+    private static RiskAssessment assessment(float cx, float distance, RiskLevel level, String direction) {
+        BoundingBox box = new BoundingBox(cx - 0.05f, 0.4f, cx + 0.05f, 0.6f, cx, 0.5f, 0.1f, 0.2f, 0.9f, 0, "person");
+        return new RiskAssessment(new DetectedObject(box, distance), level, "", direction, false);
+    }
+
+    @Test
+    public void silentWithoutTarget() {
+        ToneGenerator generator = new ToneGenerator(RATE);
+        short[] out = render(generator, RATE / 10);
+        assertEquals(0, energy(out, 0, 0, RATE / 10) + energy(out, 1, 0, RATE / 10), 0);
+        assertFalse(generator.isActive());
+    }
+
+    @Test
+    public void firstBeepStartsInTheNextBlock() {
+        ToneGenerator generator = new ToneGenerator(RATE);
+        render(generator, 1000);
+        generator.setTarget(0f, 1f);
+        short[] out = render(generator, BLOCK);
+        assertTrue(energy(out, 0, 0, BLOCK) > 0);
+        assertTrue(energy(out, 1, 0, BLOCK) > 0);
+        // Sem estalo: o envelope começa em zero
+        assertEquals(0, out[0]);
+        assertEquals(0, out[1]);
+    }
+
+    @Test
+    public void panFollowsObjectSide() {
+        ToneGenerator generator = new ToneGenerator(RATE);
+        generator.update(assessment(0.1f, 1f, RiskLevel.MEDIUM, "esquerda"));
+        short[] left = render(generator, RATE / 20);
+        assertTrue(energy(left, 0, 0, RATE / 20) > 10 * energy(left, 1, 0, RATE / 20));
+
+        generator = new ToneGenerator(RATE);
+        generator.update(assessment(0.9f, 1f, RiskLevel.MEDIUM, "direita"));
+        short[] right = render(generator, RATE / 20);
+        assertTrue(energy(right, 1, 0, RATE / 20) > 10 * energy(right, 0, 0, RATE / 20));
+
+        generator = new ToneGenerator(RATE);
+        generator.update(new RiskAssessment(null, RiskLevel.CRITICAL, "Pare! Parede à frente", "frente", true));
+        short[] front = render(generator, RATE / 20);
+        assertEquals(1, energy(front, 0, 0, RATE / 20) / energy(front, 1, 0, RATE / 20), 0.01);
+    }
+
+    @Test
+    public void closerObjects_beepHigherAndFaster() {
+        float[] distances = {2.8f, 1.5f, 0.6f};
+        double lastFrequency = 0;
+        int lastInterval = Integer.MAX_VALUE;
+        for (float distance : distances) {
+            ToneGenerator generator = new ToneGenerator(RATE);
+            generator.setTarget(0f, distance);
+            short[] out = render(generator, 2 * RATE);
+            int[] found = onsets(out, 3);
+            assertEquals(3, found.length);
+            int interval = found[1] - found[0];
+            assertEquals(ToneGenerator.intervalMsFor(distance) * RATE / 1000.0, interval, 2);
+            double frequency = frequency(out, found[1]);
+            assertEquals(ToneGenerator.frequencyFor(distance), frequency, frequency * 0.05);
+            assertTrue(frequency > lastFrequency);
+            assertTrue(interval < lastInterval);
+            lastFrequency = frequency;
+            lastInterval = interval;
+        }
+    }
+
+    @Test
+    public void silence_finishesCurrentBeepWithoutClick() {
+        ToneGenerator generator = new ToneGenerator(RATE);
+        generator.setTarget(0f, 0.5f);
+        render(generator, RATE * 20 / 1000); // no meio do primeiro bipe
+        generator.silence();
+        short[] out = render(generator, RATE);
+        int beepEnd = RATE * (ToneGenerator.BEEP_MS - 20) / 1000;
+        assertTrue(energy(out, 0, 0, BLOCK) > 0);
+        assertEquals(0, energy(out, 0, beepEnd + 1, RATE) + energy(out, 1, beepEnd + 1, RATE), 0);
+
+        // Fora do alcance e risco SAFE também silenciam
+        generator.setTarget(0f, ToneGenerator.MAX_DISTANCE_M + 0.1f);
+        assertFalse(generator.isActive());
+        generator.update(assessment(0.5f, 1f, RiskLevel.HIGH, "frente"));
+        assertTrue(generator.isActive());
+        generator.update(new RiskAssessment(null, RiskLevel.SAFE, "Siga em frente", "frente", false));
+        assertFalse(generator.isActive());
+    }
+
+    @Test
+    public void render_doesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return;
+
+        ToneGenerator generator = new ToneGenerator(RATE);
+        short[] out = new short[BLOCK * 2];
+        float[] distances = {0.4f, 1f, 2f, 5f};
+        for (int i = 0; i < 2000; i++) { // aquece o JIT
+            generator.setTarget(i % 3 - 1, distances[i % 4]);
+            generator.render(out, 0, BLOCK);
+        }
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 2000; i++) {
+            generator.setTarget(i % 3 - 1, distances[i % 4]);
+            generator.render(out, 0, BLOCK);
+        }
+        assertEquals(0, threads.getThreadAllocatedBytes(id) - before);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.pathfinder.ui;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OverlaySnapshotTest {
+
+    @Test
+    public void tripleBuffer_consumerSeesLatestPublishedValue() {
+        int[] next = {0};
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(() -> new int[]{next[0]++});
+
+        assertFalse(buffer.acquire());
+
+        buffer.back()[0] = 10;
+        buffer.publish();
+        buffer.back()[0] = 11;
+        buffer.publish(); // o consumidor não viu o 10: fica só o mais novo
+        assertTrue(buffer.acquire());
+        assertEquals(11, buffer.front()[0]);
+        assertFalse(buffer.acquire());
+        assertEquals(11, buffer.front()[0]);
+
+        // O produtor nunca recebe o buffer que o consumidor está lendo
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(buffer.front(), buffer.back());
+            buffer.back()[0] = 20 + i;
+            buffer.publish();
+            assertNotSame(buffer.front(), buffer.back());
+            if (i % 3 == 0) {
+                assertTrue(buffer.acquire());
+                assertEquals(20 + i, buffer.front()[0]);
+            }
+        }
+    }
+
+    @Test
+    public void tripleBuffer_concurrentHandOffNeverTears() throws Exception {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[8]);
+        final int values = 200_000;
+        Thread producer = new Thread(() -> {
+            for (long v = 1; v <= values; v++) {
+                long[] back = buffer.back();
+                for (int i = 0; i < back.length; i++) back[i] = v;
+                buffer.publish();
+            }
+        });
+        producer.start();
+        long last = 0;
+        while (last < values) {
+            if (!buffer.acquire()) {
+                Thread.yield();
+                continue;
+            }
+            long[] front = buffer.front();
+            for (long x : front) assertEquals(front[0], x);
+            assertTrue(front[0] >= last);
+            last = front[0];
+        }
+        producer.join();
+    }
+
+    @Test
+    public void labelCache_reusesLabelsWithinQuantizationBins() {
+        LabelCache cache = new LabelCache(64);
+        String a = cache.label(0, "person", 1.31f, 0.851f);
+        assertEquals("person: 1.3m (0.85)", a);
+        assertSame(a, cache.label(0, "person", 1.29f, 0.849f));
+        assertEquals(1, cache.getMisses());
+
+        assertNotSame(a, cache.label(0, "person", 1.4f, 0.85f));
+        assertNotSame(a, cache.label(0, "person", 1.3f, 0.9f));
+        assertNotSame(a, cache.label(2, "car", 1.3f, 0.85f));
+        assertEquals("person: ? (0.50)", cache.label(0, "person", Float.MIN_VALUE, 0.5f));
+        assertEquals(5, cache.getMisses());
+    }
+
+    @Test
+    public void labelCache_clearsWhenFull() {
+        LabelCache cache = new LabelCache(8);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.format(java.util.Locale.US, "c: %.1fm (0.50)", i * 0.1f),
+                    cache.label(1, "c", i * 0.1f, 0.5f));
+            assertTrue(cache.size() <= 8);
+        }
+        String label = cache.label(1, "c", 9.9f, 0.5f);
+        assertSame(label, cache.label(1, "c", 9.9f, 0.5f));
+    }
+
+    @Test
+    public void snapshot_ignoresSubPixelJitter() {
+        LabelCache cache = new LabelCache(16);
+        OverlaySnapshot a = new OverlaySnapshot();
+        OverlaySnapshot b = new OverlaySnapshot();
+        a.add(0.1f, 0.2f, 0.3f, 0.4f, cache.label(0, "person", 2f, 0.8f));
+        b.add(0.10001f, 0.2f, 0.3f, 0.40002f, cache.label(0, "person", 2.01f, 0.8f));
+        assertTrue(a.contentEquals(b));
+
+        b.clear();
+        b.add(0.11f, 0.2f, 0.3f, 0.4f, cache.label(0, "person", 2f, 0.8f));
+        assertFalse(a.contentEquals(b));
+
+        b.clear();
+        b.add(0.1f, 0.2f, 0.3f, 0.4f, cache.label(0, "person", 2.5f, 0.8f));
+        assertFalse(a.contentEquals(b));
+
+        b.clear();
+        assertFalse(a.contentEquals(b));
+    }
+
+    @Test
+    public void snapshot_copyFromGrowsAndDropsStaleLabels() {
+        OverlaySnapshot big = new OverlaySnapshot();
+        for (int i = 0; i < 40; i++) {
+            big.add(i / 100f, 0f, 1f, 1f, "l" + i);
+        }
+        OverlaySnapshot copy = new OverlaySnapshot();
+        copy.copyFrom(big);
+        assertTrue(copy.contentEquals(big));
+        assertEquals(0.39f, copy.x1(39), OverlaySnapshot.GRID);
+
+        OverlaySnapshot small = new OverlaySnapshot();
+        small.add(0f, 0f, 0.5f, 0.5f, "x");
+        copy.copyFrom(small);
+        assertEquals(1, copy.count);
+        assertTrue(copy.contentEquals(small));
+        assertNull(copy.labels[1]);
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.pathfinder.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the direct YUV -> tensor conversion with a JVM model of the previous path:
+ * YUV -> RGB bitmap, 90 degree rotation, Bitmap.createScaledBitmap(filter = false), NormalizeOp(0, 255).
+ * The JPEG step of the old path is lossy and not reproduced here, so values are compared with
+ * a tolerance of one 8-bit level.
+ */
+public class YuvToTensorConverterTest {
+    private static final float TOLERANCE = 1f / 255f + 1e-5f;
+
+    @Test
+    public void planarFrame_matchesBitmapPath() {
+        YuvFrame frame = syntheticFrame(64, 48, 64, 1, 32, 1);
+        YuvToTensorConverter converter = new YuvToTensorConverter(40, 40, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+
+        assertArrayEquals(referenceTensor(frame, 40, 40, 90), toArray(converter.convert(frame)), TOLERANCE);
+    }
+
+    @Test
+    public void interleavedPaddedFrame_matchesPlanarFrame() {
+        // Same image, but with the semi-planar layout and row padding ARCore usually delivers
+        YuvFrame planar = syntheticFrame(64, 48, 64, 1, 32, 1);
+        YuvFrame interleaved = syntheticFrame(64, 48, 80, 1, 96, 2);
+        YuvToTensorConverter converter = new YuvToTensorConverter(32, 24, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+
+        float[] expected = toArray(converter.convert(planar));
+        assertArrayEquals(expected, toArray(converter.convert(interleaved)), 0f);
+    }
+
+    @Test
+    public void allRotations_matchReference() {
+        YuvFrame frame = syntheticFrame(30, 20, 32, 1, 16, 1);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            YuvToTensorConverter converter = new YuvToTensorConverter(17, 13, rotation,
+                    YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+            assertArrayEquals(referenceTensor(frame, 17, 13, rotation), toArray(converter.convert(frame)), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void bilinear_withoutScaling_equalsNearest() {
+        YuvFrame frame = syntheticFrame(32, 24, 40, 1, 40, 2);
+        YuvToTensorConverter nearest = new YuvToTensorConverter(24, 32, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+        YuvToTensorConverter bilinear = new YuvToTensorConverter(24, 32, 90,
+                YuvToTensorConverter.Interpolation.BILINEAR, 0f, 255f);
+
+        float[] expected = toArray(nearest.convert(frame));
+        float[] actual = toArray(bilinear.convert(frame));
+        // Luma is identical; chroma is interpolated between the 2x2 subsampled values
+        assertArrayEquals(expected, actual, 0.1f);
+    }
+
+    @Test
+    public void bilinear_onLumaGradient_staysBetweenNeighbours() {
+        YuvFrame frame = syntheticFrame(64, 64, 64, 1, 32, 1);
+        for (int row = 0; row < 64; row++) {
+            for (int col = 0; col < 64; col++) {
+                frame.y[row * 64 + col] = (byte) (col * 4);
+            }
+        }
+        java.util.Arrays.fill(frame.u, (byte) 128);
+        java.util.Arrays.fill(frame.v, (byte) 128);
+
+        YuvToTensorConverter converter = new YuvToTensorConverter(16, 16, 0,
+                YuvToTensorConverter.Interpolation.BILINEAR, 0f, 255f);
+        float[] out = toArray(converter.convert(frame));
+
+        for (int dx = 0; dx < 16; dx++) {
+            // Output pixel centre lands at source x = 4 * dx + 1.5
+            float expected = (4 * dx + 1.5f) * 4f / 255f;
+            assertEquals(expected, out[dx * 3], 1e-4f);
+        }
+    }
+
+    @Test
+    public void normalization_usesMeanAndStd() {
+        YuvFrame frame = syntheticFrame(8, 8, 8, 1, 4, 1);
+        java.util.Arrays.fill(frame.y, (byte) 200);
+        java.util.Arrays.fill(frame.u, (byte) 128);
+        java.util.Arrays.fill(frame.v, (byte) 128);
+
+        YuvToTensorConverter converter = new YuvToTensorConverter(4, 4, 0,
+                YuvToTensorConverter.Interpolation.NEAREST, 127.5f, 127.5f);
+        for (float value : toArray(converter.convert(frame))) {
+            assertEquals((200f - 127.5f) / 127.5f, value, 1e-5f);
+        }
+    }
+
+    @Test
+    public void outputBuffer_isReusedAndShapedLikeTensor() {
+        YuvFrame frame = syntheticFrame(16, 12, 16, 1, 8, 1);
+        YuvToTensorConverter converter = new YuvToTensorConverter(10, 6, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+
+        ByteBuffer first = converter.convert(frame);
+        ByteBuffer second = converter.convert(frame);
+
+        assertSame(first, second);
+        assertTrue(first.isDirect());
+        assertEquals(10 * 6 * 3 * 4, first.capacity());
+        assertEquals(0, first.position());
+    }
+
+    @Test
+    public void uint8Output_withPixelScale_matchesFloatTimes255() {
+        YuvFrame frame = syntheticFrame(64, 48, 64, 1, 32, 1);
+        YuvToTensorConverter floats = new YuvToTensorConverter(20, 20, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+        YuvToTensorConverter bytes = new YuvToTensorConverter(20, 20, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f,
+                YuvToTensorConverter.OutputType.UINT8, 1f / 255f, 0);
+
+        float[] expected = toArray(floats.convert(frame));
+        ByteBuffer out = bytes.convert(frame);
+        assertEquals(20 * 20 * 3, out.capacity());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Math.round(expected[i] * 255f), out.get(i) & 0xFF, 1);
+        }
+    }
+
+    @Test
+    public void int8Output_appliesZeroPointAndClamps() {
+        YuvFrame frame = syntheticFrame(8, 8, 8, 1, 4, 1);
+        java.util.Arrays.fill(frame.y, (byte) 255);
+        java.util.Arrays.fill(frame.u, (byte) 128);
+        java.util.Arrays.fill(frame.v, (byte) 128);
+
+        // Typical full-integer export: input 0..1 mapped to -128..127
+        YuvToTensorConverter converter = new YuvToTensorConverter(4, 4, 0,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f,
+                YuvToTensorConverter.OutputType.INT8, 1f / 255f, -128);
+        ByteBuffer out = converter.convert(frame);
+        for (int i = 0; i < 4 * 4 * 3; i++) {
+            assertEquals(127, out.get(i));
+        }
+
+        java.util.Arrays.fill(frame.y, (byte) 0);
+        out = converter.convert(frame);
+        for (int i = 0; i < 4 * 4 * 3; i++) {
+            assertEquals(-128, out.get(i));
+        }
+    }
+
+    @Test
+    public void argbPixels_useTheSameQuantizationAsYuv() {
+        // Mesma imagem pelos dois caminhos: tensor float do YUV vira pixels ARGB, como um Bitmap
+        YuvFrame frame = syntheticFrame(64, 48, 64, 1, 32, 1);
+        YuvToTensorConverter floats = new YuvToTensorConverter(20, 16, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+        float[] rgb = toArray(floats.convert(frame));
+        int[] pixels = new int[20 * 16];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | clampRound(rgb[3 * i] * 255.0) << 16
+                    | clampRound(rgb[3 * i + 1] * 255.0) << 8 | clampRound(rgb[3 * i + 2] * 255.0);
+        }
+
+        YuvToTensorConverter int8 = new YuvToTensorConverter(20, 16, 90,
+                YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f,
+                YuvToTensorConverter.OutputType.INT8, 1f / 255f, -128);
+        ByteBuffer fromYuv = int8.convert(frame);
+        ByteBuffer fromArgb = int8.allocateOutputBuffer();
+        int8.convertArgb(pixels, fromArgb);
+        for (int i = 0; i < 20 * 16 * 3; i++) {
+            assertEquals("value " + i, fromYuv.get(i), fromArgb.get(i), 1);
+        }
+
+        ByteBuffer floatArgb = floats.allocateOutputBuffer();
+        floats.convertArgb(pixels, floatArgb);
+        assertArrayEquals(rgb, toArray(floatArgb), TOLERANCE);
+
+        // Extremos: zero-point e saturação
+        pixels[0] = 0xFF000000;
+        pixels[1] = 0xFFFFFFFF;
+        int8.convertArgb(pixels, fromArgb);
+        assertEquals(-128, fromArgb.get(0));
+        assertEquals(127, fromArgb.get(3));
+    }
+
+    @Test
+    public void crop_samplesRegionAtNativeResolution() {
+        YuvFrame frame = syntheticFrame(64, 48, 64, 1, 32, 1);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            boolean swap = rotation % 180 != 0;
+            int fullW = swap ? 48 : 64;
+            int fullH = swap ? 64 : 48;
+            // Identity-sized conversion of the whole rotated frame
+            YuvToTensorConverter full = new YuvToTensorConverter(fullW, fullH, rotation,
+                    YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+            float[] whole = toArray(full.convert(frame));
+
+            // Central quarter at its native size must be the same pixels
+            YuvToTensorConverter cropped = new YuvToTensorConverter(fullW / 2, fullH / 2, rotation,
+                    YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+            cropped.setCrop(0.25f, 0.25f, 0.75f, 0.75f);
+            float[] region = toArray(cropped.convert(frame));
+
+            for (int y = 0; y < fullH / 2; y++) {
+                for (int x = 0; x < fullW / 2; x++) {
+                    for (int c = 0; c < 3; c++) {
+                        float expected = whole[((y + fullH / 4) * fullW + (x + fullW / 4)) * 3 + c];
+                        assertEquals("rotation " + rotation, expected, region[(y * (fullW / 2) + x) * 3 + c], 0f);
+                    }
+                }
+            }
+
+            // Clearing the crop goes back to the whole frame
+            cropped.clearCrop();
+            YuvToTensorConverter half = new YuvToTensorConverter(fullW / 2, fullH / 2, rotation,
+                    YuvToTensorConverter.Interpolation.NEAREST, 0f, 255f);
+            assertArrayEquals(toArray(half.convert(frame)), toArray(cropped.convert(frame)), 0f);
+        }
+    }
+
+    // Builds a frame with smooth but non-trivial content. uvPixelStride 2 stores U and V
+    // interleaved in a single buffer, like NV21/NV12 backed YUV_420_888 images.
+    static YuvFrame syntheticFrame(int width, int height, int yRowStride, int yPixelStride,
+                                   int uvRowStride, int uvPixelStride) {
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+
+        byte[] y = new byte[yRowStride * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                y[row * yRowStride + col * yPixelStride] = (byte) ((col * 5 + row * 3) % 256);
+            }
+        }
+
+        byte[] interleaved = new byte[uvRowStride * chromaHeight + 1];
+        byte[] u = new byte[uvRowStride * chromaHeight];
+        byte[] v = new byte[uvRowStride * chromaHeight];
+        for (int row = 0; row < chromaHeight; row++) {
+            for (int col = 0; col < chromaWidth; col++) {
+                byte uValue = (byte) (64 + (col * 7) % 128);
+                byte vValue = (byte) (200 - (row * 9) % 128);
+                int index = row * uvRowStride + col * uvPixelStride;
+                u[index] = uValue;
+                v[index] = vValue;
+                interleaved[index] = vValue;
+                interleaved[index + 1] = uValue;
+            }
+        }
+
+        YuvFrame frame = new YuvFrame();
+        if (uvPixelStride == 2) {
+            // U and V views over the same interleaved memory (V first, as in NV21)
+            ByteBuffer vPlane = ByteBuffer.wrap(interleaved, 0, interleaved.length - 1).slice();
+            ByteBuffer uPlane = ByteBuffer.wrap(interleaved, 1, interleaved.length - 1).slice();
+            frame.set(width, height, ByteBuffer.wrap(y), yRowStride, yPixelStride,
+                    uPlane, vPlane, uvRowStride, uvPixelStride);
+        } else {
+            frame.set(width, height, ByteBuffer.wrap(y), yRowStride, yPixelStride,
+                    ByteBuffer.wrap(u), ByteBuffer.wrap(v), uvRowStride, uvPixelStride);
+        }
+        return frame;
+    }
+
+    // Model of the old path: full-res RGB bitmap, rotate, nearest scale, divide by 255
+    static float[] referenceTensor(YuvFrame frame, int outWidth, int outHeight, int rotation) {
+        int width = frame.width;
+        int height = frame.height;
+        int[][] rgb = new int[width * height][];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int yValue = frame.y[row * frame.yRowStride + col * frame.yPixelStride] & 0xFF;
+                int chromaIndex = (row / 2) * frame.uvRowStride + (col / 2) * frame.uvPixelStride;
+                int cb = (frame.u[chromaIndex] & 0xFF) - 128;
+                int cr = (frame.v[chromaIndex] & 0xFF) - 128;
+                rgb[row * width + col] = new int[]{
+                        clampRound(yValue + 1.402 * cr),
+                        clampRound(yValue - 0.344136 * cb - 0.714136 * cr),
+                        clampRound(yValue + 1.772 * cb)};
+            }
+        }
+
+        boolean swap = rotation == 90 || rotation == 270;
+        int rotatedWidth = swap ? height : width;
+        int rotatedHeight = swap ? width : height;
+
+        float[] out = new float[outWidth * outHeight * 3];
+        for (int dy = 0; dy < outHeight; dy++) {
+            int ry = (int) ((dy + 0.5) * rotatedHeight / outHeight);
+            for (int dx = 0; dx < outWidth; dx++) {
+                int rx = (int) ((dx + 0.5) * rotatedWidth / outWidth);
+                int sx, sy;
+                switch (rotation) {
+                    case 90:
+                        sx = ry;
+                        sy = height - 1 - rx;
+                        break;
+                    case 180:
+                        sx = width - 1 - rx;
+                        sy = height - 1 - ry;
+                        break;
+                    case 270:
+                        sx = width - 1 - ry;
+                        sy = rx;
+                        break;
+                    default:
+                        sx = rx;
+                        sy = ry;
+                }
+                int[] pixel = rgb[sy * width + sx];
+                int o = (dy * outWidth + dx) * 3;
+                out[o] = pixel[0] / 255f;
+                out[o + 1] = pixel[1] / 255f;
+                out[o + 2] = pixel[2] / 255f;
+            }
+        }
+        return out;
+    }
+
+    static float[] toArray(ByteBuffer buffer) {
+        float[] values = new float[buffer.capacity() / 4];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getFloat(i * 4);
+        }
+        return values;
+    }
+
+    private static int clampRound(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}